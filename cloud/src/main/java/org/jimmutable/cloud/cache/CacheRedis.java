@@ -11,12 +11,25 @@ public class CacheRedis extends Cache
 { 
 	private LowLevelRedisDriver redis;
 	private ApplicationId app;
+	private Format format;
 	
 	public CacheRedis(ApplicationId app, LowLevelRedisDriver redis)
 	{
-		Validator.notNull(app, redis);
+		this(app, redis, Format.JSON);
+	}
+	
+	/**
+	 * @param format
+	 *            The format StandardObjects are cached in. Reads detect the
+	 *            format of each entry, so entries written in JSON remain
+	 *            readable after switching to a binary format (e.g. Format.SMILE)
+	 */
+	public CacheRedis(ApplicationId app, LowLevelRedisDriver redis, Format format)
+	{
+		Validator.notNull(app, redis, format);
 		this.redis = redis;
 		this.app = app;
+		this.format = format;
 	}
 	
 	public void put( CacheKey key, byte[] data, long max_ttl )
@@ -37,7 +50,7 @@ public class CacheRedis extends Cache
 		if ( key == null ) return;
 		if ( data == null ) { delete(key); return; }
 		
-		redis.getSimpleCache().set(app, key, data.serialize(Format.JSON), max_ttl);
+		redis.getSimpleCache().set(app, key, data.serializeToBytes(format), max_ttl);
 	}
 
 	@Override
@@ -62,12 +75,12 @@ public class CacheRedis extends Cache
 	@SuppressWarnings("rawtypes")
 	public StandardObject getObject( CacheKey key, StandardObject default_value )
 	{
-		String str = getString(key, null);
-		if ( str == null ) return default_value;
+		byte[] bytes = getBytes(key, null);
+		if ( bytes == null ) return default_value;
 		
 		try
 		{
-			return StandardObject.deserialize(str);
+			return StandardObject.deserialize(bytes);
 		}
 		catch(Exception e)
 		{
@@ -23,6 +23,7 @@ import org.jimmutable.core.objects.common.Kind;
 import org.jimmutable.core.objects.common.ObjectId;
 import org.jimmutable.core.utils.RateLimitingEmitter;
 import org.jimmutable.core.utils.Sink;
+import org.jimmutable.core.utils.ThreadPoolSinkExecutor.BackpressurePolicy;
 import org.jimmutable.core.utils.Source.CountSource;
 
 public class TestMessagingPerformance
@@ -31,6 +32,10 @@ public class TestMessagingPerformance
 	static private QueueId queue_id = new QueueId("test-queue");
 	static private Kind kind = new Kind("foo");
 
+	// The send rate doubles every 5 seconds. Once Redis can't keep up, sends are dropped (and counted) rather than piling up
+	static private final int SEND_THREADS = 64;
+	static private final int SEND_QUEUE_SIZE = 10_000;
+
 	static public void main( String args[] )
 	{
 		CommandLineParser parser = new DefaultParser();
@@ -83,7 +88,7 @@ public class TestMessagingPerformance
 		LowLevelRedisDriver redis = new LowLevelRedisDriver();
 		ISignal signal = new SignalRedis(new ApplicationId("test"), redis);
 
-		RateLimitingEmitter message_emitter = RateLimitingEmitter.startEmitter(new CountSource(), new SendSignal(signal), 1.0f);
+		RateLimitingEmitter message_emitter = RateLimitingEmitter.startEmitter(new CountSource(), new SendSignal(signal), 1.0f, -1, SEND_THREADS, SEND_QUEUE_SIZE, BackpressurePolicy.DROP);
 		RateLimitingEmitter status_emitter = RateLimitingEmitter.startEmitter(new CountSource(), new SendSignalStatusPrinter(redis, message_emitter), 1.0f);
 	}
 
@@ -115,7 +120,7 @@ public class TestMessagingPerformance
 
 		public void onEmit( Integer count )
 		{
-			System.out.println(String.format("signal source %d: Redis Up: %b, Signal send rate: %.2f/sec", count, redis.isRedisUp(), message_emitter.getRate()));
+			System.out.println(String.format("signal source %d: Redis Up: %b, Signal send rate: %.2f/sec, sent: %,d, dropped: %,d, waiting: %,d", count, redis.isRedisUp(), message_emitter.getRate(), message_emitter.getSimpleEmittedCount(), message_emitter.getSimpleDroppedCount(), message_emitter.getSimpleQueueDepth()));
 
 			if ( count.intValue() % 5 == 0 )
 				message_emitter.setRate(message_emitter.getRate() * 2.0f);
@@ -130,7 +135,7 @@ public class TestMessagingPerformance
 		LowLevelRedisDriver redis = new LowLevelRedisDriver();
 		QueueRedis queue = new QueueRedis(new ApplicationId("test"), redis);
 
-		RateLimitingEmitter message_emitter = RateLimitingEmitter.startEmitter(new CountSource(), new SendQueue(queue), 1.0f);
+		RateLimitingEmitter message_emitter = RateLimitingEmitter.startEmitter(new CountSource(), new SendQueue(queue), 1.0f, -1, SEND_THREADS, SEND_QUEUE_SIZE, BackpressurePolicy.DROP);
 		RateLimitingEmitter status_emitter = RateLimitingEmitter.startEmitter(new CountSource(), new SendQueueStatusPrinter(redis, message_emitter, queue), 1.0f);
 	}
 
@@ -164,7 +169,7 @@ public class TestMessagingPerformance
 
 		public void onEmit( Integer count )
 		{
-			System.out.println(String.format("queue source %d: Redis Up: %b, Queue send rate: %.2f/sec, queue length: %,d", count, redis.isRedisUp(), message_emitter.getRate(), queue.getLength(queue_id, 0)));
+			System.out.println(String.format("queue source %d: Redis Up: %b, Queue send rate: %.2f/sec, sent: %,d, dropped: %,d, waiting: %,d, queue length: %,d", count, redis.isRedisUp(), message_emitter.getRate(), message_emitter.getSimpleEmittedCount(), message_emitter.getSimpleDroppedCount(), message_emitter.getSimpleQueueDepth(), queue.getLength(queue_id, 0)));
 
 			if ( count.intValue() % 5 == 0 )
 				message_emitter.setRate(message_emitter.getRate() * 2.0f);
@@ -697,27 +697,50 @@ public class LowLevelRedisDriver
 		@SuppressWarnings("rawtypes")
 		public void submitAsync( ApplicationId app, QueueId queue_id, StandardObject message )
 		{
-			if ( app == null || queue_id == null || message == null )
+			submitAsync(app, queue_id, message, Format.JSON);
+		}
+
+		/**
+		 * Submit a message to a queue (asynchronously), serialized in the given
+		 * format. Listeners detect the format of each message as it is read, so
+		 * senders may switch formats without coordinating with the receivers.
+		 * 
+		 * @param app
+		 * @param queue_id
+		 * @param message
+		 * @param format
+		 */
+		@SuppressWarnings("rawtypes")
+		public void submitAsync( ApplicationId app, QueueId queue_id, StandardObject message, Format format )
+		{
+			if ( app == null || queue_id == null || message == null || format == null )
 				return;
 
 			Runnable send_task = new Runnable()
 			{
 				public void run()
 				{
-					executeSubmit(app, queue_id, message);
+					executeSubmit(app, queue_id, message, format);
 				}
 			};
 
 			pool_send.submit(send_task);
 		}
 
-		private boolean executeSubmit( ApplicationId app, QueueId queue_id, StandardObject message )
+		private boolean executeSubmit( ApplicationId app, QueueId queue_id, StandardObject message, Format format )
 		{
 			try ( Jedis jedis = pool.getResource(); )
 			{
-				// Bulk updates require a carriage return and line feed at the end of objects
-				jedis.lpush(getKey(app, queue_id), message.serialize(Format.JSON)
-						+ "\r\n");
+				if ( format.isBinary() )
+				{
+					jedis.lpush(getKey(app, queue_id).getBytes(StandardCharsets.UTF_8), message.serializeToBytes(format));
+				}
+				else
+				{
+					// Bulk updates require a carriage return and line feed at the end of objects
+					jedis.lpush(getKey(app, queue_id), message.serialize(format)
+							+ "\r\n");
+				}
 
 				if ( r.nextInt(100) == 52 ) // about once per one hundred inserts, trim to 10_000 elements, for performance
 				{
@@ -742,10 +765,25 @@ public class LowLevelRedisDriver
 		@SuppressWarnings("rawtypes")
 		public boolean submit( ApplicationId app, QueueId queue_id, StandardObject message )
 		{
-			if ( app == null || queue_id == null || message == null )
+			return submit(app, queue_id, message, Format.JSON);
+		}
+
+		/**
+		 * Submit a message to a queue (synchronously), serialized in the given
+		 * format
+		 * 
+		 * @param app
+		 * @param queue_id
+		 * @param message
+		 * @param format
+		 */
+		@SuppressWarnings("rawtypes")
+		public boolean submit( ApplicationId app, QueueId queue_id, StandardObject message, Format format )
+		{
+			if ( app == null || queue_id == null || message == null || format == null )
 				return false;
 
-			return executeSubmit(app, queue_id, message);
+			return executeSubmit(app, queue_id, message, format);
 		}
 
 		/**
@@ -819,12 +857,13 @@ public class LowLevelRedisDriver
 			{
 				try ( Jedis jedis = pool.getResource(); )
 				{
-					String obj_str = jedis.rpop(getKey(app, queue_id));
+					// Read raw bytes, messages may be JSON or SMILE
+					byte[] obj_bytes = jedis.rpop(getKey(app, queue_id).getBytes(StandardCharsets.UTF_8));
 
-					if ( obj_str == null )
+					if ( obj_bytes == null )
 						return default_value;
 
-					return StandardObject.deserialize(obj_str);
+					return StandardObject.deserialize(obj_bytes);
 				}
 				catch ( Exception e )
 				{
@@ -27,7 +27,7 @@ public class GenericStorableAndIndexable<T>
 		StandardObject<?> obj = null;
 		try
 		{
-			obj = StandardObject.deserialize(new String(bytes));
+			obj = StandardObject.deserialize(bytes);
 		}
 		catch ( Exception e )
 		{
@@ -56,10 +56,9 @@ public class GenericStorableAndIndexable<T>
 		StandardObject<?> obj = null;
 		try
 		{
-			String data = baos.toString("UTF-8");
-			obj = StandardObject.deserialize(data);
+			obj = StandardObject.deserialize(baos.toByteArray()); // the raw bytes, which may be JSON, XML or SMILE
 		}
-		catch ( IOException e )
+		catch ( Exception e )
 		{
 			throw new ValidationException("Unable to deserialize object", e);
 		}
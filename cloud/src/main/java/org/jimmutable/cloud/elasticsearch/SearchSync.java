@@ -18,6 +18,7 @@ import org.jimmutable.cloud.utils.AppAdminUtil;
 import org.jimmutable.core.exceptions.SerializeException;
 import org.jimmutable.core.exceptions.ValidationException;
 import org.jimmutable.core.objects.common.Kind;
+import org.jimmutable.core.threading.ThreadingMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -123,7 +124,7 @@ public abstract class SearchSync
 			executor_threads /= 4;
 		}
 
-		ExecutorService executor = Executors.newFixedThreadPool(executor_threads);
+		ExecutorService executor = Executors.newFixedThreadPool(executor_threads, ThreadingMode.getDefault().createThreadFactory(false));
 		// Log the kinds it is attempting to reindex
 		for ( Kind kind : getSimpleKindsToReindex() )
 		{
@@ -3,6 +3,7 @@ package org.jimmutable.cloud.messaging.queue;
 import org.jimmutable.cloud.ApplicationId;
 import org.jimmutable.cloud.cache.redis.LowLevelRedisDriver;
 import org.jimmutable.core.objects.StandardObject;
+import org.jimmutable.core.serialization.Format;
 import org.jimmutable.core.utils.Validator;
 
 /**
@@ -19,12 +20,27 @@ public class QueueRedis implements IQueue
 {
 	private LowLevelRedisDriver redis;
 	private ApplicationId app;
+	private Format format;
 
 	public QueueRedis( ApplicationId app, LowLevelRedisDriver redis )
 	{
-		Validator.notNull(app, redis);
+		this(app, redis, Format.JSON);
+	}
+
+	/**
+	 * @param app
+	 * @param redis
+	 * @param format
+	 *            The format messages are submitted in. Listeners accept
+	 *            messages in any format, so a compact binary format (e.g.
+	 *            Format.SMILE) can be adopted one sender at a time.
+	 */
+	public QueueRedis( ApplicationId app, LowLevelRedisDriver redis, Format format )
+	{
+		Validator.notNull(app, redis, format);
 		this.app = app;
 		this.redis = redis;
+		this.format = format;
 	}
 
 	public QueueRedis( ApplicationId app )
@@ -39,7 +55,7 @@ public class QueueRedis implements IQueue
 		if ( queue == null || message == null )
 			return;
 
-		redis.getSimpleQueue().submitAsync(app, queue, message);
+		redis.getSimpleQueue().submitAsync(app, queue, message, format);
 	}
 
 	@Override
@@ -49,7 +65,7 @@ public class QueueRedis implements IQueue
 		if ( queue == null || message == null )
 			return false;
 
-		return redis.getSimpleQueue().submit(app, queue, message);
+		return redis.getSimpleQueue().submit(app, queue, message, format);
 
 	}
 
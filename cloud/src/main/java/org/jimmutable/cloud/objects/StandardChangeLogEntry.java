@@ -15,7 +15,7 @@ import org.jimmutable.cloud.elasticsearch.SearchIndexDefinition;
 import org.jimmutable.cloud.elasticsearch.SearchIndexFieldDefinition;
 import org.jimmutable.cloud.elasticsearch.SearchIndexFieldType;
 import org.jimmutable.cloud.storage.Storable;
-import org.jimmutable.core.fields.FieldArrayList;
+import org.jimmutable.core.fields.FieldObjectIdArrayList;
 import org.jimmutable.core.fields.FieldList;
 import org.jimmutable.core.objects.JimmutableBuilder;
 import org.jimmutable.core.objects.StandardImmutableObject;
@@ -49,7 +49,7 @@ public class StandardChangeLogEntry extends StandardImmutableObject<StandardChan
 	static public final FieldDefinition.Long FIELD_TIMESTAMP = new FieldDefinition.Long("timestamp", null);
 	static public final FieldDefinition.String FIELD_SHORT_DESCRIPTION = new FieldDefinition.String("short_description", "");
 	static public final FieldDefinition.String FIELD_COMMENTS = new FieldDefinition.String("comments", null);
-	static public final FieldDefinition.Collection FIELD_ATTACHMENTS = new FieldDefinition.Collection("attachments", new FieldArrayList<ObjectId>());
+	static public final FieldDefinition.Collection FIELD_ATTACHMENTS = new FieldDefinition.Collection("attachments", new FieldObjectIdArrayList());
 	static public final FieldDefinition.String FIELD_BEFORE = new FieldDefinition.String("before", null);
 	static public final FieldDefinition.String FIELD_AFTER = new FieldDefinition.String("after", null);
 
@@ -59,7 +59,7 @@ public class StandardChangeLogEntry extends StandardImmutableObject<StandardChan
 	private ObjectId change_made_by_user_id;// required
 	private String short_description;// required
 	private String comments;// optional
-	private FieldList<ObjectId> attachments = new FieldArrayList<>();
+	private FieldList<ObjectId> attachments = new FieldObjectIdArrayList();
 	private String before;// optional
 	private String after;// optional
 
@@ -103,7 +103,7 @@ public class StandardChangeLogEntry extends StandardImmutableObject<StandardChan
 		this.change_made_by_user_id = change_made_by_user_id;
 		this.short_description = short_description;
 		this.comments = comments;
-		this.attachments = new FieldArrayList<>(attachments);
+		this.attachments = new FieldObjectIdArrayList(attachments); // drops null ids, as FieldArrayList did (it can not hold them)
 		this.before = before;
 		this.after = after;
 		complete();
@@ -117,7 +117,7 @@ public class StandardChangeLogEntry extends StandardImmutableObject<StandardChan
 		this.change_made_by_user_id = change_made_by_user_id;
 		this.short_description = short_description;
 		this.comments = comments;
-		this.attachments = new FieldArrayList<>(attachments);
+		this.attachments = new FieldObjectIdArrayList(attachments); // drops null ids, as FieldArrayList did (it can not hold them)
 		if ( before != null )
 		{
 			this.before = before.toString();
@@ -139,7 +139,7 @@ public class StandardChangeLogEntry extends StandardImmutableObject<StandardChan
 		this.comments = o.getString(FIELD_COMMENTS);
 
 		// correct
-		this.attachments = o.getCollection(FIELD_ATTACHMENTS, new FieldArrayList<ObjectId>(), ObjectId.CONVERTER, ObjectParseTree.OnError.SKIP);
+		this.attachments = o.getCollection(FIELD_ATTACHMENTS, new FieldObjectIdArrayList(), ObjectId.CONVERTER, ObjectParseTree.OnError.SKIP);
 
 		this.before = o.getString(FIELD_BEFORE);
 		this.after = o.getString(FIELD_AFTER);
@@ -6,7 +6,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -23,6 +26,7 @@ import org.jimmutable.cloud.attachments.AttachmentMetaData;
 import org.jimmutable.cloud.servlet_utils.common_objects.GeneralResponseError;
 import org.jimmutable.cloud.servlets.util.ServletUtil;
 import org.jimmutable.cloud.storage.ObjectIdStorageKey;
+import org.jimmutable.cloud.storage.StorageKey;
 import org.jimmutable.core.objects.StandardObject;
 
 public class DoGetAttachments extends HttpServlet
@@ -35,7 +39,17 @@ public class DoGetAttachments extends HttpServlet
 
 	private static final Logger logger = LoggerFactory.getLogger(DoGetAttachments.class);
 
-	private void addToZipFile(ObjectIdStorageKey storage_key, ZipOutputStream zos) throws IOException
+	static private ObjectIdStorageKey createMetaDataKey(ObjectIdStorageKey storage_key)
+	{
+		return new ObjectIdStorageKey(AttachmentMetaData.KIND, storage_key.getSimpleObjectId(), AttachmentMetaData.STORABLE_EXTENSION);
+	}
+
+	/**
+	 * @param meta_data
+	 *            The metadata of every attachment in the zip file (read as one
+	 *            batch), by key
+	 */
+	private void addToZipFile(ObjectIdStorageKey storage_key, Map<StorageKey, byte[]> meta_data, ZipOutputStream zos) throws IOException
 	{
 
 		File attachment_file = File.createTempFile("attachment", "." + storage_key.getSimpleExtension().getSimpleValue());
@@ -48,7 +62,7 @@ public class DoGetAttachments extends HttpServlet
 		String file_name = storage_key.getSimpleValue();
 		try
 		{
-			AttachmentMetaData meta = (AttachmentMetaData) StandardObject.deserialize(new String(CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(new ObjectIdStorageKey(AttachmentMetaData.KIND, storage_key.getSimpleObjectId(), AttachmentMetaData.STORABLE_EXTENSION), null)));
+			AttachmentMetaData meta = (AttachmentMetaData) StandardObject.deserialize(meta_data.get(createMetaDataKey(storage_key)));
 			file_name = meta.getSimpleFileName().getSimpleValue();
 		} catch (Exception e)
 		{
@@ -119,6 +133,14 @@ public class DoGetAttachments extends HttpServlet
 				return;
 			}
 
+			List<StorageKey> meta_data_keys = new ArrayList<StorageKey>();
+			for (ObjectIdStorageKey storage_key : storage_keys)
+			{
+				meta_data_keys.add(createMetaDataKey(storage_key));
+			}
+
+			Map<StorageKey, byte[]> meta_data = CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersions(meta_data_keys);
+
 			// open the zip stream in a try resource block, no finally needed
 			try (ZipOutputStream zipStream = new ZipOutputStream(new FileOutputStream(zip_file)))
 			{
@@ -126,7 +148,7 @@ public class DoGetAttachments extends HttpServlet
 				{
 					try
 					{
-						addToZipFile(key, zipStream);
+						addToZipFile(key, meta_data, zipStream);
 					} catch (IOException e)
 					{
 						logger.error("Failed to add file to zip file!", e);
@@ -162,7 +184,7 @@ public class DoGetAttachments extends HttpServlet
 				String file_name = storage_key.getSimpleValue();
 				try
 				{
-					AttachmentMetaData meta = (AttachmentMetaData) StandardObject.deserialize(new String(CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(new ObjectIdStorageKey(AttachmentMetaData.KIND, storage_key.getSimpleObjectId(), AttachmentMetaData.STORABLE_EXTENSION), null)));
+					AttachmentMetaData meta = (AttachmentMetaData) StandardObject.deserialize(CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(createMetaDataKey(storage_key), null));
 					file_name = meta.getSimpleFileName().getSimpleValue();
 
 				} catch (Exception e)
@@ -137,9 +137,9 @@ public class DoUploadAttachments extends HttpServlet
 
 			if ( StorageUtils.doesExist(key, false) )
 			{
-				String json = new String(CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(key, null), "UTF-8");
+				byte[] bytes = CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(key, null);
 
-				StandardChangeLogEntry old_entry = (StandardChangeLogEntry) StandardObject.deserialize(json);
+				StandardChangeLogEntry old_entry = (StandardChangeLogEntry) StandardObject.deserialize(bytes);
 
 				new_attachments.addAll(old_entry.getSimpleAttachments());
 
@@ -75,7 +75,7 @@ public abstract class DoGetGeneric<T extends Storable> extends HttpServlet
 		Object more_specific_data = null;
 		try
 		{
-			T obj = (T) StandardObject.deserialize(new String(bytes));
+			T obj = (T) StandardObject.deserialize(bytes);
 			handleSuccessfulRetrieval(obj);
 			more_specific_data = getMoreSpecificData(obj, request, null);
 		}
@@ -65,7 +65,7 @@ public class DoUpsertChangeLog extends HttpServlet
 
 			ObjectId id = new ObjectId(r.readString(StandardChangeLogEntry.FIELD_ID.getSimpleFieldName().getSimpleName(), null));
 
-			StandardChangeLogEntry entry = (StandardChangeLogEntry) StandardObject.deserialize(new String(CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(new ObjectIdStorageKey(StandardChangeLogEntry.KIND, id, StandardChangeLogEntry.STORABLE_EXTENSION), null)));
+			StandardChangeLogEntry entry = (StandardChangeLogEntry) StandardObject.deserialize(CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(new ObjectIdStorageKey(StandardChangeLogEntry.KIND, id, StandardChangeLogEntry.STORABLE_EXTENSION), null));
 
 			// logger.info(entry.toJavaCode(Format.JSON_PRETTY_PRINT, "entry"));
 
@@ -69,7 +69,7 @@ public class UpsertStandardChangeLog extends HttpServlet
 		StandardChangeLogEntry entry = null;
 		try
 		{
-			entry = (StandardChangeLogEntry) StandardObject.deserialize(new String(CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(key, null)));
+			entry = (StandardChangeLogEntry) StandardObject.deserialize(CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(key, null));
 		}
 		catch ( Exception e )
 		{
@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.stream.Collectors;
@@ -41,8 +42,8 @@ public class ServletUtil
 
 	/**
 	 * 
-	 * Common json response writer to write standard immutable objects from the
-	 * HttpResponse PrintWriter
+	 * Common json response writer to write standard immutable objects to the
+	 * HttpResponse output stream
 	 * 
 	 * @param response
 	 *            the HttpServletResponse
@@ -61,10 +62,12 @@ public class ServletUtil
 	public static void writeSerializedResponse( HttpServletResponse response, StandardObject<?> obj, int http_status_code )
 	{
 
-		String json = "";
+		// Serialized straight to UTF-8 bytes (no intermediate String), before
+		// anything is written so that a failure can still change the status
+		byte[] json = new byte[0];
 		try
 		{
-			json = ObjectWriter.serialize(Format.JSON_PRETTY_PRINT, obj);
+			json = ObjectWriter.serializeToBytes(Format.JSON_PRETTY_PRINT, obj);
 		}
 		catch ( Exception e )
 		{
@@ -78,9 +81,11 @@ public class ServletUtil
 
 		response.setStatus(http_status_code);
 
+		response.setContentLength(json.length);
+
 		try
 		{
-			PrintWriter out = response.getWriter();
+			OutputStream out = response.getOutputStream();
 			out.write(json);
 			out.flush();
 		}
@@ -93,10 +98,10 @@ public class ServletUtil
 	public static void writeSerializedResponse( HttpServletResponse response, Object obj, int http_status_code )
 	{
 
-		String json = "";
+		byte[] json = new byte[0];
 		try
 		{
-			json = ObjectWriter.serialize(Format.JSON_PRETTY_PRINT, obj);
+			json = ObjectWriter.serializeToBytes(Format.JSON_PRETTY_PRINT, obj);
 		}
 		catch ( Exception e )
 		{
@@ -110,9 +115,11 @@ public class ServletUtil
 
 		response.setStatus(http_status_code);
 
+		response.setContentLength(json.length);
+
 		try
 		{
-			PrintWriter out = response.getWriter();
+			OutputStream out = response.getOutputStream();
 			out.write(json);
 			out.flush();
 		}
@@ -2,6 +2,9 @@ package org.jimmutable.cloud.storage;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.jimmutable.core.objects.common.Kind;
 import org.jimmutable.core.serialization.Format;
@@ -66,6 +69,20 @@ public interface IStorage
 	 */
 	public byte[] getCurrentVersion(StorageKey key, byte[] default_value);
 
+	/**
+	 * Get the current version of each of {@code keys}, as a batch: objects in the
+	 * cache are taken from it, and the rest are fetched concurrently (rather than
+	 * one round trip after another). Like
+	 * {@link #getCurrentVersion(StorageKey, byte[])}, no more than
+	 * {@value Storage#MAX_TRANSFER_BYTES_IN_MB} MB of any object is read.
+	 * 
+	 * @param keys
+	 *            The keys of the objects to retrieve (duplicates are ignored)
+	 * @return The bytes of each object found, by key. Keys that were not found (or
+	 *         could not be read) have no entry
+	 */
+	public Map<StorageKey, byte[]> getCurrentVersions(Collection<StorageKey> keys);
+
 	/**
 	 * Get the current version of {@code key}. There is no limit on the size of the
 	 * object to be retrieved. {@code sink} will be {@link OutputStream#flush()
@@ -89,6 +106,54 @@ public interface IStorage
 	 */
 	public boolean delete(StorageKey key);
 
+	/**
+	 * {@link #upsert(StorageKey, byte[], boolean)} without waiting for it to
+	 * finish. The upsert runs on an I/O executor shared by every storage, so the
+	 * number of writes in flight at once is bounded.
+	 * 
+	 * @return A future of what upsert returns
+	 */
+	public CompletableFuture<Boolean> upsertAsync(StorageKey key, byte bytes[], boolean hint_content_likely_to_be_compressible);
+
+	/**
+	 * {@link #delete(StorageKey)} without waiting for it to finish, on the same
+	 * shared I/O executor as {@link #upsertAsync(StorageKey, byte[], boolean)}
+	 * 
+	 * @return A future of what delete returns
+	 */
+	public CompletableFuture<Boolean> deleteAsync(StorageKey key);
+
+	/**
+	 * Upsert many objects concurrently, as
+	 * {@link #upsertAll(Map, boolean, int)} with up to
+	 * {@link Storage#IO_CONCURRENCY} writes at once.
+	 * 
+	 * @return true if every object was updated/inserted, else false
+	 */
+	public boolean upsertAll(Map<StorageKey, byte[]> objects, boolean hint_content_likely_to_be_compressible);
+
+	/**
+	 * Upsert many objects concurrently (on the shared I/O executor), returning
+	 * once they have all been written. The cache is invalidated once for the
+	 * whole batch, after the writes, rather than once per object.
+	 * 
+	 * It is safe to call from a callback of
+	 * {@link #upsertAsync(StorageKey, byte[], boolean)} (i.e. on a thread of the
+	 * I/O executor), in which case the objects are written one at a time on the
+	 * calling thread.
+	 * 
+	 * @param objects
+	 *            The bytes to put in storage, by key. Each must not be larger than
+	 *            {@value Storage#MAX_TRANSFER_BYTES_IN_MB} MB.
+	 * @param hint_content_likely_to_be_compressible
+	 * @param max_concurrency
+	 *            The most writes of this call in flight at once (the size of the
+	 *            I/O executor also limits them)
+	 * 
+	 * @return true if every object was updated/inserted, else false
+	 */
+	public boolean upsertAll(Map<StorageKey, byte[]> objects, boolean hint_content_likely_to_be_compressible, int max_concurrency);
+
 	/**
 	 * Scan the {@code IStorage} system for all keys of {@link Kind} {@code kind}.
 	 * Processing of the found keys is done in a managed thread pool. The thread
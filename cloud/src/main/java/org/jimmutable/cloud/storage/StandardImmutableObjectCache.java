@@ -221,7 +221,7 @@ public class StandardImmutableObjectCache
 
 		try
 		{
-			standard_immutable_object = (StandardImmutableObject) ObjectParseTree.deserialize(new String(bytes));
+			standard_immutable_object = (StandardImmutableObject) ObjectParseTree.deserialize(bytes);
 		}
 		catch ( Exception e )
 		{
@@ -3,6 +3,19 @@ package org.jimmutable.cloud.storage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
@@ -15,6 +28,7 @@ import org.jimmutable.core.objects.common.Kind;
 import org.jimmutable.core.objects.common.ObjectId;
 import org.jimmutable.core.serialization.Format;
 import org.jimmutable.core.serialization.writer.ObjectWriter;
+import org.jimmutable.core.threading.DaemonThreadFactory;
 import org.jimmutable.core.threading.OperationPool;
 import org.jimmutable.core.threading.OperationRunnable;
 import org.jimmutable.core.utils.IOUtils;
@@ -36,6 +50,26 @@ public abstract class Storage implements IStorage
 	 */
 	static public final int MAX_TRANSFER_BYTES_IN_MB = 25;
 	static public final int MAX_TRANSFER_BYTES_IN_BYTES = MAX_TRANSFER_BYTES_IN_MB * 1024 * 1024;
+	/**
+	 * The number of scanned keys (per handler thread) that may wait to be
+	 * handled before a scan stops listing and handles keys itself
+	 */
+	static public final int SCAN_QUEUE_SIZE_PER_THREAD = 64;
+	/**
+	 * The maximum number of objects {@link #getCurrentVersions(Collection)} reads
+	 * at once
+	 */
+	static public final int BATCH_READ_CONCURRENCY = 16;
+	/**
+	 * The number of threads in the I/O executor that every Storage shares for
+	 * {@link #upsertAsync(StorageKey, byte[], boolean)},
+	 * {@link #deleteAsync(StorageKey)} and {@link #upsertAll(Map, boolean, int)},
+	 * and so the most of those operations in flight at once. Set by the system
+	 * property jimmutable.storage.io_concurrency (default 32)
+	 */
+	static public final int IO_CONCURRENCY = Math.max(1, Integer.getInteger("jimmutable.storage.io_concurrency", 32));
+	static private final ThreadLocal<Boolean> ON_IO_THREAD = new ThreadLocal<>();
+	static private final ExecutorService IO_EXECUTOR = Executors.newFixedThreadPool(IO_CONCURRENCY, createIOThreadFactory());
 	protected StandardImmutableObjectCache cache = null;
 	static private final Logger LOGGER = LoggerFactory.getLogger(Storage.class);
 
@@ -77,7 +111,7 @@ public abstract class Storage implements IStorage
 		if ( isReadOnly() )
 			return false;
 
-		return upsert(obj.createStorageKey(), ObjectWriter.serialize(format, obj).getBytes(), true);
+		return upsert(obj.createStorageKey(), ObjectWriter.serializeToBytes(format, obj), true);
 	}
 
 	@Override
@@ -88,7 +122,7 @@ public abstract class Storage implements IStorage
 		if ( isReadOnly() )
 			return false;
 
-		boolean successful = upsertStreaming(key, new ByteArrayInputStream(bytes), hint_content_likely_to_be_compressible);
+		boolean successful = writeBytes(key, bytes, hint_content_likely_to_be_compressible);
 		if ( successful )
 		{
 			removeFromCache(key);
@@ -96,6 +130,146 @@ public abstract class Storage implements IStorage
 		return successful;
 	}
 
+	/**
+	 * Store {@code bytes} under {@code key} without touching the cache (the caller
+	 * invalidates it). The default implementation is upsertStreaming.
+	 * 
+	 * @return true if the bytes were stored, else false
+	 */
+	protected boolean writeBytes( final StorageKey key, final byte[] bytes, final boolean hint_content_likely_to_be_compressible )
+	{
+		return upsertStreaming(key, new ByteArrayInputStream(bytes), hint_content_likely_to_be_compressible);
+	}
+
+	@Override
+	public CompletableFuture<Boolean> upsertAsync( final StorageKey key, final byte[] bytes, final boolean hint_content_likely_to_be_compressible )
+	{
+		Validator.notNull(key, bytes);
+		Validator.max(bytes.length, MAX_TRANSFER_BYTES_IN_BYTES);
+
+		return CompletableFuture.supplyAsync(() -> upsert(key, bytes, hint_content_likely_to_be_compressible), IO_EXECUTOR);
+	}
+
+	@Override
+	public CompletableFuture<Boolean> deleteAsync( final StorageKey key )
+	{
+		Validator.notNull(key);
+
+		return CompletableFuture.supplyAsync(() -> delete(key), IO_EXECUTOR);
+	}
+
+	/**
+	 * The threads of the I/O executor know they are, so that upsertAll never
+	 * waits on the executor from one of its own threads
+	 */
+	static private ThreadFactory createIOThreadFactory()
+	{
+		ThreadFactory daemon_threads = new DaemonThreadFactory();
+
+		return task -> daemon_threads.newThread(() ->
+		{
+			ON_IO_THREAD.set(Boolean.TRUE);
+			task.run();
+		});
+	}
+
+	@Override
+	public boolean upsertAll( final Map<StorageKey, byte[]> objects, final boolean hint_content_likely_to_be_compressible )
+	{
+		return upsertAll(objects, hint_content_likely_to_be_compressible, IO_CONCURRENCY);
+	}
+
+	@Override
+	public boolean upsertAll( final Map<StorageKey, byte[]> objects, final boolean hint_content_likely_to_be_compressible, final int max_concurrency )
+	{
+		Validator.notNull(objects);
+		Validator.containsNoNulls(objects.keySet());
+		Validator.containsNoNulls(objects.values());
+		Validator.min(max_concurrency, 1);
+
+		for ( byte[] bytes : objects.values() )
+		{
+			Validator.max(bytes.length, MAX_TRANSFER_BYTES_IN_BYTES);
+		}
+
+		if ( isReadOnly() )
+			return false;
+
+		Queue<StorageKey> written = new ConcurrentLinkedQueue<>();
+
+		if ( ON_IO_THREAD.get() != null )
+		{
+			// Every I/O thread could be waiting in here, so write on this one
+			for ( Map.Entry<StorageKey, byte[]> entry : objects.entrySet() )
+			{
+				writeEntry(entry.getKey(), entry.getValue(), hint_content_likely_to_be_compressible, written);
+			}
+		}
+		else
+		{
+			// This thread hands out the writes, so it never waits for a write
+			// that has no I/O thread to run on
+			Semaphore permits = new Semaphore(max_concurrency);
+			boolean interrupted = false;
+
+			for ( Map.Entry<StorageKey, byte[]> entry : objects.entrySet() )
+			{
+				try
+				{
+					permits.acquire();
+				}
+				catch ( InterruptedException e )
+				{
+					interrupted = true;
+					break;
+				}
+
+				IO_EXECUTOR.execute(() ->
+				{
+					try
+					{
+						writeEntry(entry.getKey(), entry.getValue(), hint_content_likely_to_be_compressible, written);
+					}
+					finally
+					{
+						permits.release();
+					}
+				});
+			}
+
+			permits.acquireUninterruptibly(max_concurrency); // the last writes, before the cache is invalidated
+
+			if ( interrupted )
+			{
+				Thread.currentThread().interrupt();
+				LOGGER.error("Interrupted while upserting a batch");
+			}
+		}
+
+		if ( isCacheEnabled() )
+		{
+			for ( StorageKey key : written )
+			{
+				removeFromCache(key);
+			}
+		}
+
+		return written.size() == objects.size();
+	}
+
+	private void writeEntry( final StorageKey key, final byte[] bytes, final boolean hint_content_likely_to_be_compressible, final Queue<StorageKey> written )
+	{
+		try
+		{
+			if ( writeBytes(key, bytes, hint_content_likely_to_be_compressible) )
+				written.add(key);
+		}
+		catch ( Exception e )
+		{
+			LOGGER.error("Exception on upsert of " + key, e);
+		}
+	}
+
 	@Override
 	@SuppressWarnings("resource")
 	public byte[] getCurrentVersion( final StorageKey key, final byte[] default_value )
@@ -120,7 +294,7 @@ public abstract class Storage implements IStorage
 			{
 				try
 				{
-					StandardObject deserialize = StandardObject.deserialize(new String(bytes.toByteArray(), "UTF8"));
+					StandardObject deserialize = StandardObject.deserialize(bytes.toByteArray());
 					if ( deserialize instanceof StandardImmutableObject )
 					{
 						addToStandardImmutableObjectCache(key.getSimpleKind(), new ObjectId(key.getSimpleName().getSimpleValue()), (StandardImmutableObject) deserialize);
@@ -139,6 +313,86 @@ public abstract class Storage implements IStorage
 		}
 	}
 
+	/**
+	 * Cache hits are taken first, then the misses are fetched as one batch by
+	 * {@link #fetchCurrentVersions(List, Map)}
+	 */
+	@Override
+	public Map<StorageKey, byte[]> getCurrentVersions( final Collection<StorageKey> keys )
+	{
+		Validator.notNull(keys);
+		Validator.containsNoNulls(keys);
+
+		Map<StorageKey, byte[]> results = new ConcurrentHashMap<>();
+		List<StorageKey> misses = new ArrayList<>();
+
+		for ( StorageKey key : new LinkedHashSet<>(keys) )
+		{
+			byte[] cached = getComplexCurrentVersionFromCache(key, null);
+
+			if ( cached != null )
+				results.put(key, cached);
+			else
+				misses.add(key);
+		}
+
+		if ( !misses.isEmpty() )
+		{
+			fetchCurrentVersions(misses, results);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Fetch the current version of objects that were not in the cache, adding
+	 * each one found to {@code results} (which is thread safe). The default
+	 * implementation reads up to {@link #BATCH_READ_CONCURRENCY} keys at once
+	 * using getCurrentVersionStreaming.
+	 * 
+	 * @param keys
+	 *            The keys to fetch (no duplicates)
+	 * @param results
+	 *            Where to put the bytes of each object found
+	 */
+	protected void fetchCurrentVersions( final List<StorageKey> keys, final Map<StorageKey, byte[]> results )
+	{
+		List<OperationRunnable> reads = new ArrayList<>();
+
+		for ( StorageKey key : keys )
+		{
+			reads.add(new CurrentVersionReader(key, results));
+		}
+
+		OperationRunnable.execute(new OperationPool(reads, Math.min(keys.size(), BATCH_READ_CONCURRENCY)), OperationRunnable.Result.ERROR);
+	}
+
+	/**
+	 * Add the bytes of a (JSON or XML) StandardImmutableObject just read from
+	 * storage to the cache, if the cache is enabled
+	 */
+	protected void addCurrentVersionToCache( final StorageKey key, final byte[] bytes )
+	{
+		if ( !isCacheEnabled() )
+			return;
+
+		if ( !key.getSimpleExtension().equals(StorageKeyExtension.XML) && !key.getSimpleExtension().equals(StorageKeyExtension.JSON) )
+			return;
+
+		try
+		{
+			StandardObject standard_obj = StandardObject.deserialize(bytes);
+			if ( standard_obj instanceof StandardImmutableObject )
+			{
+				addToStandardImmutableObjectCache(key.getSimpleKind(), new ObjectId(key.getSimpleName().getSimpleValue()), (StandardImmutableObject) standard_obj);
+			}
+		}
+		catch ( Exception e )
+		{
+			LOGGER.trace("Failure to make into a StandardImmutableObject " + key.toString() + ". This object is not in the cache.", e);
+		}
+	}
+
 	public boolean exists( Storable obj, boolean default_value )
 	{
 		if ( obj == null )
@@ -194,7 +448,7 @@ public abstract class Storage implements IStorage
 	private boolean scanImpl( final Kind kind, final StorageKeyName prefix, final StorageKeyHandler handler, final int num_handler_threads, final boolean only_object_ids )
 	{
 		Scanner scanner = createScanner(kind, prefix, only_object_ids);
-		OperationPool pool = new OperationPool(scanner, num_handler_threads);
+		OperationPool pool = new OperationPool(scanner, num_handler_threads, num_handler_threads * SCAN_QUEUE_SIZE_PER_THREAD); // a full queue slows the scanner down
 
 		scanner.setSink(( StorageKey key ) ->
 		{
@@ -255,6 +509,46 @@ public abstract class Storage implements IStorage
 		}
 	}
 
+	/**
+	 * Reads one key of a batch (see fetchCurrentVersions). Always succeeds, so
+	 * that one missing object does not stop the rest of the batch
+	 */
+	private class CurrentVersionReader extends OperationRunnable
+	{
+		private final StorageKey key;
+		private final Map<StorageKey, byte[]> results;
+
+		public CurrentVersionReader( final StorageKey key, final Map<StorageKey, byte[]> results )
+		{
+			this.key = key;
+			this.results = results;
+		}
+
+		@Override
+		@SuppressWarnings("resource")
+		protected Result performOperation() throws Exception
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+			try
+			{
+				if ( getCurrentVersionStreaming(key, new IOUtils.LimitBytesOutputStream(bytes, MAX_TRANSFER_BYTES_IN_BYTES)) )
+				{
+					byte[] result = bytes.toByteArray();
+
+					results.put(key, result);
+					addCurrentVersionToCache(key, result);
+				}
+			}
+			catch ( Exception e )
+			{
+				LOGGER.error(String.format("Failed to retrieve %s", key), e);
+			}
+
+			return Result.SUCCESS;
+		}
+	}
+
 	static private class StorageKeyHandlerWorker extends OperationRunnable
 	{
 		private final StorageKeyHandler handler;
@@ -79,16 +79,33 @@ public class StorageDevLocalFileSystem extends Storage
 		if ( isReadOnly() )
 			return false;
 
+		boolean successful = writeFile(key, source);
+		if ( successful && isCacheEnabled() )
+		{
+			removeFromCache(key.getSimpleKind(), new ObjectId(key.getSimpleName().getSimpleValue()));
+		}
+		return successful;
+	}
+
+	@Override
+	protected boolean writeBytes( final StorageKey key, final byte[] bytes, final boolean hint_content_likely_to_be_compressible )
+	{
+		Validator.notNull(key, bytes);
+
+		if ( isReadOnly() )
+			return false;
+
+		return writeFile(key, new ByteArrayInputStream(bytes));
+	}
+
+	private boolean writeFile( final StorageKey key, final InputStream source )
+	{
 		final File dest_file = new File(root.getAbsolutePath() + "/" + key.toString());
 		dest_file.getParentFile().mkdirs(); // Make sure the directories exist
 
 		try ( OutputStream fout = new BufferedOutputStream(new FileOutputStream(dest_file)) )
 		{
 			IOUtils.transferAllBytes(source, fout);
-			if ( isCacheEnabled() )
-			{
-				removeFromCache(key.getSimpleKind(), new ObjectId(key.getSimpleName().getSimpleValue()));
-			}
 			return true;
 		}
 		catch ( Exception e )
@@ -65,7 +65,7 @@ public class StorageUtils
 				return default_value;
 			}
 
-			return (T) StandardObject.deserialize(new String(bytes, CHARSET_NAME));
+			return (T) StandardObject.deserialize(bytes);
 		}
 		catch ( Exception e )
 		{
@@ -2,6 +2,9 @@ package org.jimmutable.cloud.storage;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.jimmutable.core.objects.common.Kind;
 import org.jimmutable.core.serialization.Format;
@@ -34,6 +37,12 @@ public class StubStorage implements IStorage
 		throw new RuntimeException(ERROR_MESSAGE);
 	}
 
+	@Override
+	public Map<StorageKey, byte[]> getCurrentVersions(Collection<StorageKey> keys)
+	{
+		throw new RuntimeException(ERROR_MESSAGE);
+	}
+
 	@Override
 	public boolean getCurrentVersionStreaming(StorageKey key, OutputStream sink)
 	{
@@ -46,6 +55,30 @@ public class StubStorage implements IStorage
 		throw new RuntimeException(ERROR_MESSAGE);
 	}
 
+	@Override
+	public CompletableFuture<Boolean> upsertAsync(StorageKey key, byte[] bytes, boolean hint_content_likely_to_be_compressible)
+	{
+		throw new RuntimeException(ERROR_MESSAGE);
+	}
+
+	@Override
+	public CompletableFuture<Boolean> deleteAsync(StorageKey key)
+	{
+		throw new RuntimeException(ERROR_MESSAGE);
+	}
+
+	@Override
+	public boolean upsertAll(Map<StorageKey, byte[]> objects, boolean hint_content_likely_to_be_compressible)
+	{
+		throw new RuntimeException(ERROR_MESSAGE);
+	}
+
+	@Override
+	public boolean upsertAll(Map<StorageKey, byte[]> objects, boolean hint_content_likely_to_be_compressible, int max_concurrency)
+	{
+		throw new RuntimeException(ERROR_MESSAGE);
+	}
+
 	@Override
 	public boolean scan(Kind kind, StorageKeyHandler handler, int num_handler_threads)
 	{
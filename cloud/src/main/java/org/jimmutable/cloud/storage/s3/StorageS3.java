@@ -9,10 +9,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 import org.jimmutable.cloud.ApplicationId;
 import org.jimmutable.cloud.storage.GenericStorageKey;
@@ -155,7 +157,7 @@ public class StorageS3 extends Storage
 		if ( isReadOnly() )
 			return false;
 
-		return upsert(obj.createStorageKey(), ObjectWriter.serialize(format, obj).getBytes(), true);
+		return upsert(obj.createStorageKey(), ObjectWriter.serializeToBytes(format, obj), true);
 	}
 
 	public boolean upsert( String bucket_name, Storable obj, Format format )
@@ -165,7 +167,7 @@ public class StorageS3 extends Storage
 		if ( isReadOnly() )
 			return false;
 
-		return upsert(bucket_name, obj.createStorageKey(), ObjectWriter.serialize(format, obj).getBytes(), true);
+		return upsert(bucket_name, obj.createStorageKey(), ObjectWriter.serializeToBytes(format, obj), true);
 	}
 
 	public boolean upsert( String bucket_name, StorageKey key, Storable obj, Format format )
@@ -175,7 +177,7 @@ public class StorageS3 extends Storage
 		if ( isReadOnly() )
 			return false;
 
-		return upsert(bucket_name, key, ObjectWriter.serialize(format, obj).getBytes(), true);
+		return upsert(bucket_name, key, ObjectWriter.serializeToBytes(format, obj), true);
 	}
 
 	// TODO Use hint_content_likely_to_be_compressible to auto-gzip contents. Must
@@ -194,21 +196,33 @@ public class StorageS3 extends Storage
 		if ( isReadOnly() )
 			return false;
 
-		try
+		boolean successful = writeBytes(bucket_name, key, bytes);
+		if ( successful && isCacheEnabled() )
 		{
-			InputStream bin = new ByteArrayInputStream(bytes);
-			ExecutorService executor = Executors.newCachedThreadPool();
+			removeFromCache(key.getSimpleKind(), new ObjectId(key.getSimpleName().getSimpleValue()));
+		}
+		return successful;
+	}
 
+	@Override
+	protected boolean writeBytes( StorageKey key, byte[] bytes, boolean hint_content_likely_to_be_compressible )
+	{
+		if ( isReadOnly() )
+			return false;
+
+		return writeBytes(bucket_name, key, bytes);
+	}
+
+	private boolean writeBytes( String bucket_name, StorageKey key, byte[] bytes )
+	{
+		try
+		{
 			PutObjectRequest putObjectRequest = PutObjectRequest.builder()
 					.bucket(bucket_name)
 					.key(key.toString())
 					.contentLength((long) bytes.length)
 					.build();
-			client.putObject(putObjectRequest, AsyncRequestBody.fromInputStream(bin, (long) bytes.length, executor)).join();
-			if ( isCacheEnabled() )
-			{
-				removeFromCache(key.getSimpleKind(), new ObjectId(key.getSimpleName().getSimpleValue()));
-			}
+			client.putObject(putObjectRequest, AsyncRequestBody.fromBytes(bytes)).join();
 			return true;
 		}
 		catch ( Exception e )
@@ -371,7 +385,7 @@ public class StorageS3 extends Storage
 				{
 					if ( key.getSimpleExtension().equals(StorageKeyExtension.XML) || key.getSimpleExtension().equals(StorageKeyExtension.JSON) )
 					{
-						StandardObject standard_obj = StandardObject.deserialize(new String(obj));
+						StandardObject standard_obj = StandardObject.deserialize(obj);
 						if ( standard_obj instanceof StandardImmutableObject )
 						{
 							addToStandardImmutableObjectCache(key.getSimpleKind(), new ObjectId(key.getSimpleName().getSimpleValue()), (StandardImmutableObject) standard_obj);
@@ -447,6 +461,65 @@ public class StorageS3 extends Storage
 		return false;
 	}
 
+	/**
+	 * Issues the GETs of a batch asynchronously, with at most
+	 * BATCH_READ_CONCURRENCY of them outstanding at once, rather than
+	 * blocking a thread on each one. Like getCurrentVersion, each GET asks for
+	 * at most MAX_TRANSFER_BYTES_IN_BYTES bytes, so a larger object comes back
+	 * truncated, and a batch never holds more than keys.size() times that
+	 */
+	@Override
+	protected void fetchCurrentVersions( final List<StorageKey> keys, final Map<StorageKey, byte[]> results )
+	{
+		Semaphore outstanding = new Semaphore(BATCH_READ_CONCURRENCY);
+		List<CompletableFuture<?>> requests = new ArrayList<>();
+
+		try
+		{
+			for ( StorageKey key : keys )
+			{
+				outstanding.acquire();
+
+				GetObjectRequest request = GetObjectRequest.builder()
+						.bucket(bucket_name)
+						.key(key.toString())
+						.range("bytes=0-" + (MAX_TRANSFER_BYTES_IN_BYTES - 1)) // inclusive range
+						.build();
+
+				requests.add(client.getObject(request, AsyncResponseTransformer.toBytes()).whenComplete(( response, e ) ->
+				{
+					outstanding.release();
+
+					if ( e != null )
+					{
+						if ( e.getCause() instanceof NoSuchKeyException )
+							LOGGER.debug(String.format("%s does not exist in S3", key));
+						else
+							LOGGER.error(String.format("Failed to retrieve %s from S3!", key), e);
+						return;
+					}
+
+					results.put(key, response.asByteArrayUnsafe());
+				}));
+			}
+
+			CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			LOGGER.error("Interrupted while retrieving a batch from S3", e);
+		}
+
+		// Outside the SDK's completion threads
+		for ( StorageKey key : keys )
+		{
+			byte[] bytes = results.get(key);
+			if ( bytes != null )
+				addCurrentVersionToCache(key, bytes);
+		}
+	}
+
 	/**
 	 * old getCurrentVersionStreaming method. This method takes longer and may not
 	 * be needed for now. We may need to
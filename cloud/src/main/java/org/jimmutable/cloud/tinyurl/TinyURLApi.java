@@ -43,9 +43,9 @@ public class TinyURLApi
 			ObjectId id = new ObjectId(map.readAsAtom(TinyUrlResult.SEARCH_FIELD_ID.getSimpleFieldName(), null));
 			try
 			{
-				String json = new String(CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(new ObjectIdStorageKey(TinyUrlResult.KIND, id, StorageKeyExtension.JSON), null), "UTF-8");
+				byte[] bytes = CloudExecutionEnvironment.getSimpleCurrent().getSimpleStorage().getCurrentVersion(new ObjectIdStorageKey(TinyUrlResult.KIND, id, StorageKeyExtension.JSON), null);
 
-				TinyUrlResult entry = (TinyUrlResult) StandardObject.deserialize(json);
+				TinyUrlResult entry = (TinyUrlResult) StandardObject.deserialize(bytes);
 
 				return entry;
 
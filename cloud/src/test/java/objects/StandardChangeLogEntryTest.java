@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+
 import org.jimmutable.cloud.StubTest;
 import org.jimmutable.cloud.attachments.AttachmentMetaData;
 import org.jimmutable.cloud.attachments.DownloadFileName;
@@ -40,6 +42,21 @@ public class StandardChangeLogEntryTest extends StubTest
 		assertEquals(obj.getSimpleAttachments().size(), 0);
 	}
 
+	@Test
+	public void nullAttachmentsAreDropped()
+	{
+		ObjectId id = new ObjectId("0000-0000-0000-0000");
+
+		FieldList<ObjectId> attachments = new FieldArrayList<ObjectId>();
+		attachments.add(new ObjectId(5));
+		attachments.add(new ObjectId(6));
+		attachments.set(0, null);
+
+		StandardChangeLogEntry standard_change_log_entry = new StandardChangeLogEntry(id, new ObjectReference(new Kind("thing"), id), 0, new ObjectId("0000-0000-0000-0001"), "Short", null, attachments, null, null);
+
+		assertEquals(Arrays.asList(new ObjectId(6)), standard_change_log_entry.getSimpleAttachments());
+	}
+
 	@Test
 	public void serializationAll()
 	{
@@ -15,7 +15,15 @@ import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jimmutable.cloud.ApplicationId;
@@ -169,6 +177,120 @@ public class StorageDevLocalFileSystemTest extends IntegrationTest
         }
 	}
 
+	@Test
+	public void testGetCurrentVersions()
+	{
+		ObjectIdStorageKey one = new ObjectIdStorageKey("eta/0000-0000-0000-0001.txt");
+		ObjectIdStorageKey two = new ObjectIdStorageKey("eta/0000-0000-0000-0002.txt");
+		ObjectIdStorageKey missing = new ObjectIdStorageKey("eta/0000-0000-0000-0003.txt");
+
+		sdlfs.upsert(one, "one".getBytes(), false);
+		sdlfs.upsert(two, "two".getBytes(), false);
+
+		Map<StorageKey, byte[]> versions = sdlfs.getCurrentVersions(Arrays.asList(one, two, missing, one));
+
+		assertEquals(2, versions.size());
+		assertEquals("one", new String(versions.get(one)));
+		assertEquals("two", new String(versions.get(two)));
+		assertFalse(versions.containsKey(missing));
+
+		assertTrue(sdlfs.getCurrentVersions(Collections.emptyList()).isEmpty());
+	}
+
+	@Test
+	public void testUpsertAll()
+	{
+		Map<StorageKey, byte[]> objects = new HashMap<>();
+		for ( int i = 0; i < 100; i++ )
+		{
+			objects.put(new ObjectIdStorageKey(String.format("theta/0000-0000-0000-%04d.txt", i)), ("object " + i).getBytes());
+		}
+
+		assertTrue(sdlfs.upsertAll(objects, false));
+
+		Map<StorageKey, byte[]> versions = sdlfs.getCurrentVersions(objects.keySet());
+		assertEquals(100, versions.size());
+		for ( StorageKey key : objects.keySet() )
+		{
+			assertEquals(new String(objects.get(key)), new String(versions.get(key)));
+		}
+	}
+
+	@Test
+	public void testUpsertAllConcurrencyLimit()
+	{
+		AtomicInteger in_flight = new AtomicInteger();
+		AtomicInteger max_in_flight = new AtomicInteger();
+
+		StorageDevLocalFileSystem storage = new StorageDevLocalFileSystem(false, applicationId)
+		{
+			protected boolean writeBytes( StorageKey key, byte[] bytes, boolean hint_content_likely_to_be_compressible )
+			{
+				max_in_flight.accumulateAndGet(in_flight.incrementAndGet(), Math::max);
+
+				try
+				{
+					Thread.sleep(5);
+					return super.writeBytes(key, bytes, hint_content_likely_to_be_compressible);
+				}
+				catch ( InterruptedException e )
+				{
+					return false;
+				}
+				finally
+				{
+					in_flight.decrementAndGet();
+				}
+			}
+		};
+
+		Map<StorageKey, byte[]> objects = new HashMap<>();
+		for ( int i = 0; i < 40; i++ )
+		{
+			objects.put(new ObjectIdStorageKey(String.format("kappa/0000-0000-0000-%04d.txt", i)), ("object " + i).getBytes());
+		}
+
+		assertTrue(storage.upsertAll(objects, false, 3));
+		assertTrue(max_in_flight.get() <= 3);
+		assertEquals(40, storage.getCurrentVersions(objects.keySet()).size());
+	}
+
+	@Test
+	public void testUpsertAllFromIOThreads() throws Exception
+	{
+		// Enough callbacks to occupy every I/O thread, each of which upserts a batch
+		List<CompletableFuture<Boolean>> batches = new ArrayList<>();
+
+		for ( int i = 0; i < Storage.IO_CONCURRENCY * 2; i++ )
+		{
+			Map<StorageKey, byte[]> objects = new HashMap<>();
+			for ( int j = 0; j < 4; j++ )
+			{
+				objects.put(new ObjectIdStorageKey(String.format("lambda/0000-0000-%04d-%04d.txt", i, j)), "batch".getBytes());
+			}
+
+			ObjectIdStorageKey key = new ObjectIdStorageKey(String.format("lambda/0000-0000-0000-9%03d.txt", i));
+			batches.add(sdlfs.upsertAsync(key, "first".getBytes(), false).thenApply(ok -> sdlfs.upsertAll(objects, false)));
+		}
+
+		for ( CompletableFuture<Boolean> batch : batches )
+		{
+			assertTrue(batch.get(60, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void testUpsertAndDeleteAsync()
+	{
+		ObjectIdStorageKey key = new ObjectIdStorageKey("iota/0000-0000-0000-0001.txt");
+
+		assertTrue(sdlfs.upsertAsync(key, "async".getBytes(), false).join());
+		assertEquals("async", new String(sdlfs.getCurrentVersion(key, (byte[]) null)));
+
+		assertTrue(sdlfs.deleteAsync(key).join());
+		assertFalse(sdlfs.exists(key, false));
+	}
+
 	@Test
 	public void testDelete()
 	{
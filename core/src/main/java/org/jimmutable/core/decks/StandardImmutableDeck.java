@@ -32,7 +32,7 @@ abstract public class StandardImmutableDeck<T extends StandardImmutableDeck<T, E
     @Override
     public int hashCode()
     {
-        return getSimpleContents().hashCode();
+        return cachedHashCode(deck -> deck.getSimpleContents().hashCode());
     }
 
     @Override
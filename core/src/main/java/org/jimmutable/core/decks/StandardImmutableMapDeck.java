@@ -24,7 +24,7 @@ abstract public class StandardImmutableMapDeck<T extends StandardImmutableMapDec
     @Override
     public int hashCode()
     {
-        return getSimpleContents().hashCode();
+        return cachedHashCode(deck -> deck.getSimpleContents().hashCode());
     }
 
     @Override
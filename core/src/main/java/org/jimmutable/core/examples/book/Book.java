@@ -14,6 +14,7 @@ import org.jimmutable.core.serialization.FieldName;
 import org.jimmutable.core.serialization.TypeName;
 import org.jimmutable.core.serialization.reader.ObjectParseTree;
 import org.jimmutable.core.serialization.reader.ReadAs;
+import org.jimmutable.core.serialization.reader.StreamReader;
 import org.jimmutable.core.serialization.writer.ObjectWriter;
 import org.jimmutable.core.serialization.writer.WriteAs;
 import org.jimmutable.core.utils.Comparison;
@@ -56,6 +57,24 @@ final public class Book extends StandardImmutableObject<Book>
 		authors = t.getCollection(FIELD_AUTHORS, new FieldArrayList(), ReadAs.STRING, ObjectParseTree.OnError.SKIP);
 	}
 	
+	public Book(StreamReader r)
+	{
+		title = FIELD_TITLE.getSimpleUnsetValue();
+		page_count = FIELD_PAGE_COUNT.getSimpleUnsetValue();
+		isbn = FIELD_ISBN.getSimpleUnsetValue();
+		binding = FIELD_BINDING.getSimpleUnsetValue();
+		authors = new FieldArrayList();
+		
+		while ( r.nextField() )
+		{
+			if ( r.isField(FIELD_TITLE) ) title = r.readString(FIELD_TITLE);
+			else if ( r.isField(FIELD_PAGE_COUNT) ) page_count = r.readInt(FIELD_PAGE_COUNT);
+			else if ( r.isField(FIELD_ISBN) ) isbn = r.readString(FIELD_ISBN);
+			else if ( r.isField(FIELD_BINDING) ) binding = r.readEnum(FIELD_BINDING);
+			else if ( r.isField(FIELD_AUTHORS) ) r.readCollection(authors, ReadAs.STRING, ObjectParseTree.OnError.SKIP);
+		}
+	}
+	
 	@Override
 	public void write(ObjectWriter writer) 
 	{
@@ -152,7 +171,7 @@ final public class Book extends StandardImmutableObject<Book>
 
 	public int hashCode() 
 	{
-		return Objects.hash(getSimpleTitle(), getSimplePageCount(), getOptionalISBN(null), getSimpleBinding());
+		return cachedHashCode(book -> Objects.hash(book.getSimpleTitle(), book.getSimplePageCount(), book.getOptionalISBN(null), book.getSimpleBinding()));
 	}
 
 	public boolean equals(Object obj) 
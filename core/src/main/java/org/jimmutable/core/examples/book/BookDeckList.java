@@ -4,8 +4,8 @@ import java.util.Collection;
 import java.util.Collections;
 
 import org.jimmutable.core.decks.StandardImmutableListDeck;
-import org.jimmutable.core.fields.FieldArrayList;
 import org.jimmutable.core.fields.FieldList;
+import org.jimmutable.core.fields.FieldPersistentList;
 import org.jimmutable.core.serialization.FieldDefinition;
 import org.jimmutable.core.serialization.FieldName;
 import org.jimmutable.core.serialization.TypeName;
@@ -25,7 +25,7 @@ import org.jimmutable.core.utils.Validator;
 final public class BookDeckList extends StandardImmutableListDeck<BookDeckList, Book>
 {
 	static public final TypeName TYPE_NAME = new TypeName("jimmutable.examples.BookDeckList");
-	static public final FieldDefinition.Collection FIELD_CONTENTS = new FieldDefinition.Collection("books", new FieldArrayList());
+	static public final FieldDefinition.Collection FIELD_CONTENTS = new FieldDefinition.Collection("books", new FieldPersistentList());
 	
 	private FieldList<Book> books;
 	
@@ -38,7 +38,7 @@ final public class BookDeckList extends StandardImmutableListDeck<BookDeckList,
 	{
 		super();
 		
-		this.books = new FieldArrayList();
+		this.books = new FieldPersistentList();
 		this.books.addAll(books);
 		
 		complete();
@@ -46,7 +46,7 @@ final public class BookDeckList extends StandardImmutableListDeck<BookDeckList,
 	
 	public BookDeckList(ObjectParseTree t)
 	{
-		books = t.getCollection(FIELD_CONTENTS, new FieldArrayList(), ReadAs.OBJECT, ObjectParseTree.OnError.SKIP);
+		books = t.getCollection(FIELD_CONTENTS, new FieldPersistentList(), ReadAs.OBJECT, ObjectParseTree.OnError.SKIP);
 	}
 	
 	public TypeName getTypeName() 
@@ -4,9 +4,9 @@ import java.util.Collections;
 import java.util.Map;
 
 import org.jimmutable.core.decks.StandardImmutableMapDeck;
-import org.jimmutable.core.fields.FieldHashMap;
 import org.jimmutable.core.fields.FieldHashSet;
 import org.jimmutable.core.fields.FieldMap;
+import org.jimmutable.core.fields.FieldPersistentHashMap;
 import org.jimmutable.core.serialization.FieldDefinition;
 import org.jimmutable.core.serialization.FieldName;
 import org.jimmutable.core.serialization.TypeName;
@@ -25,7 +25,7 @@ import org.jimmutable.core.utils.Validator;
 final public class BookDeckMap extends StandardImmutableMapDeck<BookDeckMap, String, Book>
 {
 	static public final TypeName TYPE_NAME = new TypeName("jimmutable.examples.BookDeckMap");
-	static public final FieldDefinition.Map FIELD_BOOKS = new FieldDefinition.Map("books", new FieldHashMap());
+	static public final FieldDefinition.Map FIELD_BOOKS = new FieldDefinition.Map("books", new FieldPersistentHashMap());
 	
 	private FieldMap<String,Book> books;
 	
@@ -38,7 +38,7 @@ final public class BookDeckMap extends StandardImmutableMapDeck<BookDeckMap, Str
 	{
 		super();
 		
-		books = new FieldHashMap<>();
+		books = new FieldPersistentHashMap<>();
 		
 		if ( initial_contents != null )
 		{
@@ -50,7 +50,7 @@ final public class BookDeckMap extends StandardImmutableMapDeck<BookDeckMap, Str
 	
 	public BookDeckMap(ObjectParseTree t)
 	{
-		books = t.getMap(FIELD_BOOKS, new FieldHashMap(), ReadAs.STRING, ReadAs.OBJECT, ObjectParseTree.OnError.SKIP);
+		books = t.getMap(FIELD_BOOKS, new FieldPersistentHashMap(), ReadAs.STRING, ReadAs.OBJECT, ObjectParseTree.OnError.SKIP);
 	}
 	
 	public TypeName getTypeName() 
@@ -7,6 +7,7 @@ import org.jimmutable.core.serialization.FieldDefinition;
 import org.jimmutable.core.serialization.FieldName;
 import org.jimmutable.core.serialization.TypeName;
 import org.jimmutable.core.serialization.reader.ObjectParseTree;
+import org.jimmutable.core.serialization.reader.StreamReader;
 import org.jimmutable.core.serialization.writer.ObjectWriter;
 import org.jimmutable.core.utils.Comparison;
 import org.jimmutable.core.utils.Validator;
@@ -49,6 +50,21 @@ public class ItemKey extends StandardImmutableObject<ItemKey>
 		pn = new PartNumber(r.getString(FIELD_PN));
 	}
 	
+	public ItemKey(StreamReader r)
+	{
+		String brand_code = FIELD_BRAND_CODE.getSimpleUnsetValue();
+		String part_number = FIELD_PN.getSimpleUnsetValue();
+		
+		while ( r.nextField() )
+		{
+			if ( r.isField(FIELD_BRAND_CODE) ) brand_code = r.readString(FIELD_BRAND_CODE);
+			else if ( r.isField(FIELD_PN) ) part_number = r.readString(FIELD_PN);
+		}
+		
+		brand = new BrandCode(brand_code);
+		pn = new PartNumber(part_number);
+	}
+	
 	public void write(ObjectWriter writer) 
 	{
 		writer.writeStringable(FIELD_BRAND_CODE, brand);
@@ -77,7 +93,7 @@ public class ItemKey extends StandardImmutableObject<ItemKey>
 
 	public int hashCode() 
 	{
-		return Objects.hash(brand,pn);
+		return cachedHashCode(key -> Objects.hash(key.brand, key.pn));
 	}
 
 	
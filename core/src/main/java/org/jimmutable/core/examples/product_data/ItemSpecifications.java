@@ -7,6 +7,7 @@ import org.jimmutable.core.serialization.FieldDefinition;
 import org.jimmutable.core.serialization.TypeName;
 import org.jimmutable.core.serialization.reader.ObjectParseTree;
 import org.jimmutable.core.serialization.reader.ReadAs;
+import org.jimmutable.core.serialization.reader.StreamReader;
 import org.jimmutable.core.serialization.writer.ObjectWriter;
 import org.jimmutable.core.serialization.writer.WriteAs;
 import org.jimmutable.core.utils.Validator;
@@ -32,6 +33,18 @@ public class ItemSpecifications extends StandardImmutableObject<ItemSpecificatio
 		item_key = (ItemKey)reader.getObject(FIELD_ITEM_KEY);
 		attributes = reader.getMap(FIELD_ATTRIBUTES, new FieldHashMap<>(), ItemAttribute.CONVERTER, ReadAs.STRING, ObjectParseTree.OnError.SKIP);
 	}
+	
+	public ItemSpecifications(StreamReader reader)
+	{
+		item_key = (ItemKey)FIELD_ITEM_KEY.getSimpleUnsetValue();
+		attributes = new FieldHashMap<>();
+		
+		while ( reader.nextField() )
+		{
+			if ( reader.isField(FIELD_ITEM_KEY) ) item_key = (ItemKey)reader.readObject(FIELD_ITEM_KEY);
+			else if ( reader.isField(FIELD_ATTRIBUTES) ) reader.readMap(attributes, ItemAttribute.CONVERTER, ReadAs.STRING, ObjectParseTree.OnError.SKIP);
+		}
+	}
 
 	public void write(ObjectWriter writer) 
 	{
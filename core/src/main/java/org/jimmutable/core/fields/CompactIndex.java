@@ -0,0 +1,105 @@
+package org.jimmutable.core.fields;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Finds keys in an array of keys that never changes. Used by the compact
+ * (read only) forms of sets and maps that FieldCompaction substitutes for
+ * HashSet, HashMap, TreeSet and TreeMap on freeze.
+ *
+ * <p>Two forms:
+ * <ul>
+ * <li>{@link #hash(Object[])} keeps the keys in whatever order they were given
+ * (so iteration order does not change) and adds an open addressing table of
+ * int positions, at most 3/4 full (4 to 8 bytes per key). Lookups use
+ * hashCode/equals, as HashMap does</li>
+ * <li>{@link #sorted(Comparator)} expects keys sorted by a comparator (null
+ * for the natural ordering) and binary searches them. Lookups use the
+ * comparator, as TreeMap does. No extra memory at all</li>
+ * </ul>
+ *
+ * @author jim.kane
+ *
+ */
+abstract class CompactIndex
+{
+	/**
+	 * @return The position of key in keys, or -1 if keys does not contain key
+	 */
+	abstract int indexOf(Object keys[], Object key);
+
+	static CompactIndex hash(Object keys[])
+	{
+		return new HashIndex(keys);
+	}
+
+	static CompactIndex sorted(Comparator<?> comparator)
+	{
+		return new SortedIndex(comparator);
+	}
+
+	static private final class HashIndex extends CompactIndex
+	{
+		private final int table[]; // position + 1 of the key hashed to each slot, 0 when free
+		private final int shift;
+
+		HashIndex(Object keys[])
+		{
+			int bits = 1;
+			while ( (1 << bits) * 3 < keys.length * 4 ) bits++;
+
+			table = new int[1 << bits];
+			shift = 32 - bits;
+
+			int mask = table.length - 1;
+
+			for ( int i = 0; i < keys.length; i++ )
+			{
+				int slot = slot(keys[i]);
+				while ( table[slot] != 0 ) slot = (slot + 1) & mask;
+
+				table[slot] = i + 1;
+			}
+		}
+
+		private int slot(Object key)
+		{
+			return (key.hashCode() * 0x9E3779B9) >>> shift;
+		}
+
+		int indexOf(Object keys[], Object key)
+		{
+			if ( key == null ) return -1;
+
+			int mask = table.length - 1;
+
+			for ( int slot = slot(key); table[slot] != 0; slot = (slot + 1) & mask )
+			{
+				int i = table[slot] - 1;
+				if ( key.equals(keys[i]) ) return i;
+			}
+
+			return -1;
+		}
+	}
+
+	static private final class SortedIndex extends CompactIndex
+	{
+		private final Comparator<Object> comparator;
+
+		@SuppressWarnings("unchecked")
+		SortedIndex(Comparator<?> comparator)
+		{
+			this.comparator = (Comparator<Object>)comparator;
+		}
+
+		int indexOf(Object keys[], Object key)
+		{
+			if ( key == null ) return -1;
+
+			int i = Arrays.binarySearch(keys, key, comparator);
+			return i < 0 ? -1 : i;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package org.jimmutable.core.fields;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A read only map held in two exact size arrays (keys and values, plus a
+ * CompactIndex of the keys). The compact form of a frozen HashMap or TreeMap,
+ * see FieldCompaction.
+ *
+ * <p>Entries are created as they are iterated (and do not support setValue).
+ *
+ * @author jim.kane
+ *
+ * @param <K>
+ *            the type of keys maintained by this map
+ * @param <V>
+ *            the type of mapped values
+ */
+final class CompactMap<K,V> extends AbstractMap<K,V>
+{
+	private final Object keys[];
+	private final Object values[];
+	private final CompactIndex index;
+
+	private Set<Map.Entry<K,V>> entry_set;
+
+	CompactMap(Object keys[], Object values[], CompactIndex index)
+	{
+		this.keys = keys;
+		this.values = values;
+		this.index = index;
+	}
+
+	@Override
+	public int size() { return keys.length; }
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key)
+	{
+		int i = index.indexOf(keys, key);
+		return i < 0 ? null : (V)values[i];
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return index.indexOf(keys, key) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(Object value)
+	{
+		for ( Object v : values )
+		{
+			if ( Objects.equals(v, value) ) return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public Set<Map.Entry<K,V>> entrySet()
+	{
+		if ( entry_set == null ) entry_set = new EntrySet();
+		return entry_set;
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<K,V>>
+	{
+		@Override
+		public int size() { return keys.length; }
+
+		@Override
+		public boolean contains(Object o)
+		{
+			if ( !(o instanceof Map.Entry) ) return false;
+
+			Map.Entry<?,?> entry = (Map.Entry<?,?>)o;
+			int i = index.indexOf(keys, entry.getKey());
+
+			return i >= 0 && Objects.equals(values[i], entry.getValue());
+		}
+
+		@Override
+		public Iterator<Map.Entry<K,V>> iterator()
+		{
+			return new Iterator<Map.Entry<K,V>>()
+			{
+				private int position;
+
+				public boolean hasNext() { return position < keys.length; }
+
+				@SuppressWarnings("unchecked")
+				public Map.Entry<K,V> next()
+				{
+					if ( position >= keys.length ) throw new NoSuchElementException();
+
+					Map.Entry<K,V> ret = new AbstractMap.SimpleImmutableEntry<>((K)keys[position], (V)values[position]);
+					position++;
+
+					return ret;
+				}
+			};
+		}
+	}
+}
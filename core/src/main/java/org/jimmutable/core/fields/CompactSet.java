@@ -0,0 +1,53 @@
+package org.jimmutable.core.fields;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read only set held in an exact size array (plus a CompactIndex). The
+ * compact form of a frozen HashSet or TreeSet, see FieldCompaction.
+ *
+ * @author jim.kane
+ *
+ * @param <E>
+ *            The type of elements in this set
+ */
+final class CompactSet<E> extends AbstractSet<E>
+{
+	private final Object elements[];
+	private final CompactIndex index;
+
+	CompactSet(Object elements[], CompactIndex index)
+	{
+		this.elements = elements;
+		this.index = index;
+	}
+
+	@Override
+	public int size() { return elements.length; }
+
+	@Override
+	public boolean contains(Object o)
+	{
+		return index.indexOf(elements, o) >= 0;
+	}
+
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new Iterator<E>()
+		{
+			private int position;
+
+			public boolean hasNext() { return position < elements.length; }
+
+			@SuppressWarnings("unchecked")
+			public E next()
+			{
+				if ( position >= elements.length ) throw new NoSuchElementException();
+				return (E)elements[position++];
+			}
+		};
+	}
+}
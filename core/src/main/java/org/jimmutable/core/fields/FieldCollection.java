@@ -86,8 +86,17 @@ abstract public class FieldCollection<E> implements Field, Collection<E>
 		}
 	}
 	
+	/**
+	 * Freeze the collection. When {@link FieldCompaction} is enabled, the
+	 * contents are first replaced by a compact, read only equivalent
+	 */
 	@Override
-	public void freeze() { is_frozen = true; }
+	public void freeze()
+	{
+		if ( !is_frozen && FieldCompaction.isEnabled() ) contents = FieldCompaction.compact(contents);
+
+		is_frozen = true;
+	}
 	
 	@Override
 	public boolean isFrozen()  { return is_frozen; }
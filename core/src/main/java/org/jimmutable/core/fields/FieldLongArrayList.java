@@ -0,0 +1,127 @@
+package org.jimmutable.core.fields;
+
+import java.util.List;
+
+/**
+ * An implementation of a {@link List} of {@link Long}(s) that begins life as
+ * mutable but can, at any time, be "{@link #freeze() frozen}" (made
+ * immutable), backed by a {@code long[]} instead of an array of boxed Longs.
+ *
+ * <p>Each element costs 8 bytes (as opposed to roughly 20 in a
+ * {@link FieldArrayList}). Elements are boxed when read through the
+ * {@link List} interface, use {@link #getLong(int)}, {@link #addLong(long)}
+ * and {@link #toLongArray()} to avoid this. Null elements are ignored by
+ * {@link #add(Object)} (as they are by every {@link FieldCollection}), and
+ * rejected (NullPointerException) by {@link #add(int, Object)} and
+ * {@link #set(int, Object)}.
+ *
+ * <p>Serializes exactly as a {@code FieldArrayList<Long>} does (write with
+ * {@code WriteAs.NUMBER}, read with {@code ReadAs.LONG}).
+ *
+ * <p><b>Note:</b> {@code FieldLongArrayList} is not thread safe. This is
+ * generally not a concern once "{@link #freeze() frozen}".
+ *
+ * @author Jim Kane
+ *
+ * @see FieldList
+ * @see FieldLongHashSet
+ */
+final public class FieldLongArrayList extends FieldList<Long>
+{
+	/**
+	 * Default constructor (for an empty list)
+	 */
+	public FieldLongArrayList()
+	{
+		super();
+	}
+
+	/**
+	 * Constructs a list containing the elements of the specified {@link Iterable},
+	 * in the order they are returned by the {@link Iterable#iterator() iterator}.
+	 *
+	 * @param objs The {code Iterable} whose elements are to be placed into this list
+	 *
+	 * @throws NullPointerException if the specified {@code Iterable} is {@code null}
+	 */
+	public FieldLongArrayList(Iterable<Long> objs)
+	{
+		super(objs);
+	}
+
+	/**
+	 * Constructs a list containing the specified values, in order
+	 *
+	 * @param values The values to be placed into this list
+	 */
+	public FieldLongArrayList(long... values)
+	{
+		super();
+
+		for ( long value : values )
+		{
+			addLong(value);
+		}
+	}
+
+	private Contents getLongContents() { return (Contents)getContents(); }
+
+	/**
+	 * Get an element without boxing it
+	 *
+	 * @param index The index of the element to return
+	 * @return The element at index
+	 *
+	 * @throws IndexOutOfBoundsException if index is out of range
+	 */
+	public long getLong(int index)
+	{
+		return getLongContents().getLong(index);
+	}
+
+	/**
+	 * Add an element (to the end of the list) without boxing it
+	 *
+	 * @param value The value to add
+	 * @return true
+	 */
+	public boolean addLong(long value)
+	{
+		assertNotFrozen();
+
+		getLongContents().addLong(size(), value);
+		return true;
+	}
+
+	/**
+	 * @param value The value to look for
+	 * @return True if the list contains value
+	 */
+	public boolean containsLong(long value)
+	{
+		return getLongContents().indexOfLong(value) >= 0;
+	}
+
+	/**
+	 * @return A copy of the contents of this list, as a long[]
+	 */
+	public long[] toLongArray()
+	{
+		return getLongContents().toLongArray();
+	}
+
+	@Override
+	protected List<Long> createNewMutableInstance()
+	{
+		return new Contents();
+	}
+
+	static private class Contents extends LongArrayContents<Long>
+	{
+		protected Long toElement(long value) { return value; }
+
+		protected boolean isElement(Object o) { return o instanceof Long; }
+
+		protected long toLong(Object element) { return (Long)element; }
+	}
+}
@@ -0,0 +1,121 @@
+package org.jimmutable.core.fields;
+
+import java.util.Set;
+
+/**
+ * An implementation of a {@link Set} of {@link Long}(s) that begins life as
+ * mutable but can, at any time, be "{@link #freeze() frozen}" (made
+ * immutable), backed by an open addressing hash table of {@code long}(s)
+ * instead of a {@link java.util.HashSet HashSet} of boxed Longs.
+ *
+ * <p>Each element costs roughly 11 to 21 bytes (as opposed to roughly 60 in a
+ * {@link FieldHashSet}). Elements are boxed when read through the {@link Set}
+ * interface, use {@link #containsLong(long)}, {@link #addLong(long)} and
+ * {@link #toLongArray()} to avoid this. Iteration order is unspecified.
+ *
+ * <p>Serializes exactly as a {@code FieldHashSet<Long>} does (write with
+ * {@code WriteAs.NUMBER}, read with {@code ReadAs.LONG}).
+ *
+ * <p><b>Note:</b> {@code FieldLongHashSet} is not thread safe. This is
+ * generally not a concern once "{@link #freeze() frozen}".
+ *
+ * @author Jim Kane
+ *
+ * @see FieldSet
+ * @see FieldLongArrayList
+ */
+final public class FieldLongHashSet extends FieldSet<Long>
+{
+	/**
+	 * Default constructor (for an empty set)
+	 */
+	public FieldLongHashSet()
+	{
+		super();
+	}
+
+	/**
+	 * Constructs a set containing the elements of the specified {@link Iterable}
+	 *
+	 * @param objs The {code Iterable} whose elements are to be placed into this set
+	 *
+	 * @throws NullPointerException if the specified {@code Iterable} is {@code null}
+	 */
+	public FieldLongHashSet(Iterable<Long> objs)
+	{
+		super(objs);
+	}
+
+	/**
+	 * Constructs a set containing the specified values
+	 *
+	 * @param values The values to be placed into this set
+	 */
+	public FieldLongHashSet(long... values)
+	{
+		super();
+
+		for ( long value : values )
+		{
+			addLong(value);
+		}
+	}
+
+	private Contents getLongContents() { return (Contents)getContents(); }
+
+	/**
+	 * @param value The value to look for
+	 * @return True if the set contains value
+	 */
+	public boolean containsLong(long value)
+	{
+		return getLongContents().containsLong(value);
+	}
+
+	/**
+	 * Add an element without boxing it
+	 *
+	 * @param value The value to add
+	 * @return True if the set did not already contain value
+	 */
+	public boolean addLong(long value)
+	{
+		assertNotFrozen();
+		return getLongContents().addLong(value);
+	}
+
+	/**
+	 * Remove an element without boxing it
+	 *
+	 * @param value The value to remove
+	 * @return True if the set contained value
+	 */
+	public boolean removeLong(long value)
+	{
+		assertNotFrozen();
+		return getLongContents().removeLong(value);
+	}
+
+	/**
+	 * @return A copy of the contents of this set, as a long[] (in no particular order)
+	 */
+	public long[] toLongArray()
+	{
+		return getLongContents().toLongArray();
+	}
+
+	@Override
+	protected Set<Long> createNewMutableInstance()
+	{
+		return new Contents();
+	}
+
+	static private class Contents extends LongHashContents<Long>
+	{
+		protected Long toElement(long value) { return value; }
+
+		protected boolean isElement(Object o) { return o instanceof Long; }
+
+		protected long toLong(Object element) { return (Long)element; }
+	}
+}
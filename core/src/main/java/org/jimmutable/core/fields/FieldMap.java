@@ -92,8 +92,17 @@ abstract public class FieldMap<K,V> implements Map<K,V>, Field
 		}
 	}
 	
+	/**
+	 * Freeze the map. When {@link FieldCompaction} is enabled, the contents
+	 * are first replaced by a compact, read only equivalent
+	 */
 	@Override
-	public void freeze() { is_frozen = true; }
+	public void freeze()
+	{
+		if ( !is_frozen && FieldCompaction.isEnabled() ) contents = FieldCompaction.compact(contents);
+
+		is_frozen = true;
+	}
 	
 	@Override
 	public boolean isFrozen()  { return is_frozen; }
@@ -0,0 +1,90 @@
+package org.jimmutable.core.fields;
+
+import java.util.List;
+
+import org.jimmutable.core.objects.common.ObjectId;
+
+/**
+ * An implementation of a {@link List} of {@link ObjectId}(s) that begins life
+ * as mutable but can, at any time, be "{@link #freeze() frozen}" (made
+ * immutable), backed by a {@code long[]} of id values.
+ *
+ * <p>Each element costs 8 bytes, as opposed to well over 100 for an ObjectId
+ * (and its String) held in a {@link FieldArrayList}. This makes a real
+ * difference to objects that reference thousands of ids. The price is paid on
+ * read: each {@link #get(int)} (or step of an iterator) creates a new
+ * ObjectId, use {@link #getLong(int)} and {@link #toLongArray()} where the
+ * long value will do.
+ *
+ * <p>Serializes exactly as a {@code FieldArrayList<ObjectId>} does (write with
+ * {@code WriteAs.STRING}, read with {@code ObjectId.CONVERTER}).
+ *
+ * <p><b>Note:</b> {@code FieldObjectIdArrayList} is not thread safe. This is
+ * generally not a concern once "{@link #freeze() frozen}".
+ *
+ * @author Jim Kane
+ *
+ * @see FieldList
+ * @see FieldObjectIdHashSet
+ */
+final public class FieldObjectIdArrayList extends FieldList<ObjectId>
+{
+	/**
+	 * Default constructor (for an empty list)
+	 */
+	public FieldObjectIdArrayList()
+	{
+		super();
+	}
+
+	/**
+	 * Constructs a list containing the elements of the specified {@link Iterable},
+	 * in the order they are returned by the {@link Iterable#iterator() iterator}.
+	 *
+	 * @param objs The {code Iterable} whose elements are to be placed into this list
+	 *
+	 * @throws NullPointerException if the specified {@code Iterable} is {@code null}
+	 */
+	public FieldObjectIdArrayList(Iterable<ObjectId> objs)
+	{
+		super(objs);
+	}
+
+	private Contents getIdContents() { return (Contents)getContents(); }
+
+	/**
+	 * Get the long value of an id, without creating an ObjectId
+	 *
+	 * @param index The index of the id to return
+	 * @return The long value ({@link ObjectId#getSimpleLongValue()}) of the id at index
+	 *
+	 * @throws IndexOutOfBoundsException if index is out of range
+	 */
+	public long getLong(int index)
+	{
+		return getIdContents().getLong(index);
+	}
+
+	/**
+	 * @return A copy of the (long values of the) ids in this list, as a long[]
+	 */
+	public long[] toLongArray()
+	{
+		return getIdContents().toLongArray();
+	}
+
+	@Override
+	protected List<ObjectId> createNewMutableInstance()
+	{
+		return new Contents();
+	}
+
+	static private class Contents extends LongArrayContents<ObjectId>
+	{
+		protected ObjectId toElement(long value) { return new ObjectId(value); }
+
+		protected boolean isElement(Object o) { return o instanceof ObjectId; }
+
+		protected long toLong(Object element) { return ((ObjectId)element).getSimpleLongValue(); }
+	}
+}
@@ -0,0 +1,84 @@
+package org.jimmutable.core.fields;
+
+import java.util.Set;
+
+import org.jimmutable.core.objects.common.ObjectId;
+
+/**
+ * An implementation of a {@link Set} of {@link ObjectId}(s) that begins life
+ * as mutable but can, at any time, be "{@link #freeze() frozen}" (made
+ * immutable), backed by an open addressing hash table of id values.
+ *
+ * <p>Each element costs roughly 11 to 21 bytes, as opposed to well over 100
+ * for an ObjectId (and its String) held in a {@link FieldHashSet}. Membership
+ * tests do no allocation. Iterating creates a new ObjectId per element, use
+ * {@link #containsLong(long)} and {@link #toLongArray()} where the long value
+ * will do. Iteration order is unspecified.
+ *
+ * <p>Serializes exactly as a {@code FieldHashSet<ObjectId>} does (write with
+ * {@code WriteAs.STRING}, read with {@code ObjectId.CONVERTER}).
+ *
+ * <p><b>Note:</b> {@code FieldObjectIdHashSet} is not thread safe. This is
+ * generally not a concern once "{@link #freeze() frozen}".
+ *
+ * @author Jim Kane
+ *
+ * @see FieldSet
+ * @see FieldObjectIdArrayList
+ */
+final public class FieldObjectIdHashSet extends FieldSet<ObjectId>
+{
+	/**
+	 * Default constructor (for an empty set)
+	 */
+	public FieldObjectIdHashSet()
+	{
+		super();
+	}
+
+	/**
+	 * Constructs a set containing the elements of the specified {@link Iterable}
+	 *
+	 * @param objs The {code Iterable} whose elements are to be placed into this set
+	 *
+	 * @throws NullPointerException if the specified {@code Iterable} is {@code null}
+	 */
+	public FieldObjectIdHashSet(Iterable<ObjectId> objs)
+	{
+		super(objs);
+	}
+
+	private Contents getIdContents() { return (Contents)getContents(); }
+
+	/**
+	 * @param value The long value of an id ({@link ObjectId#getSimpleLongValue()})
+	 * @return True if the set contains the id
+	 */
+	public boolean containsLong(long value)
+	{
+		return getIdContents().containsLong(value);
+	}
+
+	/**
+	 * @return A copy of the (long values of the) ids in this set, as a long[] (in no particular order)
+	 */
+	public long[] toLongArray()
+	{
+		return getIdContents().toLongArray();
+	}
+
+	@Override
+	protected Set<ObjectId> createNewMutableInstance()
+	{
+		return new Contents();
+	}
+
+	static private class Contents extends LongHashContents<ObjectId>
+	{
+		protected ObjectId toElement(long value) { return new ObjectId(value); }
+
+		protected boolean isElement(Object o) { return o instanceof ObjectId; }
+
+		protected long toLong(Object element) { return ((ObjectId)element).getSimpleLongValue(); }
+	}
+}
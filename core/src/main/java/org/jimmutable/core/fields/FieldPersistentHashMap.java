@@ -0,0 +1,206 @@
+package org.jimmutable.core.fields;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An implementation of a {@link Map} that begins life as mutable but can, at
+ * any time, be "{@link #freeze() frozen}" (made immutable), backed by a
+ * persistent (structure sharing) hash array mapped trie instead of a hash
+ * table.
+ *
+ * <p>Making a copy of a {@code FieldPersistentHashMap} (via
+ * {@link #FieldPersistentHashMap(Map)}, or by calling {@link #putAll(Map)} on an
+ * empty {@code FieldPersistentHashMap}) takes constant time: the copy shares
+ * all of its contents with the original. Changes made to the copy afterwards
+ * (put, remove) cost O(log32 n) and never affect the original. This makes a
+ * "modified copy" of an object holding a large, frozen map (e.g. adding one
+ * entry to a big map deck) cheap.
+ *
+ * <p>Lookups are O(log32 n) (effectively constant). Iteration order is
+ * unspecified, as it is for {@link FieldHashMap}. Iterating while modifying
+ * (e.g. via the entry set's iterator) is safe: iterators walk the contents as
+ * they were when the iterator was created.
+ *
+ * <p>Like {@link FieldHashMap}, {@code FieldPersistentHashMap} is not thread
+ * safe while it is being built; once frozen it may be shared freely.
+ *
+ * @author Jim Kane
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see FieldMap
+ */
+final public class FieldPersistentHashMap<K,V> extends FieldMap<K,V>
+{
+	/**
+	 * Default constructor (for an empty map)
+	 */
+	public FieldPersistentHashMap()
+	{
+		super();
+	}
+
+	/**
+	 * Constructs a map containing the entries of the specified {@link Map}.
+	 * If initial_values is a {@code FieldPersistentHashMap} its contents are
+	 * shared, not copied
+	 *
+	 * @param initial_values The {@code Map} whose elements are to be placed into this map
+	 */
+	public FieldPersistentHashMap(Map<K,V> initial_values)
+	{
+		super();
+
+		if ( initial_values != null )
+		{
+			putAll(initial_values);
+		}
+	}
+
+	private Contents<K,V> getPersistentContents() { return (Contents<K,V>)getContents(); }
+
+	/**
+	 * @return true if this map and other share the same contents (structure),
+	 *         e.g. because one was copied from the other
+	 */
+	boolean sharesContentsWith(FieldPersistentHashMap<?,?> other) { return getPersistentContents().trie == other.getPersistentContents().trie; }
+
+	/**
+	 * Puts all of the entries of m. If this map is empty and m is a
+	 * {@code FieldPersistentHashMap}, m's contents are shared (in constant time)
+	 */
+	@Override
+	public void putAll(Map<? extends K, ? extends V> m)
+	{
+		assertNotFrozen();
+
+		if ( isEmpty() && m instanceof FieldPersistentHashMap )
+		{
+			getPersistentContents().trie = ((FieldPersistentHashMap<K,V>)m).getPersistentContents().trie;
+			return;
+		}
+
+		super.putAll(m);
+	}
+
+	@Override
+	protected Map<K, V> createNewMutableInstance()
+	{
+		return new Contents<>();
+	}
+
+	/**
+	 * The mutable map wrapped by FieldPersistentHashMap. Each modification
+	 * replaces the (immutable) trie held
+	 */
+	static private class Contents<K,V> extends AbstractMap<K,V>
+	{
+		private PersistentHashTrie<K,V> trie = PersistentHashTrie.empty();
+		private Set<Map.Entry<K,V>> entry_set;
+
+		@Override
+		public int size() { return trie.size(); }
+
+		@Override
+		public V get(Object key) { return trie.get(key); }
+
+		@Override
+		public boolean containsKey(Object key) { return trie.get(key) != null; }
+
+		@Override
+		public V put(K key, V value)
+		{
+			V ret = trie.get(key);
+			trie = trie.put(key, value);
+
+			return ret;
+		}
+
+		@Override
+		public V remove(Object key)
+		{
+			V ret = trie.get(key);
+			trie = trie.remove(key);
+
+			return ret;
+		}
+
+		@Override
+		public void clear()
+		{
+			trie = PersistentHashTrie.empty();
+		}
+
+		@Override
+		public Set<Map.Entry<K,V>> entrySet()
+		{
+			if ( entry_set == null ) entry_set = new EntrySet();
+			return entry_set;
+		}
+
+		private class EntrySet extends AbstractSet<Map.Entry<K,V>>
+		{
+			@Override
+			public int size() { return trie.size(); }
+
+			@Override
+			public boolean contains(Object o)
+			{
+				if ( !(o instanceof Map.Entry) ) return false;
+
+				Map.Entry<?,?> entry = (Map.Entry<?,?>)o;
+				V value = trie.get(entry.getKey());
+
+				return value != null && Objects.equals(value, entry.getValue());
+			}
+
+			@Override
+			public boolean remove(Object o)
+			{
+				if ( !contains(o) ) return false;
+
+				trie = trie.remove(((Map.Entry<?,?>)o).getKey());
+				return true;
+			}
+
+			@Override
+			public void clear()
+			{
+				trie = PersistentHashTrie.empty();
+			}
+
+			@Override
+			public Iterator<Map.Entry<K,V>> iterator()
+			{
+				Iterator<Map.Entry<K,V>> itr = trie.iterator();
+
+				return new Iterator<Map.Entry<K,V>>()
+				{
+					private Map.Entry<K,V> last;
+
+					public boolean hasNext() { return itr.hasNext(); }
+
+					public Map.Entry<K,V> next()
+					{
+						last = itr.next();
+						return last;
+					}
+
+					public void remove()
+					{
+						if ( last == null ) throw new IllegalStateException();
+
+						trie = trie.remove(last.getKey());
+						last = null;
+					}
+				};
+			}
+		}
+	}
+}
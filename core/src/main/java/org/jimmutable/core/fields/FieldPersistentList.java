@@ -0,0 +1,227 @@
+package org.jimmutable.core.fields;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * An implementation of a {@link List} that begins life as mutable but can, at
+ * any time, be "{@link #freeze() frozen}" (made immutable), backed by a
+ * persistent (structure sharing) vector instead of an array.
+ *
+ * <p>Making a copy of a {@code FieldPersistentList} (via
+ * {@link #FieldPersistentList(Iterable)}, or by calling {@link #addAll(Collection)}
+ * on an empty {@code FieldPersistentList}) takes constant time: the copy shares
+ * all of its contents with the original. Changes made to the copy afterwards
+ * (appending, setting an element, removing the last element) cost O(log32 n)
+ * and never affect the original. This makes a "modified copy" of an object
+ * holding a large, frozen list (e.g. appending one item to a big deck) cheap.
+ *
+ * <p>Random access is O(log32 n) (effectively constant, the trie is at most 7
+ * levels deep). Adding or removing anywhere but the end of the list costs
+ * O(n), as it does for {@link FieldArrayList}.
+ *
+ * <p>Like {@link FieldArrayList}, {@code FieldPersistentList} is not thread
+ * safe while it is being built; once frozen it may be shared freely.
+ *
+ * @author Jim Kane
+ *
+ * @param <E> The type of elements in this list
+ *
+ * @see FieldList
+ */
+final public class FieldPersistentList<E> extends FieldList<E>
+{
+	/**
+	 * Default constructor (for an empty list)
+	 */
+	public FieldPersistentList()
+	{
+		super();
+	}
+
+	/**
+	 * Constructs a list containing the elements of the specified {@link Iterable},
+	 * in the order they are returned by the {@link Iterable#iterator() iterator}.
+	 * If objs is a {@code FieldPersistentList} its contents are shared, not copied
+	 *
+	 * @param objs The {code Iterable} whose elements are to be placed into this list
+	 *
+	 * @throws NullPointerException if the specified {@code Iterable} is {@code null}
+	 */
+	public FieldPersistentList(Iterable<E> objs)
+	{
+		super();
+
+		if ( objs instanceof FieldPersistentList )
+		{
+			getPersistentContents().vector = ((FieldPersistentList<E>)objs).getPersistentContents().vector;
+			return;
+		}
+
+		if ( objs != null )
+		{
+			for ( E obj : objs )
+			{
+				add(obj);
+			}
+		}
+	}
+
+	private Contents<E> getPersistentContents() { return (Contents<E>)getContents(); }
+
+	/**
+	 * @return true if this list and other share the same contents (structure),
+	 *         e.g. because one was copied from the other
+	 */
+	boolean sharesContentsWith(FieldPersistentList<?> other) { return getPersistentContents().vector == other.getPersistentContents().vector; }
+
+	/**
+	 * Adds all of the elements of c. If this list is empty and c is a
+	 * {@code FieldPersistentList}, c's contents are shared (in constant time)
+	 */
+	@Override
+	public boolean addAll(Collection<? extends E> c)
+	{
+		assertNotFrozen();
+
+		if ( isEmpty() && c instanceof FieldPersistentList )
+		{
+			getPersistentContents().vector = ((FieldPersistentList<E>)c).getPersistentContents().vector;
+			return true;
+		}
+
+		return super.addAll(c);
+	}
+
+	@Override
+	protected List<E> createNewMutableInstance()
+	{
+		return new Contents<>();
+	}
+
+	/**
+	 * The mutable list wrapped by FieldPersistentList. Each modification
+	 * replaces the (immutable) vector held
+	 */
+	static private class Contents<E> extends AbstractList<E> implements RandomAccess
+	{
+		private PersistentVector<E> vector = PersistentVector.empty();
+
+		@Override
+		public int size() { return vector.size(); }
+
+		@Override
+		public E get(int index) { return vector.get(index); }
+
+		@Override
+		public E set(int index, E element)
+		{
+			E ret = vector.get(index);
+			vector = vector.set(index, element);
+
+			return ret;
+		}
+
+		@Override
+		public void add(int index, E element)
+		{
+			if ( index == vector.size() )
+			{
+				vector = vector.append(element);
+			}
+			else
+			{
+				List<E> copy = new ArrayList<>(this);
+				copy.add(index, element);
+
+				vector = PersistentVector.of(copy);
+			}
+
+			modCount++;
+		}
+
+		@Override
+		public E remove(int index)
+		{
+			E ret = vector.get(index);
+
+			if ( index == vector.size() - 1 )
+			{
+				vector = vector.removeLast();
+			}
+			else
+			{
+				List<E> copy = new ArrayList<>(this);
+				copy.remove(index);
+
+				vector = PersistentVector.of(copy);
+			}
+
+			modCount++;
+
+			return ret;
+		}
+
+		@Override
+		public void clear()
+		{
+			vector = PersistentVector.empty();
+			modCount++;
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> c)
+		{
+			return retain(element -> !c.contains(element));
+		}
+
+		@Override
+		public boolean retainAll(Collection<?> c)
+		{
+			return retain(element -> c.contains(element));
+		}
+
+		/**
+		 * Rebuild the vector from the elements to keep (removing elements one at a
+		 * time through an iterator would be O(n^2))
+		 */
+		private boolean retain(Predicate<E> keep)
+		{
+			List<E> kept = new ArrayList<>();
+
+			for ( E element : this )
+			{
+				if ( keep.test(element) ) kept.add(element);
+			}
+
+			if ( kept.size() == vector.size() ) return false;
+
+			vector = PersistentVector.of(kept);
+			modCount++;
+
+			return true;
+		}
+
+		@Override
+		protected void removeRange(int from_index, int to_index)
+		{
+			if ( to_index == vector.size() )
+			{
+				while ( vector.size() > from_index ) vector = vector.removeLast();
+			}
+			else
+			{
+				List<E> copy = new ArrayList<>(this);
+				copy.subList(from_index, to_index).clear();
+
+				vector = PersistentVector.of(copy);
+			}
+
+			modCount++;
+		}
+	}
+}
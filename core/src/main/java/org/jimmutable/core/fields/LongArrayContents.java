@@ -0,0 +1,217 @@
+package org.jimmutable.core.fields;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A growable long[] presented as a List of (boxed) elements. The mutable list
+ * wrapped by FieldLongArrayList and FieldObjectIdArrayList: each element costs
+ * 8 bytes, elements are only created (boxed) when read through the List
+ * interface.
+ *
+ * Sub-classes define how an element maps to a long (and back). Null elements
+ * are not supported.
+ *
+ * @author jim.kane
+ *
+ * @param <E>
+ *            The type of elements in this list
+ */
+abstract class LongArrayContents<E> extends AbstractList<E> implements RandomAccess
+{
+	static private final long EMPTY[] = new long[0];
+
+	private long values[] = EMPTY;
+	private int size;
+
+	/**
+	 * @return The element for value
+	 */
+	abstract protected E toElement(long value);
+
+	/**
+	 * @return True if o is an element (i.e. can be converted with toLong)
+	 */
+	abstract protected boolean isElement(Object o);
+
+	/**
+	 * @return The long value of element (which isElement)
+	 */
+	abstract protected long toLong(Object element);
+
+	@Override
+	public int size() { return size; }
+
+	private void checkIndex(int index)
+	{
+		if ( index < 0 || index >= size ) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+
+	private long checkedLong(E element)
+	{
+		if ( element == null ) throw new NullPointerException();
+		if ( !isElement(element) ) throw new ClassCastException(element.getClass().getName());
+
+		return toLong(element);
+	}
+
+	long getLong(int index)
+	{
+		checkIndex(index);
+		return values[index];
+	}
+
+	@Override
+	public E get(int index)
+	{
+		return toElement(getLong(index));
+	}
+
+	@Override
+	public E set(int index, E element)
+	{
+		long value = checkedLong(element);
+		E ret = get(index);
+
+		values[index] = value;
+
+		return ret;
+	}
+
+	void addLong(int index, long value)
+	{
+		if ( index < 0 || index > size ) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+		if ( size == values.length )
+			values = Arrays.copyOf(values, Math.max(8, size + (size >> 1)));
+
+		System.arraycopy(values, index, values, index + 1, size - index);
+		values[index] = value;
+		size++;
+
+		modCount++;
+	}
+
+	@Override
+	public void add(int index, E element)
+	{
+		addLong(index, checkedLong(element));
+	}
+
+	@Override
+	public E remove(int index)
+	{
+		E ret = get(index);
+
+		System.arraycopy(values, index + 1, values, index, size - index - 1);
+		size--;
+
+		modCount++;
+
+		return ret;
+	}
+
+	int indexOfLong(long value)
+	{
+		for ( int i = 0; i < size; i++ )
+		{
+			if ( values[i] == value ) return i;
+		}
+
+		return -1;
+	}
+
+	@Override
+	public int indexOf(Object o)
+	{
+		return isElement(o) ? indexOfLong(toLong(o)) : -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o)
+	{
+		if ( !isElement(o) ) return -1;
+
+		long value = toLong(o);
+
+		for ( int i = size - 1; i >= 0; i-- )
+		{
+			if ( values[i] == value ) return i;
+		}
+
+		return -1;
+	}
+
+	@Override
+	public boolean contains(Object o)
+	{
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public void clear()
+	{
+		values = EMPTY;
+		size = 0;
+
+		modCount++;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c)
+	{
+		return retain(c, false);
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c)
+	{
+		return retain(c, true);
+	}
+
+	/**
+	 * Compact the array in place, keeping the elements whose membership in c
+	 * equals keep_members (O(n) array work, instead of one arraycopy per
+	 * removal)
+	 */
+	private boolean retain(Collection<?> c, boolean keep_members)
+	{
+		int kept = 0;
+
+		for ( int i = 0; i < size; i++ )
+		{
+			if ( c.contains(toElement(values[i])) == keep_members ) values[kept++] = values[i];
+		}
+
+		if ( kept == size ) return false;
+
+		size = kept;
+		modCount++;
+
+		return true;
+	}
+
+	@Override
+	protected void removeRange(int from_index, int to_index)
+	{
+		System.arraycopy(values, to_index, values, from_index, size - to_index);
+		size -= to_index - from_index;
+
+		modCount++;
+	}
+
+	/**
+	 * Drop any spare capacity (see FieldCompaction)
+	 */
+	void trimToSize()
+	{
+		if ( values.length != size ) values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+	}
+
+	long[] toLongArray()
+	{
+		return Arrays.copyOf(values, size);
+	}
+}
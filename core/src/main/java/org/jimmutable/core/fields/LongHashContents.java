@@ -0,0 +1,285 @@
+package org.jimmutable.core.fields;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An open addressing (linear probing) hash table of longs presented as a Set
+ * of (boxed) elements. The mutable set wrapped by FieldLongHashSet and
+ * FieldObjectIdHashSet: each element costs roughly 11 to 21 bytes (the table
+ * is grown whenever it is 3/4 full), elements are only created (boxed) when
+ * read through the Set interface.
+ *
+ * <p>Slots holding 0 are free, so the element 0 is tracked with a flag. Removal
+ * shifts the following entries back (no tombstones), so removing through an
+ * iterator copies the table once (the first time) for the iterator to go on
+ * walking. Any other change made while iterating makes the iterator throw
+ * ConcurrentModificationException, as HashSet's does.
+ *
+ * Sub-classes define how an element maps to a long (and back). Null elements
+ * are not supported.
+ *
+ * @author jim.kane
+ *
+ * @param <E>
+ *            The type of elements in this set
+ */
+abstract class LongHashContents<E> extends AbstractSet<E>
+{
+	static private final int MIN_CAPACITY = 8;
+
+	private long table[] = new long[MIN_CAPACITY];
+	private boolean has_zero;
+	private int size;
+	private int mod_count; // so that an iterator notices changes not made through it
+
+	/**
+	 * @return The element for value
+	 */
+	abstract protected E toElement(long value);
+
+	/**
+	 * @return True if o is an element (i.e. can be converted with toLong)
+	 */
+	abstract protected boolean isElement(Object o);
+
+	/**
+	 * @return The long value of element (which isElement)
+	 */
+	abstract protected long toLong(Object element);
+
+	@Override
+	public int size() { return size; }
+
+	static private int slot(long value, int mask)
+	{
+		long h = value * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & mask;
+	}
+
+	boolean containsLong(long value)
+	{
+		if ( value == 0 ) return has_zero;
+
+		int mask = table.length - 1;
+
+		for ( int i = slot(value, mask); table[i] != 0; i = (i + 1) & mask )
+		{
+			if ( table[i] == value ) return true;
+		}
+
+		return false;
+	}
+
+	boolean addLong(long value)
+	{
+		if ( value == 0 )
+		{
+			if ( has_zero ) return false;
+
+			has_zero = true;
+			size++;
+			mod_count++;
+
+			return true;
+		}
+
+		int mask = table.length - 1;
+		int i = slot(value, mask);
+
+		for ( ; table[i] != 0; i = (i + 1) & mask )
+		{
+			if ( table[i] == value ) return false;
+		}
+
+		table[i] = value;
+		size++;
+		mod_count++;
+
+		if ( size * 4 > table.length * 3 ) rehash(table.length * 2);
+
+		return true;
+	}
+
+	boolean removeLong(long value)
+	{
+		if ( value == 0 )
+		{
+			if ( !has_zero ) return false;
+
+			has_zero = false;
+			size--;
+			mod_count++;
+
+			return true;
+		}
+
+		int mask = table.length - 1;
+		int i = slot(value, mask);
+
+		for ( ; table[i] != value; i = (i + 1) & mask )
+		{
+			if ( table[i] == 0 ) return false;
+		}
+
+		// Shift back any following entries that probed past slot i
+		for ( int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask )
+		{
+			int home = slot(table[j], mask);
+
+			// Can table[j] move to i? (only if its home slot is not in (i, j])
+			if ( ((j - home) & mask) >= ((j - i) & mask) )
+			{
+				table[i] = table[j];
+				i = j;
+			}
+		}
+
+		table[i] = 0;
+		size--;
+		mod_count++;
+
+		return true;
+	}
+
+	private void rehash(int capacity)
+	{
+		long old_table[] = table;
+
+		table = new long[capacity];
+
+		int mask = capacity - 1;
+
+		for ( long value : old_table )
+		{
+			if ( value == 0 ) continue;
+
+			int i = slot(value, mask);
+			while ( table[i] != 0 ) i = (i + 1) & mask;
+
+			table[i] = value;
+		}
+	}
+
+	@Override
+	public boolean contains(Object o)
+	{
+		return isElement(o) && containsLong(toLong(o));
+	}
+
+	@Override
+	public boolean add(E element)
+	{
+		if ( element == null ) throw new NullPointerException();
+		if ( !isElement(element) ) throw new ClassCastException(element.getClass().getName());
+
+		return addLong(toLong(element));
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		return isElement(o) && removeLong(toLong(o));
+	}
+
+	@Override
+	public void clear()
+	{
+		table = new long[MIN_CAPACITY];
+		has_zero = false;
+		size = 0;
+		mod_count++;
+	}
+
+	long[] toLongArray()
+	{
+		long ret[] = new long[size];
+		int count = 0;
+
+		if ( has_zero ) ret[count++] = 0;
+
+		for ( long value : table )
+		{
+			if ( value != 0 ) ret[count++] = value;
+		}
+
+		return ret;
+	}
+
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new MyIterator();
+	}
+
+	private class MyIterator implements Iterator<E>
+	{
+		private final long snapshot[] = table;
+
+		private boolean zero_pending = has_zero;
+		private int position = -1;
+
+		private boolean has_last;
+		private long last;
+
+		private int expected_mod_count = mod_count;
+
+		MyIterator()
+		{
+			advance();
+		}
+
+		private void advance()
+		{
+			position++;
+			while ( position < snapshot.length && snapshot[position] == 0 ) position++;
+		}
+
+		public boolean hasNext()
+		{
+			return zero_pending || position < snapshot.length;
+		}
+
+		public E next()
+		{
+			checkForModification();
+
+			if ( zero_pending )
+			{
+				zero_pending = false;
+				last = 0;
+			}
+			else
+			{
+				if ( position >= snapshot.length ) throw new NoSuchElementException();
+
+				last = snapshot[position];
+				advance();
+			}
+
+			has_last = true;
+
+			return toElement(last);
+		}
+
+		public void remove()
+		{
+			if ( !has_last ) throw new IllegalStateException();
+			checkForModification();
+
+			// Removal shifts entries around, walk a copy from now on
+			if ( table == snapshot ) table = table.clone();
+
+			removeLong(last);
+			has_last = false;
+			expected_mod_count = mod_count;
+		}
+
+		private void checkForModification()
+		{
+			if ( mod_count != expected_mod_count ) throw new ConcurrentModificationException();
+		}
+	}
+}
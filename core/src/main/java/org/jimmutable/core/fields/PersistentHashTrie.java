@@ -0,0 +1,403 @@
+package org.jimmutable.core.fields;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable hash array mapped trie (HAMT). Every "modification" returns a
+ * new trie that shares all but O(log32 n) nodes with the original: a put or
+ * remove copies one path from the root to the changed entry (a handful of
+ * small arrays).
+ *
+ * <p>Used by {@link FieldPersistentHashMap}, so that a copy of a (frozen) map
+ * is free and a small change to a large map is cheap.
+ *
+ * <p>Each node is a bitmap plus an array of (key, value) pairs, one pair per
+ * bit set. A pair whose key is null holds a child node (for the next 5 bits of
+ * the hash) as its value. Keys whose hash codes are identical end up together
+ * in a collision node. Nodes are never modified once created. Null keys are
+ * not supported.
+ *
+ * @author jim.kane
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+final class PersistentHashTrie<K, V>
+{
+	static private final int BITS = 5;
+	static private final int MASK = (1 << BITS) - 1;
+
+	@SuppressWarnings("rawtypes")
+	static private final PersistentHashTrie EMPTY = new PersistentHashTrie<>(0, BitmapNode.EMPTY);
+
+	private final int count;
+	private final Node root;
+
+	private PersistentHashTrie(int count, Node root)
+	{
+		this.count = count;
+		this.root = root;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <K, V> PersistentHashTrie<K, V> empty()
+	{
+		return EMPTY;
+	}
+
+	int size() { return count; }
+
+	static private int hash(Object key)
+	{
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @return The value mapped to key, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	V get(Object key)
+	{
+		if ( key == null ) return null;
+		return (V)root.find(0, hash(key), key);
+	}
+
+	/**
+	 * @return A trie with key mapped to value (this trie, if it already is)
+	 */
+	PersistentHashTrie<K, V> put(K key, V value)
+	{
+		if ( key == null ) throw new NullPointerException();
+
+		boolean added[] = new boolean[1];
+		Node new_root = root.put(0, hash(key), key, value, added);
+
+		if ( new_root == root ) return this;
+
+		return new PersistentHashTrie<>(added[0] ? count + 1 : count, new_root);
+	}
+
+	/**
+	 * @return A trie without key (this trie, if key is not present)
+	 */
+	PersistentHashTrie<K, V> remove(Object key)
+	{
+		if ( key == null ) return this;
+
+		Node new_root = root.remove(0, hash(key), key);
+
+		if ( new_root == root ) return this;
+		if ( new_root == null ) return empty();
+
+		return new PersistentHashTrie<>(count - 1, new_root);
+	}
+
+	/**
+	 * An iterator over the entries of the trie. Entries are immutable
+	 * (setValue is not supported)
+	 */
+	Iterator<Map.Entry<K, V>> iterator()
+	{
+		return new EntryIterator<>(root);
+	}
+
+	static private abstract class Node
+	{
+		/**
+		 * The (key, value) pairs of this node, a pair with a null key holds a
+		 * child Node as its value
+		 */
+		protected final Object array[];
+
+		protected Node(Object array[])
+		{
+			this.array = array;
+		}
+
+		abstract Object find(int shift, int hash, Object key);
+
+		abstract Node put(int shift, int hash, Object key, Object value, boolean added[]);
+
+		abstract Node remove(int shift, int hash, Object key);
+	}
+
+	static private final class BitmapNode extends Node
+	{
+		static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+		private final int bitmap;
+
+		BitmapNode(int bitmap, Object array[])
+		{
+			super(array);
+			this.bitmap = bitmap;
+		}
+
+		static private int bit(int hash, int shift)
+		{
+			return 1 << ((hash >>> shift) & MASK);
+		}
+
+		private int index(int bit)
+		{
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		Object find(int shift, int hash, Object key)
+		{
+			int bit = bit(hash, shift);
+			if ( (bitmap & bit) == 0 ) return null;
+
+			int i = index(bit);
+			Object key_or_null = array[2 * i];
+			Object value_or_node = array[2 * i + 1];
+
+			if ( key_or_null == null ) return ((Node)value_or_node).find(shift + BITS, hash, key);
+			if ( key.equals(key_or_null) ) return value_or_node;
+
+			return null;
+		}
+
+		Node put(int shift, int hash, Object key, Object value, boolean added[])
+		{
+			int bit = bit(hash, shift);
+			int i = index(bit);
+
+			if ( (bitmap & bit) == 0 )
+			{
+				int n = Integer.bitCount(bitmap);
+				Object new_array[] = new Object[2 * (n + 1)];
+
+				System.arraycopy(array, 0, new_array, 0, 2 * i);
+				new_array[2 * i] = key;
+				new_array[2 * i + 1] = value;
+				System.arraycopy(array, 2 * i, new_array, 2 * (i + 1), 2 * (n - i));
+
+				added[0] = true;
+				return new BitmapNode(bitmap | bit, new_array);
+			}
+
+			Object key_or_null = array[2 * i];
+			Object value_or_node = array[2 * i + 1];
+
+			if ( key_or_null == null )
+			{
+				Node child = ((Node)value_or_node).put(shift + BITS, hash, key, value, added);
+				if ( child == value_or_node ) return this;
+
+				return new BitmapNode(bitmap, cloneAndSet(array, 2 * i + 1, child));
+			}
+
+			if ( key.equals(key_or_null) )
+			{
+				if ( value == value_or_node ) return this;
+				return new BitmapNode(bitmap, cloneAndSet(array, 2 * i + 1, value));
+			}
+
+			// Two different keys in one slot, push both down a level
+			added[0] = true;
+
+			Object new_array[] = cloneAndSet(array, 2 * i, null);
+			new_array[2 * i + 1] = createNode(shift + BITS, key_or_null, value_or_node, hash, key, value);
+
+			return new BitmapNode(bitmap, new_array);
+		}
+
+		Node remove(int shift, int hash, Object key)
+		{
+			int bit = bit(hash, shift);
+			if ( (bitmap & bit) == 0 ) return this;
+
+			int i = index(bit);
+			Object key_or_null = array[2 * i];
+			Object value_or_node = array[2 * i + 1];
+
+			if ( key_or_null == null )
+			{
+				Node child = ((Node)value_or_node).remove(shift + BITS, hash, key);
+
+				if ( child == value_or_node ) return this;
+				if ( child != null ) return new BitmapNode(bitmap, cloneAndSet(array, 2 * i + 1, child));
+			}
+			else if ( !key.equals(key_or_null) )
+			{
+				return this;
+			}
+
+			// Remove the pair entirely
+			if ( bitmap == bit ) return null;
+
+			return new BitmapNode(bitmap ^ bit, removePair(array, i));
+		}
+
+		static private Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2)
+		{
+			int hash1 = hash(key1);
+
+			if ( hash1 == hash2 ) return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+
+			boolean added[] = new boolean[1];
+
+			return EMPTY.put(shift, hash1, key1, value1, added).put(shift, hash2, key2, value2, added);
+		}
+	}
+
+	static private final class CollisionNode extends Node
+	{
+		private final int hash;
+
+		CollisionNode(int hash, Object array[])
+		{
+			super(array);
+			this.hash = hash;
+		}
+
+		private int indexOf(Object key)
+		{
+			for ( int i = 0; i < array.length; i += 2 )
+			{
+				if ( key.equals(array[i]) ) return i;
+			}
+
+			return -1;
+		}
+
+		Object find(int shift, int hash, Object key)
+		{
+			int i = indexOf(key);
+			return i < 0 ? null : array[i + 1];
+		}
+
+		Node put(int shift, int hash, Object key, Object value, boolean added[])
+		{
+			if ( hash != this.hash )
+			{
+				// Nest this node in a bitmap node and add to that
+				Node parent = new BitmapNode(BitmapNode.bit(this.hash, shift), new Object[] { null, this });
+				return parent.put(shift, hash, key, value, added);
+			}
+
+			int i = indexOf(key);
+
+			if ( i >= 0 )
+			{
+				if ( array[i + 1] == value ) return this;
+				return new CollisionNode(hash, cloneAndSet(array, i + 1, value));
+			}
+
+			Object new_array[] = Arrays.copyOf(array, array.length + 2);
+			new_array[array.length] = key;
+			new_array[array.length + 1] = value;
+
+			added[0] = true;
+			return new CollisionNode(hash, new_array);
+		}
+
+		Node remove(int shift, int hash, Object key)
+		{
+			int i = indexOf(key);
+
+			if ( i < 0 ) return this;
+			if ( array.length == 2 ) return null;
+
+			return new CollisionNode(hash, removePair(array, i / 2));
+		}
+	}
+
+	static private Object[] cloneAndSet(Object array[], int i, Object value)
+	{
+		Object ret[] = array.clone();
+		ret[i] = value;
+
+		return ret;
+	}
+
+	static private Object[] removePair(Object array[], int pair)
+	{
+		Object ret[] = new Object[array.length - 2];
+
+		System.arraycopy(array, 0, ret, 0, 2 * pair);
+		System.arraycopy(array, 2 * (pair + 1), ret, 2 * pair, ret.length - 2 * pair);
+
+		return ret;
+	}
+
+	/**
+	 * A depth first walk of the trie
+	 */
+	static private final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>>
+	{
+		private final Deque<Object[]> arrays = new ArrayDeque<>();
+		private final Deque<Integer> positions = new ArrayDeque<>();
+
+		private Object current[];
+		private int position;
+
+		private Map.Entry<K, V> next;
+
+		EntryIterator(Node root)
+		{
+			current = root.array;
+			position = 0;
+
+			advance();
+		}
+
+		@SuppressWarnings("unchecked")
+		private void advance()
+		{
+			next = null;
+
+			while ( current != null )
+			{
+				if ( position >= current.length )
+				{
+					current = arrays.poll();
+					if ( current != null ) position = positions.pop();
+					continue;
+				}
+
+				Object key = current[position];
+				Object value = current[position + 1];
+				position += 2;
+
+				if ( key != null )
+				{
+					next = new AbstractMap.SimpleImmutableEntry<>((K)key, (V)value);
+					return;
+				}
+
+				// Descend into the child
+				arrays.push(current);
+				positions.push(position);
+
+				current = ((Node)value).array;
+				position = 0;
+			}
+		}
+
+		public boolean hasNext()
+		{
+			return next != null;
+		}
+
+		public Map.Entry<K, V> next()
+		{
+			if ( next == null ) throw new NoSuchElementException();
+
+			Map.Entry<K, V> ret = next;
+			advance();
+
+			return ret;
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package org.jimmutable.core.fields;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable vector (a bit partitioned trie of 32 way nodes, plus a tail
+ * node holding the last (up to) 32 elements). Every "modification" returns a
+ * new vector that shares all but O(log32 n) nodes with the original: appending,
+ * setting and removing the last element all copy one path through the trie
+ * (at most 7 arrays of 32, usually just the tail).
+ *
+ * <p>Used by {@link FieldPersistentList}, so that a copy of a (frozen) list is
+ * free and a small change to a large list is cheap.
+ *
+ * <p>Nodes are plain Object[] (branch nodes hold their children, leaf nodes
+ * hold elements) and are never modified once created.
+ *
+ * @author jim.kane
+ *
+ * @param <E>
+ *            The type of elements in this vector
+ */
+final class PersistentVector<E>
+{
+	static private final int BITS = 5;
+	static private final int WIDTH = 1 << BITS;
+	static private final int MASK = WIDTH - 1;
+
+	static private final Object[] EMPTY_NODE = new Object[WIDTH];
+
+	@SuppressWarnings("rawtypes")
+	static private final PersistentVector EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+	private final int count;
+	private final int shift;
+	private final Object[] root;
+	private final Object[] tail;
+
+	private PersistentVector(int count, int shift, Object[] root, Object[] tail)
+	{
+		this.count = count;
+		this.shift = shift;
+		this.root = root;
+		this.tail = tail;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <E> PersistentVector<E> empty()
+	{
+		return EMPTY;
+	}
+
+	/**
+	 * Create a vector holding the elements of objs, in iteration order
+	 */
+	static <E> PersistentVector<E> of(Iterable<? extends E> objs)
+	{
+		PersistentVector<E> ret = empty();
+
+		for ( E obj : objs )
+		{
+			ret = ret.append(obj);
+		}
+
+		return ret;
+	}
+
+	int size() { return count; }
+
+	/**
+	 * The index of the first element held in the tail
+	 */
+	private int tailOffset()
+	{
+		if ( count < WIDTH ) return 0;
+		return ((count - 1) >>> BITS) << BITS;
+	}
+
+	/**
+	 * The leaf node (or tail) holding element index
+	 */
+	private Object[] leafFor(int index)
+	{
+		if ( index < 0 || index >= count ) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+
+		if ( index >= tailOffset() ) return tail;
+
+		Object[] node = root;
+
+		for ( int level = shift; level > 0; level -= BITS )
+		{
+			node = (Object[])node[(index >>> level) & MASK];
+		}
+
+		return node;
+	}
+
+	@SuppressWarnings("unchecked")
+	E get(int index)
+	{
+		return (E)leafFor(index)[index & MASK];
+	}
+
+	/**
+	 * @return A vector with obj added to the end
+	 */
+	PersistentVector<E> append(E obj)
+	{
+		// Room in the tail?
+		if ( count - tailOffset() < WIDTH )
+		{
+			Object[] new_tail = Arrays.copyOf(tail, tail.length + 1);
+			new_tail[tail.length] = obj;
+
+			return new PersistentVector<>(count + 1, shift, root, new_tail);
+		}
+
+		// Full tail, push it into the trie
+		Object[] new_root;
+		int new_shift = shift;
+
+		if ( (count >>> BITS) > (1 << shift) )
+		{
+			// The trie is full, add a level
+			new_root = new Object[WIDTH];
+			new_root[0] = root;
+			new_root[1] = newPath(shift, tail);
+			new_shift += BITS;
+		}
+		else
+		{
+			new_root = pushTail(shift, root, tail);
+		}
+
+		return new PersistentVector<>(count + 1, new_shift, new_root, new Object[] { obj });
+	}
+
+	private Object[] pushTail(int level, Object[] parent, Object[] tail_node)
+	{
+		int sub_index = ((count - 1) >>> level) & MASK;
+		Object[] ret = parent.clone();
+
+		if ( level == BITS )
+		{
+			ret[sub_index] = tail_node;
+		}
+		else
+		{
+			Object[] child = (Object[])parent[sub_index];
+			ret[sub_index] = child != null ? pushTail(level - BITS, child, tail_node) : newPath(level - BITS, tail_node);
+		}
+
+		return ret;
+	}
+
+	static private Object[] newPath(int level, Object[] node)
+	{
+		if ( level == 0 ) return node;
+
+		Object[] ret = new Object[WIDTH];
+		ret[0] = newPath(level - BITS, node);
+
+		return ret;
+	}
+
+	/**
+	 * @return A vector with the element at index replaced by obj
+	 */
+	PersistentVector<E> set(int index, E obj)
+	{
+		leafFor(index); // range check
+
+		if ( index >= tailOffset() )
+		{
+			Object[] new_tail = tail.clone();
+			new_tail[index & MASK] = obj;
+
+			return new PersistentVector<>(count, shift, root, new_tail);
+		}
+
+		return new PersistentVector<>(count, shift, set(shift, root, index, obj), tail);
+	}
+
+	static private Object[] set(int level, Object[] node, int index, Object obj)
+	{
+		Object[] ret = node.clone();
+
+		if ( level == 0 )
+		{
+			ret[index & MASK] = obj;
+		}
+		else
+		{
+			int sub_index = (index >>> level) & MASK;
+			ret[sub_index] = set(level - BITS, (Object[])node[sub_index], index, obj);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return A vector without the last element
+	 */
+	PersistentVector<E> removeLast()
+	{
+		if ( count == 0 ) throw new NoSuchElementException();
+		if ( count == 1 ) return empty();
+
+		if ( count - tailOffset() > 1 )
+		{
+			return new PersistentVector<>(count - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+		}
+
+		// The tail is about to be empty, the last leaf of the trie becomes the tail
+		Object[] new_tail = leafFor(count - 2);
+
+		Object[] new_root = popTail(shift, root);
+		int new_shift = shift;
+
+		if ( new_root == null ) new_root = EMPTY_NODE;
+
+		if ( shift > BITS && new_root[1] == null )
+		{
+			new_root = (Object[])new_root[0];
+			new_shift -= BITS;
+		}
+
+		return new PersistentVector<>(count - 1, new_shift, new_root, new_tail);
+	}
+
+	private Object[] popTail(int level, Object[] node)
+	{
+		int sub_index = ((count - 2) >>> level) & MASK;
+
+		if ( level > BITS )
+		{
+			Object[] new_child = popTail(level - BITS, (Object[])node[sub_index]);
+			if ( new_child == null && sub_index == 0 ) return null;
+
+			Object[] ret = node.clone();
+			ret[sub_index] = new_child;
+
+			return ret;
+		}
+
+		if ( sub_index == 0 ) return null;
+
+		Object[] ret = node.clone();
+		ret[sub_index] = null;
+
+		return ret;
+	}
+}
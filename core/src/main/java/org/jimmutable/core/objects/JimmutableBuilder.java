@@ -5,12 +5,20 @@ import org.jimmutable.core.serialization.FieldDefinition;
 import org.jimmutable.core.serialization.FieldName;
 import org.jimmutable.core.serialization.TypeName;
 import org.jimmutable.core.serialization.reader.ObjectParseTree;
-import org.jimmutable.core.serialization.reader.Parser;
 import org.jimmutable.core.serialization.writer.ObjectWriter;
 import org.jimmutable.core.utils.Validator;
 
-import com.fasterxml.jackson.databind.util.TokenBuffer;
-
+/**
+ * Builds a StandardObject one field at a time, either from scratch or by
+ * editing a copy of an existing object.
+ * 
+ * <p>When starting from an existing object, its fields are copied straight
+ * into the parse tree being built (see ObjectWriter.serializeToParseTree),
+ * nothing is serialized or parsed. Complete immutable sub-objects and frozen
+ * collections are shared with the source object instead of being copied, so
+ * create() only has to construct the top level object and the fields that
+ * were actually changed.
+ */
 public class JimmutableBuilder
 {
 	private ObjectParseTree under_construction;
@@ -30,9 +38,8 @@ public class JimmutableBuilder
 	public JimmutableBuilder( StandardObject src )
 	{
 		Validator.notNull(src);
-		TokenBuffer token_buffer = ObjectWriter.serializeToTokenBuffer(src);
 
-		under_construction = Parser.parse(token_buffer);
+		under_construction = ObjectWriter.serializeToParseTree(src);
 	}
 
 	public void unset( FieldDefinition field )
@@ -146,12 +153,7 @@ public class JimmutableBuilder
 			return;
 		}
 
-		TokenBuffer token_buffer = ObjectWriter.serializeToTokenBuffer(value);
-
-		ObjectParseTree new_child = Parser.parse(token_buffer);
-		new_child.setFieldName(field.getSimpleFieldName());
-
-		under_construction.setOrAdd(new_child);
+		under_construction.setOrAdd(createObjectParseTree(field.getSimpleFieldName(), value));
 	}
 
 	public void printUnderConstruction()
@@ -251,12 +253,7 @@ public class JimmutableBuilder
 		if ( value == null )
 			return;
 
-		TokenBuffer token_buffer = ObjectWriter.serializeToTokenBuffer(value);
-
-		ObjectParseTree new_child = Parser.parse(token_buffer);
-		new_child.setFieldName(field.getSimpleFieldName());
-
-		under_construction.add(new_child);
+		under_construction.add(createObjectParseTree(field.getSimpleFieldName(), value));
 	}
 
 	public void add( FieldDefinition.Collection field, StandardEnum value )
@@ -266,12 +263,7 @@ public class JimmutableBuilder
 		if ( value == null )
 			return;
 
-		TokenBuffer token_buffer = ObjectWriter.serializeToTokenBuffer(value.toString());
-
-		ObjectParseTree new_child = Parser.parse(token_buffer);
-		new_child.setFieldName(field.getSimpleFieldName());
-
-		under_construction.add(new_child);
+		under_construction.add(createObjectParseTree(field.getSimpleFieldName(), value.toString()));
 	}
 
 	private ObjectParseTree mapKeyOrValueToObjectParseTree( FieldName field_name, Object value )
@@ -336,9 +328,18 @@ public class JimmutableBuilder
 
 	private ObjectParseTree createObjectParseTree( FieldName field_name, Object value )
 	{
-		TokenBuffer token_buffer = ObjectWriter.serializeToTokenBuffer(value);
+		ObjectParseTree ret;
+
+		// Complete immutable objects are shared as is
+		if ( value instanceof StandardImmutableObject && ((StandardImmutableObject) value).isComplete() )
+		{
+			ret = new ObjectParseTree(field_name);
+			ret.setObject(value);
+
+			return ret;
+		}
 
-		ObjectParseTree ret = Parser.parse(token_buffer);
+		ret = ObjectWriter.serializeToParseTree(value);
 		ret.setFieldName(field_name);
 
 		return ret;
@@ -0,0 +1,266 @@
+package org.jimmutable.core.objects;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.utils.Validator;
+
+/**
+ * An (opt-in) cache of the serialized bytes of complete
+ * {@link StandardImmutableObject}s.
+ *
+ * <p>A complete immutable object never changes, so the bytes it serializes to
+ * (in a given format) never change either. When the cache is enabled,
+ * ObjectWriter keeps the bytes it writes for complete immutable objects, one
+ * copy per Format, on the object itself. Serializing the same instance again
+ * (a popular object in a read heavy end point, a storage retry, etc.) then
+ * skips serialization entirely.
+ *
+ * <p>Memory is bounded two ways:
+ * <ul>
+ * <li>The cached bytes are softly referenced, the garbage collector may
+ * reclaim them whenever memory is tight</li>
+ * <li>The total size of the cached bytes is held to a budget (set via
+ * {@link #enable(long)}). When the budget is exceeded, entries are evicted
+ * using the CLOCK (second chance) policy: entries that were used since the
+ * clock hand last passed them survive one more pass, others are dropped</li>
+ * </ul>
+ *
+ * <p>The cache is off by default. All methods are thread safe.
+ *
+ * @author jim.kane
+ *
+ */
+final public class SerializedFormCache
+{
+	static private volatile long max_bytes = 0; // 0 means disabled
+
+	static private final AtomicLong current_bytes = new AtomicLong();
+	static private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+	static private final AtomicInteger clock_size = new AtomicInteger(); // ConcurrentLinkedQueue.size() is O(n)
+
+	static private final LongAdder hits = new LongAdder();
+	static private final LongAdder misses = new LongAdder();
+	static private final LongAdder evictions = new LongAdder();
+
+	private SerializedFormCache()
+	{
+	}
+
+	/**
+	 * The cached bytes of one object in one format
+	 */
+	static final class Entry extends SoftReference<byte[]>
+	{
+		private final int size;
+		private final AtomicBoolean evicted = new AtomicBoolean(false);
+		private volatile boolean referenced = false;
+
+		private Entry(byte bytes[])
+		{
+			super(bytes);
+			this.size = bytes.length;
+		}
+
+		/**
+		 * Drop the bytes and give their space back to the budget (only the
+		 * first call has any effect)
+		 */
+		private void evict()
+		{
+			if ( !evicted.compareAndSet(false, true) ) return;
+
+			clear();
+			current_bytes.addAndGet(-size);
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * Turn the cache on (or change its budget)
+	 *
+	 * @param max_bytes
+	 *            The maximum total size, in bytes, of the cached serialized
+	 *            forms. Must be greater than zero
+	 */
+	static public void enable(long max_bytes)
+	{
+		Validator.min(max_bytes, 1);
+
+		SerializedFormCache.max_bytes = max_bytes;
+		evictOverBudget();
+	}
+
+	/**
+	 * Turn the cache off and drop everything in it
+	 */
+	static public void disable()
+	{
+		max_bytes = 0;
+
+		Entry entry;
+		while ( (entry = clock.poll()) != null )
+		{
+			clock_size.decrementAndGet();
+			entry.evict();
+		}
+	}
+
+	/**
+	 * Test to see if the cache is enabled
+	 *
+	 * @return true if the cache is enabled, false otherwise
+	 */
+	static public boolean isEnabled() { return max_bytes > 0; }
+
+	/**
+	 * Get the budget of the cache
+	 *
+	 * @return The maximum total size, in bytes, of the cached serialized forms
+	 *         (0 if the cache is disabled)
+	 */
+	static public long getSimpleMaxBytes() { return max_bytes; }
+
+	/**
+	 * Get the total size, in bytes, of the serialized forms currently held. This
+	 * is the amount counted against the budget; the garbage collector may have
+	 * already reclaimed some of it
+	 *
+	 * @return The total size of the cached serialized forms
+	 */
+	static public long getSimpleCurrentBytes() { return current_bytes.get(); }
+
+	/**
+	 * @return The number of lookups that found cached bytes
+	 */
+	static public long getSimpleHitCount() { return hits.sum(); }
+
+	/**
+	 * @return The number of lookups that did not find cached bytes
+	 */
+	static public long getSimpleMissCount() { return misses.sum(); }
+
+	/**
+	 * @return The number of entries evicted (for the budget, or by disable())
+	 */
+	static public long getSimpleEvictionCount() { return evictions.sum(); }
+
+	/**
+	 * Can obj's serialized form in format be cached?
+	 *
+	 * @param obj
+	 *            The object being serialized
+	 * @param format
+	 *            The format it is being serialized in
+	 * @return true if the cache is enabled, obj is a complete immutable object
+	 *         and format is a byte oriented format
+	 */
+	static public boolean isCacheable(Object obj, Format format)
+	{
+		if ( !isEnabled() || format == null || format == Format.TOKEN_BUFFER ) return false;
+		if ( !(obj instanceof StandardImmutableObject) ) return false;
+
+		return ((StandardImmutableObject<?>)obj).isComplete();
+	}
+
+	/**
+	 * Get the cached serialized form of obj in format. The array returned is
+	 * shared, it must not be modified
+	 *
+	 * @param obj
+	 *            The object
+	 * @param format
+	 *            The format
+	 * @return The cached bytes, or null if none are cached
+	 */
+	static public byte[] get(StandardImmutableObject<?> obj, Format format)
+	{
+		Validator.notNull(obj, format);
+
+		AtomicReferenceArray<Entry> forms = obj.serialized_forms;
+		Entry entry = forms == null ? null : forms.get(format.ordinal());
+		byte ret[] = entry == null ? null : entry.get();
+
+		if ( ret == null )
+		{
+			misses.increment();
+			return null;
+		}
+
+		entry.referenced = true;
+		hits.increment();
+
+		return ret;
+	}
+
+	/**
+	 * Cache the serialized form of obj in format. Does nothing if the cache is
+	 * disabled, obj is not complete, or bytes is larger than the whole budget.
+	 * The array must not be modified after it is handed to the cache
+	 *
+	 * @param obj
+	 *            The object
+	 * @param format
+	 *            The format bytes are in
+	 * @param bytes
+	 *            The serialized form of obj in format
+	 */
+	static public void put(StandardImmutableObject<?> obj, Format format, byte bytes[])
+	{
+		Validator.notNull(obj, format, bytes);
+
+		if ( !isCacheable(obj, format) || bytes.length > max_bytes ) return;
+
+		AtomicReferenceArray<Entry> forms = obj.serialized_forms;
+
+		if ( forms == null )
+		{
+			// Racing threads may each create an array, the loser's entries are
+			// simply forgotten (and eventually evicted by the clock)
+			forms = new AtomicReferenceArray<>(Format.values().length);
+			obj.serialized_forms = forms;
+		}
+
+		Entry entry = new Entry(bytes);
+		Entry old = forms.getAndSet(format.ordinal(), entry);
+		if ( old != null ) old.evict();
+
+		current_bytes.addAndGet(entry.size);
+		clock.add(entry);
+		clock_size.incrementAndGet();
+
+		evictOverBudget();
+	}
+
+	/**
+	 * Run the clock hand until the cached bytes fit the budget. Entries that
+	 * have been used since the hand last passed them get a second chance (as
+	 * do, at most, the number of entries in the cache to bound the work done)
+	 */
+	static private void evictOverBudget()
+	{
+		int second_chances_left = clock_size.get();
+
+		while ( current_bytes.get() > max_bytes )
+		{
+			Entry entry = clock.poll();
+			if ( entry == null ) return;
+
+			if ( entry.referenced && entry.get() != null && second_chances_left-- > 0 )
+			{
+				entry.referenced = false;
+				clock.add(entry);
+				continue;
+			}
+
+			clock_size.decrementAndGet();
+			entry.evict();
+		}
+	}
+}
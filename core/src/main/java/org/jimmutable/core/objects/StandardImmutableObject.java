@@ -1,5 +1,9 @@
 package org.jimmutable.core.objects;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToIntFunction;
+
 import org.jimmutable.core.exceptions.ImmutableException;
 import org.jimmutable.core.fields.Field;
 import org.jimmutable.core.serialization.Format;
@@ -23,7 +27,22 @@ import org.jimmutable.core.serialization.writer.ObjectWriter;
  */
 abstract public class StandardImmutableObject<T extends StandardImmutableObject<T>> extends StandardObject<T>
 {
-	transient volatile private boolean is_complete = false;
+	// The completion life cycle: BUILDING -> COMPLETING -> COMPLETE. A failed
+	// complete() (e.g. validation) goes back to BUILDING
+	static private final int STATE_BUILDING = 0;
+	static private final int STATE_COMPLETING = 1;
+	static private final int STATE_COMPLETE = 2;
+	
+	@SuppressWarnings("rawtypes")
+	static private final AtomicIntegerFieldUpdater<StandardImmutableObject> state_updater = AtomicIntegerFieldUpdater.newUpdater(StandardImmutableObject.class, "state");
+	
+	transient volatile private int state = STATE_BUILDING;
+	
+	// The hash code, cached once complete by cachedHashCode (0 means not cached)
+	transient private int hash_code = 0;
+	
+	// Cached serialized forms, indexed by Format.ordinal() (see SerializedFormCache)
+	transient volatile AtomicReferenceArray<SerializedFormCache.Entry> serialized_forms = null;
 	
 	/**
 	 * Make any changes to this object required to make this object
@@ -49,14 +68,23 @@ abstract public class StandardImmutableObject<T extends StandardImmutableObject<
 	 * @throws ImmutableException if the object is {@link #isComplete() complete}
 	 */
 	@Override
-	synchronized public void complete()
+	public void complete()
 	{
-		assertNotComplete();
+		if ( !state_updater.compareAndSet(this, STATE_BUILDING, STATE_COMPLETING) )
+			throw new ImmutableException("Attempt to modify an object after construction is complete");
 		
-		super.complete();
-		freeze();
+		try
+		{
+			super.complete();
+			freeze();
+		}
+		catch(RuntimeException | Error e)
+		{
+			state = STATE_BUILDING;
+			throw e;
+		}
 		
-		is_complete = true;
+		state = STATE_COMPLETE;
 	}
 	
 	/**
@@ -66,7 +94,7 @@ abstract public class StandardImmutableObject<T extends StandardImmutableObject<
 	 */
 	public void assertNotComplete()
 	{
-		if ( is_complete ) 
+		if ( state == STATE_COMPLETE ) 
 			throw new ImmutableException("Attempt to modify an object after construction is complete");
 	}
 	
@@ -75,11 +103,48 @@ abstract public class StandardImmutableObject<T extends StandardImmutableObject<
      *
      * @return {@code true} if this object is {@link #complete() complete}
      */
-	public boolean isComplete() { return is_complete; }
+	public boolean isComplete() { return state == STATE_COMPLETE; }
+	
+	/**
+	 * Compute the hash code of this object once it is complete, and return
+	 * the cached value after that. Before completion the hash code is computed
+	 * on every call.
+	 * 
+	 * <p>Intended for hashCode() implementations that are expensive (hash whole
+	 * collections, box values for Objects.hash, etc.):
+	 * 
+	 * <pre>
+	 * public int hashCode()
+	 * {
+	 *     return cachedHashCode(deck -&gt; deck.getSimpleContents().hashCode());
+	 * }
+	 * </pre>
+	 * 
+	 * Pass a lambda that does not capture anything (use its argument, not
+	 * this), so that no object is allocated per call.
+	 * 
+	 * @param compute
+	 *            Computes the hash code of its argument (this object)
+	 * @return The hash code of this object
+	 */
+	@SuppressWarnings("unchecked")
+	final protected int cachedHashCode(ToIntFunction<T> compute)
+	{
+		int ret = hash_code;
+		if ( ret != 0 ) return ret;
+		
+		ret = compute.applyAsInt((T)this);
+		
+		// Like String.hashCode, a racy (but benign) single check: every thread
+		// computes the same value from the same, now frozen, fields
+		if ( state == STATE_COMPLETE ) hash_code = ret;
+		
+		return ret;
+	}
 	
 	public T deepClone()
 	{
-		if ( this.is_complete )
+		if ( isComplete() )
 			return (T)this; // immutable, so, no need to clone...
 		
 		return super.deepClone();
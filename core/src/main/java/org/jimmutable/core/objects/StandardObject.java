@@ -1,5 +1,8 @@
 package org.jimmutable.core.objects;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import org.jimmutable.core.exceptions.ValidationException;
 import org.jimmutable.core.serialization.Format;
 import org.jimmutable.core.serialization.JavaCodeUtils;
@@ -123,6 +126,42 @@ abstract public class StandardObject<T extends StandardObject<T>> implements Com
 		return (StandardObject)ObjectParseTree.deserialize(serialized_data);
 	}
 	
+	/**
+	 * Serialize to bytes (the only way to serialize in a binary format, such as
+	 * Format.SMILE). Text formats are UTF-8 encoded
+	 */
+	public byte[] serializeToBytes(Format format)
+	{
+		return ObjectWriter.serializeToBytes(format, this);
+	}
+	
+	/**
+	 * Deserialize bytes written by serializeToBytes (or UTF-8 encoded text).
+	 * The format is automatically detected
+	 */
+	static public StandardObject deserialize(byte serialized_data[])
+	{
+		return (StandardObject)ObjectParseTree.deserialize(serialized_data);
+	}
+	
+	/**
+	 * Serialize to a stream (text formats are UTF-8 encoded as they are
+	 * written). out is flushed, but not closed
+	 */
+	public void serialize(Format format, OutputStream out)
+	{
+		ObjectWriter.serialize(format, this, out);
+	}
+	
+	/**
+	 * Deserialize from a stream (see deserialize(byte[])). in is closed when
+	 * reading is done
+	 */
+	static public StandardObject deserialize(InputStream in)
+	{
+		return (StandardObject)ObjectParseTree.deserialize(in);
+	}
+	
 	/**
 	 * Create Java source code that will construct an identical copy of this object.
 	 * 
@@ -6,6 +6,7 @@ import org.jimmutable.core.exceptions.SerializeException;
 import org.jimmutable.core.serialization.TypeName;
 import org.jimmutable.core.serialization.reader.ObjectParseTree;
 import org.jimmutable.core.serialization.reader.ReadAs;
+import org.jimmutable.core.serialization.reader.StreamReader;
 import org.jimmutable.core.serialization.writer.ObjectWriter;
 import org.jimmutable.core.utils.Normalizer;
 
@@ -124,5 +125,10 @@ abstract public class Stringable extends StandardImmutableObject<Stringable>
 		{
 			return fromString(t.asString(null), null);
 		}
+		
+		public Object readAs(StreamReader r) 
+		{
+			return fromString(r.asString(null), null);
+		}
 	}
 }
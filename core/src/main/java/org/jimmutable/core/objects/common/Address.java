@@ -123,7 +123,7 @@ public class Address extends StandardImmutableObject<Address>
 	@Override
 	public int hashCode()
 	{
-		return Objects.hash(getOptionalName(null), getSimpleLine1(), getSimpleCity(), getSimpleState(), getSimplePostalCode());
+		return cachedHashCode(address -> Objects.hash(address.getOptionalName(null), address.getSimpleLine1(), address.getSimpleCity(), address.getSimpleState(), address.getSimplePostalCode()));
 	}
 
 	@Override
@@ -1,6 +1,7 @@
 package org.jimmutable.core.objects.common;
 
 import org.jimmutable.core.objects.Stringable;
+import org.jimmutable.core.utils.InternTable;
 import org.jimmutable.core.utils.Validator;
 
 /**
@@ -18,10 +19,30 @@ public class Kind extends Stringable
 {
 	static public final MyConverter CONVERTER = new MyConverter();
 	
+	/**
+	 * The maximum number of kinds intern will remember
+	 */
+	static public final int MAX_INTERNED_KINDS = 4096;
+	
+	static private final InternTable<Kind> interned = new InternTable<>(MAX_INTERNED_KINDS, Kind::new);
+	
 	public Kind(String code)
 	{
 		super(code);
 	}
+	
+	/**
+	 * Get the canonical Kind for code. The converter uses this, so reading
+	 * many objects of the same kind allocates (and validates) a single Kind
+	 * 
+	 * @param code
+	 *            The kind
+	 * @return The canonical Kind (or a new one, if the intern table is full)
+	 */
+	static public Kind intern(String code)
+	{
+		return interned.intern(code);
+	}
 
 	
 	public void normalize() 
@@ -47,7 +68,7 @@ public class Kind extends Stringable
 		{
 			try
 			{
-				return new Kind(str);
+				return intern(str);
 			}
 			catch(Exception e)
 			{
@@ -81,7 +81,7 @@ public class PhoneNumber extends StandardImmutableObject<PhoneNumber>
 
 	public int hashCode() 
 	{
-		return Objects.hash(getSimpleDigits(), getSimpleType());
+		return cachedHashCode(number -> Objects.hash(number.getSimpleDigits(), number.getSimpleType()));
 	}
 
 	public boolean equals(Object obj) 
@@ -83,7 +83,7 @@ public class PhoneNumberDeck extends StandardImmutableObject<PhoneNumberDeck>
 	@Override
 	public int hashCode() 
 	{
-		return phone_numbers.hashCode();
+		return cachedHashCode(deck -> deck.phone_numbers.hashCode());
 	}
 
 	@Override
@@ -85,7 +85,7 @@ public class USDMonetaryAmount extends StandardImmutableObject<USDMonetaryAmount
 	@Override
 	public int hashCode()
 	{
-		return Objects.hash(amount_in_cents);
+		return 31 + Long.hashCode(amount_in_cents); // Objects.hash(amount_in_cents), without the boxing
 	}
 
 	@Override
@@ -149,7 +149,7 @@ public class Instant extends StandardImmutableObject<Instant>
 	@Override
 	public int hashCode()
 	{
-		return Objects.hash(ms_from_epoch);
+		return 31 + Long.hashCode(ms_from_epoch); // Objects.hash(ms_from_epoch), without the boxing
 	}
 
 	@Override
@@ -9,8 +9,6 @@ import org.jimmutable.core.serialization.writer.ObjectWriter;
 import org.jimmutable.core.utils.Comparison;
 import org.jimmutable.core.utils.Validator;
 
-import java.util.Objects;
-
 /**
  * Stores milliseconds from midnight up to 86,399,999
  * 
@@ -457,7 +455,7 @@ public class TimeOfDay extends StandardImmutableObject<TimeOfDay>
 	@Override
 	public int hashCode()
 	{
-		return Objects.hash(ms_from_midnight);
+		return 31 + Long.hashCode(ms_from_midnight); // Objects.hash(ms_from_midnight), without the boxing
 	}
 
 	@Override
@@ -10,7 +10,7 @@ abstract public class FieldDefinition<T>
 	
 	public FieldDefinition(java.lang.String field_name, T unset_value)
 	{
-		this.field_name = new FieldName(field_name);
+		this.field_name = FieldName.register(field_name);
 		this.unset_value = unset_value;
 	}
 	
@@ -4,6 +4,7 @@ import org.jimmutable.core.exceptions.ValidationException;
 import org.jimmutable.core.objects.StandardImmutableObject;
 import org.jimmutable.core.serialization.reader.ObjectParseTree;
 import org.jimmutable.core.serialization.writer.ObjectWriter;
+import org.jimmutable.core.utils.InternTable;
 import org.jimmutable.core.utils.Validator;
 
 /**
@@ -15,18 +16,26 @@ import org.jimmutable.core.utils.Validator;
  */
 final public class FieldName extends StandardImmutableObject
 {
+	/**
+	 * The maximum number of field names intern will remember (names declared by
+	 * FieldDefinition(s) are always remembered)
+	 */
+	static public final int MAX_INTERNED_FIELD_NAMES = 16384;
+	
+	static private final InternTable<FieldName> interned = new InternTable<>(MAX_INTERNED_FIELD_NAMES, FieldName::new);
+	
 	static public final TypeName TYPE_NAME = new TypeName("jimmutable.FieldName");
-	static private final FieldName FIELD_NAME = new FieldName("name");
+	static private final FieldName FIELD_NAME = register("name");
 	
-	static public FieldName FIELD_NAME_TYPE_HINT = new FieldName("type_hint");
-	static public FieldName FIELD_NAME_PRIMITIVE_VALUE = new FieldName("primitive_value");
-	static public FieldName FIELD_NAME_PRIMITIVE_VALUE_BASE64 = new FieldName("primitive_value_base_64");
-	static public FieldName FIELD_DOCUMENT_ROOT = new FieldName("parsed_document_root_element");
+	static public FieldName FIELD_NAME_TYPE_HINT = register("type_hint");
+	static public FieldName FIELD_NAME_PRIMITIVE_VALUE = register("primitive_value");
+	static public FieldName FIELD_NAME_PRIMITIVE_VALUE_BASE64 = register("primitive_value_base_64");
+	static public FieldName FIELD_DOCUMENT_ROOT = register("parsed_document_root_element");
 	
-	static public final FieldName FIELD_KEY = new FieldName("key");
-	static public final FieldName FIELD_VALUE = new FieldName("value");
+	static public final FieldName FIELD_KEY = register("key");
+	static public final FieldName FIELD_VALUE = register("value");
 	
-	static public final FieldName FIELD_ARRAY_ELEMENT = new FieldName("array_element_do_not_write_field_name");
+	static public final FieldName FIELD_ARRAY_ELEMENT = register("array_element_do_not_write_field_name");
 	
 	private String name; 
 	
@@ -38,6 +47,39 @@ final public class FieldName extends StandardImmutableObject
 		complete();
 	}
 	
+	/**
+	 * Get the canonical FieldName for name. Used when reading field names from
+	 * serialized data: known names are returned without being re-validated, and
+	 * parsing a large document allocates one FieldName per distinct name.
+	 * 
+	 * @param name
+	 *            The field name
+	 * @return The canonical FieldName (or a new one, if the intern table is
+	 *         full)
+	 * @throws ValidationException
+	 *             if name is not a legal field name
+	 */
+	static public FieldName intern(String name)
+	{
+		return interned.intern(name);
+	}
+	
+	/**
+	 * Get the canonical FieldName for name, remembering it no matter how full
+	 * the intern table is. Used for the (limited number of) field names
+	 * declared in code, e.g. by FieldDefinition
+	 * 
+	 * @param name
+	 *            The field name
+	 * @return The canonical FieldName
+	 * @throws ValidationException
+	 *             if name is not a legal field name
+	 */
+	static public FieldName register(String name)
+	{
+		return interned.register(name);
+	}
+	
 	public FieldName(ObjectParseTree t)
 	{
 		name = t.getString(FIELD_NAME, null);
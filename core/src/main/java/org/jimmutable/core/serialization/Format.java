@@ -12,5 +12,28 @@ public enum Format
 	JSON_PRETTY_PRINT,
 	XML, 
 	XML_PRETTY_PRINT, 
-	TOKEN_BUFFER
+	TOKEN_BUFFER,
+	
+	/**
+	 * A compact binary format (Jackson's Smile encoding of the same data that
+	 * is written as JSON). Field names and short string values (type hints,
+	 * enum codes, etc.) are written once per document and back referenced
+	 * after that.
+	 * 
+	 * Being binary, SMILE can only be written to bytes (see
+	 * ObjectWriter.serializeToBytes). Documents start with the magic bytes
+	 * ":)\n", which is how the byte oriented deserialize methods tell them
+	 * from JSON/XML
+	 */
+	SMILE;
+	
+	/**
+	 * Is this a binary format (one that can not be written as a String)?
+	 * 
+	 * @return true if this format is binary, false otherwise
+	 */
+	public boolean isBinary()
+	{
+		return this == SMILE;
+	}
 }
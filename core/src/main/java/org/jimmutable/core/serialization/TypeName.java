@@ -4,6 +4,7 @@ import org.jimmutable.core.exceptions.ValidationException;
 import org.jimmutable.core.objects.StandardImmutableObject;
 import org.jimmutable.core.serialization.reader.ObjectParseTree;
 import org.jimmutable.core.serialization.writer.ObjectWriter;
+import org.jimmutable.core.utils.InternTable;
 import org.jimmutable.core.utils.Validator;
 
 /**
@@ -17,24 +18,32 @@ import org.jimmutable.core.utils.Validator;
 
 public class TypeName extends StandardImmutableObject
 {
+	/**
+	 * The maximum number of type names intern will remember (registered type
+	 * names are always remembered)
+	 */
+	static public final int MAX_INTERNED_TYPE_NAMES = 4096;
+	
+	static private final InternTable<TypeName> interned = new InternTable<>(MAX_INTERNED_TYPE_NAMES, TypeName::new);
+	
 	static public final TypeName TYPE_NAME = new TypeName("jimmutable.TypeName");
 	static private final FieldName FIELD_NAME = new FieldName("name");
 	
-	static public TypeName TYPE_NAME_OBJECT = new TypeName("object");
-	static public TypeName TYPE_NAME_STRING = new TypeName("string");
+	static public TypeName TYPE_NAME_OBJECT = register("object");
+	static public TypeName TYPE_NAME_STRING = register("string");
 	
-	static public TypeName TYPE_NAME_BOOLEAN = new TypeName("boolean");
-	static public TypeName TYPE_NAME_CHAR = new TypeName("char");
-	static public TypeName TYPE_NAME_BYTE = new TypeName("byte");
-	static public TypeName TYPE_NAME_SHORT = new TypeName("short");
-	static public TypeName TYPE_NAME_INT = new TypeName("int");
-	static public TypeName TYPE_NAME_LONG = new TypeName("long");
-	static public TypeName TYPE_NAME_FLOAT = new TypeName("float");
-	static public TypeName TYPE_NAME_DOUBLE = new TypeName("double");
+	static public TypeName TYPE_NAME_BOOLEAN = register("boolean");
+	static public TypeName TYPE_NAME_CHAR = register("char");
+	static public TypeName TYPE_NAME_BYTE = register("byte");
+	static public TypeName TYPE_NAME_SHORT = register("short");
+	static public TypeName TYPE_NAME_INT = register("int");
+	static public TypeName TYPE_NAME_LONG = register("long");
+	static public TypeName TYPE_NAME_FLOAT = register("float");
+	static public TypeName TYPE_NAME_DOUBLE = register("double");
 	
-	static public TypeName TYPE_NAME_NULL = new TypeName("null");
+	static public TypeName TYPE_NAME_NULL = register("null");
 	
-	static public TypeName TYPE_NAME_MAP_ENTRY = new TypeName("MapEntry");
+	static public TypeName TYPE_NAME_MAP_ENTRY = register("MapEntry");
 	
 	private String name; 
 	
@@ -46,6 +55,42 @@ public class TypeName extends StandardImmutableObject
 		complete();
 	}
 	
+	/**
+	 * Get the canonical TypeName for name. Used when reading type hints from
+	 * serialized data: registered type names are returned without being
+	 * re-validated.
+	 * 
+	 * @param name
+	 *            The type name
+	 * @return The canonical TypeName (or a new one, if the intern table is
+	 *         full)
+	 * @throws ValidationException
+	 *             if name is not a legal type name
+	 */
+	static public TypeName intern(String name)
+	{
+		return interned.intern(name);
+	}
+	
+	/**
+	 * Make type_name the canonical TypeName for its name (unless one is already
+	 * registered). Called by ObjectParseTree.registerTypeName
+	 * 
+	 * @param type_name
+	 *            The type name
+	 * @return The canonical TypeName
+	 */
+	static public TypeName register(TypeName type_name)
+	{
+		Validator.notNull(type_name);
+		return interned.register(type_name.getSimpleName(), type_name);
+	}
+	
+	static private TypeName register(String name)
+	{
+		return interned.register(name);
+	}
+	
 	public TypeName(ObjectParseTree t)
 	{
 		name = t.getString(FIELD_NAME, null);
@@ -79,12 +79,12 @@ public class HandReader
 			for (int i = 0; i < arr.length - 1; i++)
 			{
 
-				cursor = cursor.findChild(new FieldName(arr[i]), null);
+				cursor = cursor.findChild(FieldName.intern(arr[i]), null);
 				if (cursor == null)
 					return default_value;
 			}
 
-			return cursor.readChild(new FieldName(arr[arr.length - 1]), default_value);
+			return cursor.readChild(FieldName.intern(arr[arr.length - 1]), default_value);
 		} catch (Exception e)
 		{
 			return default_value;
@@ -0,0 +1,349 @@
+package org.jimmutable.core.serialization.reader;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.jimmutable.core.serialization.FieldName;
+
+/**
+ * The children of an ObjectParseTree node.
+ *
+ * Children are kept in an array, in the order they were added. Removing a
+ * child leaves a "hole" (null) in the array so that the position of every
+ * other child is stable, which in turn lets us keep a FieldName -> position
+ * index.
+ *
+ * The index is only built once a node has more than INDEX_THRESHOLD children
+ * (small nodes are faster to scan than to hash). It is an open addressing
+ * table of the first position of each field name, plus a "next position with
+ * the same field name" chain, so building it allocates three int arrays and
+ * nothing else. Since StandardObject(s) get or read each of their fields
+ * exactly once, a node with N fields costs O(N) to read instead of O(N^2).
+ *
+ * The field name of a child must not be changed once lookups have begun on
+ * its parent (Parser and Builder only rename children before then).
+ *
+ * Not thread safe (neither is ObjectParseTree)
+ *
+ * @author jim.kane
+ *
+ */
+final class IndexedChildren implements Iterable<ObjectParseTree>
+{
+	/**
+	 * Nodes with this many children (or fewer) are simply scanned
+	 */
+	static final int INDEX_THRESHOLD = 12;
+
+	static private final int INITIAL_CAPACITY = 4;
+	static private final int NONE = -1;
+
+	private ObjectParseTree children[] = new ObjectParseTree[INITIAL_CAPACITY];
+	private FieldName names[] = new FieldName[INITIAL_CAPACITY]; // the indexed name of each position, kept after children[i] is removed
+	private int end = 0; // one past the last used slot
+	private int live_count = 0; // number of non-null slots
+	private int mod_count = 0;
+
+	// The index (optional, built lazily). table holds the first position of
+	// each field name (or NONE), next[i] is the position of the next child
+	// with the same name as child i (or NONE), tails holds the last position
+	// for each name (so that add is O(1))
+	private int table[] = null;
+	private int tails[] = null;
+	private int next[] = null;
+
+	public int size()
+	{
+		return live_count;
+	}
+
+	public boolean isEmpty()
+	{
+		return live_count == 0;
+	}
+
+	public void add(ObjectParseTree child)
+	{
+		if ( end == children.length )
+		{
+			if ( live_count < end / 2 )
+			{
+				compact();
+			}
+			else
+			{
+				children = Arrays.copyOf(children, children.length * 2);
+				names = Arrays.copyOf(names, names.length * 2);
+				if ( next != null ) next = Arrays.copyOf(next, next.length * 2);
+			}
+		}
+
+		children[end] = child;
+		names[end] = child.getSimpleFieldName();
+
+		end++;
+		live_count++;
+		mod_count++;
+
+		if ( table != null )
+		{
+			if ( end * 2 > table.length )
+				dropIndex(); // will be rebuilt (larger) on the next lookup
+			else
+				indexPosition(end - 1);
+		}
+	}
+
+	/**
+	 * Find the first child with a given field name
+	 *
+	 * @return The first child with the field name or null if none
+	 */
+	public ObjectParseTree find(FieldName field_name)
+	{
+		int position = firstPosition(field_name);
+		if ( position == NONE ) return null;
+
+		return children[position];
+	}
+
+	/**
+	 * Remove (and return) the first child with a given field name
+	 *
+	 * @return The child removed or null if no child has the field name
+	 */
+	public ObjectParseTree removeFirst(FieldName field_name)
+	{
+		int position = firstPosition(field_name);
+		if ( position == NONE ) return null;
+
+		ObjectParseTree ret = children[position];
+		removeAt(position);
+
+		return ret;
+	}
+
+	/**
+	 * Remove all children with a given field name
+	 */
+	public void removeAll(FieldName field_name)
+	{
+		if ( table != null )
+		{
+			int slot = findSlot(field_name);
+			if ( table[slot] == NONE ) return;
+
+			for ( int position = table[slot]; position != NONE; position = next[position] )
+			{
+				if ( children[position] != null ) removeAt(position);
+			}
+
+			return;
+		}
+
+		for ( int i = 0; i < end; i++ )
+		{
+			if ( children[i] != null && children[i].getSimpleFieldName().equals(field_name) )
+				removeAt(i);
+		}
+	}
+
+	/**
+	 * Remove the last child (if any)
+	 */
+	public void removeLast()
+	{
+		while ( end > 0 && children[end-1] == null ) end--;
+
+		if ( end == 0 ) return;
+
+		end--;
+		children[end] = null;
+		names[end] = null;
+
+		live_count--;
+		mod_count++;
+
+		dropIndex(); // the position may be re-used, so the index can no longer be trusted
+	}
+
+	private void removeAt(int position)
+	{
+		children[position] = null;
+		live_count--;
+		mod_count++;
+	}
+
+	private int firstPosition(FieldName field_name)
+	{
+		if ( table == null && end > INDEX_THRESHOLD )
+			buildIndex();
+
+		if ( table == null )
+		{
+			for ( int i = 0; i < end; i++ )
+			{
+				if ( children[i] != null && children[i].getSimpleFieldName().equals(field_name) )
+					return i;
+			}
+
+			return NONE;
+		}
+
+		int slot = findSlot(field_name);
+		int position = table[slot];
+
+		// Skip over children that have already been removed (and remember
+		// that we did, so the next lookup of this name does not have to)
+		while ( position != NONE && children[position] == null ) position = next[position];
+
+		if ( position == NONE )
+			tails[slot] = NONE; // every child with this name has been removed
+		else
+			table[slot] = position;
+
+		return position;
+	}
+
+	/**
+	 * Find the table slot for a field name: either the slot that holds it, or
+	 * the empty slot where it would go
+	 */
+	private int findSlot(FieldName field_name)
+	{
+		int mask = table.length - 1;
+		int slot = spread(field_name.hashCode()) & mask;
+
+		while ( table[slot] != NONE && !names[table[slot]].equals(field_name) )
+		{
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	static private int spread(int hash)
+	{
+		return hash ^ (hash >>> 16);
+	}
+
+	private void buildIndex()
+	{
+		int capacity = Integer.highestOneBit(Math.max(end, INITIAL_CAPACITY) * 4 - 1);
+
+		table = new int[capacity];
+		tails = new int[capacity];
+		Arrays.fill(table, NONE);
+
+		next = new int[children.length];
+
+		for ( int i = 0; i < end; i++ )
+		{
+			// Parser renames some children (base 64 values) after adding them,
+			// so pick up the current names
+			if ( children[i] != null ) names[i] = children[i].getSimpleFieldName();
+			indexPosition(i);
+		}
+	}
+
+	private void indexPosition(int position)
+	{
+		next[position] = NONE;
+
+		if ( children[position] == null ) return;
+
+		int slot = findSlot(names[position]);
+
+		if ( table[slot] == NONE || tails[slot] == NONE )
+		{
+			// Either a brand new name, or a name whose children have all been removed
+			table[slot] = position;
+		}
+		else
+		{
+			next[tails[slot]] = position;
+		}
+
+		tails[slot] = position;
+	}
+
+	private void dropIndex()
+	{
+		table = null;
+		tails = null;
+		next = null;
+	}
+
+	/**
+	 * Squeeze the holes left by removals out of the array. Positions change, so
+	 * the index is dropped (it will be rebuilt on the next lookup)
+	 */
+	private void compact()
+	{
+		int dest = 0;
+
+		for ( int i = 0; i < end; i++ )
+		{
+			if ( children[i] != null )
+			{
+				children[dest] = children[i];
+				names[dest] = names[i];
+				dest++;
+			}
+		}
+
+		Arrays.fill(children, dest, end, null);
+		Arrays.fill(names, dest, end, null);
+		end = dest;
+
+		dropIndex();
+	}
+
+	/**
+	 * Iterate over the children in the order they were added. The iterator
+	 * supports remove().
+	 */
+	public Iterator<ObjectParseTree> iterator()
+	{
+		return new Iterator<ObjectParseTree>()
+		{
+			private int next_position = advance(0);
+			private int last = NONE;
+			private int expected_mod_count = mod_count;
+
+			private int advance(int from)
+			{
+				while ( from < end && children[from] == null ) from++;
+				return from;
+			}
+
+			public boolean hasNext()
+			{
+				return next_position < end;
+			}
+
+			public ObjectParseTree next()
+			{
+				if ( expected_mod_count != mod_count ) throw new ConcurrentModificationException();
+				if ( next_position >= end ) throw new NoSuchElementException();
+
+				last = next_position;
+				next_position = advance(next_position + 1);
+
+				return children[last];
+			}
+
+			public void remove()
+			{
+				if ( last == NONE ) throw new IllegalStateException();
+				if ( expected_mod_count != mod_count ) throw new ConcurrentModificationException();
+
+				removeAt(last);
+				last = NONE;
+				expected_mod_count = mod_count;
+			}
+		};
+	}
+}
@@ -1,12 +1,15 @@
 package org.jimmutable.core.serialization.reader;
 
-import java.lang.reflect.Constructor;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -16,7 +19,9 @@ import org.jimmutable.core.objects.StandardObject;
 import org.jimmutable.core.objects.Stringable;
 import org.jimmutable.core.serialization.FieldDefinition;
 import org.jimmutable.core.serialization.FieldName;
+import org.jimmutable.core.serialization.Format;
 import org.jimmutable.core.serialization.TypeName;
+import org.jimmutable.core.serialization.writer.ObjectWriter;
 import org.jimmutable.core.utils.Validator;
 
 import com.fasterxml.jackson.databind.util.TokenBuffer;
@@ -37,10 +42,17 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 {
 	static private Map<TypeName,Class> standard_object_types = new ConcurrentHashMap(); 
 	
+	// The (ObjectParseTree) constructor of each registered type, resolved once at registration time
+	static private Map<TypeName,MethodHandle> standard_object_constructors = new ConcurrentHashMap();
+	
+	// The (optional) (StreamReader) constructor of each registered type, see StreamReader
+	static private Map<TypeName,MethodHandle> streaming_constructors = new ConcurrentHashMap();
+	
 	private FieldName field_name; // required
 	private String value; // optional
 	private TypeName type_hint; // optional
-	private LinkedList<ObjectParseTree> children; // optional
+	private IndexedChildren children; // optional
+	private Object object; // optional, an already constructed value (see setObject)
 	
 	/**
 	 * Construct an ObjectParseTree.
@@ -71,7 +83,7 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 		// We always intern the type hint, for faster comparison later on
 		if ( field_name.equals(FieldName.FIELD_NAME_TYPE_HINT) )
 		{
-			this.type_hint = new TypeName(value);
+			this.type_hint = TypeName.intern(value);
 		}
 		
 		// The base 64 primative values are handled quite gently...
@@ -82,6 +94,23 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 		}
 	}
 	
+	/**
+	 * Set an already constructed value for this node: a complete immutable
+	 * object (returned as is by asObject), or a frozen collection or map
+	 * written with WriteAs.OBJECT (which getCollection / getMap reading with
+	 * ReadAs.OBJECT add whole, so persistent containers share structure).
+	 * Used by JimmutableBuilder, so that the parts of an object that are not
+	 * being changed are shared instead of written out and read back in
+	 * 
+	 * @param object
+	 *            The value
+	 */
+	public void setObject(Object object)
+	{
+		Validator.notNull(object);
+		this.object = object;
+	}
+	
 	/**
 	 * Get the field name of this node in the parse tree
 	 * 
@@ -184,7 +213,7 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	public void add(ObjectParseTree child)
 	{
 		Validator.notNull(child);
-		if ( children == null ) children = new LinkedList();
+		if ( children == null ) children = new IndexedChildren();
 		children.add(child);
 	}
 	
@@ -213,17 +242,7 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 		Validator.notNull(field_name);
 		
 		if ( children != null )
-		{ 
-			Iterator<ObjectParseTree> itr = children.iterator();
-			
-			while(itr.hasNext())
-			{
-				ObjectParseTree cur = itr.next();
-				
-				if ( cur.getSimpleFieldName().equals(field_name) )
-					itr.remove();
-			}
-		}
+			children.removeAll(field_name);
 	}
 	
 	/**
@@ -239,17 +258,12 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	 */
 	public ObjectParseTree findChild(FieldName field_name, ObjectParseTree default_value)
 	{
-		if ( field_name == null ) return default_value;
+		if ( field_name == null || children == null ) return default_value;
 		
-		for ( ObjectParseTree child : this )
-		{
-			if ( child.getSimpleFieldName().equals(field_name) )
-			{
-				return child;
-			}
-		}
+		ObjectParseTree child = children.find(field_name);
+		if ( child == null ) return default_value;
 		
-		return default_value;
+		return child;
 	}
 	
 	/**
@@ -264,24 +278,12 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	 */
 	public ObjectParseTree readChild(FieldName field_name, ObjectParseTree default_value)
 	{
-		if ( field_name == null ) return default_value;
-		
-		Iterator<ObjectParseTree> itr = this.iterator();
+		if ( field_name == null || children == null ) return default_value;
 		
-		while(itr.hasNext())
-		{
-			ObjectParseTree child = itr.next();
-			
-			if ( child == null ) break;
-			
-			if ( child.getSimpleFieldName().equals(field_name) )
-			{
-				itr.remove();
-				return child;
-			}
-		}
+		ObjectParseTree child = children.removeFirst(field_name);
+		if ( child == null ) return default_value;
 		
-		return default_value;
+		return child;
 	}
 	
 	/**
@@ -290,24 +292,9 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	
 	public boolean remove(FieldName field_name)
 	{
-		if ( field_name == null ) return false;
-		
-		Iterator<ObjectParseTree> itr = this.iterator();
-		
-		while(itr.hasNext())
-		{
-			ObjectParseTree child = itr.next();
-			
-			if ( child == null ) break;
-			
-			if ( child.getSimpleFieldName().equals(field_name) )
-			{
-				itr.remove();
-				return true;
-			}
-		}
+		if ( field_name == null || children == null ) return false;
 		
-		return false;
+		return children.removeFirst(field_name) != null;
 	}
 	
 	/**
@@ -404,6 +391,11 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 			builder.append(String.format(": [%s]", getOptionalValue(null)));
 		}
 		
+		if ( object != null )
+		{
+			builder.append(String.format(": <%s>", object.getClass().getSimpleName()));
+		}
+		
 		builder.append("\n");
 		
 		for ( ObjectParseTree child : this )
@@ -438,8 +430,11 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	 */
 	public Character asCharacter(Character default_value)
 	{
-		String primative_value =  getPrimativeValueAsString(null);
-		
+		return toCharacter(getPrimativeValueAsString(null), default_value);
+	}
+	
+	static Character toCharacter(String primative_value, Character default_value)
+	{
 		if ( primative_value == null ) return default_value;
 		if ( primative_value.length() > 1 ) return default_value;
 		
@@ -457,8 +452,11 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	 */
 	public Boolean asBoolean(Boolean default_value)
 	{
-		String primative_value =  getPrimativeValueAsString(null);
-		
+		return toBoolean(getPrimativeValueAsString(null), default_value);
+	}
+	
+	static Boolean toBoolean(String primative_value, Boolean default_value)
+	{
 		if ( primative_value == null ) return default_value;
 		
 		if ( primative_value.equalsIgnoreCase("true") ) return true;
@@ -483,7 +481,11 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	 */
 	public Byte asByte(Byte default_value)
 	{
-		String primative_value =  getPrimativeValueAsString(null);
+		return toByte(getPrimativeValueAsString(null), default_value);
+	}
+	
+	static Byte toByte(String primative_value, Byte default_value)
+	{
 		if ( primative_value == null ) return default_value;
 		
 		try
@@ -507,7 +509,11 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	 */
 	public Short asShort(Short default_value)
 	{
-		String primative_value =  getPrimativeValueAsString(null);
+		return toShort(getPrimativeValueAsString(null), default_value);
+	}
+	
+	static Short toShort(String primative_value, Short default_value)
+	{
 		if ( primative_value == null ) return default_value;
 		
 		try
@@ -531,7 +537,11 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	 */
 	public Integer asInteger(Integer default_value)
 	{
-		String primative_value =  getPrimativeValueAsString(null);
+		return toInteger(getPrimativeValueAsString(null), default_value);
+	}
+	
+	static Integer toInteger(String primative_value, Integer default_value)
+	{
 		if ( primative_value == null ) return default_value;
 		
 		try
@@ -556,7 +566,11 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	
 	public Long asLong(Long default_value)
 	{
-		String primative_value =  getPrimativeValueAsString(null);
+		return toLong(getPrimativeValueAsString(null), default_value);
+	}
+	
+	static Long toLong(String primative_value, Long default_value)
+	{
 		if ( primative_value == null ) return default_value;
 		
 		try
@@ -581,7 +595,11 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	
 	public Float asFloat(Float default_value)
 	{
-		String primative_value =  getPrimativeValueAsString(null);
+		return toFloat(getPrimativeValueAsString(null), default_value);
+	}
+	
+	static Float toFloat(String primative_value, Float default_value)
+	{
 		if ( primative_value == null ) return default_value;
 		
 		try
@@ -606,7 +624,11 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	
 	public Double asDouble(Double default_value)
 	{
-		String primative_value =  getPrimativeValueAsString(null);
+		return toDouble(getPrimativeValueAsString(null), default_value);
+	}
+	
+	static Double toDouble(String primative_value, Double default_value)
+	{
 		if ( primative_value == null ) return default_value;
 		
 		try
@@ -633,6 +655,9 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	
 	public Object asObject(Object default_value) 
 	{
+		if ( object != null ) 
+			return object;
+		
 		// Special handling for null fields
 		if ( !hasChildren() && !hasValue() )
 			return default_value;
@@ -722,36 +747,41 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 			throw new SerializeException(String.format("The type name %s is not registered.  Register with ObjectReader.registerTypeName",type_name.getSimpleName()));
 		}
 		
+		MethodHandle constructor = standard_object_constructors.get(type_name);
+		
+		if ( constructor == null )
+		{
+			throw new SerializeException(String.format("No constructor found %s(ReadTree t)", c.getSimpleName()));
+		}
+		
 		// Standard object converter...
-		if ( c != null )
+		try
 		{
-			try
-			{
-				Constructor constructor = c.getConstructor(ObjectParseTree.class);
-				Object ret = constructor.newInstance(this);
-				
-				if ( ret instanceof StandardObject )
-				{
-					((StandardObject)ret).complete();
-				}
-				
-				return ret;
-			}
-			catch(NoSuchMethodException e)
-			{
-				throw new SerializeException(String.format("No constructor found %s(ReadTree t)", c.getSimpleName()),e);
-			}
-			catch(SerializeException e2)
-			{
-				throw e2;
-			}
-			catch(Exception e3)
+			Object ret = (Object)constructor.invokeExact(this);
+			
+			if ( ret instanceof StandardObject )
 			{
-				throw new SerializeException("Error reading object",e3);
+				((StandardObject)ret).complete();
 			}
+			
+			return ret;
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e2)
+		{
+			throw new SerializeException("Error reading object",e2);
+		}
+		catch(Error e3)
+		{
+			throw e3;
+		}
+		catch(Throwable e4) // not possible, invokeExact is simply declared to throw Throwable
+		{
+			throw new SerializeException("Error reading object: "+e4);
 		}
-		
-		return default_value;
 	}
 	
 	/**
@@ -1138,10 +1168,37 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 		
 		C ret = empty_collection;
 		
-		for ( ObjectParseTree child : children )
+		for ( ObjectParseTree child : this )
 		{
 			if ( child.getSimpleFieldName().equals(field_name) ) 
 			{
+				if ( child.object instanceof Collection )
+				{
+					Collection shared = (Collection)child.object;
+					
+					// Taken whole, so that persistent collections share structure
+					if ( type == ReadAs.OBJECT && !containsNull(shared) )
+					{
+						ret.addAll(shared);
+						continue;
+					}
+					
+					for ( Object element : shared )
+					{
+						Object obj = readSharedElement(element, type);
+						
+						if ( obj == null ) 
+						{
+							if ( on_error == OnError.SKIP ) continue;
+							else throw new SerializeException("Could not read object in collection");
+						}
+						
+						ret.add(obj);
+					}
+					
+					continue;
+				}
+				
 				Object obj = type.readAs(child);
 				
 				if ( obj == null ) 
@@ -1207,10 +1264,38 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 		
 		M ret = empty_map;
 		
-		for ( ObjectParseTree entry : children )
+		for ( ObjectParseTree entry : this )
 		{
 			if ( entry.getSimpleFieldName().equals(field_name) ) 
 			{
+				if ( entry.object instanceof Map )
+				{
+					Map shared = (Map)entry.object;
+					
+					// Taken whole, so that persistent maps share structure
+					if ( key_type == ReadAs.OBJECT && value_type == ReadAs.OBJECT && !containsNull(shared.keySet()) && !containsNull(shared.values()) )
+					{
+						ret.putAll(shared);
+						continue;
+					}
+					
+					for ( Map.Entry shared_entry : (Collection<Map.Entry>)shared.entrySet() )
+					{
+						Object key = readSharedElement(shared_entry.getKey(), key_type);
+						Object value = readSharedElement(shared_entry.getValue(), value_type);
+						
+						if ( key == null || value == null ) 
+						{
+							if ( on_error == OnError.SKIP ) continue;
+							if ( on_error == OnError.THROW_EXCEPTION ) throw new SerializeException("Could not read key/value pair");
+						}
+						
+						ret.put(key, value);
+					}
+					
+					continue;
+				}
+				
 				ObjectParseTree key_tree = entry.findChild(FieldName.FIELD_KEY, null);
 				ObjectParseTree value_tree = entry.findChild(FieldName.FIELD_VALUE, null);
 				
@@ -1236,6 +1321,37 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 		return ret;
 	}
 	
+	/**
+	 * Read an element of a shared (frozen) collection or map, see setObject.
+	 * The element was written with WriteAs.OBJECT, so ReadAs.OBJECT reads it
+	 * as it is. Any other ReadAs is given the element as it would have been
+	 * written out
+	 * 
+	 * @return The element read as type, or null if it could not be
+	 */
+	static private Object readSharedElement(Object element, ReadAs type)
+	{
+		if ( element == null ) return null;
+		if ( type == ReadAs.OBJECT ) return element;
+		
+		return type.readAs(ObjectWriter.serializeToParseTree(element));
+	}
+	
+	/**
+	 * @return true if elements holds a null (which OnError has to decide
+	 *         about), in which case a shared collection or map can not be
+	 *         taken whole
+	 */
+	static private boolean containsNull(Iterable elements)
+	{
+		for ( Object element : elements )
+		{
+			if ( element == null ) return true;
+		}
+		
+		return false;
+	}
+	
 	/**
 	 * Construct an object from previously serialized data. The format is
 	 * automatically detected. 
@@ -1255,8 +1371,59 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	
 	static public Object deserialize(String document)
 	{
-		ObjectParseTree t = Parser.parse(document);
+		if ( StreamReader.isJSON(document) ) 
+			return StreamReader.deserialize(document);
+		
+		return asDocumentObject(Parser.parse(document));
+	}
+	
+	/**
+	 * Construct an object from previously serialized data. The format is
+	 * automatically detected: Smile (Format.SMILE) documents by their magic
+	 * bytes, anything else is read as UTF-8 encoded JSON or XML. The bytes are
+	 * read directly, without first being decoded into a String
+	 * 
+	 * @param document
+	 *            The data to read from
+	 * @return The object previously serialized
+	 */
+	static public Object deserialize(byte document[])
+	{
+		Validator.notNull(document);
+		
+		Format format = Parser.figureFormat(document, document.length);
+		
+		if ( format != Format.XML )
+			return StreamReader.deserialize(document);
 		
+		return asDocumentObject(Parser.parse(document));
+	}
+	
+	/**
+	 * Construct an object from previously serialized data read from an
+	 * InputStream (see deserialize(byte[])). The stream is closed when reading
+	 * is done
+	 * 
+	 * @param in
+	 *            The stream to read from
+	 * @return The object previously serialized
+	 */
+	static public Object deserialize(InputStream in)
+	{
+		Validator.notNull(in);
+		
+		if ( !in.markSupported() ) in = new BufferedInputStream(in);
+		
+		Format format = Parser.figureFormat(in);
+		
+		if ( format != Format.XML )
+			return StreamReader.deserialize(in);
+		
+		return asDocumentObject(Parser.parse(in));
+	}
+	
+	static private Object asDocumentObject(ObjectParseTree t)
+	{
 		Object ret = t.asObject(null);
 		
 		if ( ret == null ) 
@@ -1276,14 +1443,7 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	 */
 	static public Object deserialize(TokenBuffer document) throws SerializeException
 	{
-		ObjectParseTree t = Parser.parse(document);
-		
-		Object ret = t.asObject(null);
-		
-		if ( ret == null ) 
-			throw new SerializeException("Unable to read document!");
-		
-		return ret;
+		return StreamReader.deserialize(document);
 	}
 	
 	/**
@@ -1297,6 +1457,10 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 	 * 
 	 * Classes must have a static public method named TYPE_NAME to be registered
 	 * 
+	 * The public (ObjectParseTree) constructor of the class is looked up here,
+	 * once, so that reading an object does not pay for reflection. So is the
+	 * optional public (StreamReader) constructor (see StreamReader)
+	 * 
 	 * @param c
 	 *            The class to register
 	 */
@@ -1306,6 +1470,23 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 		{
 			TypeName type_name = (TypeName)c.getField("TYPE_NAME").get(null);
 			if ( type_name.isPrimative() ) throw new SerializeException("Attempt to register a primative type name using registerTypeName.  Did you try to register a Stringable?");
+			
+			TypeName.register(type_name);
+			
+			MethodHandle constructor = findConstructor(c, ObjectParseTree.class);
+			
+			if ( constructor == null ) 
+				standard_object_constructors.remove(type_name); // asObject will report the missing constructor
+			else
+				standard_object_constructors.put(type_name, constructor);
+			
+			MethodHandle streaming_constructor = findConstructor(c, StreamReader.class);
+			
+			if ( streaming_constructor == null ) 
+				streaming_constructors.remove(type_name); // StreamReader will fall back to ObjectParseTree
+			else
+				streaming_constructors.put(type_name, streaming_constructor);
+			
 			standard_object_types.put(type_name, c);
 		}
 		catch(Exception e)
@@ -1315,6 +1496,42 @@ final public class ObjectParseTree implements Iterable<ObjectParseTree>
 		}
 	}
 	
+	/**
+	 * Resolve a public one argument constructor of a class as a method handle
+	 * of type (parameter_type)Object
+	 * 
+	 * @param c
+	 *            The class
+	 * @param parameter_type
+	 *            The type of the constructor's only parameter (ObjectParseTree
+	 *            or StreamReader)
+	 * @return The constructor, or null if c has no such (public) constructor
+	 */
+	static private MethodHandle findConstructor(Class c, Class parameter_type)
+	{
+		try
+		{
+			MethodHandle constructor = MethodHandles.publicLookup().findConstructor(c, MethodType.methodType(void.class, parameter_type));
+			return constructor.asType(MethodType.methodType(Object.class, parameter_type));
+		}
+		catch(NoSuchMethodException | IllegalAccessException e)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Get the (StreamReader) constructor of a registered type
+	 * 
+	 * @return A method handle of type (StreamReader)Object, or null if the
+	 *         type is not registered or can only be read from an
+	 *         ObjectParseTree
+	 */
+	static MethodHandle getStreamingConstructor(TypeName type_name)
+	{
+		return streaming_constructors.get(type_name);
+	}
+	
 	/**
 	 * Check to see if a given TypeName object is registered
 	 * 
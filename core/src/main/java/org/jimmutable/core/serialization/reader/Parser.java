@@ -1,6 +1,9 @@
 package org.jimmutable.core.serialization.reader;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.Stack;
@@ -8,11 +11,14 @@ import java.util.Stack;
 import org.jimmutable.core.exceptions.SerializeException;
 import org.jimmutable.core.serialization.FieldName;
 import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.utils.Validator;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.dataformat.xml.XmlFactory;
 
 /**
@@ -30,6 +36,7 @@ public class Parser
 {
 	static private JsonFactory json_factory = null;
 	static private XmlFactory xml_factor = null;
+	static private SmileFactory smile_factory = null;
 	
 	private Format format;
 	
@@ -45,13 +52,11 @@ public class Parser
 		
 		if ( format == Format.JSON || format == Format.JSON_PRETTY_PRINT )
 		{
-			if ( json_factory == null ) json_factory = new JsonFactory();
-			json_parser = json_factory.createJsonParser(r);
+			json_parser = getJsonFactory().createJsonParser(r);
 		}
 		else
 		{
-			if ( xml_factor == null ) xml_factor = new XmlFactory();
-			json_parser = xml_factor.createJsonParser(r);
+			json_parser = getXmlFactory().createJsonParser(r);
 		}
 		
 		if ( json_parser == null )
@@ -72,13 +77,131 @@ public class Parser
 		json_parser.close();
 	}
 	
+	/**
+	 * Parse bytes (or an InputStream) in a known format. The parser reads the
+	 * raw bytes itself (UTF-8 for the text formats), no intermediate String is
+	 * created
+	 */
+	private Parser(Format format, JsonParser json_parser) throws Exception
+	{
+		this.format = format;
+		this.json_parser = json_parser;
+		
+		result = processObjectTokens(FieldName.FIELD_DOCUMENT_ROOT);
+		
+		json_parser.close();
+	}
+	
+	/**
+	 * Used by StreamReader to hand the rest of an object (or array) it has
+	 * already started reading over to the tree parser
+	 */
+	private Parser(JsonParser json_parser)
+	{
+		this.json_parser = json_parser;
+	}
+	
+	static JsonFactory getJsonFactory()
+	{
+		if ( json_factory == null ) json_factory = new JsonFactory();
+		return json_factory;
+	}
+	
+	static SmileFactory getSmileFactory()
+	{
+		if ( smile_factory == null ) smile_factory = new SmileFactory();
+		return smile_factory;
+	}
+	
+	static private XmlFactory getXmlFactory()
+	{
+		if ( xml_factor == null ) xml_factor = new XmlFactory();
+		return xml_factor;
+	}
+	
+	/**
+	 * Create a JsonParser that reads data (previously serialized in format)
+	 */
+	static JsonParser createParser(Format format, byte data[]) throws IOException
+	{
+		if ( format == Format.SMILE ) return getSmileFactory().createParser(data);
+		if ( format == Format.XML || format == Format.XML_PRETTY_PRINT ) return getXmlFactory().createParser(data);
+		
+		return getJsonFactory().createParser(data);
+	}
+	
+	/**
+	 * Create a JsonParser that reads in (previously serialized in format)
+	 */
+	static JsonParser createParser(Format format, InputStream in) throws IOException
+	{
+		if ( format == Format.SMILE ) return getSmileFactory().createParser(in);
+		if ( format == Format.XML || format == Format.XML_PRETTY_PRINT ) return getXmlFactory().createParser(in);
+		
+		return getJsonFactory().createParser(in);
+	}
+	
+	/**
+	 * Test to see if data is a Smile (Format.SMILE) document, i.e. begins with
+	 * the Smile magic bytes (":)\n")
+	 * 
+	 * @param data
+	 *            The data to test
+	 * @return true if data is a Smile document, false otherwise
+	 */
+	static public boolean isSmile(byte data[])
+	{
+		if ( data == null || data.length < 3 ) return false;
+		
+		return data[0] == SmileConstants.HEADER_BYTE_1 && data[1] == SmileConstants.HEADER_BYTE_2 && data[2] == SmileConstants.HEADER_BYTE_3;
+	}
+	
+	/**
+	 * Finish parsing an object whose opening tokens have already been consumed
+	 * from json_parser
+	 * 
+	 * @param json_parser
+	 *            The parser, positioned anywhere before the end of the object
+	 * @param root
+	 *            The node for the object (it may already contain the children
+	 *            read so far)
+	 * @param open_field
+	 *            A child of root whose field name has been read, but whose value
+	 *            has not (null if none)
+	 * @return root, with the remainder of the object added to it
+	 */
+	static ObjectParseTree continueObject(JsonParser json_parser, ObjectParseTree root, ObjectParseTree open_field) throws Exception
+	{
+		return new Parser(json_parser).processObjectTokens(root, open_field);
+	}
+	
+	/**
+	 * Finish parsing an array whose START_ARRAY token has already been
+	 * consumed from json_parser. Each element is added to parent with the
+	 * field name array_name
+	 */
+	static void continueArray(JsonParser json_parser, FieldName array_name, ObjectParseTree parent) throws Exception
+	{
+		new Parser(json_parser).processArrayTokens(array_name, parent);
+	}
+	
 	private ObjectParseTree processObjectTokens(FieldName object_field_name) throws Exception
+	{
+		return processObjectTokens(new ObjectParseTree(object_field_name), null);
+	}
+	
+	private ObjectParseTree processObjectTokens(ObjectParseTree root, ObjectParseTree open_field) throws Exception
 	{
 		Stack<ObjectParseTree> stack = new Stack<>();
 		
-		ObjectParseTree root = new ObjectParseTree(object_field_name);
 		stack.push(root);
 		
+		if ( open_field != null )
+		{
+			root.add(open_field);
+			stack.push(open_field);
+		}
+		
 		while(true)
 		{
 			JsonToken token = json_parser.nextToken();
@@ -114,7 +237,7 @@ public class Parser
 				
 			case FIELD_NAME:
 				
-				ObjectParseTree new_object = new ObjectParseTree(new FieldName(json_parser.getValueAsString()));
+				ObjectParseTree new_object = new ObjectParseTree(FieldName.intern(json_parser.getCurrentName()));
 				stack.peek().add(new_object);
 				
 				stack.push(new_object);
@@ -234,6 +357,81 @@ public class Parser
 		}
 	}
 	
+	/**
+	 * Figure out the format of serialized bytes: Format.SMILE (by its magic
+	 * bytes), Format.JSON or Format.XML (by the first non white space byte)
+	 * 
+	 * @param data
+	 *            The data (or the beginning of it)
+	 * @param length
+	 *            The number of valid bytes in data
+	 * @return The format of data
+	 * @throws SerializeException
+	 *             If the format can not be determined
+	 */
+	static Format figureFormat(byte data[], int length)
+	{
+		if ( length >= 3 && isSmile(data) ) return Format.SMILE;
+		
+		int i = 0;
+		
+		// Skip a UTF-8 byte order mark
+		if ( length >= 3 && data[0] == (byte)0xEF && data[1] == (byte)0xBB && data[2] == (byte)0xBF ) i = 3;
+		
+		for ( ; i < length; i++ )
+		{
+			switch(data[i])
+			{
+			case ' ': case '\t': case '\r': case '\n': continue;
+			case '{': return Format.JSON;
+			case '<': return Format.XML;
+			default: throw new SerializeException("Unable to determine the input format");
+			}
+		}
+		
+		throw new SerializeException("Unable to determine the input format: read "+length+" bytes without a definitive answer");
+	}
+	
+	/**
+	 * Figure out the format of the data in an InputStream, without consuming
+	 * any of it
+	 * 
+	 * @param in
+	 *            The stream to test (must support mark and reset)
+	 * @return The format of the data in the stream
+	 * @throws SerializeException
+	 *             If the format can not be determined
+	 */
+	static Format figureFormat(InputStream in)
+	{
+		try
+		{
+			byte buf[] = new byte[64];
+			int length = 0;
+			
+			in.mark(buf.length);
+			
+			while ( length < buf.length )
+			{
+				int ar = in.read(buf, length, buf.length - length);
+				if ( ar < 0 ) break;
+				length += ar;
+			}
+			
+			in.reset();
+			
+			return figureFormat(buf, length);
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e)
+		{
+			throw new SerializeException("Unable to determine the input format",e);
+		}
+	}
+	
 	/**
 	 * Create an ObjectParseTree from a Reader
 	 * 
@@ -320,4 +518,85 @@ public class Parser
 			throw new SerializeException("Error while parsing ReadTree",e2);
 		}
 	}
+	
+	/**
+	 * Create an ObjectParseTree from serialized bytes. The format is
+	 * automatically detected: Smile documents are recognized by their magic
+	 * bytes, anything else is read as UTF-8 text (JSON or XML). The bytes are
+	 * parsed directly, without first being decoded into a String
+	 * 
+	 * @param data
+	 *            The bytes to consume raw data from
+	 * 
+	 * @return The ObjectParseTree created from the data
+	 * 
+	 * @throws SerializeException
+	 *             Any read errors (IO, parse, etc.) will be thrown as
+	 *             SerializeException (the only exception that can come out of
+	 *             this function)
+	 */
+	static public ObjectParseTree parse(byte data[]) throws SerializeException
+	{
+		Validator.notNull(data);
+		
+		try
+		{
+			Format format = figureFormat(data, data.length);
+			Parser p = new Parser(format, createParser(format, data));
+			
+			if ( p.result == null ) 
+				throw new SerializeException("Unknown error while parsing ReadTree (null result)");
+			
+			return p.result;
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e2)
+		{
+			throw new SerializeException("Error while parsing ReadTree",e2);
+		}
+	}
+	
+	/**
+	 * Create an ObjectParseTree from an InputStream. The format is
+	 * automatically detected (see parse(byte[])). The stream is read directly
+	 * (no intermediate String) and is closed when parsing is done
+	 * 
+	 * @param in
+	 *            The stream to consume raw data from
+	 * 
+	 * @return The ObjectParseTree created from the data
+	 * 
+	 * @throws SerializeException
+	 *             Any read errors (IO, parse, etc.) will be thrown as
+	 *             SerializeException (the only exception that can come out of
+	 *             this function)
+	 */
+	static public ObjectParseTree parse(InputStream in) throws SerializeException
+	{
+		Validator.notNull(in);
+		
+		try
+		{
+			if ( !in.markSupported() ) in = new BufferedInputStream(in);
+			
+			Format format = figureFormat(in);
+			Parser p = new Parser(format, createParser(format, in));
+			
+			if ( p.result == null ) 
+				throw new SerializeException("Unknown error while parsing ReadTree (null result)");
+			
+			return p.result;
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e2)
+		{
+			throw new SerializeException("Error while parsing ReadTree",e2);
+		}
+	}
 }
@@ -39,6 +39,24 @@ abstract public class ReadAs
 	 */
 	abstract public Object readAs(ObjectParseTree t);
 	
+	/**
+	 * Read the value a StreamReader is positioned on and convert it into a
+	 * given type.
+	 * 
+	 * The default implementation reads the value into an ObjectParseTree and
+	 * calls readAs(ObjectParseTree). Override to read directly from the stream.
+	 * 
+	 * @param r
+	 *            The stream reader, positioned on the value to read (the value
+	 *            must be consumed entirely)
+	 * @return A value in a uniform type, or null if the value could not be
+	 *         converted into the target type.
+	 */
+	public Object readAs(StreamReader r)
+	{
+		return readAs(r.asTree());
+	}
+	
 	
 	static private class ReadAsObject extends ReadAs
 	{
@@ -47,6 +65,11 @@ abstract public class ReadAs
 			return t.asObject(null);
 		}
 		
+		public Object readAs(StreamReader r) 
+		{
+			return r.asObject(null);
+		}
+		
 	}
 	
 	static private class ReadAsString extends ReadAs
@@ -55,6 +78,11 @@ abstract public class ReadAs
 		{
 			return t.asString(null);
 		}
+		
+		public Object readAs(StreamReader r) 
+		{
+			return r.asString(null);
+		}
 	}
 	
 	static private class ReadAsBoolean extends ReadAs
@@ -63,6 +91,11 @@ abstract public class ReadAs
 		{
 			return t.asBoolean(null);
 		}
+		
+		public Object readAs(StreamReader r) 
+		{
+			return r.asBoolean(null);
+		}
 	}
 	
 	static private class ReadAsCharacter extends ReadAs
@@ -71,6 +104,11 @@ abstract public class ReadAs
 		{
 			return t.asCharacter(null);
 		}
+		
+		public Object readAs(StreamReader r) 
+		{
+			return r.asCharacter(null);
+		}
 	}
 	
 	static private class ReadAsByte extends ReadAs
@@ -79,6 +117,11 @@ abstract public class ReadAs
 		{
 			return t.asByte(null);
 		}
+		
+		public Object readAs(StreamReader r) 
+		{
+			return r.asByte(null);
+		}
 	}
 	
 	static private class ReadAsShort extends ReadAs
@@ -87,6 +130,11 @@ abstract public class ReadAs
 		{
 			return t.asShort(null);
 		}
+		
+		public Object readAs(StreamReader r) 
+		{
+			return r.asShort(null);
+		}
 	}
 	
 	static private class ReadAsInt extends ReadAs
@@ -95,6 +143,11 @@ abstract public class ReadAs
 		{
 			return t.asInteger(null);
 		}
+		
+		public Object readAs(StreamReader r) 
+		{
+			return r.asInteger(null);
+		}
 	}
 	
 	static private class ReadAsLong extends ReadAs
@@ -103,6 +156,11 @@ abstract public class ReadAs
 		{
 			return t.asLong(null);
 		}
+		
+		public Object readAs(StreamReader r) 
+		{
+			return r.asLong(null);
+		}
 	}
 	
 	static private class ReadAsFloat extends ReadAs
@@ -111,6 +169,11 @@ abstract public class ReadAs
 		{
 			return t.asFloat(null);
 		}
+		
+		public Object readAs(StreamReader r) 
+		{
+			return r.asFloat(null);
+		}
 	}
 	
 	static private class ReadAsDouble extends ReadAs
@@ -119,5 +182,10 @@ abstract public class ReadAs
 		{
 			return t.asDouble(null);
 		}
+		
+		public Object readAs(StreamReader r) 
+		{
+			return r.asDouble(null);
+		}
 	}
 }
@@ -0,0 +1,1006 @@
+package org.jimmutable.core.serialization.reader;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.jimmutable.core.exceptions.SerializeException;
+import org.jimmutable.core.objects.StandardEnum;
+import org.jimmutable.core.objects.StandardObject;
+import org.jimmutable.core.objects.Stringable;
+import org.jimmutable.core.serialization.FieldDefinition;
+import org.jimmutable.core.serialization.FieldName;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.TypeName;
+import org.jimmutable.core.serialization.reader.ObjectParseTree.OnError;
+import org.jimmutable.core.utils.Validator;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonParser.NumberType;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * StreamReader lets an object construct itself directly from the JSON (or
+ * Smile, or TokenBuffer) tokens of a document, without first building an
+ * ObjectParseTree.
+ *
+ * Reading via a parse tree allocates a node (and a FieldName) for every
+ * field, value and collection element of a document before a single object is
+ * constructed. Reading via a StreamReader allocates (more or less) only the
+ * objects being read.
+ *
+ * Streaming is opt-in, one type at a time: a registered type that has a public
+ * (StreamReader) constructor is read via that constructor, every other type
+ * (and every XML document) is read via ObjectParseTree exactly as before. The
+ * two may be freely mixed: an object read by streaming may contain objects
+ * read from a parse tree and vice versa.
+ *
+ * A (StreamReader) constructor is a loop over the fields of the object, which
+ * may appear in any order:
+ *
+ * <pre>
+ * public Book(StreamReader r)
+ * {
+ * 	title = FIELD_TITLE.getSimpleUnsetValue();
+ * 	...
+ *
+ * 	while ( r.nextField() )
+ * 	{
+ * 		if ( r.isField(FIELD_TITLE) ) title = r.readString(FIELD_TITLE);
+ * 		else if ( r.isField(FIELD_AUTHORS) ) r.readCollection(authors, ReadAs.STRING, OnError.SKIP);
+ * 		...
+ * 	}
+ * }
+ * </pre>
+ *
+ * Fields that are not read (unknown fields, for example) are skipped. If a
+ * field appears more than once, the first value is kept, as it is when reading
+ * via a parse tree: a field already read as a single value (readString,
+ * readObject, etc.) is skipped by nextField, while every value of a repeated
+ * collection or map field is read (into the same collection or map). As with
+ * (ObjectParseTree) constructors, complete() is called for you once the
+ * constructor returns, and a type with a (StreamReader) constructor must still
+ * have an (ObjectParseTree) constructor (used for XML).
+ *
+ * Not thread safe
+ *
+ * @author jim.kane
+ *
+ */
+final public class StreamReader
+{
+	private JsonParser parser;
+
+	private String current_field_name = null; // the name of the field most recently returned by nextField
+	private boolean value_pending = false; // true until the value of current_field_name has been read (or skipped)
+	private int object_level = 0; // the number of streaming objects currently being read
+
+	private List<String> single_value_fields = new ArrayList<>(); // the fields read as a single value, of every object being read
+	private int first_single_value_field = 0; // where those of the innermost object start
+
+	private StreamReader(JsonParser parser)
+	{
+		this.parser = parser;
+	}
+
+	/**
+	 * Advance to the next field of the object being read. If the value of the
+	 * current field has not been read, it is skipped.
+	 *
+	 * @return true if there is another field (use isField to find out which
+	 *         one it is and the readXXX methods to read its value), false if
+	 *         the end of the object has been reached
+	 */
+	public boolean nextField()
+	{
+		try
+		{
+			if ( value_pending ) skipValue();
+
+			JsonToken token = parser.nextToken();
+
+			// A repeat of a field already read as a single value, keep the first value
+			while ( token == JsonToken.FIELD_NAME && isSingleValueFieldRead(parser.getCurrentName()) )
+			{
+				parser.nextToken();
+				parser.skipChildren();
+
+				token = parser.nextToken();
+			}
+
+			if ( token == JsonToken.FIELD_NAME )
+			{
+				current_field_name = parser.getCurrentName();
+				value_pending = true;
+				return true;
+			}
+
+			if ( token == JsonToken.END_OBJECT )
+			{
+				current_field_name = null;
+				object_level--;
+				return false;
+			}
+
+			throw new SerializeException("Unexpected token while reading the fields of an object: "+token);
+		}
+		catch(IOException e)
+		{
+			throw new SerializeException("Error while reading object", e);
+		}
+	}
+
+	/**
+	 * Is the current field (the one most recently returned by nextField) a
+	 * given field?
+	 */
+	public boolean isField(FieldDefinition field)
+	{
+		return isField(field.getSimpleFieldName());
+	}
+
+	/**
+	 * Is the current field (the one most recently returned by nextField) a
+	 * given field?
+	 */
+	public boolean isField(FieldName field_name)
+	{
+		return field_name.getSimpleName().equals(current_field_name);
+	}
+
+	/**
+	 * Get the name of the current field (the one most recently returned by
+	 * nextField)
+	 *
+	 * @return The name of the current field, or default_value if there is none
+	 */
+	public String getOptionalCurrentFieldName(String default_value)
+	{
+		return current_field_name != null ? current_field_name : default_value;
+	}
+
+	/**
+	 * Skip the value of the current field
+	 */
+	public void skipValue()
+	{
+		try
+		{
+			startValue();
+			parser.skipChildren();
+		}
+		catch(IOException e)
+		{
+			throw new SerializeException("Error while reading object", e);
+		}
+	}
+
+	/**
+	 * Read the value of the current field as a String
+	 */
+	public String readString(FieldDefinition.String field)
+	{
+		startSingleValue();
+		return asString(field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as a StandardEnum
+	 */
+	public <E extends StandardEnum> E readEnum(FieldDefinition.Enum<E> field)
+	{
+		startSingleValue();
+
+		String code = asString(null);
+		if ( code == null ) return field.getSimpleUnsetValue();
+
+		return field.getSimpleConverter().fromCode(code, field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as a Stringable
+	 */
+	public <S extends Stringable> S readStringable(FieldDefinition.Stringable<S> field)
+	{
+		startSingleValue();
+
+		String str = asString(null);
+		if ( str == null ) return field.getSimpleUnsetValue();
+
+		return field.getSimpleConverter().fromString(str, field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as a boolean
+	 */
+	public Boolean readBoolean(FieldDefinition.Boolean field)
+	{
+		startSingleValue();
+		return asBoolean(field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as a char
+	 */
+	public Character readCharacter(FieldDefinition.Character field)
+	{
+		startSingleValue();
+		return asCharacter(field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as a byte
+	 */
+	public Byte readByte(FieldDefinition.Byte field)
+	{
+		startSingleValue();
+		return asByte(field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as a short
+	 */
+	public Short readShort(FieldDefinition.Short field)
+	{
+		startSingleValue();
+		return asShort(field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as an int
+	 */
+	public Integer readInt(FieldDefinition.Integer field)
+	{
+		startSingleValue();
+		return asInteger(field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as a long
+	 */
+	public Long readLong(FieldDefinition.Long field)
+	{
+		startSingleValue();
+		return asLong(field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as a float
+	 */
+	public Float readFloat(FieldDefinition.Float field)
+	{
+		startSingleValue();
+		return asFloat(field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as a double
+	 */
+	public Double readDouble(FieldDefinition.Double field)
+	{
+		startSingleValue();
+		return asDouble(field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field as an object (StandardObject or
+	 * primitive)
+	 */
+	public Object readObject(FieldDefinition field)
+	{
+		startSingleValue();
+		return asObject(field.getSimpleUnsetValue());
+	}
+
+	/**
+	 * Read the value of the current field into a collection. The equivalent of
+	 * ObjectParseTree.getCollection
+	 *
+	 * @param collection
+	 *            A mutable collection (will be returned "filled", but still
+	 *            mutable)
+	 * @param type
+	 *            A ReadAs object that specifies the type to read elements as
+	 * @param on_error
+	 *            What to do when an element can not be read
+	 * @return collection "filled"
+	 */
+	public <C extends Collection> C readCollection(C collection, ReadAs type, OnError on_error)
+	{
+		Validator.notNull(collection);
+		Validator.notNull(type);
+
+		try
+		{
+			JsonToken token = startValue();
+
+			if ( token != JsonToken.START_ARRAY ) // a single value is a collection of one element
+			{
+				addElement(collection, type, on_error);
+				return collection;
+			}
+
+			while ( nextArrayElement() )
+			{
+				addElement(collection, type, on_error);
+			}
+
+			return collection;
+		}
+		catch(IOException e)
+		{
+			throw new SerializeException("Error while reading collection", e);
+		}
+	}
+
+	private void addElement(Collection collection, ReadAs type, OnError on_error)
+	{
+		Object obj = type.readAs(this);
+
+		if ( obj == null )
+		{
+			if ( on_error == OnError.SKIP ) return;
+			else throw new SerializeException("Could not read object in collection");
+		}
+
+		collection.add(obj);
+	}
+
+	/**
+	 * Read the value of the current field into a map. The equivalent of
+	 * ObjectParseTree.getMap
+	 *
+	 * @param map
+	 *            A mutable map (will be returned "filled", but still mutable)
+	 * @param key_type
+	 *            A ReadAs object that specifies the type to read keys as
+	 * @param value_type
+	 *            A ReadAs object that specifies the type read values as
+	 * @param on_error
+	 *            What to do when an error (reading a key or value) occours
+	 *            (skip, throw and exception)
+	 * @return map "filled"
+	 */
+	public <M extends Map> M readMap(M map, ReadAs key_type, ReadAs value_type, OnError on_error)
+	{
+		Validator.notNull(map);
+		Validator.notNull(key_type);
+		Validator.notNull(value_type);
+		Validator.notNull(on_error);
+
+		try
+		{
+			JsonToken token = startValue();
+
+			if ( token != JsonToken.START_ARRAY ) // a single entry
+			{
+				addEntry(map, key_type, value_type, on_error);
+				return map;
+			}
+
+			while ( nextArrayElement() )
+			{
+				addEntry(map, key_type, value_type, on_error);
+			}
+
+			return map;
+		}
+		catch(IOException e)
+		{
+			throw new SerializeException("Error while reading map", e);
+		}
+	}
+
+	private void addEntry(Map map, ReadAs key_type, ReadAs value_type, OnError on_error) throws IOException
+	{
+		boolean has_key = false, has_value = false;
+		Object key = null, value = null;
+
+		if ( parser.currentToken() == JsonToken.START_OBJECT )
+		{
+			while ( true )
+			{
+				JsonToken token = parser.nextToken();
+
+				if ( token == JsonToken.END_OBJECT ) break;
+				if ( token != JsonToken.FIELD_NAME ) throw new SerializeException("Unexpected token while reading a map entry: "+token);
+
+				String name = parser.getCurrentName();
+				parser.nextToken();
+
+				if ( !has_key && name.equals(FieldName.FIELD_KEY.getSimpleName()) )
+				{
+					key = key_type.readAs(this);
+					has_key = true;
+				}
+				else if ( !has_value && name.equals(FieldName.FIELD_VALUE.getSimpleName()) )
+				{
+					value = value_type.readAs(this);
+					has_value = true;
+				}
+				else
+				{
+					parser.skipChildren();
+				}
+			}
+		}
+		else
+		{
+			parser.skipChildren();
+		}
+
+		if ( key == null || value == null )
+		{
+			if ( on_error == OnError.SKIP ) return;
+			throw new SerializeException("Could not read key/value pair");
+		}
+
+		map.put(key, value);
+	}
+
+	/**
+	 * Advance to the next element of an array
+	 *
+	 * @return true if positioned on an element, false at the end of the array
+	 */
+	private boolean nextArrayElement() throws IOException
+	{
+		JsonToken token = parser.nextToken();
+
+		if ( token == null ) throw new SerializeException("Unexpected end of input");
+
+		return token != JsonToken.END_ARRAY;
+	}
+
+	/**
+	 * Move from the name of the current field to (the first token of) its value
+	 */
+	/**
+	 * Start reading the value of the current field as a single value (as
+	 * opposed to a collection or map), so that any repeat of the field is
+	 * skipped
+	 */
+	private JsonToken startSingleValue()
+	{
+		single_value_fields.add(current_field_name);
+		return startValue();
+	}
+
+	private boolean isSingleValueFieldRead(String field_name)
+	{
+		for ( int i = first_single_value_field; i < single_value_fields.size(); i++ )
+		{
+			if ( single_value_fields.get(i).equals(field_name) ) return true;
+		}
+
+		return false;
+	}
+
+	private JsonToken startValue()
+	{
+		if ( !value_pending ) throw new SerializeException("Attempt to read a field value without first calling nextField (or to read a field value twice)");
+		value_pending = false;
+
+		try
+		{
+			JsonToken token = parser.nextToken();
+			if ( token == null ) throw new SerializeException("Unexpected end of input");
+
+			return token;
+		}
+		catch(IOException e)
+		{
+			throw new SerializeException("Error while reading object", e);
+		}
+	}
+
+	/*
+	 * The asXXX methods read the value the parser is positioned on (the
+	 * current collection element, map key, etc.) and are used by ReadAs. They
+	 * always consume the entire value, and behave exactly as the asXXX methods
+	 * of ObjectParseTree do.
+	 */
+
+	/**
+	 * Interpret the current value as a String
+	 */
+	public String asString(String default_value)
+	{
+		String ret = scalarText();
+		if ( ret != null ) return ret;
+
+		if ( parser.currentToken() == JsonToken.VALUE_NULL ) return default_value;
+
+		return asTree().asString(default_value);
+	}
+
+	/**
+	 * Interpret the current value as a Boolean
+	 */
+	public Boolean asBoolean(Boolean default_value)
+	{
+		JsonToken token = parser.currentToken();
+
+		if ( token == JsonToken.VALUE_TRUE ) return true;
+		if ( token == JsonToken.VALUE_FALSE ) return false;
+
+		if ( isScalar(token) ) return ObjectParseTree.toBoolean(scalarText(), default_value);
+
+		return asTree().asBoolean(default_value);
+	}
+
+	/**
+	 * Interpret the current value as a Character
+	 */
+	public Character asCharacter(Character default_value)
+	{
+		if ( isScalar(parser.currentToken()) ) return ObjectParseTree.toCharacter(scalarText(), default_value);
+
+		return asTree().asCharacter(default_value);
+	}
+
+	/**
+	 * Interpret the current value as a Byte
+	 */
+	public Byte asByte(Byte default_value)
+	{
+		try
+		{
+			if ( isLong() )
+			{
+				long value = parser.getLongValue();
+				return value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE ? (byte)value : default_value;
+			}
+
+			if ( isScalar(parser.currentToken()) ) return ObjectParseTree.toByte(scalarText(), default_value);
+
+			return asTree().asByte(default_value);
+		}
+		catch(IOException e)
+		{
+			throw new SerializeException("Error while reading value", e);
+		}
+	}
+
+	/**
+	 * Interpret the current value as a Short
+	 */
+	public Short asShort(Short default_value)
+	{
+		try
+		{
+			if ( isLong() )
+			{
+				long value = parser.getLongValue();
+				return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE ? (short)value : default_value;
+			}
+
+			if ( isScalar(parser.currentToken()) ) return ObjectParseTree.toShort(scalarText(), default_value);
+
+			return asTree().asShort(default_value);
+		}
+		catch(IOException e)
+		{
+			throw new SerializeException("Error while reading value", e);
+		}
+	}
+
+	/**
+	 * Interpret the current value as an Integer
+	 */
+	public Integer asInteger(Integer default_value)
+	{
+		try
+		{
+			if ( isLong() )
+			{
+				long value = parser.getLongValue();
+				return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (int)value : default_value;
+			}
+
+			if ( isScalar(parser.currentToken()) ) return ObjectParseTree.toInteger(scalarText(), default_value);
+
+			return asTree().asInteger(default_value);
+		}
+		catch(IOException e)
+		{
+			throw new SerializeException("Error while reading value", e);
+		}
+	}
+
+	/**
+	 * Interpret the current value as a Long
+	 */
+	public Long asLong(Long default_value)
+	{
+		try
+		{
+			if ( isLong() ) return parser.getLongValue();
+
+			if ( isScalar(parser.currentToken()) ) return ObjectParseTree.toLong(scalarText(), default_value);
+
+			return asTree().asLong(default_value);
+		}
+		catch(IOException e)
+		{
+			throw new SerializeException("Error while reading value", e);
+		}
+	}
+
+	/**
+	 * Interpret the current value as a Float
+	 */
+	public Float asFloat(Float default_value)
+	{
+		if ( isScalar(parser.currentToken()) ) return ObjectParseTree.toFloat(scalarText(), default_value);
+
+		return asTree().asFloat(default_value);
+	}
+
+	/**
+	 * Interpret the current value as a Double
+	 */
+	public Double asDouble(Double default_value)
+	{
+		if ( isScalar(parser.currentToken()) ) return ObjectParseTree.toDouble(scalarText(), default_value);
+
+		return asTree().asDouble(default_value);
+	}
+
+	/**
+	 * Interpret the current value as an Object (either StandardObject or a
+	 * primative object).
+	 *
+	 * Objects of types that have a (StreamReader) constructor are read
+	 * directly, anything else is read via an ObjectParseTree
+	 */
+	public Object asObject(Object default_value)
+	{
+		try
+		{
+			if ( parser.currentToken() != JsonToken.START_OBJECT )
+				return asTree().asObject(default_value);
+
+			JsonToken token = parser.nextToken();
+
+			if ( token == JsonToken.END_OBJECT ) return default_value; // {} is the same as null
+			if ( token != JsonToken.FIELD_NAME ) throw new SerializeException("Unexpected token while reading object: "+token);
+
+			String first_field_name = parser.getCurrentName();
+
+			// The type hint is always written first, if it isn't, let the tree sort things out
+			if ( !first_field_name.equals(FieldName.FIELD_NAME_TYPE_HINT.getSimpleName()) )
+			{
+				ObjectParseTree open_field = new ObjectParseTree(FieldName.intern(first_field_name));
+				return Parser.continueObject(parser, new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT), open_field).asObject(default_value);
+			}
+
+			if ( parser.nextToken() != JsonToken.VALUE_STRING )
+				throw new SerializeException("Attempt to read object, but the type hint is not a string");
+
+			String type_hint = parser.getText();
+
+			MethodHandle constructor = ObjectParseTree.getStreamingConstructor(TypeName.intern(type_hint));
+
+			if ( constructor == null )
+			{
+				ObjectParseTree root = new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT);
+
+				ObjectParseTree type_hint_tree = new ObjectParseTree(FieldName.FIELD_NAME_TYPE_HINT);
+				type_hint_tree.setValue(type_hint);
+				root.add(type_hint_tree);
+
+				return Parser.continueObject(parser, root, null).asObject(default_value);
+			}
+
+			return construct(constructor);
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e)
+		{
+			throw new SerializeException("Error while reading object", e);
+		}
+	}
+
+	private Object construct(MethodHandle constructor)
+	{
+		int level = ++object_level;
+
+		String outer_field_name = current_field_name;
+		boolean outer_value_pending = value_pending;
+		int outer_first_single_value_field = first_single_value_field;
+
+		current_field_name = null;
+		value_pending = false;
+		first_single_value_field = single_value_fields.size();
+
+		try
+		{
+			Object ret = (Object)constructor.invokeExact(this);
+
+			// Skip any fields the constructor did not read
+			while ( object_level >= level )
+			{
+				nextField();
+			}
+
+			current_field_name = outer_field_name;
+			value_pending = outer_value_pending;
+
+			single_value_fields.subList(first_single_value_field, single_value_fields.size()).clear();
+			first_single_value_field = outer_first_single_value_field;
+
+			if ( ret instanceof StandardObject )
+			{
+				((StandardObject)ret).complete();
+			}
+
+			return ret;
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e2)
+		{
+			throw new SerializeException("Error reading object",e2);
+		}
+		catch(Error e3)
+		{
+			throw e3;
+		}
+		catch(Throwable e4) // not possible, invokeExact is simply declared to throw Throwable
+		{
+			throw new SerializeException("Error reading object: "+e4);
+		}
+	}
+
+	/**
+	 * Read the current value into an ObjectParseTree. This is the fall back
+	 * used for any value that is not read directly (complete primitive
+	 * objects, types without a (StreamReader) constructor, etc.)
+	 *
+	 * @return A parse tree for the current value
+	 */
+	public ObjectParseTree asTree()
+	{
+		try
+		{
+			JsonToken token = parser.currentToken();
+
+			if ( token == null ) throw new SerializeException("Unexpected end of input");
+
+			switch(token)
+			{
+			case START_OBJECT:
+				return Parser.continueObject(parser, new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT), null);
+
+			case START_ARRAY:
+				// Like a field that holds an array, read as a single value (the first element)
+				ObjectParseTree holder = new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT);
+				Parser.continueArray(parser, FieldName.FIELD_ARRAY_ELEMENT, holder);
+				return holder.findChild(FieldName.FIELD_ARRAY_ELEMENT, new ObjectParseTree(FieldName.FIELD_ARRAY_ELEMENT));
+
+			case VALUE_NULL:
+				ObjectParseTree null_tree = new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT);
+				null_tree.setValue(null);
+				return null_tree;
+
+			case VALUE_STRING:
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+			case VALUE_TRUE:
+			case VALUE_FALSE:
+				ObjectParseTree value_tree = new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT);
+				value_tree.setValue(parser.getValueAsString());
+				return value_tree;
+
+			default:
+				throw new SerializeException("Unexpected token while reading value: "+token);
+			}
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e)
+		{
+			throw new SerializeException("Error while reading value", e);
+		}
+	}
+
+	static private boolean isScalar(JsonToken token)
+	{
+		return token != null && token.isScalarValue() && token != JsonToken.VALUE_NULL && token != JsonToken.VALUE_EMBEDDED_OBJECT;
+	}
+
+	/**
+	 * @return The current value as text (exactly as Parser would have stored
+	 *         it in a parse tree), or null if the current value is not a
+	 *         scalar
+	 */
+	private String scalarText()
+	{
+		if ( !isScalar(parser.currentToken()) ) return null;
+
+		try
+		{
+			return parser.getValueAsString();
+		}
+		catch(IOException e)
+		{
+			throw new SerializeException("Error while reading value", e);
+		}
+	}
+
+	/**
+	 * Is the current value an integer that can be read (without loss) via
+	 * getLongValue?
+	 */
+	private boolean isLong() throws IOException
+	{
+		if ( parser.currentToken() != JsonToken.VALUE_NUMBER_INT ) return false;
+
+		NumberType type = parser.getNumberType();
+		return type == NumberType.INT || type == NumberType.LONG;
+	}
+
+	/**
+	 * Is a document (probably) JSON? Only looks at the first non whitespace
+	 * character
+	 */
+	static boolean isJSON(String document)
+	{
+		if ( document == null ) return false;
+
+		for ( int i = 0; i < document.length(); i++ )
+		{
+			char ch = document.charAt(i);
+			if ( !Character.isWhitespace(ch) ) return ch == '{';
+		}
+
+		return false;
+	}
+
+	/**
+	 * Construct an object from a previously serialized JSON document.
+	 *
+	 * Usually, one calls ObjectParseTree.deserialize (or
+	 * StandardObject.deserialize), which reads JSON via this method
+	 *
+	 * @param document
+	 *            The JSON document to read from
+	 * @return The object previously serialized
+	 * @throws SerializeException
+	 *             If the document could not be read
+	 */
+	static public Object deserialize(String document) throws SerializeException
+	{
+		Validator.notNull(document);
+
+		try ( JsonParser parser = Parser.getJsonFactory().createParser(document) )
+		{
+			return deserialize(parser);
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e)
+		{
+			throw new SerializeException("Error while reading document", e);
+		}
+	}
+
+	/**
+	 * Construct an object from a previously serialized Smile (Format.SMILE) or
+	 * (UTF-8) JSON document. The bytes are read directly, without first being
+	 * decoded into a String
+	 *
+	 * @param document
+	 *            The document to read from
+	 * @return The object previously serialized
+	 * @throws SerializeException
+	 *             If the document could not be read
+	 */
+	static public Object deserialize(byte document[]) throws SerializeException
+	{
+		Validator.notNull(document);
+
+		try ( JsonParser parser = Parser.createParser(Parser.isSmile(document) ? Format.SMILE : Format.JSON, document) )
+		{
+			return deserialize(parser);
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e)
+		{
+			throw new SerializeException("Error while reading document", e);
+		}
+	}
+
+	/**
+	 * Construct an object from a previously serialized Smile (Format.SMILE) or
+	 * (UTF-8) JSON document. The stream is closed when reading is done
+	 *
+	 * @param in
+	 *            The stream to read from
+	 * @return The object previously serialized
+	 * @throws SerializeException
+	 *             If the document could not be read
+	 */
+	static public Object deserialize(InputStream in) throws SerializeException
+	{
+		Validator.notNull(in);
+
+		if ( !in.markSupported() ) in = new BufferedInputStream(in);
+
+		Format format = Parser.figureFormat(in);
+
+		try ( JsonParser parser = Parser.createParser(format == Format.SMILE ? Format.SMILE : Format.JSON, in) )
+		{
+			return deserialize(parser);
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e)
+		{
+			throw new SerializeException("Error while reading document", e);
+		}
+	}
+
+	/**
+	 * Construct an object from a TokenBuffer (see ObjectParseTree.deserialize)
+	 *
+	 * @param document
+	 *            The TokenBuffer to read from
+	 * @return The object previously serialized
+	 * @throws SerializeException
+	 *             If the document could not be read
+	 */
+	static public Object deserialize(TokenBuffer document) throws SerializeException
+	{
+		Validator.notNull(document);
+
+		try ( JsonParser parser = document.asParser() )
+		{
+			return deserialize(parser);
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e)
+		{
+			throw new SerializeException("Error while reading document", e);
+		}
+	}
+
+	static private Object deserialize(JsonParser parser) throws IOException
+	{
+		JsonToken token = parser.nextToken();
+
+		if ( token != JsonToken.START_OBJECT )
+			throw new SerializeException("Unable to read document: expected the start of an object, found "+token);
+
+		Object ret = new StreamReader(parser).asObject(null);
+
+		if ( ret == null )
+			throw new SerializeException("Unable to read document!");
+
+		return ret;
+	}
+}
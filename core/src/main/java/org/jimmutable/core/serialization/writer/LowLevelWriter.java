@@ -1,7 +1,6 @@
 package org.jimmutable.core.serialization.writer;
 
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
@@ -15,11 +14,14 @@ import org.jimmutable.core.serialization.TypeName;
 import org.jimmutable.core.serialization.reader.ObjectParseTree;
 import org.jimmutable.core.utils.Validator;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import com.fasterxml.jackson.dataformat.xml.XmlFactory;
 import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
 
@@ -40,18 +42,52 @@ import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
  */
 public class LowLevelWriter 
 {
+	// Factories are thread safe and expensive to create, so every writer shares
+	// one per family of formats. Sharing them also lets Jackson recycle the
+	// generators' buffers (they are pooled per thread, per factory)
+	static private final JsonFactory json_factory = new JsonFactory();
+	static private final XmlFactory xml_factory = new XmlFactory();
+	
+	// Shared string values are off by default in Smile (they cost a lookup per
+	// string written), but type hints, map entry type hints and enum codes
+	// repeat in pretty much every document we write, so turn them on
+	static private final SmileFactory smile_factory = SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+	
+	// Pretty printers carry per document state, generators get a copy (see
+	// DefaultPrettyPrinter.createInstance) of this blueprint.
+	// "\n" fixes Mac vs PC line separator issues
+	static private final DefaultPrettyPrinter json_pretty_printer = new DefaultPrettyPrinter().withObjectIndenter(new DefaultIndenter("  ", "\n"));
+	
 	private Format format;  // required, the format being written,
 	private JsonGenerator gen; // required, the JSON geneator
 	
 	/**
-	 * Construct a low level writer
+	 * Construct a low level writer. Text formats are written as UTF-8 bytes
+	 * directly (there is no intermediate String or Writer), whatever the
+	 * platform's default charset is. close() closes out.
 	 * 
 	 * @param format The format to write data in
 	 * @param out The output stream to write the data to
 	 */
 	public LowLevelWriter(Format format, OutputStream out)
 	{
-		this(format, new OutputStreamWriter(out));
+		this(format, out, true);
+	}
+	
+	/**
+	 * Construct a low level writer. Text formats are written as UTF-8 bytes
+	 * directly (there is no intermediate String or Writer)
+	 * 
+	 * @param format The format to write data in
+	 * @param out The output stream to write the data to
+	 * @param close_out If true, close() closes out, otherwise it only flushes it
+	 */
+	public LowLevelWriter(Format format, OutputStream out, boolean close_out)
+	{
+		this(format, null, out);
+		
+		if ( !close_out ) 
+			gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 	}
 	
 	/**
@@ -61,6 +97,11 @@ public class LowLevelWriter
 	 * @param writer The writer to write the data to
 	 */
 	public LowLevelWriter(Format format, Writer writer)
+	{
+		this(format, writer, null);
+	}
+	
+	private LowLevelWriter(Format format, Writer writer, OutputStream out)
 	{
 		Validator.notNull(format);
 		
@@ -68,23 +109,23 @@ public class LowLevelWriter
 		
 		try
 		{
-			if ( format == Format.JSON || format == Format.JSON_PRETTY_PRINT )
+			if ( format == Format.SMILE )
 			{
-                JsonFactory jfactory = new JsonFactory();
-				gen = jfactory.createGenerator(writer);
+				if ( out == null ) 
+					throw new SerializeException("SMILE is a binary format, it can only be written to an OutputStream");
+				
+				gen = smile_factory.createGenerator(out);
+			}
+			else if ( format == Format.JSON || format == Format.JSON_PRETTY_PRINT )
+			{
+				gen = out != null ? json_factory.createGenerator(out, JsonEncoding.UTF8) : json_factory.createGenerator(writer);
 				
 				if ( format == Format.JSON_PRETTY_PRINT )
-				{
-					gen.useDefaultPrettyPrinter();
-					
-					//Fix Mac vs PC line separator issues
-					((DefaultPrettyPrinter)gen.getPrettyPrinter()).indentObjectsWith(new DefaultIndenter("  ", "\n"));
-				}
+					gen.setPrettyPrinter(json_pretty_printer.createInstance());
 			}
 			else
 			{
-				XmlFactory xfactory = new XmlFactory();
-				ToXmlGenerator xgen = xfactory.createGenerator(writer);
+				ToXmlGenerator xgen = out != null ? xml_factory.createGenerator(out) : xml_factory.createGenerator(writer);
 
 				if ( format == Format.XML_PRETTY_PRINT )
 					xgen.useDefaultPrettyPrinter();
@@ -95,6 +136,10 @@ public class LowLevelWriter
 				gen = xgen;
 			}
 		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
 		catch(Exception e)
 		{
 			throw new SerializeException("Error creating low level writer", e);
@@ -660,5 +705,4 @@ public class LowLevelWriter
 	 *         false otherwise
 	 */
 	public boolean isXML() { return getSimpleFormat() == Format.XML || getSimpleFormat() == Format.XML_PRETTY_PRINT; }
-	
 }
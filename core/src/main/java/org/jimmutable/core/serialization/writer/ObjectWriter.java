@@ -1,18 +1,25 @@
 package org.jimmutable.core.serialization.writer;
 
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 
 import org.jimmutable.core.exceptions.SerializeException;
+import org.jimmutable.core.objects.SerializedFormCache;
 import org.jimmutable.core.objects.StandardEnum;
+import org.jimmutable.core.objects.StandardImmutableObject;
 import org.jimmutable.core.objects.Stringable;
 import org.jimmutable.core.serialization.FieldDefinition;
 import org.jimmutable.core.serialization.FieldName;
 import org.jimmutable.core.serialization.Format;
 import org.jimmutable.core.serialization.TypeName;
+import org.jimmutable.core.serialization.reader.ObjectParseTree;
 import org.jimmutable.core.utils.Validator;
 
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 /**
@@ -49,6 +56,11 @@ import com.fasterxml.jackson.databind.util.TokenBuffer;
  */
 public class ObjectWriter 
 {
+	// serializeToBytes collects bytes in a per thread ByteArrayBuilder, so
+	// that serializing many small objects does not allocate buffers each time
+	static private final int INITIAL_BYTE_ARRAY_BUILDER_SIZE = 4096;
+	static private final ThreadLocal<ByteArrayBuilder> byte_array_builders = new ThreadLocal<>();
+	
 	private LowLevelWriter writer;
 	
 	/**
@@ -554,26 +566,14 @@ public class ObjectWriter
 	 */
 	static public String serialize(Format format, Object obj)
 	{
+		if ( SerializedFormCache.isCacheable(obj, format) && !format.isBinary() )
+			return new String(serializeCached(format, (StandardImmutableObject<?>)obj), StandardCharsets.UTF_8);
+		
 		try
 		{
-			if ( obj == null )
-			{
-				obj = NullPrimative.NULL_PRIMATIVE;
-			}
-			
 			StringWriter writer = new StringWriter();
-			LowLevelWriter low_level_writer = new LowLevelWriter(format,writer);
 			
-			if ( obj instanceof String )
-			{
-				low_level_writer.writeStringObject((String)obj);
-			}
-			else
-			{
-				low_level_writer.writeObject(obj);
-			}
-			
-			low_level_writer.close();
+			writeDocument(new LowLevelWriter(format,writer), obj);
 			
 			writer.close();
 			
@@ -589,6 +589,79 @@ public class ObjectWriter
 		}
 	}
 	
+	/**
+	 * Serialize an object to an OutputStream. Text formats are encoded in
+	 * UTF-8 as they are written (there is no intermediate String).
+	 * 
+	 * out is flushed, but not closed
+	 * 
+	 * @param format
+	 *            The format to serialize in
+	 * @param obj
+	 *            The object to serialize (can be null)
+	 * @param out
+	 *            The stream to write to
+	 */
+	static public void serialize(Format format, Object obj, OutputStream out)
+	{
+		Validator.notNull(format, out);
+		Validator.notEqual(format, Format.TOKEN_BUFFER);
+		
+		try
+		{
+			if ( SerializedFormCache.isCacheable(obj, format) )
+			{
+				out.write(serializeCached(format, (StandardImmutableObject<?>)obj));
+				out.flush();
+				return;
+			}
+			
+			writeDocument(new LowLevelWriter(format,out,false), obj);
+		}
+		catch(SerializeException e)
+		{
+			throw e;
+		}
+		catch(Exception e2)
+		{
+			throw new SerializeException("Error while writing object: "+e2.getMessage(), e2);
+		}
+	}
+	
+	/**
+	 * Serialize an object, return the serialized bytes.
+	 * 
+	 * This is the only way to serialize in a binary format (Format.SMILE).
+	 * Text formats are encoded in UTF-8
+	 * 
+	 * @param format
+	 *            The format to serialize in
+	 * @param obj
+	 *            The object to serialize (can be null)
+	 * @return obj serialized in the specified format
+	 */
+	static public byte[] serializeToBytes(Format format, Object obj)
+	{
+		if ( SerializedFormCache.isCacheable(obj, format) )
+		{
+			byte cached[] = serializeCached(format, (StandardImmutableObject<?>)obj);
+			return Arrays.copyOf(cached, cached.length); // the cached array is shared
+		}
+		
+		ByteArrayBuilder out = borrowByteArrayBuilder();
+		
+		try
+		{
+			serialize(format, obj, out);
+			
+			return out.toByteArray();
+		}
+		finally
+		{
+			returnByteArrayBuilder(out);
+		}
+	}
+	
 	/**
 	 * Serialize an object, return a TokenBuffer
 	 * 
@@ -601,25 +674,9 @@ public class ObjectWriter
 	{
 		try
 		{
-			if ( obj == null )
-			{
-				obj = NullPrimative.NULL_PRIMATIVE;
-			}
-			
 			TokenBuffer ret = new TokenBuffer(null,false);
 			
-			LowLevelWriter low_level_writer = new LowLevelWriter(ret);
-			
-			if ( obj instanceof String )
-			{
-				low_level_writer.writeStringObject((String)obj);
-			}
-			else
-			{
-				low_level_writer.writeObject(obj);
-			}
-			
-			low_level_writer.close();
+			writeDocument(new LowLevelWriter(ret), obj);
 			
 			return ret;
 		}
@@ -632,4 +689,94 @@ public class ObjectWriter
 			throw new SerializeException("Error while writing object: "+e2.getMessage(), e2);
 		}
 	}
+	
+	/**
+	 * Serialize an object straight into an ObjectParseTree, without generating
+	 * (or parsing) any tokens. The result reads back (via asObject) exactly as
+	 * if obj had been serialized and parsed, but complete immutable objects and
+	 * frozen collections below the top level are shared instead of copied (see
+	 * ObjectParseTree.setObject)
+	 * 
+	 * @param obj
+	 *            The object to serialize (can be null)
+	 * 
+	 * @return The root (FieldName.FIELD_DOCUMENT_ROOT) of the parse tree
+	 */
+	static public ObjectParseTree serializeToParseTree(Object obj)
+	{
+		return new ParseTreeWriter().writeDocument(obj);
+	}
+	
+	/**
+	 * Take this thread's spare ByteArrayBuilder (or a new one, if it is in use,
+	 * e.g. by a serialization that is serializing something else along the way)
+	 */
+	static private ByteArrayBuilder borrowByteArrayBuilder()
+	{
+		ByteArrayBuilder ret = byte_array_builders.get();
+		if ( ret == null ) return new ByteArrayBuilder(INITIAL_BYTE_ARRAY_BUILDER_SIZE);
+		
+		byte_array_builders.set(null);
+		return ret;
+	}
+	
+	/**
+	 * Give a borrowed ByteArrayBuilder back to this thread. reset() keeps only
+	 * the builder's current block (which Jackson caps at 256 KB), so that is
+	 * the most each thread holds on to
+	 */
+	static private void returnByteArrayBuilder(ByteArrayBuilder out)
+	{
+		out.reset();
+		byte_array_builders.set(out);
+	}
+	
+	/**
+	 * Get the serialized form of a complete immutable object from the
+	 * SerializedFormCache, serializing (and caching) it on a miss. The array
+	 * returned is shared, it must not be modified
+	 */
+	static private byte[] serializeCached(Format format, StandardImmutableObject<?> obj)
+	{
+		byte ret[] = SerializedFormCache.get(obj, format);
+		if ( ret != null ) return ret;
+		
+		ByteArrayBuilder out = borrowByteArrayBuilder();
+		
+		try
+		{
+			writeDocument(new LowLevelWriter(format,out,false), obj);
+			ret = out.toByteArray();
+		}
+		finally
+		{
+			returnByteArrayBuilder(out);
+		}
+		
+		SerializedFormCache.put(obj, format, ret);
+		
+		return ret;
+	}
+	
+	/**
+	 * Write obj as a complete document and close low_level_writer
+	 */
+	static private void writeDocument(LowLevelWriter low_level_writer, Object obj)
+	{
+		if ( obj == null )
+		{
+			obj = NullPrimative.NULL_PRIMATIVE;
+		}
+		
+		if ( obj instanceof String )
+		{
+			low_level_writer.writeStringObject((String)obj);
+		}
+		else
+		{
+			low_level_writer.writeObject(obj);
+		}
+		
+		low_level_writer.close();
+	}
 }
@@ -0,0 +1,249 @@
+package org.jimmutable.core.serialization.writer;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+
+import org.jimmutable.core.exceptions.SerializeException;
+import org.jimmutable.core.fields.Field;
+import org.jimmutable.core.objects.StandardImmutableObject;
+import org.jimmutable.core.serialization.FieldName;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.TypeName;
+import org.jimmutable.core.serialization.reader.ObjectParseTree;
+import org.jimmutable.core.utils.Validator;
+
+/**
+ * An ObjectWriter that writes straight into an ObjectParseTree: no tokens are
+ * generated and nothing is parsed. The tree built is the same tree Parser would
+ * produce from the serialized object, with two short cuts:
+ *
+ * <ul>
+ * <li>Complete immutable objects (below the root) are not written at all, the
+ * node for the field simply holds the object (see
+ * ObjectParseTree.setObject)</li>
+ * <li>Frozen Field collections and maps written with WriteAs.OBJECT are not
+ * written element by element, the node for the field holds the collection
+ * (and getCollection/getMap copy its elements as they are when reading with
+ * ReadAs.OBJECT, and convert them otherwise)</li>
+ * </ul>
+ *
+ * Used by JimmutableBuilder, see ObjectWriter.serializeToParseTree
+ *
+ * @author jim.kane
+ *
+ */
+final class ParseTreeWriter extends ObjectWriter
+{
+	private Deque<ObjectParseTree> stack = new ArrayDeque<>();
+	private FieldName array_name; // The field name given to array elements, null when not writing a collection
+
+	ParseTreeWriter()
+	{
+		super(null);
+	}
+
+	/**
+	 * Write obj as a complete document. The top level object is always written
+	 * out field by field (so that its fields may be edited)
+	 *
+	 * @param obj
+	 *            The object to write (can be null)
+	 * @return The root (FieldName.FIELD_DOCUMENT_ROOT) of the tree
+	 */
+	ObjectParseTree writeDocument(Object obj)
+	{
+		ObjectParseTree root = new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT);
+
+		writeObjectContents(root, obj == null ? NullPrimative.NULL_PRIMATIVE : obj);
+
+		return root;
+	}
+
+	/**
+	 * Can value be shared (held by the tree as is) instead of written?
+	 */
+	static boolean isShareable(Object value)
+	{
+		if ( value instanceof StandardImmutableObject ) return ((StandardImmutableObject<?>)value).isComplete();
+		if ( value instanceof Field ) return ((Field)value).isFrozen();
+
+		return false;
+	}
+
+	private ObjectParseTree addNode(FieldName field_name, String value)
+	{
+		if ( array_name != null && field_name.equals(FieldName.FIELD_ARRAY_ELEMENT) )
+			field_name = array_name;
+
+		ObjectParseTree node = new ObjectParseTree(field_name);
+		if ( value != null ) node.setValue(value);
+
+		stack.peek().add(node);
+
+		return node;
+	}
+
+	private void writeObjectContents(ObjectParseTree node, Object obj)
+	{
+		if ( obj instanceof StandardWritable )
+		{
+			StandardWritable std = (StandardWritable)obj;
+
+			stack.push(node);
+			{
+				addNode(FieldName.FIELD_NAME_TYPE_HINT, std.getTypeName().getSimpleName());
+				std.write(this);
+			}
+			stack.pop();
+
+			return;
+		}
+
+		TypeName type_name = null;
+
+		if ( obj instanceof String ) type_name = TypeName.TYPE_NAME_STRING;
+		if ( obj instanceof Boolean ) type_name = TypeName.TYPE_NAME_BOOLEAN;
+		if ( obj instanceof Character ) type_name = TypeName.TYPE_NAME_CHAR;
+		if ( obj instanceof Byte ) type_name = TypeName.TYPE_NAME_BYTE;
+		if ( obj instanceof Short ) type_name = TypeName.TYPE_NAME_SHORT;
+		if ( obj instanceof Integer ) type_name = TypeName.TYPE_NAME_INT;
+		if ( obj instanceof Long ) type_name = TypeName.TYPE_NAME_LONG;
+		if ( obj instanceof Float ) type_name = TypeName.TYPE_NAME_FLOAT;
+		if ( obj instanceof Double ) type_name = TypeName.TYPE_NAME_DOUBLE;
+
+		if ( type_name == null )
+			throw new SerializeException(String.format("Attempt to serialize unknown type %s",obj.getClass()));
+
+		stack.push(node);
+		{
+			addNode(FieldName.FIELD_NAME_TYPE_HINT, type_name.getSimpleName());
+			addNode(FieldName.FIELD_NAME_PRIMITIVE_VALUE, obj.toString());
+		}
+		stack.pop();
+	}
+
+	public void writeNull(FieldName field_name)
+	{
+		addNode(field_name, null);
+	}
+
+	public void writeString(FieldName field_name, String value)
+	{
+		addNode(field_name, value);
+	}
+
+	public void writeBoolean(FieldName field_name, boolean value)
+	{
+		addNode(field_name, Boolean.toString(value));
+	}
+
+	public void writeChar(FieldName field_name, char value)
+	{
+		addNode(field_name, Character.toString(value));
+	}
+
+	public void writeByte(FieldName field_name, byte value)
+	{
+		addNode(field_name, Long.toString(value));
+	}
+
+	public void writeShort(FieldName field_name, short value)
+	{
+		addNode(field_name, Long.toString(value));
+	}
+
+	public void writeInt(FieldName field_name, int value)
+	{
+		addNode(field_name, Long.toString(value));
+	}
+
+	public void writeLong(FieldName field_name, long value)
+	{
+		addNode(field_name, Long.toString(value));
+	}
+
+	public void writeFloat(FieldName field_name, float value)
+	{
+		addNode(field_name, Float.toString(value));
+	}
+
+	public void writeDouble(FieldName field_name, double value)
+	{
+		addNode(field_name, Double.toString(value));
+	}
+
+	public void writeObject(FieldName field_name, Object value)
+	{
+		ObjectParseTree node = addNode(field_name, null);
+
+		if ( value == null ) return;
+
+		if ( isShareable(value) )
+			node.setObject(value);
+		else
+			writeObjectContents(node, value);
+	}
+
+	public void openObject(FieldName field_name, TypeName type_name)
+	{
+		Validator.notNull(field_name, type_name);
+
+		ObjectParseTree node = addNode(field_name, null);
+
+		stack.push(node);
+		addNode(FieldName.FIELD_NAME_TYPE_HINT, type_name.getSimpleName());
+	}
+
+	public void closeObject()
+	{
+		stack.pop();
+	}
+
+	public void writeCollection(FieldName field_name, Collection c, WriteAs write_as)
+	{
+		Validator.notNull(field_name, c, write_as);
+
+		// Any other WriteAs changes how the elements are represented
+		if ( write_as == WriteAs.OBJECT && isShareable(c) )
+		{
+			addNode(field_name, null).setObject(c);
+			return;
+		}
+
+		FieldName outer_array_name = array_name;
+		array_name = field_name;
+
+		try
+		{
+			for ( Object obj : c )
+			{
+				write_as.writeObject(this, FieldName.FIELD_ARRAY_ELEMENT, obj);
+			}
+		}
+		finally
+		{
+			array_name = outer_array_name;
+		}
+	}
+
+	public void writeMap(FieldName field_name, Map m, WriteAs write_keys_as, WriteAs write_values_as)
+	{
+		Validator.notNull(field_name, m, write_keys_as, write_values_as);
+
+		if ( write_keys_as == WriteAs.OBJECT && write_values_as == WriteAs.OBJECT && isShareable(m) )
+		{
+			addNode(field_name, null).setObject(m);
+			return;
+		}
+
+		super.writeMap(field_name, m, write_keys_as, write_values_as);
+	}
+
+	public Format getSimpleFormat() { return Format.TOKEN_BUFFER; }
+
+	public boolean isJSON() { return false; }
+
+	public boolean isXML() { return false; }
+}
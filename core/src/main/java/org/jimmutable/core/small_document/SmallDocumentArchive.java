@@ -0,0 +1,339 @@
+package org.jimmutable.core.small_document;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jimmutable.core.objects.StandardObject;
+import org.jimmutable.core.threading.OperationPool;
+import org.jimmutable.core.threading.OperationRunnable;
+import org.jimmutable.core.utils.Validator;
+
+/**
+ * Random access to a small document archive (see SmallDocumentArchiveWriter),
+ * through a read only memory mapping of the file.
+ *
+ * The index is read straight out of the mapping, so opening an archive of any
+ * size is cheap, and reaching document k costs a couple of array lookups.
+ * Documents can be had as a String, an object, or as a ByteBuffer that is a
+ * view of the mapping itself (no copy onto the heap). createScan splits the
+ * documents (or the documents of one group) into contiguous ranges and reads
+ * each range on its own thread.
+ *
+ * The file is mapped in segments of about a GB, each extended by the maximum
+ * document size so that every document lies entirely within the segment it
+ * starts in.
+ *
+ * Instances are thread safe.
+ *
+ * @author jim.kane
+ *
+ */
+public class SmallDocumentArchive implements Closeable
+{
+	static private final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+	static private final int FOOTER_SIZE = 16;
+
+	private FileChannel channel;
+
+	private int segment_size;
+	private MappedByteBuffer segments[];
+
+	private ByteBuffer index;
+	private int document_count;
+	private int lengths_position;
+	private int groups_position;
+
+	private List<String> group_names = new ArrayList<>();
+	private Map<String, int[]> documents_by_group; // built on first use
+
+	public SmallDocumentArchive(File file) throws IOException
+	{
+		this(file, DEFAULT_SEGMENT_SIZE);
+	}
+
+	SmallDocumentArchive(File file, int segment_size) throws IOException
+	{
+		Validator.notNull(file);
+		Validator.min(segment_size, 1);
+
+		this.segment_size = segment_size;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+		try
+		{
+			open();
+		}
+		catch ( IOException | RuntimeException e )
+		{
+			channel.close();
+			throw e;
+		}
+	}
+
+	private void open() throws IOException
+	{
+		long file_size = channel.size();
+		if ( file_size < FOOTER_SIZE ) throw new IOException("Not a small document archive (too short)");
+
+		ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, file_size - FOOTER_SIZE, FOOTER_SIZE);
+
+		long index_offset = footer.getLong();
+		if ( footer.getLong() != SmallDocumentArchiveWriter.MAGIC ) throw new IOException("Not a small document archive (no index)");
+		if ( index_offset < 0 || index_offset > file_size - FOOTER_SIZE - 8 || file_size - index_offset > Integer.MAX_VALUE ) throw new IOException("Corrupt small document archive index");
+
+		index = channel.map(FileChannel.MapMode.READ_ONLY, index_offset, file_size - FOOTER_SIZE - index_offset);
+
+		document_count = index.getInt(0);
+		if ( document_count < 0 || 4 + 16L * document_count + 4 > index.capacity() ) throw new IOException("Corrupt small document archive index");
+
+		lengths_position = 4 + 8 * document_count;
+		groups_position = lengths_position + 4 * document_count;
+
+		DataInputStream names = new DataInputStream(new ByteBufferInputStream(index.slice(groups_position + 4 * document_count, index.capacity() - groups_position - 4 * document_count)));
+
+		int group_count = names.readInt();
+		for ( int i = 0; i < group_count; i++ ) group_names.add(names.readUTF());
+
+		// Map the documents themselves
+		int segment_count = (int)((index_offset + segment_size - 1) / segment_size);
+		long overlap = SmallDocumentArchiveWriter.MAXIMUM_DOCUMENT_LENGTH_IN_BYTES + 64; // a whole document, its delimiters and then some
+
+		segments = new MappedByteBuffer[segment_count];
+
+		for ( int i = 0; i < segment_count; i++ )
+		{
+			long start = (long)i * segment_size;
+			long size = Math.min(segment_size + overlap, index_offset - start);
+
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		}
+	}
+
+	public int getSimpleDocumentCount() { return document_count; }
+
+	/**
+	 * @return The names of every group, in the order they first appear in the
+	 *         archive
+	 */
+	public List<String> getSimpleGroupNames() { return Collections.unmodifiableList(group_names); }
+
+	/**
+	 * @return The group of document k, or default_value if it has none
+	 */
+	public String getOptionalGroup(int k, String default_value)
+	{
+		Objects.checkIndex(k, document_count);
+
+		int group = index.getInt(groups_position + 4 * k);
+		return group == -1 ? default_value : group_names.get(group);
+	}
+
+	/**
+	 * @return The indexes of the documents in the group (in archive order), an
+	 *         empty array if there are none
+	 */
+	public int[] getSimpleDocumentsInGroup(String group)
+	{
+		int ret[] = getDocumentsByGroup().get(group);
+		return ret == null ? new int[0] : ret.clone();
+	}
+
+	/**
+	 * Document k, without copying: a read only view of the mapped file (UTF-8
+	 * encoded), positioned at the start of the document and limited to its end
+	 */
+	public ByteBuffer getSimpleDocumentBuffer(int k)
+	{
+		Objects.checkIndex(k, document_count);
+
+		long offset = index.getLong(4 + 8 * k);
+		int length = index.getInt(lengths_position + 4 * k);
+
+		return segments[(int)(offset / segment_size)].slice((int)(offset % segment_size), length);
+	}
+
+	public String getSimpleDocument(int k)
+	{
+		ByteBuffer buffer = getSimpleDocumentBuffer(k);
+
+		byte bytes[] = new byte[buffer.remaining()];
+		buffer.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Deserialize document k, reading it directly out of the mapped file
+	 */
+	public StandardObject getSimpleObject(int k)
+	{
+		return StandardObject.deserialize(new ByteBufferInputStream(getSimpleDocumentBuffer(k)));
+	}
+
+	/**
+	 * Create an operation that reads every document in the archive, split
+	 * into partition_count contiguous ranges that are read in parallel
+	 *
+	 * @param partition_count
+	 *            The number of ranges (and threads)
+	 * @param listener
+	 *            Called for each document, concurrently from each partition
+	 * @return An operation to execute (e.g. with OperationRunnable.execute)
+	 */
+	public OperationRunnable createScan(int partition_count, Listener listener)
+	{
+		return createScan(null, partition_count, listener);
+	}
+
+	/**
+	 * Create an operation that reads every document in a group in parallel
+	 * (see createScan(int, Listener)). A null group reads every document
+	 */
+	public OperationRunnable createScan(String group, int partition_count, Listener listener)
+	{
+		Validator.notNull(listener);
+		Validator.min(partition_count, 1);
+
+		int documents[] = group == null ? null : getDocumentsByGroup().getOrDefault(group, new int[0]);
+		int count = documents == null ? document_count : documents.length;
+
+		List<OperationRunnable> partitions = new ArrayList<>();
+
+		for ( int i = 0; i < partition_count; i++ )
+		{
+			int from = (int)((long)count * i / partition_count);
+			int to = (int)((long)count * (i + 1) / partition_count);
+
+			if ( from < to ) partitions.add(new OperationScanRange(documents, from, to, listener));
+		}
+
+		return new OperationPool(partitions, partition_count);
+	}
+
+	static public interface Listener
+	{
+		/**
+		 * Called for each document scanned
+		 *
+		 * @param k
+		 *            The index of the document in the archive
+		 * @param document
+		 *            The document (see getSimpleDocumentBuffer)
+		 */
+		public void onDocument(int k, ByteBuffer document);
+	}
+
+	/**
+	 * Close the file. The mapping itself is released when it is garbage
+	 * collected, buffers already handed out remain readable until then
+	 */
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	private synchronized Map<String, int[]> getDocumentsByGroup()
+	{
+		if ( documents_by_group != null ) return documents_by_group;
+
+		int counts[] = new int[group_names.size()];
+		for ( int k = 0; k < document_count; k++ )
+		{
+			int group = index.getInt(groups_position + 4 * k);
+			if ( group != -1 ) counts[group]++;
+		}
+
+		int documents[][] = new int[group_names.size()][];
+		for ( int i = 0; i < documents.length; i++ ) documents[i] = new int[counts[i]];
+
+		Arrays.fill(counts, 0);
+		for ( int k = 0; k < document_count; k++ )
+		{
+			int group = index.getInt(groups_position + 4 * k);
+			if ( group != -1 ) documents[group][counts[group]++] = k;
+		}
+
+		Map<String, int[]> ret = new LinkedHashMap<>();
+		for ( int i = 0; i < documents.length; i++ ) ret.put(group_names.get(i), documents[i]);
+
+		return documents_by_group = ret;
+	}
+
+	private class OperationScanRange extends OperationRunnable
+	{
+		private int documents[]; // null for all documents
+		private int from;
+		private int to;
+		private Listener listener;
+
+		private OperationScanRange(int documents[], int from, int to, Listener listener)
+		{
+			this.documents = documents;
+			this.from = from;
+			this.to = to;
+			this.listener = listener;
+		}
+
+		protected Result performOperation() throws Exception
+		{
+			for ( int i = from; i < to; i++ )
+			{
+				if ( shouldStop() ) return Result.STOPPED;
+
+				int k = documents == null ? i : documents[i];
+				listener.onDocument(k, getSimpleDocumentBuffer(k));
+			}
+
+			return Result.SUCCESS;
+		}
+	}
+
+	/**
+	 * Reads a ByteBuffer (from its position to its limit) without copying it
+	 */
+	static private class ByteBufferInputStream extends InputStream
+	{
+		private ByteBuffer buffer;
+
+		private ByteBufferInputStream(ByteBuffer buffer)
+		{
+			this.buffer = buffer;
+		}
+
+		public int read()
+		{
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		public int read(byte b[], int off, int len)
+		{
+			if ( len == 0 ) return 0;
+			if ( !buffer.hasRemaining() ) return -1;
+
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+
+		public int available() { return buffer.remaining(); }
+
+		public boolean markSupported() { return true; }
+		public synchronized void mark(int read_limit) { buffer.mark(); }
+		public synchronized void reset() { buffer.reset(); }
+	}
+}
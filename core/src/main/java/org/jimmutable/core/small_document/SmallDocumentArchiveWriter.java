@@ -0,0 +1,182 @@
+package org.jimmutable.core.small_document;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jimmutable.core.objects.StandardObject;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.RandomData;
+import org.jimmutable.core.utils.Validator;
+
+/**
+ * Writes a small document archive: an ordinary (UTF-8 encoded) small document
+ * file, as written by SmallDocumentWriter, followed by an index of where each
+ * document is. SmallDocumentReader can read an archive front to back like any
+ * other small document file (it stops at the end of file document, before the
+ * index); SmallDocumentArchive uses the index for random access.
+ *
+ * Each document may be given a group (a type name, a key, ...) that the
+ * archive can later be read by.
+ *
+ * The layout after the end of file document is (big endian)
+ *
+ * <pre>
+ * int document_count
+ * long[document_count] document offsets (of the first byte after the opening delimiter)
+ * int[document_count] document lengths (in bytes)
+ * int[document_count] document groups (an index into the group names, -1 for none)
+ * int group_count
+ * modified UTF-8 (DataOutput.writeUTF)[group_count] group names
+ * long index_offset (of document_count)
+ * long MAGIC
+ * </pre>
+ *
+ * @author jim.kane
+ *
+ */
+public class SmallDocumentArchiveWriter
+{
+	static public final long MAGIC = 0x4A4D534441524331L; // "JMSDARC1"
+
+	static public final int MAXIMUM_DOCUMENT_LENGTH_IN_BYTES = SmallDocumentReader.MAXIMUM_DOCUMENT_LENGTH_IN_CHARACTERS;
+
+	private DataOutputStream out;
+	private long position = 0;
+
+	private RandomData random_data = new RandomData();
+	private String last_delimiter = null;
+
+	private long offsets[] = new long[1024];
+	private int lengths[] = new int[1024];
+	private int groups[] = new int[1024];
+	private int document_count = 0;
+
+	private Map<String, Integer> group_ids = new LinkedHashMap<>();
+
+	public SmallDocumentArchiveWriter(OutputStream out)
+	{
+		Validator.notNull(out);
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 64*1024));
+	}
+
+	public void writeDocument(String document) throws IOException
+	{
+		writeDocument(null, document);
+	}
+
+	/**
+	 * @param group
+	 *            The group of the document, null for none
+	 * @param document
+	 *            The document
+	 */
+	public void writeDocument(String group, String document) throws IOException
+	{
+		if ( document == null ) return;
+
+		int group_id = -1;
+
+		if ( group != null )
+		{
+			Integer id = group_ids.get(group);
+			if ( id == null ) group_ids.put(group, id = group_ids.size());
+
+			group_id = id;
+		}
+
+		byte bytes[] = document.getBytes(StandardCharsets.UTF_8);
+		if ( bytes.length > MAXIMUM_DOCUMENT_LENGTH_IN_BYTES ) throw new IOException(String.format("Document of %,d bytes is too large for an archive", bytes.length));
+
+		long offset = writeContainer(document, bytes);
+
+		if ( document_count == offsets.length )
+		{
+			offsets = Arrays.copyOf(offsets, document_count * 2);
+			lengths = Arrays.copyOf(lengths, document_count * 2);
+			groups = Arrays.copyOf(groups, document_count * 2);
+		}
+
+		offsets[document_count] = offset;
+		lengths[document_count] = bytes.length;
+		groups[document_count] = group_id;
+		document_count++;
+	}
+
+	/**
+	 * Write an object (as JSON), grouped by its type name
+	 */
+	public void writeObject(StandardObject object) throws IOException
+	{
+		if ( object == null ) return;
+		writeDocument(object.getTypeName().getSimpleName(), object.serialize(Format.JSON));
+	}
+
+	public int getSimpleDocumentCount() { return document_count; }
+
+	/**
+	 * Write the end of file document and the index, and close the underlying
+	 * stream
+	 */
+	public void close() throws IOException
+	{
+		writeContainer(SmallDocumentReader.EOF_DOCUMENT, SmallDocumentReader.EOF_DOCUMENT.getBytes(StandardCharsets.UTF_8)); // not indexed
+
+		long index_offset = position;
+
+		out.writeInt(document_count);
+		for ( int i = 0; i < document_count; i++ ) out.writeLong(offsets[i]);
+		for ( int i = 0; i < document_count; i++ ) out.writeInt(lengths[i]);
+		for ( int i = 0; i < document_count; i++ ) out.writeInt(groups[i]);
+
+		out.writeInt(group_ids.size());
+		for ( String group : group_ids.keySet() ) out.writeUTF(group);
+
+		out.writeLong(index_offset);
+		out.writeLong(MAGIC);
+
+		out.close();
+	}
+
+	/**
+	 * Write a delimited document
+	 * 
+	 * @return The offset of the document itself (just after the opening
+	 *         delimiter)
+	 */
+	private long writeContainer(String document, byte bytes[]) throws IOException
+	{
+		byte delimiter[] = createDelimiter(document).getBytes(StandardCharsets.US_ASCII);
+
+		write(delimiter);
+		long ret = position;
+		write(bytes);
+		write(delimiter);
+		out.write('\n');
+		position++;
+
+		return ret;
+	}
+
+	private void write(byte bytes[]) throws IOException
+	{
+		out.write(bytes);
+		position += bytes.length;
+	}
+
+	private String createDelimiter(String document)
+	{
+		while(true)
+		{
+			if ( last_delimiter != null && document.indexOf(last_delimiter) == -1 )
+				return last_delimiter;
+
+			last_delimiter = String.format("<?%s?>", random_data.randomStringOfLength(RandomData.ALPHABET_ALPHA_NUMERIC, 7));
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package org.jimmutable.core.small_document;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * The stream under a block compressed SmallDocumentWriter (see
+ * SmallDocumentWriter.createBlockCompressed). Documents are buffered until
+ * there are at least block_size bytes of them, and then deflated as a block
+ * that can be decompressed (and read) independently of any other.
+ *
+ * The layout is (big endian)
+ *
+ * <pre>
+ * long MAGIC
+ * blocks, each:
+ *   int uncompressed_length
+ *   int compressed_length
+ *   int document_count (whole documents, the last block includes the end of file document)
+ *   byte[compressed_length] raw deflate data
+ * int -1 (the end of the blocks)
+ * int block_count
+ * block_count entries of: long offset (of the block header), long first_document (the number of the block's first document)
+ * long index_offset (of block_count)
+ * long MAGIC
+ * </pre>
+ *
+ * @author jim.kane
+ *
+ */
+class SmallDocumentBlockOutputStream extends OutputStream
+{
+	static public final long MAGIC = 0x4A4D5344424C4B31L; // "JMSDBLK1"
+
+	static public final int DEFAULT_BLOCK_SIZE = 1024*1024;
+
+	private DataOutputStream out;
+	private long position = 0;
+
+	private int block_size;
+	private byte block[];
+	private int block_length = 0;
+	private int block_document_count = 0;
+
+	private Deflater deflater;
+	private byte compressed[];
+
+	private long document_count = 0;
+
+	private long index_offsets[] = new long[64];
+	private long index_first_documents[] = new long[64];
+	private int block_count = 0;
+
+	private boolean closed = false;
+
+	SmallDocumentBlockOutputStream(OutputStream out, int block_size, int compression_level) throws IOException
+	{
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 64*1024));
+		this.block_size = block_size;
+		this.block = new byte[block_size + block_size / 4];
+		this.compressed = new byte[block.length];
+		this.deflater = new Deflater(compression_level, true);
+
+		this.out.writeLong(MAGIC);
+		position += 8;
+	}
+
+	public void write(int b) throws IOException
+	{
+		ensureCapacity(1);
+		block[block_length++] = (byte)b;
+	}
+
+	public void write(byte b[], int off, int len) throws IOException
+	{
+		ensureCapacity(len);
+		System.arraycopy(b, off, block, block_length, len);
+		block_length += len;
+	}
+
+	/**
+	 * Called after each whole document has been written. Blocks only end
+	 * between documents
+	 */
+	void onDocumentFinished() throws IOException
+	{
+		block_document_count++;
+		if ( block_length >= block_size ) writeBlock();
+	}
+
+	public void close() throws IOException
+	{
+		if ( closed ) return;
+		closed = true;
+
+		writeBlock();
+
+		out.writeInt(-1);
+		position += 4;
+
+		long index_offset = position;
+
+		out.writeInt(block_count);
+		for ( int i = 0; i < block_count; i++ )
+		{
+			out.writeLong(index_offsets[i]);
+			out.writeLong(index_first_documents[i]);
+		}
+
+		out.writeLong(index_offset);
+		out.writeLong(MAGIC);
+
+		out.close();
+		deflater.end();
+	}
+
+	private void ensureCapacity(int len)
+	{
+		if ( block_length + len > block.length )
+			block = Arrays.copyOf(block, Math.max(block.length * 2, block_length + len));
+	}
+
+	private void writeBlock() throws IOException
+	{
+		if ( block_length == 0 ) return;
+
+		deflater.reset();
+		deflater.setInput(block, 0, block_length);
+		deflater.finish();
+
+		int compressed_length = 0;
+
+		while ( !deflater.finished() )
+		{
+			if ( compressed_length == compressed.length ) compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			compressed_length += deflater.deflate(compressed, compressed_length, compressed.length - compressed_length);
+		}
+
+		if ( block_count == index_offsets.length )
+		{
+			index_offsets = Arrays.copyOf(index_offsets, block_count * 2);
+			index_first_documents = Arrays.copyOf(index_first_documents, block_count * 2);
+		}
+
+		index_offsets[block_count] = position;
+		index_first_documents[block_count] = document_count;
+		block_count++;
+
+		out.writeInt(block_length);
+		out.writeInt(compressed_length);
+		out.writeInt(block_document_count);
+		out.write(compressed, 0, compressed_length);
+
+		position += 12 + compressed_length;
+
+		document_count += block_document_count;
+		block_length = 0;
+		block_document_count = 0;
+	}
+}
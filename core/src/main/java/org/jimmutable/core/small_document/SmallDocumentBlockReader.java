@@ -0,0 +1,402 @@
+package org.jimmutable.core.small_document;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.jimmutable.core.threading.DaemonThreadFactory;
+import org.jimmutable.core.utils.Validator;
+
+/**
+ * Reads a block compressed stream of small documents (see
+ * SmallDocumentWriter.createBlockCompressed).
+ *
+ * Blocks are read ahead of the documents being consumed and handed to a pool
+ * of threads that inflate them and split them into documents, so
+ * decompression runs on as many cores as there are threads while the caller
+ * consumes documents in order. Memory use is bounded by the read ahead (two
+ * blocks per thread).
+ *
+ * The index at the end of the stream (see readBlockIndex) allows reading any
+ * run of blocks of a file, e.g. to split a load across several readers, each
+ * reading block_count blocks from its own first block.
+ *
+ * Call close() if you stop reading before the end of the documents.
+ *
+ * @author jim.kane
+ *
+ */
+public class SmallDocumentBlockReader extends SmallDocumentSource
+{
+	private DataInputStream in;
+	private boolean close_in; // true if the reader opened in itself
+
+	private int blocks_left; // in the run of blocks being read
+	private boolean end_of_range = false; // every block of the run was read
+
+	private ExecutorService decompressors;
+	private int max_blocks_ahead;
+	private ArrayDeque<Future<List<String>>> blocks_ahead = new ArrayDeque<>();
+	private boolean end_of_blocks = false;
+
+	private List<String> current_block = null;
+	private int position_in_block = 0;
+
+	private SmallDocumentSource.State state = State.READ_DOCUMENT_NOT_YET_ATTEMPTED;
+	private String current_document = null;
+
+	/**
+	 * Read from the start of a block compressed stream, decompressing on one
+	 * thread per core
+	 */
+	public SmallDocumentBlockReader(InputStream in) throws IOException
+	{
+		this(in, Runtime.getRuntime().availableProcessors());
+	}
+
+	public SmallDocumentBlockReader(InputStream in, int decompress_thread_count) throws IOException
+	{
+		this(in, decompress_thread_count, true);
+	}
+
+	/**
+	 * Read a file from the block that starts at block_offset (see
+	 * readBlockIndex) to the end
+	 */
+	public SmallDocumentBlockReader(File file, long block_offset, int decompress_thread_count) throws IOException
+	{
+		this(file, block_offset, Integer.MAX_VALUE, decompress_thread_count);
+	}
+
+	/**
+	 * Read block_count blocks of a file, starting with the block that starts at
+	 * block_offset (see readBlockIndex). There are no more documents after the
+	 * last of them (or after the EOF document, if the run includes the last
+	 * block of the file). The file is closed by close()
+	 */
+	public SmallDocumentBlockReader(File file, long block_offset, int block_count, int decompress_thread_count) throws IOException
+	{
+		this(openAt(file, block_offset), decompress_thread_count, block_offset == 0, block_count, true);
+	}
+
+	private SmallDocumentBlockReader(InputStream in, int decompress_thread_count, boolean at_start) throws IOException
+	{
+		this(in, decompress_thread_count, at_start, Integer.MAX_VALUE, false);
+	}
+
+	private SmallDocumentBlockReader(InputStream in, int decompress_thread_count, boolean at_start, int block_count, boolean close_in) throws IOException
+	{
+		Validator.notNull(in);
+
+		this.in = new DataInputStream(in);
+		this.close_in = close_in;
+		this.blocks_left = block_count;
+
+		try
+		{
+			Validator.min(decompress_thread_count, 1);
+			Validator.min(block_count, 1);
+
+			if ( at_start && this.in.readLong() != SmallDocumentBlockOutputStream.MAGIC ) throw new IOException("Not a block compressed small document stream");
+		}
+		catch ( IOException | RuntimeException e )
+		{
+			if ( close_in ) in.close(); // nobody else can
+			throw e;
+		}
+
+		this.decompressors = DaemonThreadFactory.createDaemonFixedThreadPool(decompress_thread_count);
+		this.max_blocks_ahead = decompress_thread_count * 2;
+	}
+
+	/**
+	 * @param in
+	 *            A stream that supports mark/reset, positioned at the start
+	 * @return true if in starts with a block compressed stream (in is left
+	 *         where it was)
+	 */
+	static public boolean isBlockCompressed(InputStream in) throws IOException
+	{
+		in.mark(8);
+
+		try
+		{
+			return new DataInputStream(in).readLong() == SmallDocumentBlockOutputStream.MAGIC;
+		}
+		catch ( EOFException e )
+		{
+			return false;
+		}
+		finally
+		{
+			in.reset();
+		}
+	}
+
+	public State readNextDocument()
+	{
+		if ( state == State.NO_MORE_DOCUMENTS ) return state;  // at EOF, don't try another read...
+		if ( state == State.ERROR_ENCOUNTERED ) return state; // an error occurred, don't try another read
+
+		while ( current_block == null || position_in_block >= current_block.size() )
+		{
+			current_block = takeNextBlock();
+			position_in_block = 0;
+
+			if ( current_block == null )
+			{
+				close();
+				if ( end_of_range ) return state = State.NO_MORE_DOCUMENTS;
+
+				return state = State.ERROR_ENCOUNTERED; // out of blocks without an EOF document (a truncated stream), or a corrupt block
+			}
+		}
+
+		current_document = current_block.get(position_in_block++);
+
+		if ( SmallDocumentReader.isEOFDocument(current_document) )
+		{
+			close();
+			return state = State.NO_MORE_DOCUMENTS;
+		}
+
+		return state = State.DOCUMENT_AVAILABLE;
+	}
+
+	public State getSimpleState()
+	{
+		return state;
+	}
+
+	public String getCurrentDocument(String default_value)
+	{
+		if ( current_document == null ) return default_value;
+		if ( state != State.DOCUMENT_AVAILABLE ) return default_value;
+
+		return current_document;
+	}
+
+	/**
+	 * Stop the decompression threads, and close the file if the reader opened
+	 * it
+	 */
+	public void close()
+	{
+		decompressors.shutdownNow();
+
+		if ( !close_in ) return;
+
+		try
+		{
+			in.close();
+		}
+		catch ( IOException e )
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * @return The documents of the next block, null if there are no more (or
+	 *         on error)
+	 */
+	private List<String> takeNextBlock()
+	{
+		try
+		{
+			while ( !end_of_blocks && blocks_ahead.size() < max_blocks_ahead )
+				readBlock();
+		}
+		catch ( IOException e )
+		{
+			e.printStackTrace();
+			end_of_blocks = true; // the blocks already read are still good, the missing EOF document will be noticed
+		}
+
+		try
+		{
+			Future<List<String>> next = blocks_ahead.poll();
+			return next == null ? null : next.get();
+		}
+		catch ( Exception e )
+		{
+			e.printStackTrace();
+			end_of_range = false; // a corrupt block, not the end of the run
+			return null;
+		}
+	}
+
+	private void readBlock() throws IOException
+	{
+		if ( blocks_left <= 0 )
+		{
+			end_of_blocks = true;
+			end_of_range = true;
+			return;
+		}
+
+		int uncompressed_length;
+
+		try
+		{
+			uncompressed_length = in.readInt();
+		}
+		catch ( EOFException e )
+		{
+			end_of_blocks = true; // truncated between blocks, the missing EOF document will be noticed
+			return;
+		}
+
+		if ( uncompressed_length == -1 )
+		{
+			end_of_blocks = true; // the index follows
+			return;
+		}
+
+		int compressed_length = in.readInt();
+		int document_count = in.readInt();
+
+		if ( uncompressed_length < 0 || compressed_length < 0 || document_count < 0 ) throw new IOException("Corrupt block header");
+
+		byte compressed[] = new byte[compressed_length];
+		in.readFully(compressed);
+
+		blocks_ahead.add(decompressors.submit(() -> decompressBlock(compressed, uncompressed_length, document_count)));
+		blocks_left--;
+	}
+
+	static private List<String> decompressBlock(byte compressed[], int uncompressed_length, int document_count) throws IOException, DataFormatException
+	{
+		byte uncompressed[] = new byte[uncompressed_length];
+
+		Inflater inflater = new Inflater(true);
+
+		try
+		{
+			inflater.setInput(compressed);
+
+			int length = 0;
+			while ( length < uncompressed_length && !inflater.finished() )
+			{
+				int n = inflater.inflate(uncompressed, length, uncompressed_length - length);
+				if ( n == 0 && inflater.needsInput() ) break;
+
+				length += n;
+			}
+
+			if ( length != uncompressed_length ) throw new IOException("Corrupt block (short)");
+		}
+		finally
+		{
+			inflater.end();
+		}
+
+		// A block holds whole documents, the last one ends in the EOF document
+		SmallDocumentReader reader = new SmallDocumentReader(new ByteArrayInputStream(uncompressed));
+		List<String> ret = new ArrayList<>(document_count);
+
+		for ( int i = 0; i < document_count; i++ )
+		{
+			State state = reader.readNextDocument();
+
+			if ( state == State.NO_MORE_DOCUMENTS ) ret.add(SmallDocumentReader.EOF_DOCUMENT);
+			else if ( state == State.DOCUMENT_AVAILABLE ) ret.add(reader.getCurrentDocument(null));
+			else throw new IOException("Corrupt block (missing documents)");
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Read the block index of a block compressed file
+	 */
+	static public BlockIndex readBlockIndex(File file) throws IOException
+	{
+		try ( RandomAccessFile raf = new RandomAccessFile(file, "r") )
+		{
+			if ( raf.length() < 16 ) throw new IOException("Not a block compressed small document file");
+
+			raf.seek(raf.length() - 16);
+			long index_offset = raf.readLong();
+			if ( raf.readLong() != SmallDocumentBlockOutputStream.MAGIC ) throw new IOException("Not a block compressed small document file (no index)");
+
+			raf.seek(index_offset);
+
+			int block_count = raf.readInt();
+			if ( block_count < 0 || index_offset + 4 + 16L * block_count > raf.length() - 16 ) throw new IOException("Corrupt block index");
+
+			byte entries[] = new byte[16 * block_count];
+			raf.readFully(entries);
+
+			DataInputStream index = new DataInputStream(new ByteArrayInputStream(entries));
+			BlockIndex ret = new BlockIndex(block_count);
+
+			for ( int i = 0; i < block_count; i++ )
+			{
+				ret.offsets[i] = index.readLong();
+				ret.first_documents[i] = index.readLong();
+			}
+
+			return ret;
+		}
+	}
+
+	/**
+	 * Where each block of a block compressed file is
+	 */
+	static public class BlockIndex
+	{
+		private long offsets[];
+		private long first_documents[];
+
+		private BlockIndex(int block_count)
+		{
+			offsets = new long[block_count];
+			first_documents = new long[block_count];
+		}
+
+		public int getSimpleBlockCount() { return offsets.length; }
+
+		/**
+		 * @return The offset of block i, to pass to the
+		 *         SmallDocumentBlockReader(File, long, int, int) constructor
+		 */
+		public long getSimpleBlockOffset(int i) { return offsets[i]; }
+
+		/**
+		 * @return The number (in the whole file) of the first document in block
+		 *         i
+		 */
+		public long getSimpleFirstDocument(int i) { return first_documents[i]; }
+	}
+
+	static private InputStream openAt(File file, long offset) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+		try
+		{
+			raf.seek(offset);
+		}
+		catch ( IOException e )
+		{
+			raf.close();
+			throw e;
+		}
+
+		return new BufferedInputStream(Channels.newInputStream(raf.getChannel()), 64*1024); // closing the stream closes the file
+	}
+}
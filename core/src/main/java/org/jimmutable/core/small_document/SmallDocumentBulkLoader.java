@@ -1,93 +1,410 @@
 package org.jimmutable.core.small_document;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.jimmutable.core.objects.StandardObject;
-import org.jimmutable.core.serialization.reader.Parser;
 import org.jimmutable.core.threading.OperationPool;
 import org.jimmutable.core.threading.OperationRunnable;
 import org.jimmutable.core.utils.Validator;
 
+/**
+ * Loads every object in a small document file, as a three stage pipeline:
+ *
+ * <ul>
+ * <li>One thread reads documents (a SmallDocumentReader, or a
+ * SmallDocumentBlockReader that decompresses on threads of its own)</li>
+ * <li>parse_thread_count threads deserialize them</li>
+ * <li>One thread delivers the objects to the Listener, optionally in the
+ * order they appear in the file, and optionally in batches</li>
+ * </ul>
+ *
+ * The stages are joined by bounded queues, and no more than
+ * max_documents_in_flight documents are ever between being read and being
+ * delivered (queued, being parsed, waiting for an earlier document in ordered
+ * mode, or in the batch the listener is being called with). Memory use is
+ * therefore flat no matter how big the file is, and a slow listener slows the
+ * reader down rather than piling up objects.
+ *
+ * Because there is a single delivery thread, the listener is never called
+ * concurrently.
+ *
+ * Documents that fail to deserialize are printed and skipped (see
+ * getSimpleParseErrorCount). A file that is truncated or otherwise unreadable
+ * results in Result.ERROR.
+ *
+ * @author jim.kane
+ *
+ */
 public class SmallDocumentBulkLoader extends OperationRunnable
 {
-	private SmallDocumentReader reader;
+	static public final int DEFAULT_MAX_DOCUMENTS_IN_FLIGHT = 1024;
+
+	static private final Item END_OF_STAGE = new Item(-1, null);
+
+	private SmallDocumentSource reader;
 	private Listener listener;
-	private OperationPool pool;
-	
+
+	private int parse_thread_count;
+	private int max_documents_in_flight;
+	private boolean preserve_order;
+	private int batch_size;
+
+	private volatile OperationPool pool;
+
+	private Semaphore in_flight_permits;
+	private BlockingQueue<Item> parse_queue;
+	private BlockingQueue<Item> delivery_queue;
+
+	// Throughput counters
+	private final LongAdder read_count = new LongAdder();
+	private final LongAdder parsed_count = new LongAdder();
+	private final LongAdder parse_error_count = new LongAdder();
+	private final LongAdder delivered_count = new LongAdder();
+
+	/**
+	 * Load with one parse thread per core, unordered, one object at a time
+	 */
 	public SmallDocumentBulkLoader(Reader src, Listener listener)
 	{
-		Validator.notNull(src,listener);
-		
-		this.reader = new SmallDocumentReader(src);
+		this(new SmallDocumentReader(src), listener, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_DOCUMENTS_IN_FLIGHT, false, 1);
+	}
+
+	/**
+	 * Load a UTF-8 encoded file, plain or block compressed (see
+	 * SmallDocumentSource.open), with one parse thread per core, unordered,
+	 * one object at a time
+	 */
+	public SmallDocumentBulkLoader(InputStream src, Listener listener) throws IOException
+	{
+		this(SmallDocumentSource.open(src), listener, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_DOCUMENTS_IN_FLIGHT, false, 1);
+	}
+
+	/**
+	 * @param reader
+	 *            The source of documents (e.g. a SmallDocumentReader, or a
+	 *            SmallDocumentBlockReader)
+	 * @param listener
+	 *            The listener to deliver objects to
+	 * @param parse_thread_count
+	 *            The number of threads to deserialize documents on
+	 * @param max_documents_in_flight
+	 *            The maximum number of documents read but not yet delivered
+	 * @param preserve_order
+	 *            If true, objects are delivered in the order their documents
+	 *            appear in the file
+	 * @param batch_size
+	 *            The maximum number of objects passed to each call of
+	 *            Listener.onObjectsLoaded (a batch is delivered early when no
+	 *            more objects are ready)
+	 */
+	public SmallDocumentBulkLoader(SmallDocumentSource reader, Listener listener, int parse_thread_count, int max_documents_in_flight, boolean preserve_order, int batch_size)
+	{
+		Validator.notNull(reader, listener);
+		Validator.min(parse_thread_count, 1);
+		Validator.min(max_documents_in_flight, 1);
+		Validator.min(batch_size, 1);
+
+		this.reader = reader;
 		this.listener = listener;
+		this.parse_thread_count = parse_thread_count;
+		this.max_documents_in_flight = max_documents_in_flight;
+		this.preserve_order = preserve_order;
+		this.batch_size = batch_size;
 	}
-	
 
-	protected Result performOperation() throws Exception 
+	protected Result performOperation() throws Exception
 	{
-		pool = new OperationPool(new OperationReadDocuments(),64);  // TODO: Implement some kind of blocking queue on the input
-		
+		in_flight_permits = new Semaphore(max_documents_in_flight);
+
+		// The permits bound the queues, the extra room is for the END_OF_STAGE markers
+		parse_queue = new ArrayBlockingQueue<>(max_documents_in_flight + parse_thread_count);
+		delivery_queue = new ArrayBlockingQueue<>(max_documents_in_flight + parse_thread_count);
+
+		List<OperationRunnable> stages = new ArrayList<>();
+
+		stages.add(new OperationReadDocuments());
+		for ( int i = 0; i < parse_thread_count; i++ ) stages.add(new OperationParseDocuments());
+		stages.add(new OperationDeliverObjects());
+
+		pool = new OperationPool(stages, stages.size());
+
+		if ( shouldStop() ) return Result.STOPPED;
+
 		return OperationRunnable.execute(pool, Result.SUCCESS);
 	}
 
+	protected void onStop()
+	{
+		OperationPool cur = pool;
+		if ( cur != null ) cur.stop();
+	}
+
+	public long getSimpleReadCount() { return read_count.sum(); }
+	public long getSimpleParsedCount() { return parsed_count.sum(); }
+	public long getSimpleParseErrorCount() { return parse_error_count.sum(); }
+	public long getSimpleDeliveredCount() { return delivered_count.sum(); }
+
+	/**
+	 * @return The number of documents read but not yet delivered
+	 */
+	public long getSimpleInFlightCount()
+	{
+		Semaphore cur = in_flight_permits;
+		return cur == null ? 0 : max_documents_in_flight - cur.availablePermits();
+	}
+
+	/**
+	 * @return The number of objects delivered per second since the load
+	 *         started
+	 */
+	public double getSimpleDeliveredPerSecond()
+	{
+		long run_time = getOptionalRunTime(0);
+		if ( run_time <= 0 ) return 0;
+
+		return getSimpleDeliveredCount() * 1000.0 / run_time;
+	}
+
 	static public interface Listener
 	{
+		/**
+		 * Called (from a single thread) for each object loaded
+		 */
 		public void onObjectLoaded(StandardObject object);
+
+		/**
+		 * Called (from a single thread) with each batch of objects loaded. The
+		 * default implementation calls onObjectLoaded for each one. The list
+		 * is only valid for the duration of the call
+		 */
+		default public void onObjectsLoaded(List<StandardObject> objects)
+		{
+			for ( StandardObject object : objects )
+				onObjectLoaded(object);
+		}
+	}
+
+	/**
+	 * A document on its way through the pipeline
+	 */
+	static private class Item
+	{
+		private long sequence;
+		private String document;
+		private StandardObject object; // null until parsed, or if the document could not be parsed
+
+		private Item(long sequence, String document)
+		{
+			this.sequence = sequence;
+			this.document = document;
+		}
 	}
-	
-	private class OperationReadDocuments extends OperationRunnable
+
+	/**
+	 * A stage runs until it has seen the end of its input. Stages block on the
+	 * queues between them, so stopping a stage interrupts it
+	 */
+	abstract private class Stage extends OperationRunnable
 	{
-		public Result performOperation() throws Exception 
+		private Thread thread;
+
+		protected Result performOperation() throws Exception
 		{
-			if ( shouldStop() ) return Result.STOPPED;
-			
+			synchronized ( this )
+			{
+				if ( shouldStop() ) return Result.STOPPED;
+				thread = Thread.currentThread();
+			}
+
 			try
 			{
-				while(reader.readNextDocument() != SmallDocumentSource.State.NO_MORE_DOCUMENTS )
+				return performStage();
+			}
+			catch ( InterruptedException e )
+			{
+				return Result.STOPPED;
+			}
+			finally
+			{
+				synchronized ( this )
 				{
-					pool.submitOperation(new OperationReadObject(reader.getCurrentDocument(null)));
-					if ( shouldStop() ) return Result.STOPPED;
+					thread = null;
+					Thread.interrupted(); // don't leave an interrupt behind for the pool thread
 				}
-				
-				return Result.SUCCESS;
 			}
-			catch(Exception e)
+		}
+
+		protected synchronized void onStop()
+		{
+			if ( thread != null ) thread.interrupt();
+		}
+
+		abstract protected Result performStage() throws Exception;
+	}
+
+	private class OperationReadDocuments extends Stage
+	{
+		protected Result performStage() throws Exception
+		{
+			try
+			{
+				return readDocuments();
+			}
+			finally
 			{
-				e.printStackTrace();
-				return Result.ERROR;
+				reader.close();
 			}
 		}
+		
+		private Result readDocuments() throws Exception
+		{
+			long sequence = 0;
+
+			while ( true )
+			{
+				if ( shouldStop() ) return Result.STOPPED;
+
+				SmallDocumentSource.State state = reader.readNextDocument();
+
+				if ( state == SmallDocumentSource.State.NO_MORE_DOCUMENTS ) break;
+				if ( state != SmallDocumentSource.State.DOCUMENT_AVAILABLE ) return Result.ERROR;
+
+				in_flight_permits.acquire();
+				parse_queue.put(new Item(sequence++, reader.getCurrentDocument(null)));
+				read_count.increment();
+			}
+
+			for ( int i = 0; i < parse_thread_count; i++ )
+				parse_queue.put(END_OF_STAGE);
+
+			return Result.SUCCESS;
+		}
 	}
-	
-	private class OperationReadObject extends OperationRunnable
+
+	private class OperationParseDocuments extends Stage
 	{
-		private String doc;
-		
-		public OperationReadObject(String doc)
+		protected Result performStage() throws Exception
 		{
-			this.doc = doc;
+			while ( true )
+			{
+				Item item = parse_queue.take();
+
+				if ( item == END_OF_STAGE )
+				{
+					delivery_queue.put(END_OF_STAGE);
+					return Result.SUCCESS;
+				}
+
+				try
+				{
+					item.object = StandardObject.deserialize(item.document);
+					parsed_count.increment();
+				}
+				catch(Exception e)
+				{
+					e.printStackTrace();
+					parse_error_count.increment();
+				}
+
+				item.document = null;
+				delivery_queue.put(item); // even if unparsable, so that the delivery order can advance past it
+			}
 		}
-		
-		
-		public Result performOperation() throws Exception 
+	}
+
+	private class OperationDeliverObjects extends Stage
+	{
+		private List<StandardObject> batch = new ArrayList<>();
+		private int undelivered_count = 0; // documents accepted whose permits are not yet released
+
+		private Map<Long, Item> waiting_for_earlier = new HashMap<>(); // ordered mode only
+		private long next_sequence = 0;
+
+		protected Result performStage() throws Exception
 		{
-			if ( shouldStop() ) return Result.STOPPED;
-			if ( doc == null ) return Result.SUCCESS;
-			
-			try
+			int parse_stages_running = parse_thread_count;
+
+			while ( parse_stages_running > 0 )
+			{
+				Item item = delivery_queue.take();
+
+				// Take everything that is ready, up to a batch, before delivering
+				while ( item != null )
+				{
+					if ( item == END_OF_STAGE ) parse_stages_running--;
+					else accept(item);
+
+					item = delivery_queue.poll();
+				}
+
+				deliver();
+			}
+
+			return Result.SUCCESS;
+		}
+
+		private void accept(Item item)
+		{
+			if ( !preserve_order )
 			{
-				listener.onObjectLoaded(StandardObject.deserialize(doc));
-				
-				
-				
-				
-				return Result.SUCCESS;
+				add(item);
+				return;
 			}
-			catch(Exception e)
+
+			if ( item.sequence != next_sequence )
 			{
-				e.printStackTrace();
-				return Result.SUCCESS;
+				waiting_for_earlier.put(item.sequence, item);
+				return;
 			}
+
+			add(item);
+
+			while ( (item = waiting_for_earlier.remove(next_sequence)) != null )
+				add(item);
+		}
+
+		private void add(Item item)
+		{
+			next_sequence++;
+			undelivered_count++;
+
+			if ( item.object != null ) batch.add(item.object);
+			if ( batch.size() >= batch_size ) deliver();
+		}
+
+		/**
+		 * Deliver the batch, then let the reader have the permits of its
+		 * documents (and of any unparsable ones added since the last batch)
+		 */
+		private void deliver()
+		{
+			if ( !batch.isEmpty() )
+			{
+				try
+				{
+					listener.onObjectsLoaded(batch);
+				}
+				catch(Exception e)
+				{
+					e.printStackTrace();
+				}
+
+				delivered_count.add(batch.size());
+				batch.clear();
+			}
+
+			in_flight_permits.release(undelivered_count);
+			undelivered_count = 0;
 		}
 	}
 }
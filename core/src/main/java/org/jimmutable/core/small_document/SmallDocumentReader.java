@@ -1,10 +1,25 @@
 package org.jimmutable.core.small_document;
 
 import java.io.IOException;
-import java.io.PushbackReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
-
+/**
+ * Reads a stream of small documents, each wrapped in a delimiter of the form
+ * &lt;?label?&gt; (see SmallDocumentWriter).
+ *
+ * The input is read into a reusable window that is compacted (or doubled, for
+ * a document bigger than half the window) only when it fills up, and the
+ * delimiter search resumes where it left off after each read. Reading a file
+ * is therefore linear in its size, no matter how many documents it holds.
+ *
+ * When constructed with a UTF-8 (or ASCII) InputStream the window holds raw
+ * bytes: delimiters are plain ASCII, which never occurs inside a multi-byte
+ * UTF-8 sequence, so only the documents themselves are ever decoded.
+ */
 public class SmallDocumentReader extends SmallDocumentSource
 {
 	static public final int MAXIMUM_DELIMITER_LENGTH_IN_CHARACTERS 			= 32;
@@ -12,17 +27,34 @@ public class SmallDocumentReader extends SmallDocumentSource
 	
 	static public final String EOF_DOCUMENT = "--end-of-file--";
 	
-	private Reader reader;
+	static private final int INITIAL_WINDOW_SIZE = 64*1024;
 	
-	private String buffer = "";
-	private char grow_buffer[] = new char[32*1024]; // 32 KB reusable buffer
+	private Window window;
 	
 	private SmallDocumentSource.State state;
 	private String current_document = null;
 	
 	public SmallDocumentReader(Reader reader)
 	{
-		this.reader = reader;
+		this.window = new CharWindow(reader);
+		this.state = State.READ_DOCUMENT_NOT_YET_ATTEMPTED;
+	}
+	
+	/**
+	 * Read UTF-8 encoded documents
+	 */
+	public SmallDocumentReader(InputStream in)
+	{
+		this(in, StandardCharsets.UTF_8);
+	}
+	
+	public SmallDocumentReader(InputStream in, Charset charset)
+	{
+		if ( charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) )
+			this.window = new ByteWindow(in, charset);
+		else
+			this.window = new CharWindow(new InputStreamReader(in, charset));
+		
 		this.state = State.READ_DOCUMENT_NOT_YET_ATTEMPTED;
 	}
 	
@@ -31,25 +63,23 @@ public class SmallDocumentReader extends SmallDocumentSource
 		if ( state == State.NO_MORE_DOCUMENTS ) return state;  // at EOF, don't try another read...
 		if ( state == State.ERROR_ENCOUNTERED ) return state; // an error occurred, don't try another read
 		
-		FindDocumentResult document = findFirstDocument(buffer,null);
-		
-		if ( document != null )
+		while ( true )
 		{
-			buffer = document.getRemainder();
-			current_document = document.getDocument();
+			ScanResult result = window.scan();
 			
-			if ( isEOFDocument(current_document) )
-				return state = state.NO_MORE_DOCUMENTS;
+			if ( result == ScanResult.DOCUMENT_FOUND )
+			{
+				current_document = window.takeDocument();
+				
+				if ( isEOFDocument(current_document) )
+					return state = State.NO_MORE_DOCUMENTS;
+				
+				return state = State.DOCUMENT_AVAILABLE;
+			}
 			
-			return state = State.DOCUMENT_AVAILABLE;
-		}
-		
-		if ( growBuffer() )
-		{
-			return readNextDocument();
+			if ( result == ScanResult.INVALID_DELIMITER || !window.fill() )
+				return state = State.ERROR_ENCOUNTERED; // Can't grow, did not find an EOF document, so, an error (probably a truncated input stream)
 		}
-		
-		return state = State.ERROR_ENCOUNTERED; // Can't grow, did not find an EOF document, so, an error (probably a truncated input stream)
 	}
 	
 	public State getSimpleState()
@@ -64,24 +94,300 @@ public class SmallDocumentReader extends SmallDocumentSource
 		
 		return current_document;
 	}
-
-	private boolean growBuffer()
+	
+	static private enum ScanResult
+	{
+		DOCUMENT_FOUND,
+		NEED_MORE_INPUT,
+		INVALID_DELIMITER;
+	}
+	
+	/**
+	 * The unconsumed input, [start, end) of a buffer, along with how far the
+	 * search for the next document has progressed. Subclasses supply the
+	 * buffer (char or byte) and the searches over it
+	 */
+	static private abstract class Window
+	{
+		static private final int FIND_CONTAINER_START = 0;
+		static private final int FIND_DOCUMENT_START = 1;
+		static private final int FIND_DOCUMENT_END = 2;
+		
+		protected int start = 0;
+		protected int end = 0;
+		
+		private int phase = FIND_CONTAINER_START;
+		private int scan_position = 0;
+		
+		private int container_start;
+		private int document_start;
+		private int document_end;
+		
+		protected char label[] = new char[MAXIMUM_DELIMITER_LENGTH_IN_CHARACTERS];
+		protected int label_length;
+		
+		abstract protected int capacity();
+		
+		/**
+		 * Move [start, end) to the front of a buffer of new_capacity (the same
+		 * buffer, if it is already that size)
+		 */
+		abstract protected void relocate(int new_capacity);
+		
+		abstract protected int read(int offset, int length) throws IOException;
+		
+		/**
+		 * @return The index of the first occurrence of first followed by second
+		 *         in [from, end), or -1
+		 */
+		abstract protected int indexOf(char first, char second, int from);
+		
+		/**
+		 * @return The index of the first occurrence of the label in [from,
+		 *         end), or -1
+		 */
+		abstract protected int indexOfLabel(int from);
+		
+		abstract protected void copyLabel(int from);
+		
+		abstract protected String decode(int from, int to);
+		
+		public ScanResult scan()
+		{
+			if ( phase == FIND_CONTAINER_START )
+			{
+				int i = indexOf('<', '?', scan_position);
+				if ( i == -1 ) 
+				{
+					scan_position = Math.max(scan_position, end - 1);
+					start = scan_position; // anything between documents is discarded
+					return ScanResult.NEED_MORE_INPUT;
+				}
+				
+				container_start = i;
+				scan_position = i + 1; // the ? of <? may also be the ? of ?>
+				phase = FIND_DOCUMENT_START;
+			}
+			
+			if ( phase == FIND_DOCUMENT_START )
+			{
+				int i = indexOf('?', '>', scan_position);
+				if ( i == -1 )
+				{
+					scan_position = Math.max(scan_position, end - 1);
+					if ( scan_position - container_start >= MAXIMUM_DELIMITER_LENGTH_IN_CHARACTERS ) return ScanResult.INVALID_DELIMITER;
+					return ScanResult.NEED_MORE_INPUT;
+				}
+				
+				document_start = i + 2;
+				label_length = document_start - container_start;
+				if ( label_length > MAXIMUM_DELIMITER_LENGTH_IN_CHARACTERS ) return ScanResult.INVALID_DELIMITER;
+				
+				copyLabel(container_start);
+				scan_position = document_start;
+				phase = FIND_DOCUMENT_END;
+			}
+			
+			int i = indexOfLabel(scan_position);
+			if ( i == -1 )
+			{
+				scan_position = Math.max(scan_position, end - label_length + 1);
+				return ScanResult.NEED_MORE_INPUT;
+			}
+			
+			document_end = i;
+			return ScanResult.DOCUMENT_FOUND;
+		}
+		
+		/**
+		 * Consume the document found by the last scan
+		 */
+		public String takeDocument()
+		{
+			String ret = decode(document_start, document_end);
+			
+			start = document_end + label_length;
+			scan_position = start;
+			phase = FIND_CONTAINER_START;
+			
+			return ret;
+		}
+		
+		/**
+		 * Read more input, making room in the buffer first if it is full
+		 * 
+		 * @return false if at the end of the input, the unconsumed input is
+		 *         already as big as a document can be, or on error
+		 */
+		public boolean fill()
+		{
+			int remaining = end - start;
+			if ( remaining >= MAXIMUM_DOCUMENT_LENGTH_IN_CHARACTERS ) return false; // can't grow the buffer anymore, we are over the maximum allowable buffer size
+			
+			try
+			{
+				if ( end == capacity() )
+				{
+					int new_capacity = capacity();
+					
+					// Grow, rather than compact, when a big document leaves little room
+					if ( remaining > new_capacity / 2 ) 
+						new_capacity = Math.min(new_capacity * 2, MAXIMUM_DOCUMENT_LENGTH_IN_CHARACTERS + INITIAL_WINDOW_SIZE);
+					
+					relocate(new_capacity);
+					
+					scan_position -= start;
+					container_start -= start;
+					document_start -= start;
+					end = remaining;
+					start = 0;
+				}
+				
+				int amount_read = read(end, capacity() - end);
+				if ( amount_read == -1 ) return false; // unable to grow the buffer because we are at the EOF
+				
+				end += amount_read;
+				return true;
+			}
+			catch(IOException e)
+			{
+				e.printStackTrace();
+				return false;
+			}
+		}
+	}
+	
+	static private class CharWindow extends Window
 	{
-		if ( buffer.length() >= MAXIMUM_DOCUMENT_LENGTH_IN_CHARACTERS ) return false; // can't grow the buffer anymore, we are over the maximum allowable buffer size
+		private Reader reader;
+		private char buffer[] = new char[INITIAL_WINDOW_SIZE];
 		
-		try
+		public CharWindow(Reader reader)
 		{
-			int amount_read = reader.read(grow_buffer);
+			this.reader = reader;
+		}
+		
+		protected int capacity() { return buffer.length; }
+		
+		protected void relocate(int new_capacity)
+		{
+			char dest[] = new_capacity == buffer.length ? buffer : new char[new_capacity];
+			System.arraycopy(buffer, start, dest, 0, end - start);
+			buffer = dest;
+		}
+		
+		protected int read(int offset, int length) throws IOException
+		{
+			return reader.read(buffer, offset, length);
+		}
+		
+		protected int indexOf(char first, char second, int from)
+		{
+			for ( int i = from; i < end - 1; i++ )
+			{
+				if ( buffer[i] == first && buffer[i + 1] == second ) return i;
+			}
 			
-			if ( amount_read == -1 ) return false; // unable to grow the buffer because we are at the EOF
+			return -1;
+		}
+		
+		protected int indexOfLabel(int from)
+		{
+			char first = label[0];
+			int last_start = end - label_length;
+			
+			outer: for ( int i = from; i <= last_start; i++ )
+			{
+				if ( buffer[i] != first ) continue;
+				
+				for ( int j = 1; j < label_length; j++ )
+				{
+					if ( buffer[i + j] != label[j] ) continue outer;
+				}
+				
+				return i;
+			}
 			
-			buffer += new String(grow_buffer,0,amount_read); // grow the buffer
-			return true;
+			return -1;
+		}
+		
+		protected void copyLabel(int from)
+		{
+			System.arraycopy(buffer, from, label, 0, label_length);
 		}
-		catch(IOException e)
+		
+		protected String decode(int from, int to)
+		{
+			return new String(buffer, from, to - from);
+		}
+	}
+	
+	static private class ByteWindow extends Window
+	{
+		private InputStream in;
+		private Charset charset;
+		private byte buffer[] = new byte[INITIAL_WINDOW_SIZE];
+		
+		public ByteWindow(InputStream in, Charset charset)
+		{
+			this.in = in;
+			this.charset = charset;
+		}
+		
+		protected int capacity() { return buffer.length; }
+		
+		protected void relocate(int new_capacity)
+		{
+			byte dest[] = new_capacity == buffer.length ? buffer : new byte[new_capacity];
+			System.arraycopy(buffer, start, dest, 0, end - start);
+			buffer = dest;
+		}
+		
+		protected int read(int offset, int length) throws IOException
+		{
+			return in.read(buffer, offset, length);
+		}
+		
+		protected int indexOf(char first, char second, int from)
+		{
+			byte b_first = (byte)first, b_second = (byte)second;
+			
+			for ( int i = from; i < end - 1; i++ )
+			{
+				if ( buffer[i] == b_first && buffer[i + 1] == b_second ) return i;
+			}
+			
+			return -1;
+		}
+		
+		protected int indexOfLabel(int from)
+		{
+			byte first = (byte)label[0];
+			int last_start = end - label_length;
+			
+			outer: for ( int i = from; i <= last_start; i++ )
+			{
+				if ( buffer[i] != first ) continue;
+				
+				for ( int j = 1; j < label_length; j++ )
+				{
+					if ( buffer[i + j] != (byte)label[j] ) continue outer;
+				}
+				
+				return i;
+			}
+			
+			return -1;
+		}
+		
+		protected void copyLabel(int from)
+		{
+			for ( int i = 0; i < label_length; i++ ) label[i] = (char)(buffer[from + i] & 0xFF); 
+		}
+		
+		protected String decode(int from, int to)
 		{
-			e.printStackTrace();
-			return false;
+			return new String(buffer, from, to - from, charset);
 		}
 	}
 	
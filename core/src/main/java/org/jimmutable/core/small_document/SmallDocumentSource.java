@@ -1,11 +1,39 @@
 package org.jimmutable.core.small_document;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
 abstract public class SmallDocumentSource
 {
 	abstract public State readNextDocument();
 	abstract public State getSimpleState();
 	abstract public String getCurrentDocument(String default_value);
 	
+	/**
+	 * Release any resources (e.g. threads) held by the source itself. The
+	 * underlying stream is not closed, unless the source opened it itself. The
+	 * default implementation does nothing
+	 */
+	public void close()
+	{
+	}
+	
+	/**
+	 * Open a (UTF-8 encoded) stream of small documents, either plain (as
+	 * written by SmallDocumentWriter) or block compressed (as written by
+	 * SmallDocumentWriter.createBlockCompressed)
+	 */
+	static public SmallDocumentSource open(InputStream in) throws IOException
+	{
+		if ( !in.markSupported() ) in = new BufferedInputStream(in, 64*1024);
+		
+		if ( SmallDocumentBlockReader.isBlockCompressed(in) ) 
+			return new SmallDocumentBlockReader(in);
+		
+		return new SmallDocumentReader(in);
+	}
+	
 	static public enum State
 	{
 		READ_DOCUMENT_NOT_YET_ATTEMPTED,
@@ -0,0 +1,58 @@
+package org.jimmutable.core.threading;
+
+/**
+ * A snapshot of the statistics of a cache (ConcurrentCache, LRUCache,
+ * ExpirationCache) since it was created
+ *
+ * @author jim.kane
+ *
+ */
+final public class CacheStats
+{
+	private long hit_count;
+	private long miss_count;
+	private long eviction_count;
+
+	public CacheStats(long hit_count, long miss_count, long eviction_count)
+	{
+		this.hit_count = hit_count;
+		this.miss_count = miss_count;
+		this.eviction_count = eviction_count;
+	}
+
+	/**
+	 * @return The number of lookups that found a value
+	 */
+	public long getSimpleHitCount() { return hit_count; }
+
+	/**
+	 * @return The number of lookups that did not find a value
+	 */
+	public long getSimpleMissCount() { return miss_count; }
+
+	/**
+	 * @return The number of entries removed to keep the cache within its
+	 *         maximum size (explicit removes are not counted)
+	 */
+	public long getSimpleEvictionCount() { return eviction_count; }
+
+	/**
+	 * @return The number of lookups
+	 */
+	public long getSimpleRequestCount() { return hit_count + miss_count; }
+
+	/**
+	 * @return The fraction of lookups that found a value (1.0 if there have been
+	 *         no lookups)
+	 */
+	public double getSimpleHitRate()
+	{
+		long requests = getSimpleRequestCount();
+		return requests == 0 ? 1.0 : (double)hit_count / requests;
+	}
+
+	public String toString()
+	{
+		return String.format("hits: %d, misses: %d (hit rate %.1f%%), evictions: %d", hit_count, miss_count, getSimpleHitRate() * 100, eviction_count);
+	}
+}
@@ -0,0 +1,875 @@
+package org.jimmutable.core.threading;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntBiFunction;
+
+import org.jimmutable.core.utils.Validator;
+
+/**
+ * A thread safe, bounded cache that lets any number of threads read at once.
+ *
+ * <p>Values live in a ConcurrentHashMap, so a lookup takes no lock. Instead of
+ * reordering a list on every hit (which needs a global lock), each hit is
+ * recorded in a small per thread stripe of lossy ring buffers. The buffers are
+ * replayed against the eviction policy in batches, by whichever thread happens
+ * to fill one (if it can get the eviction lock without waiting, otherwise the
+ * next thread will). A hit that finds its buffer full is simply dropped: the
+ * policy only needs a good sample. Writes take the eviction lock.
+ *
+ * <p>The eviction policy is W-TinyLFU:
+ *
+ * <ul>
+ * <li>New entries go into a small LRU "window" (1% of the cache)</li>
+ * <li>Entries pushed out of the window compete to get into the main space
+ * against its next victim. A FrequencySketch estimates how often each has been
+ * used recently, and the more popular of the two stays</li>
+ * <li>The main space is a segmented LRU: entries start in probation and are
+ * promoted to the protected segment (80% of the main space) when they are hit
+ * again</li>
+ * </ul>
+ *
+ * Compared to LRU, this keeps popular entries in the cache through scans (a
+ * burst of keys that are each used once), which plain LRU lets flush the
+ * cache.
+ *
+ * <p>The cache is bounded by a maximum size (each entry weighs 1) or,
+ * optionally, a maximum total weight computed by a weigher (e.g. an estimate
+ * of each entry's size in bytes).
+ *
+ * <p>Entries can also expire, after a default time to live or one given per
+ * put. An expired entry is never returned, and is reclaimed proactively: a
+ * hierarchical timer wheel (buckets of 16ms, 1s, 1m, 1h and 1.5 days) finds
+ * the entries that have expired each time the cache does its maintenance
+ * (every write, every batch of reads, or cleanUp()), in time proportional to
+ * the number that have expired rather than to the size of the cache. Dead
+ * entries do not crowd out live ones.
+ *
+ * <p>Null keys and values are not stored (gets of a null key miss, puts of a
+ * null key are ignored, a put of a null value removes the key).
+ *
+ * @author jim.kane
+ *
+ * @param <K>
+ *            The key type
+ * @param <V>
+ *            The value type
+ */
+public class ConcurrentCache<K,V>
+{
+	static private final int WINDOW = 0, PROBATION = 1, PROTECTED = 2, DEAD = 3;
+
+	static private final int READ_BUFFER_SIZE = 16; // per stripe, a power of two
+	static private final int MAX_READ_BUFFER_STRIPES = 64;
+
+	static private final int WARM_FREQUENCY = 6; // see admit
+
+	static private final long NEVER = Long.MAX_VALUE; // expires_at of an entry that does not expire
+
+	private final long maximum_weight;
+	private final long window_maximum_weight;
+	private final long protected_maximum_weight;
+	private final ToIntBiFunction<? super K, ? super V> weigher; // null: every entry weighs 1
+	private final long default_time_to_live_in_ms; // -1: entries do not expire
+
+	private final ConcurrentHashMap<K,Node<K,V>> data = new ConcurrentHashMap<>();
+
+	private final ReentrantLock eviction_lock = new ReentrantLock();
+
+	// Guarded by eviction_lock
+	private final FrequencySketch sketch;
+	private final AccessOrderList<K,V> window = new AccessOrderList<>();
+	private final AccessOrderList<K,V> probation = new AccessOrderList<>();
+	private final AccessOrderList<K,V> protected_segment = new AccessOrderList<>();
+	private final TimerWheel<K,V> timer_wheel = new TimerWheel<>();
+
+	private volatile boolean has_expiring_entries;
+
+	private final ReadBuffer<K,V>[] read_buffers;
+
+	private final LongAdder hit_count = new LongAdder();
+	private final LongAdder miss_count = new LongAdder();
+	private final LongAdder eviction_count = new LongAdder();
+
+	/**
+	 * Create an empty cache
+	 *
+	 * @param maximum_size
+	 *            The maximum number of entries in the cache (zero or greater).
+	 *            Adding more evicts entries, chosen by the W-TinyLFU policy
+	 */
+	public ConcurrentCache(int maximum_size)
+	{
+		this(maximum_size, null, -1);
+	}
+
+	/**
+	 * Create an empty cache
+	 *
+	 * @param maximum_weight
+	 *            The maximum total weight of the entries in the cache (zero or
+	 *            greater). Adding more evicts entries, chosen by the W-TinyLFU
+	 *            policy
+	 * @param weigher
+	 *            Computes the weight (zero or greater) of an entry when it is
+	 *            put. Null to give every entry a weight of 1 (in which case
+	 *            maximum_weight is the maximum number of entries)
+	 * @param default_time_to_live_in_ms
+	 *            How long after it is put an entry expires (unless the put gives
+	 *            its own time to live), -1 for never
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentCache(long maximum_weight, ToIntBiFunction<? super K, ? super V> weigher, long default_time_to_live_in_ms)
+	{
+		Validator.min(maximum_weight, 0);
+		if ( default_time_to_live_in_ms != -1 ) Validator.min(default_time_to_live_in_ms, 0);
+
+		this.maximum_weight = maximum_weight;
+		this.window_maximum_weight = Math.min(maximum_weight, Math.max(1, maximum_weight / 100));
+		this.protected_maximum_weight = (long)((maximum_weight - window_maximum_weight) * 0.8);
+		this.weigher = weigher;
+		this.default_time_to_live_in_ms = default_time_to_live_in_ms;
+
+		sketch = new FrequencySketch((int)Math.min(maximum_weight, Integer.MAX_VALUE));
+
+		int stripes = Integer.highestOneBit(Math.min(MAX_READ_BUFFER_STRIPES, Runtime.getRuntime().availableProcessors() * 4) - 1) << 1;
+
+		read_buffers = new ReadBuffer[Math.max(1, stripes)];
+		for ( int i = 0; i < read_buffers.length; i++ ) read_buffers[i] = new ReadBuffer<>();
+	}
+
+	/**
+	 * @return The maximum total weight of the cache (the maximum number of
+	 *         entries, if there is no weigher)
+	 */
+	public long getSimpleMaximumWeight() { return maximum_weight; }
+
+	/**
+	 * @return How long after it is put an entry expires by default, -1 for
+	 *         never
+	 */
+	public long getSimpleDefaultTimeToLiveInMs() { return default_time_to_live_in_ms; }
+
+	/**
+	 * @return The number of entries in the cache (which can briefly exceed the
+	 *         maximum while puts are in progress, and includes entries that
+	 *         have expired but not been reclaimed yet)
+	 */
+	public int size() { return data.size(); }
+
+	/**
+	 * Get the value associated with a given key
+	 *
+	 * @param key
+	 *            The key of the value to get
+	 * @param default_value
+	 *            The value to return if key is not in the cache (or has
+	 *            expired)
+	 * @return The value associated with key, or default_value if no value is
+	 *         associated with the specified key
+	 */
+	public V get(K key, V default_value)
+	{
+		Node<K,V> node = key == null ? null : data.get(key);
+
+		if ( node == null )
+		{
+			miss_count.increment();
+			return default_value;
+		}
+
+		V value = node.value;
+
+		if ( node.expires_at != NEVER && hasExpired(node, System.nanoTime()) )
+		{
+			miss_count.increment();
+			expire(node);
+			return default_value;
+		}
+
+		hit_count.increment();
+		afterRead(node);
+
+		return value;
+	}
+
+	/**
+	 * Test to see if a given key is in the cache (does not count as a use of
+	 * the key)
+	 *
+	 * @param key
+	 *            The key to test. Null keys always return false
+	 * @return true if the key is in the cache (and has not expired), false
+	 *         otherwise
+	 */
+	public boolean containsKey(K key)
+	{
+		if ( key == null ) return false;
+
+		Node<K,V> node = data.get(key);
+		return node != null && (node.expires_at == NEVER || !hasExpired(node, System.nanoTime()));
+	}
+
+	/**
+	 * Put a given key/value pair into the cache, to expire after the default
+	 * time to live
+	 *
+	 * @param key
+	 *            The key to put (a null key is ignored)
+	 * @param value
+	 *            The value to put. putting a null value is the same as a remove
+	 */
+	public void put(K key, V value)
+	{
+		put(key, value, default_time_to_live_in_ms);
+	}
+
+	/**
+	 * Put a given key/value pair into the cache, with its own time to live
+	 *
+	 * @param key
+	 *            The key to put (a null key is ignored)
+	 * @param value
+	 *            The value to put. putting a null value is the same as a remove
+	 * @param time_to_live_in_ms
+	 *            How long (from now) until the entry expires, -1 for never
+	 */
+	public void put(K key, V value, long time_to_live_in_ms)
+	{
+		if ( time_to_live_in_ms != -1 ) Validator.min(time_to_live_in_ms, 0);
+
+		if ( key == null ) return;
+
+		if ( value == null )
+		{
+			remove(key);
+			return;
+		}
+
+		if ( maximum_weight == 0 ) return;
+
+		int weight = weigh(key, value);
+		long expires_at = NEVER;
+
+		if ( time_to_live_in_ms != -1 )
+		{
+			has_expiring_entries = true;
+			expires_at = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.min(time_to_live_in_ms, TimeUnit.DAYS.toMillis(365 * 100)));
+		}
+
+		while ( true )
+		{
+			Node<K,V> node = data.get(key);
+
+			if ( node == null )
+			{
+				Node<K,V> new_node = new Node<>(key, value, weight, expires_at);
+
+				node = data.putIfAbsent(key, new_node);
+
+				if ( node == null )
+				{
+					afterWrite(new_node);
+					return;
+				}
+			}
+
+			if ( weigher == null && !has_expiring_entries )
+			{
+				// An update of an existing entry counts as a use of it
+				node.value = value;
+				afterRead(node);
+				return;
+			}
+
+			if ( afterUpdate(node, value, weight, expires_at) ) return;
+
+			// node was removed (or evicted) while we were updating it, add it again
+		}
+	}
+
+	/**
+	 * Remove a given key (along with its associated value) from the cache
+	 *
+	 * @param key
+	 *            The key of the key/value pair to remove. If key is null then
+	 *            nothing is removed
+	 */
+	public void remove(K key)
+	{
+		if ( key == null ) return;
+
+		Node<K,V> node = data.remove(key);
+		if ( node == null ) return;
+
+		eviction_lock.lock();
+		try
+		{
+			retire(node);
+		}
+		finally
+		{
+			eviction_lock.unlock();
+		}
+	}
+
+	/**
+	 * Remove all entries from the cache
+	 */
+	public void clear()
+	{
+		eviction_lock.lock();
+		try
+		{
+			drainReadBuffers();
+
+			for ( Node<K,V> node : data.values() )
+			{
+				if ( data.remove(node.key, node) ) retire(node);
+			}
+		}
+		finally
+		{
+			eviction_lock.unlock();
+		}
+	}
+
+	/**
+	 * Do the cache's maintenance now: reclaim expired entries, and apply
+	 * recorded reads to the eviction policy. The cache does this itself as it
+	 * is used, an idle cache with expiring entries may want to call this
+	 * periodically
+	 */
+	public void cleanUp()
+	{
+		eviction_lock.lock();
+		try
+		{
+			maintenance();
+		}
+		finally
+		{
+			eviction_lock.unlock();
+		}
+	}
+
+	/**
+	 * Add every key currently in the cache to dest
+	 */
+	public void copyKeysIntoCollection(Collection<K> dest)
+	{
+		dest.addAll(data.keySet());
+	}
+
+	/**
+	 * @return The hit, miss and eviction counts of this cache so far
+	 */
+	public CacheStats getSimpleStats()
+	{
+		return new CacheStats(hit_count.sum(), miss_count.sum(), eviction_count.sum());
+	}
+
+	private int weigh(K key, V value)
+	{
+		if ( weigher == null ) return 1;
+
+		int ret = weigher.applyAsInt(key, value);
+		Validator.min(ret, 0);
+
+		return ret;
+	}
+
+	static private boolean hasExpired(Node<?,?> node, long now)
+	{
+		long expires_at = node.expires_at;
+		return expires_at != NEVER && now - expires_at > 0;
+	}
+
+	private void expire(Node<K,V> node)
+	{
+		if ( !data.remove(node.key, node) ) return;
+
+		eviction_count.increment();
+
+		eviction_lock.lock();
+		try
+		{
+			retire(node);
+		}
+		finally
+		{
+			eviction_lock.unlock();
+		}
+	}
+
+	private void afterRead(Node<K,V> node)
+	{
+		ReadBuffer<K,V> buffer = read_buffers[(int)(Thread.currentThread().getId() * 0x9E3779B9L >>> 16) & (read_buffers.length - 1)];
+
+		if ( buffer.offer(node) && eviction_lock.tryLock() )
+		{
+			try
+			{
+				maintenance();
+			}
+			finally
+			{
+				eviction_lock.unlock();
+			}
+		}
+	}
+
+	private void afterWrite(Node<K,V> node)
+	{
+		eviction_lock.lock();
+		try
+		{
+			drainReadBuffers(); // earlier reads come before this write
+
+			if ( node.weight > maximum_weight ) evict(node); // would not fit even in an empty cache
+
+			if ( node.queue != DEAD ) // i.e. not removed (or evicted) before it got here
+			{
+				sketch.increment(node.key);
+				window.addLast(node, WINDOW);
+				timer_wheel.schedule(node);
+			}
+
+			maintenance();
+		}
+		finally
+		{
+			eviction_lock.unlock();
+		}
+	}
+
+	/**
+	 * @return false if node is no longer in the cache
+	 */
+	private boolean afterUpdate(Node<K,V> node, V value, int weight, long expires_at)
+	{
+		eviction_lock.lock();
+		try
+		{
+			if ( node.queue == DEAD ) return false;
+
+			drainReadBuffers();
+
+			node.value = value;
+			node.expires_at = expires_at;
+
+			switch ( node.queue )
+			{
+			case WINDOW: window.weight += weight - node.weight; break;
+			case PROBATION: probation.weight += weight - node.weight; break;
+			case PROTECTED: protected_segment.weight += weight - node.weight; break;
+			}
+
+			node.weight = weight;
+
+			if ( weight > maximum_weight )
+			{
+				evict(node);
+				return true;
+			}
+
+			if ( node.queue != -1 ) // i.e. afterWrite has already run
+			{
+				timer_wheel.reschedule(node);
+				onAccess(node);
+			}
+
+			maintenance();
+
+			return true;
+		}
+		finally
+		{
+			eviction_lock.unlock();
+		}
+	}
+
+	// Everything below is called with eviction_lock held
+
+	private void maintenance()
+	{
+		drainReadBuffers();
+
+		if ( has_expiring_entries ) timer_wheel.advance(this, System.nanoTime());
+
+		evict();
+	}
+
+	private void drainReadBuffers()
+	{
+		for ( ReadBuffer<K,V> buffer : read_buffers ) buffer.drainTo(this);
+	}
+
+	private void onAccess(Node<K,V> node)
+	{
+		if ( node.queue == DEAD || node.queue == -1 ) return;
+
+		sketch.increment(node.key);
+
+		switch ( node.queue )
+		{
+		case WINDOW:
+			window.moveToLast(node);
+			break;
+
+		case PROBATION:
+			probation.remove(node);
+			protected_segment.addLast(node, PROTECTED);
+
+			while ( protected_segment.weight > protected_maximum_weight && protected_segment.first != node )
+			{
+				Node<K,V> demoted = protected_segment.first;
+				protected_segment.remove(demoted);
+				probation.addLast(demoted, PROBATION);
+			}
+			break;
+
+		case PROTECTED:
+			protected_segment.moveToLast(node);
+			break;
+		}
+	}
+
+	private void evict()
+	{
+		long main_maximum_weight = maximum_weight - window_maximum_weight;
+
+		// The newest entry always stays in the window, even when it alone outweighs it
+		while ( window.weight > window_maximum_weight && window.first != window.last )
+		{
+			Node<K,V> candidate = window.first;
+			window.remove(candidate);
+
+			// Make room in the main space, as long as the candidate is more popular than each victim
+			while ( candidate != null && probation.weight + protected_segment.weight + candidate.weight > main_maximum_weight )
+			{
+				Node<K,V> victim = probation.first != null ? probation.first : protected_segment.first;
+
+				if ( victim == null || !admit(candidate, victim) )
+				{
+					evict(candidate);
+					candidate = null;
+				}
+				else
+				{
+					evict(victim);
+				}
+			}
+
+			if ( candidate != null ) probation.addLast(candidate, PROBATION);
+		}
+
+		// ...in which case the main space makes room for it
+		while ( window.weight + probation.weight + protected_segment.weight > maximum_weight )
+		{
+			Node<K,V> victim = probation.first != null ? probation.first : protected_segment.first != null ? protected_segment.first : window.first;
+			evict(victim);
+		}
+	}
+
+	/**
+	 * Should candidate (leaving the window) replace victim (from the main
+	 * space)? Yes if it has been used more often. A small fraction of warm
+	 * candidates are let in regardless, so that an attacker can not pin the
+	 * cache by making a victim look popular
+	 */
+	private boolean admit(Node<K,V> candidate, Node<K,V> victim)
+	{
+		int candidate_frequency = sketch.frequency(candidate.key);
+		int victim_frequency = sketch.frequency(victim.key);
+
+		if ( candidate_frequency > victim_frequency ) return true;
+		if ( candidate_frequency < WARM_FREQUENCY ) return false;
+
+		return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+	}
+
+	private void evict(Node<K,V> node)
+	{
+		if ( data.remove(node.key, node) ) eviction_count.increment();
+		retire(node);
+	}
+
+	private void retire(Node<K,V> node)
+	{
+		switch ( node.queue )
+		{
+		case WINDOW: window.remove(node); break;
+		case PROBATION: probation.remove(node); break;
+		case PROTECTED: protected_segment.remove(node); break;
+		}
+
+		timer_wheel.unschedule(node);
+
+		node.queue = DEAD;
+	}
+
+	static private final class Node<K,V>
+	{
+		final K key;
+		volatile V value;
+		volatile long expires_at; // System.nanoTime() based, NEVER if the entry does not expire
+
+		// Guarded by eviction_lock
+		int weight;
+		int queue = -1; // not yet in a queue
+		Node<K,V> prev;
+		Node<K,V> next;
+		Node<K,V> wheel_prev;
+		Node<K,V> wheel_next;
+
+		Node(K key, V value, int weight, long expires_at)
+		{
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.expires_at = expires_at;
+		}
+	}
+
+	/**
+	 * An (intrusive) doubly linked list of nodes, least recently used first
+	 */
+	static private final class AccessOrderList<K,V>
+	{
+		Node<K,V> first;
+		Node<K,V> last;
+		long weight;
+
+		void addLast(Node<K,V> node, int queue)
+		{
+			node.queue = queue;
+			node.prev = last;
+			node.next = null;
+
+			if ( last == null ) first = node;
+			else last.next = node;
+
+			last = node;
+			weight += node.weight;
+		}
+
+		void remove(Node<K,V> node)
+		{
+			if ( node.prev == null ) first = node.next;
+			else node.prev.next = node.next;
+
+			if ( node.next == null ) last = node.prev;
+			else node.next.prev = node.prev;
+
+			node.queue = -1;
+			node.prev = null;
+			node.next = null;
+			weight -= node.weight;
+		}
+
+		void moveToLast(Node<K,V> node)
+		{
+			if ( node == last ) return;
+
+			int queue = node.queue;
+			remove(node);
+			addLast(node, queue);
+		}
+	}
+
+	/**
+	 * A hierarchical timer wheel of the nodes that expire. Each level is a
+	 * circular array of buckets (doubly linked lists of nodes), each bucket
+	 * covering one tick of the level: 2^24ns (~16ms), 2^30ns (~1s), 2^36ns
+	 * (~1m), 2^42ns (~1h). A node goes into the finest level whose range (the
+	 * span of the next level) covers the time until it expires, or into a
+	 * single overflow bucket.
+	 *
+	 * As time advances, the buckets of each level whose ticks have passed are
+	 * emptied: nodes that have expired are evicted, the others (from coarser
+	 * levels) are rescheduled into finer ones.
+	 */
+	static private final class TimerWheel<K,V>
+	{
+		static private final int[] SHIFTS = { 24, 30, 36, 42, 47 };
+		static private final int[] BUCKETS = { 64, 64, 64, 32, 1 };
+
+		private final Node<K,V>[][] wheel;
+		private long time = System.nanoTime();
+
+		@SuppressWarnings("unchecked")
+		TimerWheel()
+		{
+			wheel = new Node[BUCKETS.length][];
+
+			for ( int i = 0; i < wheel.length; i++ )
+			{
+				wheel[i] = new Node[BUCKETS[i]];
+
+				for ( int j = 0; j < BUCKETS[i]; j++ )
+				{
+					Node<K,V> sentinel = new Node<>(null, null, 0, NEVER);
+					sentinel.wheel_prev = sentinel;
+					sentinel.wheel_next = sentinel;
+
+					wheel[i][j] = sentinel;
+				}
+			}
+		}
+
+		void schedule(Node<K,V> node)
+		{
+			if ( node.expires_at == NEVER ) return;
+
+			Node<K,V> sentinel = findBucket(node.expires_at);
+
+			node.wheel_prev = sentinel.wheel_prev;
+			node.wheel_next = sentinel;
+			sentinel.wheel_prev.wheel_next = node;
+			sentinel.wheel_prev = node;
+		}
+
+		void unschedule(Node<K,V> node)
+		{
+			if ( node.wheel_next == null ) return;
+
+			node.wheel_prev.wheel_next = node.wheel_next;
+			node.wheel_next.wheel_prev = node.wheel_prev;
+			node.wheel_prev = null;
+			node.wheel_next = null;
+		}
+
+		void reschedule(Node<K,V> node)
+		{
+			unschedule(node);
+			schedule(node);
+		}
+
+		private Node<K,V> findBucket(long expires_at)
+		{
+			long duration = expires_at - time;
+
+			for ( int i = 0; i < SHIFTS.length - 1; i++ )
+			{
+				if ( duration < 1L << SHIFTS[i + 1] )
+				{
+					long ticks = expires_at >>> SHIFTS[i];
+					return wheel[i][(int)(ticks & (BUCKETS[i] - 1))];
+				}
+			}
+
+			return wheel[SHIFTS.length - 1][0];
+		}
+
+		/**
+		 * Move the wheel forward to now, evicting the nodes that have expired
+		 */
+		void advance(ConcurrentCache<K,V> cache, long now)
+		{
+			long previous = time;
+			time = now;
+
+			for ( int i = 0; i < SHIFTS.length; i++ )
+			{
+				long previous_ticks = previous >>> SHIFTS[i];
+				long current_ticks = now >>> SHIFTS[i];
+
+				if ( current_ticks - previous_ticks <= 0 ) break; // coarser levels have not ticked either
+
+				expire(cache, i, previous_ticks, current_ticks - previous_ticks, now);
+			}
+		}
+
+		private void expire(ConcurrentCache<K,V> cache, int level, long previous_ticks, long delta, long now)
+		{
+			Node<K,V>[] buckets = wheel[level];
+			int mask = buckets.length - 1;
+
+			int steps = (int)Math.min(delta + 1, buckets.length);
+			int start = (int)(previous_ticks & mask);
+
+			for ( int i = start; i < start + steps; i++ )
+			{
+				Node<K,V> sentinel = buckets[i & mask];
+
+				// Detach the bucket, then evict or reschedule everything that was in it
+				Node<K,V> node = sentinel.wheel_next;
+				sentinel.wheel_prev = sentinel;
+				sentinel.wheel_next = sentinel;
+
+				while ( node != sentinel )
+				{
+					Node<K,V> next = node.wheel_next;
+
+					node.wheel_prev = null;
+					node.wheel_next = null;
+
+					if ( hasExpired(node, now) ) cache.evict(node);
+					else schedule(node);
+
+					node = next;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A lossy ring buffer of hits, written to by any thread and drained under the
+	 * eviction lock
+	 */
+	static private final class ReadBuffer<K,V>
+	{
+		static private final int MASK = READ_BUFFER_SIZE - 1;
+
+		private final AtomicLong write_count = new AtomicLong();
+		private volatile long read_count;
+		private final AtomicReferenceArray<Node<K,V>> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+		/**
+		 * Record a hit on node (or drop it, if the buffer is full or contended)
+		 *
+		 * @return true if the buffer is full and should be drained
+		 */
+		boolean offer(Node<K,V> node)
+		{
+			long head = read_count;
+			long tail = write_count.get();
+
+			if ( tail - head >= READ_BUFFER_SIZE ) return true;
+
+			if ( write_count.compareAndSet(tail, tail + 1) )
+			{
+				slots.lazySet((int)(tail & MASK), node);
+				return tail + 1 - head >= READ_BUFFER_SIZE;
+			}
+
+			return false;
+		}
+
+		void drainTo(ConcurrentCache<K,V> cache)
+		{
+			long head = read_count;
+			long tail = write_count.get();
+
+			for ( ; head < tail; head++ )
+			{
+				int index = (int)(head & MASK);
+
+				Node<K,V> node = slots.get(index);
+				if ( node == null ) break; // claimed, but not written yet
+
+				slots.lazySet(index, null);
+				cache.onAccess(node);
+			}
+
+			read_count = head;
+		}
+	}
+}
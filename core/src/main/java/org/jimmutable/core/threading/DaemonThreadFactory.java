@@ -7,17 +7,37 @@ import java.util.concurrent.ThreadFactory;
 /**
  * This class is a simple thread factory used to create daemon threads.
  * 
+ * The threads created are platform threads, or virtual threads (which are
+ * always daemon threads) depending on the ThreadingMode. By default the mode
+ * is ThreadingMode.getDefault() (the system property jimmutable.threading.mode)
+ * 
  * @author kanej
  *
  */
 
 public class DaemonThreadFactory implements ThreadFactory
 {	
-	public DaemonThreadFactory() {}
+	private ThreadFactory virtual_threads; // null when creating platform threads
+	
+	public DaemonThreadFactory() 
+	{
+		this(ThreadingMode.getDefault());
+	}
+	
+	public DaemonThreadFactory(ThreadingMode mode)
+	{
+		if ( mode == ThreadingMode.VIRTUAL )
+		{
+			ThreadFactory factory = mode.createThreadFactory(true);
+			if ( !(factory instanceof DaemonThreadFactory) ) virtual_threads = factory;
+		}
+	}
 	
 	@Override
 	public Thread newThread( Runnable r )
 	{
+		if ( virtual_threads != null ) return virtual_threads.newThread(r);
+		
 		Thread t = Executors.defaultThreadFactory().newThread(r);
         t.setDaemon(true);
         return t;
@@ -53,6 +73,22 @@ public class DaemonThreadFactory implements ThreadFactory
 		return Executors.newFixedThreadPool(num_threads, new DaemonThreadFactory());
 	}
 	
+	/**
+	 * Create a executor service that is a "daemon" (i.e. it will not stop a program
+	 * from exiting), running on threads of the given mode
+	 * 
+	 * @param num_threads
+	 *            The number of threads to use in the executor (with
+	 *            ThreadingMode.VIRTUAL this can be in the thousands)
+	 * @param mode
+	 *            The kind of threads to use
+	 * @return
+	 */
+	static public ExecutorService createDaemonFixedThreadPool(int num_threads, ThreadingMode mode)
+	{
+		return Executors.newFixedThreadPool(num_threads, new DaemonThreadFactory(mode));
+	}
+	
 	/**
 	 * Create a single thread executor that is a "daemon" (i.e. will not stop a
 	 * program from exiting) 
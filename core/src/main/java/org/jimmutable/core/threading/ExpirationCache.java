@@ -1,14 +1,21 @@
 package org.jimmutable.core.threading;
 
+import java.util.function.ToIntBiFunction;
+
 import org.jimmutable.core.utils.Validator;
 
 /**
- * A time limited LRU cache. Entries are removed whenever (either) the cache
- * becomes larger than the specified maximum size *or* an entry has been in the
- * cache for longer than a specified time <b>**WARNING**</b> <br>
+ * A time limited cache. Entries are removed whenever (either) the cache
+ * becomes larger than the specified maximum size (or weight) *or* an entry has
+ * been in the cache for longer than a specified time <b>**WARNING**</b> <br>
  * if you do not make your ExpirationCache large enough, it may remove an item
  * that has not timed out if you put too many items in it.
- * 
+ *
+ * Backed by a single ConcurrentCache holding each value with its deadline, so
+ * lookups take no lock. Expired entries are never returned, and are reclaimed
+ * proactively by the cache's timer wheel (see ConcurrentCache) rather than
+ * staying resident until they happen to be evicted.
+ *
  * @author andrew.towe
  *
  * @param <K>
@@ -18,13 +25,10 @@ import org.jimmutable.core.utils.Validator;
  */
 public class ExpirationCache<K, V>
 {
-
-	private long maximum_allowed_entry_age_in_ms;
-	private LRUCache<K, V> data;
-	private LRUCache<K, Long> put_times;
+	private ConcurrentCache<K, V> data;
 
 	/**
-	 * 
+	 *
 	 * @param maximum_allowed_entry_age_in_ms
 	 *            how long should something exist in the ExpirationCache
 	 * @param maximum_size
@@ -33,14 +37,29 @@ public class ExpirationCache<K, V>
 	public ExpirationCache( long maximum_allowed_entry_age_in_ms, int maximum_size )
 	{
 		Validator.min(maximum_allowed_entry_age_in_ms, 0);// strictly positive numbers
-		this.maximum_allowed_entry_age_in_ms = maximum_allowed_entry_age_in_ms;
-		data = new LRUCache<>(maximum_size);
-		put_times = new LRUCache<>(maximum_size);
+		data = new ConcurrentCache<>(maximum_size, null, maximum_allowed_entry_age_in_ms);
+	}
+
+	/**
+	 *
+	 * @param maximum_allowed_entry_age_in_ms
+	 *            how long should something exist in the ExpirationCache
+	 * @param maximum_weight
+	 *            The maximum total weight of the items in the cache
+	 * @param weigher
+	 *            Computes the weight of an item (e.g. an estimate of its size in
+	 *            bytes) when it is put
+	 */
+	public ExpirationCache( long maximum_allowed_entry_age_in_ms, long maximum_weight, ToIntBiFunction<? super K, ? super V> weigher )
+	{
+		Validator.min(maximum_allowed_entry_age_in_ms, 0);
+		Validator.notNull(weigher);
+		data = new ConcurrentCache<>(maximum_weight, weigher, maximum_allowed_entry_age_in_ms);
 	}
 
 	/**
 	 * Puts in a key-value pair
-	 * 
+	 *
 	 * @param key
 	 *            of object we are looking to find
 	 * @param value
@@ -49,11 +68,27 @@ public class ExpirationCache<K, V>
 	public void put( K key, V value )
 	{
 		data.put(key, value);
-		put_times.put(key, System.currentTimeMillis());
 	}
 
 	/**
-	 * 
+	 * Puts in a key-value pair that expires after its own time, rather than the
+	 * maximum allowed entry age of the cache
+	 *
+	 * @param key
+	 *            of object we are looking to find
+	 * @param value
+	 *            to be associated with the key.
+	 * @param time_to_live_in_ms
+	 *            how long the pair should exist in the ExpirationCache
+	 */
+	public void put( K key, V value, long time_to_live_in_ms )
+	{
+		Validator.min(time_to_live_in_ms, 0);
+		data.put(key, value, time_to_live_in_ms);
+	}
+
+	/**
+	 *
 	 * @param key
 	 *            of the object you are looking for.
 	 * @param default_value
@@ -63,23 +98,11 @@ public class ExpirationCache<K, V>
 	 */
 	public V getOptional( K key, V default_value )
 	{
-		Long time_in_cache = put_times.get(key, null);
-		
-		if ( time_in_cache != null )
-		{
-			// if it is not in the put times, return default value
-			if ( (System.currentTimeMillis() - time_in_cache) <= maximum_allowed_entry_age_in_ms )
-			{
-				// if it has been in the system more that the maximum time, return the default value
-				return data.get(key, default_value);
-			}
-		}
-		
-		return default_value; // if any of the conditions are not met, return default_value
+		return data.get(key, default_value);
 	}
 
 	/**
-	 * 
+	 *
 	 * @param key
 	 *            of object that you are searching for
 	 * @return true if the object is in the expiration cache and has not timed out.
@@ -98,6 +121,32 @@ public class ExpirationCache<K, V>
 	public void remove( K key )
 	{
 		data.remove(key);
-		put_times.remove(key);
+	}
+
+	/**
+	 * Reclaim expired entries now. The cache does this as it is used, so this
+	 * is only needed to free the memory of a cache that has gone idle
+	 */
+	public void cleanUp()
+	{
+		data.cleanUp();
+	}
+
+	/**
+	 * @return The number of entries in the cache (including any that have
+	 *         expired but not been reclaimed yet)
+	 */
+	public int size()
+	{
+		return data.size();
+	}
+
+	/**
+	 * @return The hit, miss and eviction counts of the cache so far (expired
+	 *         entries count as evictions, lookups of them as misses)
+	 */
+	public CacheStats getSimpleStats()
+	{
+		return data.getSimpleStats();
 	}
 }
@@ -0,0 +1,130 @@
+package org.jimmutable.core.threading;
+
+/**
+ * A count-min sketch of how often keys have been seen recently (the "TinyLFU"
+ * in W-TinyLFU, see ConcurrentCache).
+ *
+ * Each key has four 4-bit counters (so a frequency saturates at 15), spread
+ * over a table of longs (16 counters to a long) sized to the cache. All four
+ * of a key's counters are in the same 64 byte block of the table (one cache
+ * line), so a lookup costs one memory access rather than four. The estimated
+ * frequency is the smallest of the four. Once the number of
+ * increments reaches ten times the size of the cache every counter is halved,
+ * so that the sketch forgets keys that used to be popular.
+ *
+ * Not thread safe, ConcurrentCache only uses it under its eviction lock.
+ *
+ * @author jim.kane
+ *
+ */
+final class FrequencySketch
+{
+	static private final long RESET_MASK = 0x7777777777777777L; // each counter halved, less its low bit
+	static private final long ONE_MASK = 0x1111111111111111L; // the low bit of each counter
+
+	static private final int MAX_FREQUENCY = 15;
+
+	private long[] table;
+	private int block_mask;
+	private int sample_size;
+	private int size; // increments since the last reset
+
+	/**
+	 * @param maximum_size
+	 *            The maximum size of the cache the sketch is for
+	 */
+	public FrequencySketch(int maximum_size)
+	{
+		int length = Integer.highestOneBit(Math.max(8, Math.min(maximum_size, 1 << 24)) - 1) << 1;
+
+		table = new long[length];
+		block_mask = (length >>> 3) - 1;
+		sample_size = (int)Math.min(10L * Math.max(1, maximum_size), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return The estimated number of times key has been seen recently (0 to
+	 *         15)
+	 */
+	public int frequency(Object key)
+	{
+		int block_hash = spread(key.hashCode());
+		int counter_hash = rehash(block_hash);
+		int block = (block_hash & block_mask) << 3;
+
+		int ret = MAX_FREQUENCY;
+
+		for ( int i = 0; i < 4; i++ )
+		{
+			int h = counter_hash >>> (i << 3);
+			int index = (h >>> 1) & 15;
+			int offset = h & 1;
+
+			int count = (int)((table[block + offset + (i << 1)] >>> (index << 2)) & 0xfL);
+			ret = Math.min(ret, count);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Record that key has been seen
+	 */
+	public void increment(Object key)
+	{
+		int block_hash = spread(key.hashCode());
+		int counter_hash = rehash(block_hash);
+		int block = (block_hash & block_mask) << 3;
+
+		boolean added = false;
+
+		for ( int i = 0; i < 4; i++ )
+		{
+			int h = counter_hash >>> (i << 3);
+			int index = (h >>> 1) & 15;
+			int offset = h & 1;
+
+			added |= incrementAt(block + offset + (i << 1), index);
+		}
+
+		if ( added && ++size >= sample_size ) reset();
+	}
+
+	private boolean incrementAt(int i, int counter)
+	{
+		int offset = counter << 2;
+		long mask = 0xfL << offset;
+
+		if ( (table[i] & mask) == mask ) return false; // saturated
+
+		table[i] += 1L << offset;
+		return true;
+	}
+
+	private void reset()
+	{
+		int odd_counters = 0;
+
+		for ( int i = 0; i < table.length; i++ )
+		{
+			odd_counters += Long.bitCount(table[i] & ONE_MASK);
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+
+		size = (size - (odd_counters >>> 2)) >>> 1;
+	}
+
+	static private int rehash(int hash)
+	{
+		hash *= 0x31848bab;
+		hash ^= hash >>> 14;
+		return hash;
+	}
+
+	static private int spread(int hash)
+	{
+		hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+		hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+		return (hash >>> 16) ^ hash;
+	}
+}
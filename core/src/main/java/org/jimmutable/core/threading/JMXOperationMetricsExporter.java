@@ -0,0 +1,96 @@
+package org.jimmutable.core.threading;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Publishes the statistics of each class of operation as a JMX MBean, named
+ * org.jimmutable:type=Operation,name=[class name] (visible in jconsole,
+ * VisualVM, or any JMX based monitoring)
+ *
+ * <pre>
+ * OperationMetrics.addExporter(new JMXOperationMetricsExporter());
+ * </pre>
+ *
+ * @author jim.kane
+ *
+ */
+public class JMXOperationMetricsExporter implements OperationMetricsExporter
+{
+	static public final String DOMAIN = "org.jimmutable";
+
+	private MBeanServer server;
+
+	public JMXOperationMetricsExporter()
+	{
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	public JMXOperationMetricsExporter(MBeanServer server)
+	{
+		this.server = server;
+	}
+
+	public void onOperationClassAdded(OperationStats stats)
+	{
+		try
+		{
+			ObjectName name = createObjectName(stats.getSimpleOperationClassName());
+			if ( server.isRegistered(name) ) server.unregisterMBean(name); // stale, from before OperationMetrics.reset()
+
+			server.registerMBean(new StandardMBean(new OperationStatsMBeanImpl(stats), OperationStatsMBean.class), name);
+		}
+		catch ( Exception e )
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * @return The name the statistics of a class of operation are registered
+	 *         under
+	 */
+	static public ObjectName createObjectName(String operation_class_name) throws Exception
+	{
+		return new ObjectName(DOMAIN + ":type=Operation,name=" + ObjectName.quote(operation_class_name));
+	}
+
+	/**
+	 * The attributes of an operation MBean
+	 */
+	public interface OperationStatsMBean
+	{
+		public long getInFlightCount();
+		public long getSuccessCount();
+		public long getErrorCount();
+		public long getStoppedCount();
+		public double getRunTimeP50Millis();
+		public double getRunTimeP90Millis();
+		public double getRunTimeP99Millis();
+		public double getRunTimeMeanMillis();
+		public double getRunTimeMaxMillis();
+	}
+
+	static private class OperationStatsMBeanImpl implements OperationStatsMBean
+	{
+		private OperationStats stats;
+
+		private OperationStatsMBeanImpl(OperationStats stats)
+		{
+			this.stats = stats;
+		}
+
+		public long getInFlightCount() { return stats.getSimpleInFlightCount(); }
+		public long getSuccessCount() { return stats.getSimpleSuccessCount(); }
+		public long getErrorCount() { return stats.getSimpleErrorCount(); }
+		public long getStoppedCount() { return stats.getSimpleStoppedCount(); }
+		public double getRunTimeP50Millis() { return stats.getSimpleRunTimePercentileMillis(50); }
+		public double getRunTimeP90Millis() { return stats.getSimpleRunTimePercentileMillis(90); }
+		public double getRunTimeP99Millis() { return stats.getSimpleRunTimePercentileMillis(99); }
+		public double getRunTimeMeanMillis() { return stats.getSimpleMeanRunTimeMillis(); }
+		public double getRunTimeMaxMillis() { return stats.getSimpleMaxRunTimeMillis(); }
+	}
+}
@@ -0,0 +1,91 @@
+package org.jimmutable.core.threading;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Renders the statistics of each class of operation as a JSON snapshot (for a
+ * status servlet, a log line at the end of a batch job, ...)
+ *
+ * <pre>
+ * {"timestamp":1500000000000,"operations":[{"class":"org.example.LoadThings",
+ *   "in_flight":2,"success":1200,"error":0,"stopped":0,
+ *   "run_time_ms":{"p50":12.2,"p90":30.7,"p99":90.1,"mean":15.0,"max":120.5}}, ...]}
+ * </pre>
+ *
+ * @author jim.kane
+ *
+ */
+public class JSONOperationMetricsExporter implements OperationMetricsExporter
+{
+	static private final JsonFactory json_factory = new JsonFactory();
+
+	private final Map<String, OperationStats> stats_by_class_name = new TreeMap<>();
+
+	public synchronized void onOperationClassAdded(OperationStats stats)
+	{
+		stats_by_class_name.put(stats.getSimpleOperationClassName(), stats);
+	}
+
+	/**
+	 * @return A JSON snapshot of the statistics of every class of operation,
+	 *         sorted by class name
+	 */
+	public String createSnapshot()
+	{
+		StringWriter ret = new StringWriter();
+
+		try
+		{
+			writeSnapshot(ret);
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException(e); // a StringWriter does not throw
+		}
+
+		return ret.toString();
+	}
+
+	/**
+	 * Write a JSON snapshot of the statistics of every class of operation
+	 */
+	public synchronized void writeSnapshot(Writer out) throws IOException
+	{
+		JsonGenerator gen = json_factory.createGenerator(out);
+
+		gen.writeStartObject();
+		gen.writeNumberField("timestamp", System.currentTimeMillis());
+		gen.writeArrayFieldStart("operations");
+
+		for ( OperationStats stats : stats_by_class_name.values() )
+		{
+			gen.writeStartObject();
+			gen.writeStringField("class", stats.getSimpleOperationClassName());
+			gen.writeNumberField("in_flight", stats.getSimpleInFlightCount());
+			gen.writeNumberField("success", stats.getSimpleSuccessCount());
+			gen.writeNumberField("error", stats.getSimpleErrorCount());
+			gen.writeNumberField("stopped", stats.getSimpleStoppedCount());
+
+			gen.writeObjectFieldStart("run_time_ms");
+			gen.writeNumberField("p50", stats.getSimpleRunTimePercentileMillis(50));
+			gen.writeNumberField("p90", stats.getSimpleRunTimePercentileMillis(90));
+			gen.writeNumberField("p99", stats.getSimpleRunTimePercentileMillis(99));
+			gen.writeNumberField("mean", stats.getSimpleMeanRunTimeMillis());
+			gen.writeNumberField("max", stats.getSimpleMaxRunTimeMillis());
+			gen.writeEndObject();
+
+			gen.writeEndObject();
+		}
+
+		gen.writeEndArray();
+		gen.writeEndObject();
+		gen.flush();
+	}
+}
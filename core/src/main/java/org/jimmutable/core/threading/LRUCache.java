@@ -1,15 +1,15 @@
 package org.jimmutable.core.threading;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
-
-import org.jimmutable.core.utils.Validator;
 
 
 /**
- * A thread safe LRU cache
+ * A thread safe, size bounded cache.
+ * 
+ * Despite the name, this is now a thin wrapper around ConcurrentCache: lookups
+ * take no lock, and evictions are chosen by the W-TinyLFU policy (recency and
+ * frequency) rather than by recency alone, so a burst of one-off keys does not
+ * flush the popular ones.
  * 
  * @author jim.kane
  *
@@ -21,8 +21,7 @@ import org.jimmutable.core.utils.Validator;
 
 public class LRUCache<K,V> 
 {
-	private Map<K,V> inner_map;
-	private int cache_size;
+	private ConcurrentCache<K,V> inner_cache;
 	
 	/**
 	 * Create an empty LRUCache
@@ -30,16 +29,13 @@ public class LRUCache<K,V>
 	 * @param cache_size
 	 *            The maximum size of the cache. The cache will contain, at
 	 *            most, this many items. Attempts to add more items will result
-	 *            in the least recently used (LRU) item being removed to keep
-	 *            the size below the specified value. Valid value are zero and
-	 *            greater.
+	 *            in an item (one that has not been used recently, or often)
+	 *            being removed to keep the size below the specified value.
+	 *            Valid value are zero and greater.
 	 */
 	public LRUCache(int cache_size)
 	{
-		Validator.min(cache_size, 0);
-		
-		this.cache_size = cache_size;
-		inner_map = Collections.synchronizedMap(new InnerMap<K,V>());
+		inner_cache = new ConcurrentCache<>(cache_size);
 	}
 	
 	/**
@@ -47,7 +43,7 @@ public class LRUCache<K,V>
 	 * 
 	 * @return The maximum size of the LRU cache
 	 */
-	public int getSimpleCacheSize() { return cache_size; }
+	public int getSimpleCacheSize() { return (int)inner_cache.getSimpleMaximumWeight(); }
 	
 	/**
 	 * Get the value associated with a given key
@@ -61,10 +57,7 @@ public class LRUCache<K,V>
 	 */
 	public V get(K key, V default_value)
 	{
-		V ret = inner_map.get(key);
-		if ( ret == null ) return default_value;
-		
-		return ret;
+		return inner_cache.get(key, default_value);
 	}
 	
 	/**
@@ -76,8 +69,7 @@ public class LRUCache<K,V>
 	 */
 	public boolean containsKey(K key)
 	{
-		if ( key == null ) return false;
-		return inner_map.containsKey(key);
+		return inner_cache.containsKey(key);
 	}
 	
 	/**
@@ -90,16 +82,7 @@ public class LRUCache<K,V>
 	 */
 	public void put(K key, V value)
 	{
-		if ( key == null ) return;
-		
-		if ( value == null ) 
-		{
-			inner_map.remove(key);
-			return;
-		}
-		
-		
-		inner_map.put(key, value);
+		inner_cache.put(key, value);
 	}
 	
 	
@@ -112,8 +95,7 @@ public class LRUCache<K,V>
 	 */
 	public void remove(K key)
 	{
-		if ( key == null ) return;
-		inner_map.remove(key);
+		inner_cache.remove(key);
 	}
 	
 	/**
@@ -121,25 +103,21 @@ public class LRUCache<K,V>
 	 */
 	public void clear()
 	{
-		inner_map.clear();
+		inner_cache.clear();
 	}
 	
-	private class InnerMap<K,V> extends LinkedHashMap<K,V>
+	public void copyKeysIntoCollection(Collection<K> dest)
 	{
-		private InnerMap() 
-		{
-			super(16, 0.75f, true);
-			
-		}
-
-		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) 
-		{
-			return size() > cache_size;
-		}
+		inner_cache.copyKeysIntoCollection(dest);
 	}
 	
-	public void copyKeysIntoCollection(Collection<K> dest)
+	/**
+	 * Get the hit, miss and eviction counts of the cache
+	 * 
+	 * @return The statistics of the cache so far
+	 */
+	public CacheStats getSimpleStats()
 	{
-		dest.addAll(inner_map.keySet());
+		return inner_cache.getSimpleStats();
 	}
 }
\ No newline at end of file
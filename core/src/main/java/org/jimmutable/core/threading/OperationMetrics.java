@@ -0,0 +1,149 @@
+package org.jimmutable.core.threading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jimmutable.core.utils.Validator;
+
+/**
+ * Execution statistics for every OperationRunnable, aggregated by the class of
+ * the operation (OperationStats: in flight count, result counts, run time
+ * percentiles).
+ *
+ * Every operation is recorded automatically as it runs, so storage scan
+ * workers, bulk loaders, OperationPools (the pool as a whole), and so on all
+ * report without any code of their own. Recording costs a map lookup and a few
+ * uncontended atomic increments per operation, and can be turned off with
+ * disable().
+ *
+ * Statistics are published by exporters (see addExporter), e.g.
+ * JMXOperationMetricsExporter and JSONOperationMetricsExporter.
+ *
+ * Statistics are kept by class name, not by Class, so that recording an
+ * operation never pins the class loader it came from (e.g. a redeployed web
+ * application).
+ *
+ * @author jim.kane
+ *
+ */
+public class OperationMetrics
+{
+	static private volatile boolean enabled = true;
+
+	static private final Map<String, OperationStats> stats_by_class_name = new ConcurrentSkipListMap<>();
+	static private final List<OperationMetricsExporter> exporters = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Start recording operations (the default)
+	 */
+	static public void enable() { enabled = true; }
+
+	/**
+	 * Stop recording operations (operations running now are still recorded
+	 * when they finish)
+	 */
+	static public void disable() { enabled = false; }
+
+	static public boolean isEnabled() { return enabled; }
+
+	/**
+	 * Add an exporter. It is told about every class of operation that has run
+	 * so far right away, and about the others as they first run
+	 */
+	static public void addExporter(OperationMetricsExporter exporter)
+	{
+		Validator.notNull(exporter);
+
+		synchronized ( exporters )
+		{
+			exporters.add(exporter);
+			for ( OperationStats stats : stats_by_class_name.values() ) exporter.onOperationClassAdded(stats);
+		}
+	}
+
+	static public void removeExporter(OperationMetricsExporter exporter)
+	{
+		exporters.remove(exporter);
+	}
+
+	/**
+	 * Forget the statistics of every class of operation, so that each starts
+	 * again from zero the next time it runs (mostly for tests). Exporters are
+	 * told about the new statistics of a class as it next runs, and replace the
+	 * old ones
+	 */
+	static public void reset()
+	{
+		synchronized ( exporters )
+		{
+			stats_by_class_name.clear();
+		}
+	}
+
+	/**
+	 * @return The statistics of the given class of operation, or default_value
+	 *         if no operation of that class has run
+	 */
+	static public OperationStats getOptionalStats(Class<? extends OperationRunnable> operation_class, OperationStats default_value)
+	{
+		OperationStats ret = operation_class == null ? null : stats_by_class_name.get(operation_class.getName());
+		return ret == null ? default_value : ret;
+	}
+
+	/**
+	 * @return The statistics of every class of operation that has run, sorted
+	 *         by class name
+	 */
+	static public List<OperationStats> getSimpleAllStats()
+	{
+		return new ArrayList<>(stats_by_class_name.values());
+	}
+
+	/**
+	 * Called by OperationRunnable.run() as an operation starts
+	 *
+	 * @return The statistics to record the finish of the operation in, null if
+	 *         recording is disabled
+	 */
+	static OperationStats onStart(OperationRunnable operation)
+	{
+		if ( !enabled ) return null;
+
+		String operation_class_name = operation.getClass().getName();
+
+		OperationStats ret = stats_by_class_name.get(operation_class_name);
+		if ( ret == null ) ret = addOperationClass(operation_class_name);
+
+		ret.onStart();
+		return ret;
+	}
+
+	static private OperationStats addOperationClass(String operation_class_name)
+	{
+		synchronized ( exporters )
+		{
+			OperationStats ret = stats_by_class_name.get(operation_class_name);
+			if ( ret != null ) return ret;
+
+			ret = new OperationStats(operation_class_name);
+			stats_by_class_name.put(operation_class_name, ret);
+
+			for ( OperationMetricsExporter exporter : exporters )
+			{
+				try
+				{
+					exporter.onOperationClassAdded(ret);
+				}
+				catch ( Exception e )
+				{
+					e.printStackTrace(); // an exporter must never break an operation
+				}
+			}
+
+			return ret;
+		}
+	}
+}
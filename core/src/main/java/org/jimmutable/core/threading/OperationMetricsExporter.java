@@ -0,0 +1,22 @@
+package org.jimmutable.core.threading;
+
+/**
+ * Publishes operation statistics somewhere (JMX, a JSON snapshot, a metrics
+ * service...). See OperationMetrics.addExporter
+ *
+ * @author jim.kane
+ *
+ */
+public interface OperationMetricsExporter
+{
+	/**
+	 * Called once for each class of operation: when the first operation of the
+	 * class runs, or (for classes that have already run) when the exporter is
+	 * added. The statistics are live, an exporter that publishes them
+	 * periodically can simply hold on to them
+	 *
+	 * @param stats
+	 *            The statistics of the class of operation
+	 */
+	public void onOperationClassAdded(OperationStats stats);
+}
@@ -5,150 +5,348 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.jimmutable.core.utils.Validator;
 
+/**
+ * An OperationRunnable that runs a set of (seed) operations, and any
+ * operations they submit in turn (via submitOperation), on a fixed size pool of
+ * threads. The pool finishes as soon as:
+ *
+ * <ul>
+ * <li>Every operation submitted has finished (Result.SUCCESS if they all
+ * succeeded), or</li>
+ * <li>Any operation results in an error (Result.ERROR, the remaining operations
+ * are signaled to stop), or</li>
+ * <li>The pool itself is stopped (Result.STOPPED, the remaining operations are
+ * signaled to stop)</li>
+ * </ul>
+ *
+ * Completion is event driven: each operation counts itself out as it finishes
+ * and the last one out (or the first error, or stop()) releases a latch. There
+ * is no polling delay, a pool of short operations finishes as soon as they
+ * do.
+ *
+ * <p>Optionally (see {@link #OperationPool(Collection, int, int)}) the number of
+ * operations waiting for a thread can be bounded. Once the queue is full,
+ * submitOperation runs the operation in the submitting thread. This throttles
+ * a producer (e.g. a storage scanner) to the speed of the pool, without ever
+ * deadlocking operations that submit operations.
+ *
+ * <p>Operations run on platform threads or virtual threads, see ThreadingMode.
+ * For I/O bound operations in virtual mode the thread count can simply be set
+ * to the number of calls that should be in flight at once.
+ *
+ * @author jim.kane
+ *
+ */
 final public class OperationPool extends OperationRunnable
 {
 	private List<OperationRunnable> seed_operations = new ArrayList();
 	private int thread_count;
-	
-	private List<OperationRunnable> all_tasks = new ArrayList();
-	private ExecutorService thread_pool;
-	
+	private int max_queued_operations; // -1 for no limit
+	private ThreadingMode threading_mode;
+
+	private ThreadPoolExecutor thread_pool;
+
+	private final Set<OperationRunnable> unfinished_tasks = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger submitted_count = new AtomicInteger();
+	private final AtomicInteger finished_count = new AtomicInteger();
+	private final AtomicIntegerArray result_counts = new AtomicIntegerArray(Result.values().length);
+
+	/*
+	 * outstanding counts unfinished tasks, plus one for the pool itself while it
+	 * submits the seed operations (so that the pool can not quiesce before it has
+	 * started). When outstanding reaches zero the pool is quiescent, and stays
+	 * that way: no further operations are accepted
+	 */
+	private final AtomicInteger outstanding = new AtomicInteger(1);
+	private final CountDownLatch quiescent = new CountDownLatch(1);
+	private final CountDownLatch done = new CountDownLatch(1); // quiescent, an error or stop()
+
 	public OperationPool(OperationRunnable seed_operation, int thread_count)
 	{
-		Validator.notNull(seed_operation); 
-		Validator.min(thread_count, 1);
-		
-		
-		this.seed_operations.add(seed_operation);
-		this.thread_count = thread_count;
+		this(seed_operation, thread_count, -1);
 	}
-	
+
+	/**
+	 * Create a pool with a bounded submission queue
+	 *
+	 * @param seed_operation
+	 *            The operation to run first
+	 * @param thread_count
+	 *            The number of threads to run operations on
+	 * @param max_queued_operations
+	 *            The maximum number of operations waiting for a thread (see
+	 *            {@link #OperationPool(Collection, int, int)}), -1 for no limit
+	 */
+	public OperationPool(OperationRunnable seed_operation, int thread_count, int max_queued_operations)
+	{
+		this(Collections.singletonList(seed_operation), thread_count, max_queued_operations);
+	}
+
 	public OperationPool(Collection<OperationRunnable> seed_operations, int thread_count)
 	{
-		Validator.notNull(seed_operations); 
+		this(seed_operations, thread_count, -1);
+	}
+
+	/**
+	 * Create a pool with a bounded submission queue
+	 *
+	 * @param seed_operations
+	 *            The operations to run first
+	 * @param thread_count
+	 *            The number of threads to run operations on
+	 * @param max_queued_operations
+	 *            The maximum number of operations waiting for a thread. When
+	 *            the queue is full submitOperation runs the operation in the
+	 *            calling thread (applying backpressure to the submitter). -1 for
+	 *            no limit
+	 */
+	public OperationPool(Collection<OperationRunnable> seed_operations, int thread_count, int max_queued_operations)
+	{
+		this(seed_operations, thread_count, max_queued_operations, ThreadingMode.getDefault());
+	}
+
+	/**
+	 * Create a pool with a bounded submission queue, running on threads of the
+	 * given mode
+	 *
+	 * @param seed_operations
+	 *            The operations to run first
+	 * @param thread_count
+	 *            The number of threads to run operations on (with
+	 *            ThreadingMode.VIRTUAL this can be in the thousands)
+	 * @param max_queued_operations
+	 *            The maximum number of operations waiting for a thread, -1 for
+	 *            no limit
+	 * @param threading_mode
+	 *            The kind of threads to run operations on (the other
+	 *            constructors use ThreadingMode.getDefault())
+	 */
+	public OperationPool(Collection<OperationRunnable> seed_operations, int thread_count, int max_queued_operations, ThreadingMode threading_mode)
+	{
+		Validator.notNull(seed_operations, threading_mode);
 		Validator.containsNoNulls(seed_operations);
 		Validator.min(thread_count, 1);
-		
+		if ( max_queued_operations != -1 ) Validator.min(max_queued_operations, 1);
+
 		this.seed_operations.addAll(seed_operations);
 		this.thread_count = thread_count;
+		this.max_queued_operations = max_queued_operations;
+		this.threading_mode = threading_mode;
 	}
-	
+
 	protected Result performOperation() throws Exception
 	{
 		if ( shouldStop() ) return Result.STOPPED;
-		
-		thread_pool = Executors.newFixedThreadPool(thread_count);
-		
-		for ( OperationRunnable operation : seed_operations )
+
+		BlockingQueue<Runnable> queue = max_queued_operations == -1 ? new LinkedBlockingQueue<>() : new ArrayBlockingQueue<>(max_queued_operations);
+
+		// When the queue is full the submitter runs the operation itself. Once the
+		// pool has shut down (a submitter lost the race with the pool finishing)
+		// the operation is dropped, it must not run after the pool has returned
+		thread_pool = new ThreadPoolExecutor(thread_count, thread_count, 0L, TimeUnit.MILLISECONDS, queue, threading_mode.createThreadFactory(false), (task, executor) ->
 		{
-			submitOperation(operation);
+			if ( !executor.isShutdown() ) task.run();
+			else ((PoolTask)task).abandon();
+		});
+
+		try
+		{
+			for ( OperationRunnable operation : seed_operations )
+			{
+				submitOperation(operation);
+			}
+
+			onTaskFinished(null); // the pool's own share of outstanding
+
+			done.await();
 		}
-		
-		while(true)
+		finally
 		{
-			if ( shouldStop() ) break;
-			if ( areAnyTasksWithResult(Result.ERROR) ) break;
-			if ( areAllTasksInState(State.FINISHED) ) break;
-			
-			try { Thread.currentThread().sleep(500); } catch(Exception e) { e.printStackTrace(); }
+			stopAllTasks();
+			thread_pool.shutdown(); // shutdown the thread pool as well, no more requests will be accepted
 		}
-		
-		stopAllTasks();
-		thread_pool.shutdown(); // shutdown the thread pool as well, no more requests will be accepted
-		
+
 		if ( areAnyTasksWithResult(Result.ERROR) ) return Result.ERROR;
 		if ( areAllTasksInState(State.FINISHED) && areAllTasksWithResult(Result.SUCCESS) ) return Result.SUCCESS;
-		
+
 		return Result.STOPPED;
 	}
-	
+
+	protected void onStop()
+	{
+		done.countDown();
+	}
+
 	public void stopAllTasks()
 	{
-		synchronized(all_tasks) 
-		{
-			for ( OperationRunnable runnable : all_tasks )
-				runnable.stop();
-		}
+		for ( OperationRunnable runnable : unfinished_tasks )
+			runnable.stop();
 	}
-	
+
 	public void submitOperation(OperationRunnable operation)
 	{
 		if ( operation == null ) return;
-		if ( thread_pool.isShutdown() ) return; // can not accept the operation, the thread pool has been shutdown...
-		
+		if ( thread_pool == null || thread_pool.isShutdown() ) return; // can not accept the operation, the thread pool has not started or has been shutdown...
+
 		if ( shouldStop() ) return; // don't accept any new tasks if this (parent) task shoudl stop...
-		
-		thread_pool.submit(operation);
-		
-		synchronized(all_tasks) 
+		if ( done.getCount() == 0 ) return; // or once the pool is done (an error, or quiescent)
+
+		// Count the operation in, unless the pool is already quiescent
+		while ( true )
 		{
-			all_tasks.add(operation);
+			int count = outstanding.get();
+			if ( count == 0 ) return;
+
+			if ( outstanding.compareAndSet(count, count + 1) ) break;
 		}
+
+		submitted_count.incrementAndGet();
+		unfinished_tasks.add(operation);
+
+		thread_pool.execute(new PoolTask(operation));
 	}
-	
-	public boolean areAllTasksInState(State state)
+
+	/**
+	 * An operation submitted to the thread pool
+	 */
+	private class PoolTask implements Runnable
 	{
-		if ( state == null ) return false;
-		
-		synchronized(all_tasks)
+		private final OperationRunnable operation;
+
+		private PoolTask(OperationRunnable operation)
+		{
+			this.operation = operation;
+		}
+
+		public void run()
 		{
-			for ( OperationRunnable runnable : all_tasks )
+			try
+			{
+				operation.run();
+			}
+			finally
 			{
-				if ( runnable.getSimpleState() != state ) return false;
+				onTaskFinished(operation);
 			}
 		}
-		
+
+		/**
+		 * The thread pool has shut down, so the operation will never run
+		 */
+		private void abandon()
+		{
+			onTaskFinished(operation);
+		}
+	}
+
+	private void onTaskFinished(OperationRunnable operation)
+	{
+		if ( operation != null )
+		{
+			Result result = operation.getOptionalResult(null);
+
+			if ( result != null ) result_counts.incrementAndGet(result.ordinal());
+			finished_count.incrementAndGet();
+
+			unfinished_tasks.remove(operation);
+
+			if ( result == Result.ERROR ) done.countDown();
+		}
+
+		if ( outstanding.decrementAndGet() == 0 )
+		{
+			quiescent.countDown();
+			done.countDown();
+		}
+	}
+
+	/**
+	 * Wait until the pool is quiescent: every operation submitted (so far, and
+	 * by those operations in turn) has finished. Returns as soon as that
+	 * happens (there is no polling interval)
+	 *
+	 * @param timeout
+	 *            The maximum time to wait
+	 * @param unit
+	 *            The unit of timeout
+	 * @return True if the pool is quiescent, false if the timeout elapsed
+	 *         first
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted while waiting
+	 */
+	public boolean awaitQuiescence(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		return quiescent.await(timeout, unit);
+	}
+
+	/**
+	 * @return The number of operations submitted that have not finished yet
+	 */
+	public int getSimpleUnfinishedTaskCount()
+	{
+		return unfinished_tasks.size();
+	}
+
+	/**
+	 * @return The number of operations submitted (in total)
+	 */
+	public int getSimpleSubmittedTaskCount()
+	{
+		return submitted_count.get();
+	}
+
+	public boolean areAllTasksInState(State state)
+	{
+		if ( state == null ) return false;
+
+		if ( state == State.FINISHED ) return unfinished_tasks.isEmpty();
+		if ( finished_count.get() > 0 ) return false;
+
+		for ( OperationRunnable runnable : unfinished_tasks )
+		{
+			if ( runnable.getSimpleState() != state ) return false;
+		}
+
 		return true;
 	}
-	
+
 	public boolean areAnyTasksInState(State state)
 	{
 		if ( state == null ) return false;
-		
-		synchronized(all_tasks)
+
+		if ( state == State.FINISHED && finished_count.get() > 0 ) return true;
+
+		for ( OperationRunnable runnable : unfinished_tasks )
 		{
-			for ( OperationRunnable runnable : all_tasks )
-			{
-				if ( runnable.getSimpleState() == state ) return true;
-			}
+			if ( runnable.getSimpleState() == state ) return true;
 		}
-		
+
 		return false;
 	}
-	
+
 	public boolean areAnyTasksWithResult(Result result)
 	{
 		if ( result == null ) return false;
-		
-		synchronized(all_tasks)
-		{
-			for ( OperationRunnable runnable : all_tasks )
-			{
-				if ( runnable.getOptionalResult(null) == result ) return true;
-			}
-		}
-		
-		return false;
+
+		return result_counts.get(result.ordinal()) > 0;
 	}
-	
+
 	public boolean areAllTasksWithResult(Result result)
 	{
 		if ( result == null ) return false;
-		
-		synchronized(all_tasks)
-		{
-			for ( OperationRunnable runnable : all_tasks )
-			{
-				if ( runnable.getOptionalResult(null) != result ) return false;
-			}
-		}
-		
-		return true;
+
+		return unfinished_tasks.isEmpty() && result_counts.get(result.ordinal()) == finished_count.get();
 	}
 }
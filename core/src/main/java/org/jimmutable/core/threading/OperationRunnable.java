@@ -15,6 +15,9 @@ import org.jimmutable.core.utils.Validator;
  * not succeed because it encountered an error) and STOPPED (the runnable was
  * stopped by another thread before it could finish)
  * 
+ * Every operation's result and run time is recorded (by class of operation)
+ * in OperationMetrics.
+ * 
  * @author jim.kane
  *
  */
@@ -128,6 +131,18 @@ abstract public class OperationRunnable implements Runnable
 		if ( isInState(State.FINISHED) ) return; // nothing to do, already stopped (finished)
 		
 		state = State.STOPPING;
+		
+		onStop();
+	}
+	
+	/**
+	 * Called (in the thread that called stop()) when the operation is signaled
+	 * to stop. The default implementation does nothing. Operations that block
+	 * waiting on other threads (e.g. OperationPool) override this to wake up
+	 * right away, rather than polling shouldStop()
+	 */
+	protected void onStop()
+	{
 	}
 	
 	/**
@@ -157,9 +172,12 @@ abstract public class OperationRunnable implements Runnable
 	 */
 	final public void run()
 	{
-		state = State.RUNNING;
+		if ( !isInState(State.STOPPING) ) state = State.RUNNING; // an operation stopped before it started still stops
 		start_time = System.currentTimeMillis();
 		
+		OperationStats stats = OperationMetrics.onStart(this);
+		long start_nanos = System.nanoTime();
+		
 		try
 		{
 			if ( shouldStop() )
@@ -179,6 +197,7 @@ abstract public class OperationRunnable implements Runnable
 		}
 		finally
 		{
+			if ( stats != null ) stats.onFinish(result, System.nanoTime() - start_nanos);
 			state = State.FINISHED;
 		}
 	}
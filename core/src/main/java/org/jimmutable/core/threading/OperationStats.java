@@ -0,0 +1,85 @@
+package org.jimmutable.core.threading;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jimmutable.core.threading.OperationRunnable.Result;
+
+/**
+ * The (live) execution statistics of every operation of one class (see
+ * OperationMetrics): how many are running, how many finished with each result,
+ * and a histogram of how long they ran.
+ *
+ * @author jim.kane
+ *
+ */
+final public class OperationStats
+{
+	private final String operation_class_name;
+
+	private final LongAdder in_flight = new LongAdder();
+	private final LongAdder success_count = new LongAdder();
+	private final LongAdder error_count = new LongAdder();
+	private final LongAdder stopped_count = new LongAdder();
+
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	OperationStats(String operation_class_name)
+	{
+		this.operation_class_name = operation_class_name;
+	}
+
+	void onStart()
+	{
+		in_flight.increment();
+	}
+
+	void onFinish(Result result, long run_time_nanos)
+	{
+		in_flight.decrement();
+
+		if ( result == Result.SUCCESS ) success_count.increment();
+		else if ( result == Result.STOPPED ) stopped_count.increment();
+		else error_count.increment();
+
+		latencies.record(run_time_nanos / 1_000);
+	}
+
+	/**
+	 * @return The name of the class of operation these are the statistics of
+	 */
+	public String getSimpleOperationClassName() { return operation_class_name; }
+
+	/**
+	 * @return The number of operations running right now
+	 */
+	public long getSimpleInFlightCount() { return in_flight.sum(); }
+
+	public long getSimpleSuccessCount() { return success_count.sum(); }
+	public long getSimpleErrorCount() { return error_count.sum(); }
+	public long getSimpleStoppedCount() { return stopped_count.sum(); }
+
+	/**
+	 * @return The number of operations that have finished
+	 */
+	public long getSimpleFinishedCount() { return latencies.getSimpleCount(); }
+
+	/**
+	 * @param percentile
+	 *            The percentile (0 to 100) of run time, e.g. 99
+	 * @return The run time (in milliseconds, accurate to within 12.5%) that
+	 *         percentile of finished operations ran within, 0 if none have
+	 *         finished
+	 */
+	public double getSimpleRunTimePercentileMillis(double percentile)
+	{
+		return latencies.getSimplePercentileMicros(percentile) / 1_000.0;
+	}
+
+	public double getSimpleMeanRunTimeMillis() { return latencies.getSimpleMeanMicros() / 1_000.0; }
+	public double getSimpleMaxRunTimeMillis() { return latencies.getSimpleMaxMicros() / 1_000.0; }
+
+	public String toString()
+	{
+		return String.format("%s: in flight %d, success %d, error %d, stopped %d, run time p50 %.1fms p90 %.1fms p99 %.1fms max %.1fms", operation_class_name, getSimpleInFlightCount(), getSimpleSuccessCount(), getSimpleErrorCount(), getSimpleStoppedCount(), getSimpleRunTimePercentileMillis(50), getSimpleRunTimePercentileMillis(90), getSimpleRunTimePercentileMillis(99), getSimpleMaxRunTimeMillis());
+	}
+}
@@ -0,0 +1,134 @@
+package org.jimmutable.core.threading;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+/**
+ * The kind of threads the thread pools in this package (OperationPool,
+ * DaemonThreadFactory) run their work on.
+ *
+ * <ul>
+ * <li>PLATFORM: ordinary (operating system) threads. Each one is expensive, so
+ * pools are sized by hand to a few dozen threads</li>
+ * <li>VIRTUAL: virtual threads (Java 21+). A virtual thread that blocks (on a
+ * socket, a sleep, a lock) gives its carrier thread back, so a pool of
+ * thousands of virtual threads making blocking S3, Redis or HTTP calls costs
+ * little more than the calls themselves</li>
+ * </ul>
+ *
+ * The mode is chosen per pool (constructor argument) or, by default, for the
+ * whole JVM with the system property {@value #PROPERTY_NAME} (platform or
+ * virtual, e.g. -Djimmutable.threading.mode=virtual). The default is PLATFORM.
+ *
+ * <p>This library is built for Java 17, so virtual threads are created
+ * reflectively. When VIRTUAL is requested on a JVM that does not support them,
+ * platform threads are used instead (and a warning is logged once).
+ *
+ * @author jim.kane
+ *
+ */
+public enum ThreadingMode
+{
+	PLATFORM,
+	VIRTUAL;
+
+	static public final String PROPERTY_NAME = "jimmutable.threading.mode";
+
+	static private final Logger logger = Logger.getLogger(ThreadingMode.class.getName());
+
+	static private final Method OF_VIRTUAL = findMethod("java.lang.Thread", "ofVirtual");
+	static private final Method BUILDER_FACTORY = findMethod("java.lang.Thread$Builder", "factory");
+
+	static private volatile boolean warned_unsupported = false;
+
+	static private Method findMethod(String class_name, String method_name)
+	{
+		try
+		{
+			return Class.forName(class_name).getMethod(method_name);
+		}
+		catch ( Exception e )
+		{
+			return null; // not supported on this JVM
+		}
+	}
+
+	/**
+	 * @return True if this JVM supports virtual threads
+	 */
+	static public boolean isVirtualThreadSupported()
+	{
+		return OF_VIRTUAL != null && BUILDER_FACTORY != null;
+	}
+
+	/**
+	 * The default mode, set by the system property {@value #PROPERTY_NAME}
+	 *
+	 * @return The default mode (PLATFORM if the property is not set, or is not
+	 *         a valid mode)
+	 */
+	static public ThreadingMode getDefault()
+	{
+		return fromString(System.getProperty(PROPERTY_NAME), PLATFORM);
+	}
+
+	/**
+	 * @return The mode named by str (case insensitive), or default_value if str
+	 *         does not name a mode
+	 */
+	static public ThreadingMode fromString(String str, ThreadingMode default_value)
+	{
+		if ( str == null ) return default_value;
+
+		for ( ThreadingMode mode : values() )
+		{
+			if ( mode.name().equalsIgnoreCase(str.trim()) ) return mode;
+		}
+
+		return default_value;
+	}
+
+	/**
+	 * Create a thread factory for this mode
+	 *
+	 * @param daemon
+	 *            Should platform threads be daemon threads (virtual threads
+	 *            always are)
+	 * @return A new thread factory
+	 */
+	public ThreadFactory createThreadFactory(boolean daemon)
+	{
+		if ( this == VIRTUAL )
+		{
+			ThreadFactory factory = createVirtualThreadFactory();
+			if ( factory != null ) return factory;
+		}
+
+		return daemon ? new DaemonThreadFactory(PLATFORM) : Executors.defaultThreadFactory();
+	}
+
+	static private ThreadFactory createVirtualThreadFactory()
+	{
+		if ( isVirtualThreadSupported() )
+		{
+			try
+			{
+				return (ThreadFactory)BUILDER_FACTORY.invoke(OF_VIRTUAL.invoke(null));
+			}
+			catch ( Exception e )
+			{
+				e.printStackTrace();
+			}
+		}
+
+		if ( !warned_unsupported )
+		{
+			warned_unsupported = true;
+			logger.warning(String.format("Virtual threads are not supported by this JVM (%s), using platform threads", System.getProperty("java.version")));
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,129 @@
+package org.jimmutable.core.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A bounded table of canonical (flyweight) instances of a small, immutable
+ * identifier type (FieldName, TypeName, Kind, etc.), keyed by the string the
+ * instance is made from.
+ *
+ * <p>Looking up a string that is already in the table returns the canonical
+ * instance, without constructing (or validating) anything. Parsing a large
+ * document therefore allocates one identifier per distinct name instead of one
+ * per occurrence.
+ *
+ * <p>Two ways in:
+ * <ul>
+ * <li>{@link #register(String)} / {@link #register(String, Object)} always add
+ * to the table. Use these for names the code itself declares (FieldDefinition
+ * fields, registered type names), of which there are a limited number</li>
+ * <li>{@link #intern(String)} only adds while the table is under its maximum
+ * size. Use this for names read from input: a document full of junk names can
+ * not grow the table without bound, once the table is full unknown names are
+ * simply constructed (and validated) each time</li>
+ * </ul>
+ *
+ * <p>The factory must throw (e.g. a ValidationException) for illegal strings;
+ * nothing is added to the table when it does. All methods are thread safe.
+ *
+ * @author jim.kane
+ *
+ * @param <T>
+ *            The type of the canonical instances
+ */
+final public class InternTable<T>
+{
+	private final ConcurrentHashMap<String, T> table = new ConcurrentHashMap<>();
+
+	private final int max_size;
+	private final Function<String, T> factory;
+
+	/**
+	 * @param max_size
+	 *            The maximum number of entries intern(String) will add
+	 *            (registered entries are always added)
+	 * @param factory
+	 *            Creates (and validates) a new instance from a string
+	 */
+	public InternTable(int max_size, Function<String, T> factory)
+	{
+		Validator.min(max_size, 0);
+		Validator.notNull(factory);
+
+		this.max_size = max_size;
+		this.factory = factory;
+	}
+
+	/**
+	 * Get the canonical instance for key, creating it (and adding it to the
+	 * table if the table has room) if there is none yet
+	 *
+	 * @param key
+	 *            The string to make an instance from (null is passed straight
+	 *            to the factory)
+	 * @return The canonical instance for key, or a new, uncached, instance if
+	 *         the table is full
+	 */
+	public T intern(String key)
+	{
+		if ( key == null ) return factory.apply(null);
+
+		T ret = table.get(key);
+		if ( ret != null ) return ret;
+
+		ret = factory.apply(key);
+
+		if ( table.size() >= max_size ) return ret;
+
+		T existing = table.putIfAbsent(key, ret);
+		return existing != null ? existing : ret;
+	}
+
+	/**
+	 * Get the canonical instance for key, creating it and adding it to the
+	 * table (regardless of size) if there is none yet
+	 *
+	 * @param key
+	 *            The string to make an instance from
+	 * @return The canonical instance for key
+	 */
+	public T register(String key)
+	{
+		Validator.notNull(key);
+
+		T ret = table.get(key);
+		if ( ret != null ) return ret;
+
+		return register(key, factory.apply(key));
+	}
+
+	/**
+	 * Make value the canonical instance for key (regardless of size), unless
+	 * key already has a canonical instance
+	 *
+	 * @param key
+	 *            The string value was made from
+	 * @param value
+	 *            The instance
+	 * @return The canonical instance for key (value, or the instance that was
+	 *         already registered)
+	 */
+	public T register(String key, T value)
+	{
+		Validator.notNull(key, value);
+
+		T existing = table.putIfAbsent(key, value);
+		return existing != null ? existing : value;
+	}
+
+	/**
+	 * @return The number of canonical instances in the table
+	 */
+	public int size() { return table.size(); }
+
+	/**
+	 * @return The maximum number of entries intern(String) will add
+	 */
+	public int getSimpleMaxSize() { return max_size; }
+}
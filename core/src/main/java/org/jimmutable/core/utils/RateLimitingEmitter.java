@@ -1,6 +1,8 @@
 package org.jimmutable.core.utils;
 
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A rate limiting emitter is an emitter that passes objects from a source to a
@@ -8,6 +10,15 @@ import java.util.Random;
  * rate (for example, if the source runs dry momentarily) but will never be
  * (substantially) faster than the rate specified.
  * 
+ * The emitter is a token bucket, kept in nanoseconds: tokens accrue at the
+ * rate, each emission spends one, and the emitter thread parks until exactly
+ * when the next token is due (rather than polling). Up to burst_size tokens
+ * (by default one second's worth) can build up while the source is dry, and
+ * are then spent at once.
+ * 
+ * Objects are delivered to the sink through a ThreadPoolSinkExecutor (bounded,
+ * with a backpressure policy), unless the sink passed in already is one.
+ * 
  * @author jim.kane
  * 
  * @param <T> The type of object being emitted
@@ -16,23 +27,42 @@ import java.util.Random;
  */
 public class RateLimitingEmitter<T> extends Thread
 {
+	/**
+	 * How long to wait before asking a dry source again. It's not actually
+	 * important that this is short, the effect of a longer wait would be to
+	 * create a longer latency in the handling of new events from the source.
+	 */
+	static private final long DRY_SOURCE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+	
+	/**
+	 * The longest the emitter parks at once (so that a zero rate is noticed
+	 * changing, even without an unpark)
+	 */
+	static private final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	
     /**
      * Number of "tokens" accumulated so far. Each emission spends 1.0 token.
      */
-    private float tokens_in_bucket = 0.0f;
+    private double tokens_in_bucket = 0.0;
     
     /**
      * Target (and approximate maximum) number of emissions per second
      */
-	private float rate_per_second = 100.0f;
+	private volatile double rate_per_second = 100.0;
+	
+	/**
+	 * The most tokens that can accumulate (the largest burst), -1 for one
+	 * second's worth at the current rate
+	 */
+	private volatile double burst_size = -1;
 	
-    public float getRate() { return rate_per_second; }
+    public float getRate() { return (float)rate_per_second; }
     
 	private Source<T> source = null;
 	
-	private Sink<T> sink = null;
+	private ThreadPoolSinkExecutor<T> sink = null;
 	
-	private boolean stopped = false;
+	private volatile boolean stopped = false;
 	
 	
 	private RateLimitingEmitter(Source<T> source, Sink<T> sink, float rate_per_second)
@@ -43,7 +73,7 @@ public class RateLimitingEmitter<T> extends Thread
         if (rate_per_second < 0) throw new IllegalArgumentException("rate_per_second must be positive");
 	    
         this.source = source;
-		this.sink = new ThreadPoolSinkExecutor<T>(sink);
+		this.sink = sink instanceof ThreadPoolSinkExecutor ? (ThreadPoolSinkExecutor<T>)sink : new ThreadPoolSinkExecutor<T>(sink);
 		this.rate_per_second = rate_per_second;
         
 		// Designed to run near real time... make it the max priority possible
@@ -53,63 +83,85 @@ public class RateLimitingEmitter<T> extends Thread
 	
     public void setRate(float new_rate_per_second)
     {
+        if (new_rate_per_second < 0) throw new IllegalArgumentException("rate_per_second must be positive");
+        
         rate_per_second = new_rate_per_second;
         setName(String.format("RateLimitingEmitter (%.2f/sec)", rate_per_second));
+        LockSupport.unpark(this); // recompute when the next token is due
     }
     
-    private void addTokensToBucket(long start, long end)
+    /**
+     * Set the largest burst: the most tokens that can accumulate while the
+     * source is dry (or the sink is slow), and then be spent at once
+     * 
+     * @param burst_size
+     *            The largest burst (at least 1), or -1 for one second's worth
+     *            of tokens at the current rate (the default)
+     */
+    public void setBurstSize(float burst_size)
     {
-        float elapsed_seconds = (end-start)/1000.0f;
-        tokens_in_bucket += elapsed_seconds*rate_per_second;
+        if (burst_size != -1 && burst_size < 1) throw new IllegalArgumentException("burst_size must be at least 1");
         
-        // No matter what the rate is we can hold at least one and change tokens in the bucket
-        if ( tokens_in_bucket < 1.9f )
-            return;
+        this.burst_size = burst_size;
+    }
+    
+    private void addTokensToBucket(long elapsed_nanos)
+    {
+        tokens_in_bucket += elapsed_nanos * rate_per_second / 1_000_000_000.0;
         
-        // Don't allow more than rate_per_second tokens to accumulate (i.e. max burst of 1 sec)
-        if ( tokens_in_bucket > rate_per_second )
-        {
-            tokens_in_bucket = rate_per_second;
-        }
+        // No matter what the rate is we can hold at least one token in the bucket
+        double max_tokens = burst_size == -1 ? rate_per_second : burst_size;
+        tokens_in_bucket = Math.min(tokens_in_bucket, Math.max(1.0, max_tokens));
     }
     
     public void kill()
     {
         stopped = true;
+        sink.shutdown();
+        LockSupport.unpark(this);
     }
+    
+    /**
+     * @return The number of objects delivered to the sink so far
+     */
+    public long getSimpleEmittedCount() { return sink.getSimpleEmittedCount(); }
+    
+    /**
+     * @return The number of objects dropped by the sink executor so far (see
+     *         ThreadPoolSinkExecutor.BackpressurePolicy)
+     */
+    public long getSimpleDroppedCount() { return sink.getSimpleDroppedCount(); }
+    
+    /**
+     * @return The number of objects taken from the source that are waiting to
+     *         be delivered to the sink
+     */
+    public int getSimpleQueueDepth() { return sink.getSimpleQueueDepth(); }
 	
 	public void run()
 	{
-		long last_time_point = System.currentTimeMillis();
+		long last_time_point = System.nanoTime();
 		
 		while (! stopped)
 		{
 		    try
 		    {
-		        /* It's not actually important that we sleep for only 10ms.
-		         * This in effect tells the JVM scheduler that we are done and want
-		         * to be woken back up "soon". This number could be larger (even much
-		         * larger), but the effect would be to create a longer latency in
-		         * the handling of new events from the source.
-		         * This has been empirically tested by Jim and Jeff to have a negligible
-		         * usage of system resources when not actually processing any requests.
-		         */
-	            try { sleep(10); } catch(InterruptedException e ) {}
-	            
-	            long new_time_point = System.currentTimeMillis();
+	            long new_time_point = System.nanoTime();
 	            
-	            addTokensToBucket(last_time_point,new_time_point);
+	            addTokensToBucket(new_time_point - last_time_point);
 	            last_time_point = new_time_point;
 	            
-	            while ( tokens_in_bucket > 1.0f )
+	            boolean source_dry = false;
+	            
+	            while ( tokens_in_bucket >= 1.0 && !stopped )
 	            {
 	                try
 	                {
 	                    // TODO How to protect against long-running getNext implementations? - Create several canonical Sources that are tested and wrap it a "Do Not Fuck With" comment
 	                    T emitted = source.getNext(null);
-	                    if ( emitted == null ) break;
+	                    if ( emitted == null ) { source_dry = true; break; }
 
-	                    tokens_in_bucket -= 1.0f;
+	                    tokens_in_bucket -= 1.0;
 	                    sink.onEmit(emitted);
 	                }
 	                catch (Exception e)
@@ -117,6 +169,18 @@ public class RateLimitingEmitter<T> extends Thread
 	                    e.printStackTrace();
 	                }
 	            }
+	            
+	            if ( source_dry ) 
+	            {
+	                LockSupport.parkNanos(this, DRY_SOURCE_WAIT_NANOS);
+	                continue;
+	            }
+	            
+	            // Park until the next token is due
+	            double rate = rate_per_second;
+	            long wait_nanos = rate <= 0 ? MAX_PARK_NANOS : (long)Math.ceil((1.0 - tokens_in_bucket) * 1_000_000_000.0 / rate);
+	            
+	            if ( wait_nanos > 0 ) LockSupport.parkNanos(this, Math.min(wait_nanos, MAX_PARK_NANOS));
 		    }
 		    catch (Exception e)
 		    {
@@ -132,6 +196,34 @@ public class RateLimitingEmitter<T> extends Thread
 	    return emitter;
 	}
 	
+	/**
+	 * Start an emitter that delivers to sink through a bounded executor
+	 * 
+	 * @param source
+	 *            Where objects come from
+	 * @param sink
+	 *            Where objects go
+	 * @param rate
+	 *            The maximum number of objects per second
+	 * @param burst_size
+	 *            The largest burst, -1 for one second's worth
+	 * @param sink_threads
+	 *            The number of threads delivering objects to sink
+	 * @param max_queued
+	 *            The number of objects that can wait for a sink thread
+	 * @param policy
+	 *            What to do when the sink threads fall behind and the queue is
+	 *            full
+	 * @return The (started) emitter
+	 */
+	static public <T> RateLimitingEmitter<T> startEmitter(Source<T> source, Sink<T> sink, float rate, float burst_size, int sink_threads, int max_queued, ThreadPoolSinkExecutor.BackpressurePolicy policy)
+	{
+	    RateLimitingEmitter<T> emitter = new RateLimitingEmitter<T>(source, new ThreadPoolSinkExecutor<T>(sink, sink_threads, max_queued, policy), rate);
+	    emitter.setBurstSize(burst_size);
+	    emitter.start();
+	    return emitter;
+	}
+	
 	
 	/**
 	 * Test suite
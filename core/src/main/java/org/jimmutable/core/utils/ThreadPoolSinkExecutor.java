@@ -1,28 +1,170 @@
 package org.jimmutable.core.utils;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
-public class ThreadPoolSinkExecutor<T> implements Sink
+/**
+ * A sink that hands each value to another sink on a bounded pool of (daemon)
+ * threads, so that a slow sink does not hold up the emitter feeding it.
+ *
+ * Both the number of threads and the number of values waiting for a thread
+ * are bounded. When both are used up, the BackpressurePolicy decides what
+ * happens to the next value: the emitter waits for room (BLOCK), the value is
+ * dropped (DROP), or the emitter's thread delivers it itself (CALLER_RUNS).
+ *
+ * @author jim.kane
+ *
+ * @param <T>
+ *            The type of value
+ */
+public class ThreadPoolSinkExecutor<T> implements Sink<T>
 {
-	private ExecutorService pool = Executors.newCachedThreadPool();
-	private Sink sink;
-	
-	
+	static public final int DEFAULT_MAX_THREADS = 16;
+	static public final int DEFAULT_MAX_QUEUED = 1024;
+
+	/**
+	 * What to do with a value when every thread is busy and the queue is full
+	 */
+	public enum BackpressurePolicy
+	{
+		BLOCK, // wait for room in the queue (slowing the emitter down to the speed of the sink)
+		DROP, // drop the value (counted, see getSimpleDroppedCount)
+		CALLER_RUNS; // deliver the value in the calling thread
+	}
+
+	private Sink<T> sink;
+	private BackpressurePolicy policy;
+	private ThreadPoolExecutor pool;
+
+	private final LongAdder emitted_count = new LongAdder();
+	private final LongAdder dropped_count = new LongAdder();
+
+	/**
+	 * Create an executor with DEFAULT_MAX_THREADS threads, room for
+	 * DEFAULT_MAX_QUEUED values and the BLOCK policy (no value is ever dropped)
+	 */
 	public ThreadPoolSinkExecutor(Sink<T> sink)
 	{
+		this(sink, DEFAULT_MAX_THREADS, DEFAULT_MAX_QUEUED, BackpressurePolicy.BLOCK);
+	}
+
+	/**
+	 * @param sink
+	 *            The sink to deliver values to
+	 * @param max_threads
+	 *            The maximum number of threads delivering values at once (idle
+	 *            threads exit after a minute)
+	 * @param max_queued
+	 *            The maximum number of values waiting for a thread
+	 * @param policy
+	 *            What to do with a value when all threads are busy and the
+	 *            queue is full
+	 */
+	public ThreadPoolSinkExecutor(Sink<T> sink, int max_threads, int max_queued, BackpressurePolicy policy)
+	{
+		Validator.notNull(sink, policy);
+		Validator.min(max_threads, 1);
+		Validator.min(max_queued, 1);
+
 		this.sink = sink;
+		this.policy = policy;
+
+		pool = new ThreadPoolExecutor(max_threads, max_threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(max_queued), ThreadPoolSinkExecutor::newDaemonThread, createRejectionHandler());
+		pool.allowCoreThreadTimeOut(true);
 	}
 
-	
-	public void onEmit( Object value )
+	static private Thread newDaemonThread(Runnable runnable)
 	{
-		pool.submit(new Runnable()
+		Thread ret = new Thread(runnable, "ThreadPoolSinkExecutor");
+		ret.setDaemon(true);
+		return ret;
+	}
+
+	private RejectedExecutionHandler createRejectionHandler()
+	{
+		switch ( policy )
+		{
+		case DROP:
+			return (task, executor) -> dropped_count.increment();
+
+		case CALLER_RUNS:
+			return (task, executor) ->
+			{
+				if ( executor.isShutdown() ) dropped_count.increment();
+				else task.run();
+			};
+
+		default:
+			return (task, executor) ->
+			{
+				try
+				{
+					// Never dropped, unless the executor is shut down (or we are interrupted) while waiting
+					while ( !executor.isShutdown() )
+					{
+						if ( executor.getQueue().offer(task, 100, TimeUnit.MILLISECONDS) ) return;
+					}
+				}
+				catch ( InterruptedException e )
 				{
-					public void run() { sink.onEmit(value); }
+					Thread.currentThread().interrupt();
 				}
-		);
+
+				dropped_count.increment();
+			};
+		}
 	}
-	
-	
+
+	public void onEmit(T value)
+	{
+		pool.execute(() ->
+		{
+			try
+			{
+				sink.onEmit(value);
+			}
+			catch ( Exception e )
+			{
+				e.printStackTrace();
+			}
+			finally
+			{
+				emitted_count.increment();
+			}
+		});
+	}
+
+	/**
+	 * Stop accepting values (values already queued are still delivered)
+	 */
+	public void shutdown()
+	{
+		pool.shutdown();
+	}
+
+	public BackpressurePolicy getSimpleBackpressurePolicy() { return policy; }
+
+	/**
+	 * @return The number of values delivered to the sink so far
+	 */
+	public long getSimpleEmittedCount() { return emitted_count.sum(); }
+
+	/**
+	 * @return The number of values dropped so far (by the DROP policy, or
+	 *         because the executor was shut down)
+	 */
+	public long getSimpleDroppedCount() { return dropped_count.sum(); }
+
+	/**
+	 * @return The number of values currently waiting for a thread
+	 */
+	public int getSimpleQueueDepth() { return pool.getQueue().size(); }
+
+	/**
+	 * @return The number of threads currently delivering values
+	 */
+	public int getSimpleActiveThreadCount() { return pool.getActiveCount(); }
 }
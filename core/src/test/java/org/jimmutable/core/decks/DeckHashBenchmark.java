@@ -0,0 +1,74 @@
+package org.jimmutable.core.decks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jimmutable.core.examples.book.BindingType;
+import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.examples.book.BookDeckSet;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.utils.MicroBenchmark;
+
+/**
+ * Measures hash heavy operations on decks: decks (and the books in them) used
+ * as HashMap keys and HashSet members. Every lookup hashes the key, and a
+ * deck's hash code is the hash of all of its contents.
+ *
+ * Run via main(), not part of the unit test suite
+ *
+ * @author jim.kane
+ *
+ */
+public class DeckHashBenchmark
+{
+	static private final int DECK_COUNT = 1_000;
+	static private final int BOOKS_PER_DECK = 20;
+
+	static public void main(String args[])
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+
+		List<Book> books = new ArrayList<>();
+		List<BookDeckSet> decks = new ArrayList<>();
+
+		for ( int i = 0; i < DECK_COUNT; i++ )
+		{
+			List<Book> contents = new ArrayList<>();
+
+			for ( int j = 0; j < BOOKS_PER_DECK; j++ )
+			{
+				Book book = new Book("Book " + i + "-" + j, 100 + j, null, BindingType.TRADE_PAPER_BACK, Arrays.asList("Author " + j));
+				contents.add(book);
+				books.add(book);
+			}
+
+			decks.add(new BookDeckSet(contents));
+		}
+
+		Map<BookDeckSet, Integer> deck_map = new HashMap<>();
+		for ( int i = 0; i < decks.size(); i++ ) deck_map.put(decks.get(i), i);
+
+		Set<Book> book_set = new HashSet<>(books);
+
+		MicroBenchmark.run("HashMap<BookDeckSet,?>.get", DECK_COUNT, () -> () -> {
+			for ( BookDeckSet deck : decks ) deck_map.get(deck);
+		});
+
+		MicroBenchmark.run("HashSet<Book>.contains", books.size(), () -> () -> {
+			for ( Book book : books ) book_set.contains(book);
+		});
+
+		MicroBenchmark.run("HashSet<BookDeckSet> build", DECK_COUNT, () -> () -> {
+			new HashSet<>(decks);
+		});
+
+		MicroBenchmark.run("BookDeckSet construct + complete", DECK_COUNT, () -> () -> {
+			for ( BookDeckSet deck : decks ) new BookDeckSet(deck.getSimpleContents());
+		});
+	}
+}
@@ -427,6 +427,7 @@ public class FieldCollectionTest extends TestCase
 		ObjectParseTree.registerTypeName(TestObject.class);
 
 		testCollection(FieldArrayList.class, true);
+		testCollection(FieldPersistentList.class, true);
 		testCollection(FieldConcurrentHashSet.class, true);
 		testCollection(FieldConcurrentSkipListSet.class, true);
 		testCollection(FieldHashSet.class, true);
@@ -0,0 +1,171 @@
+package org.jimmutable.core.fields;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.jimmutable.core.exceptions.ImmutableException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FieldCompactionTest
+{
+	@Before
+	public void enable()
+	{
+		FieldCompaction.enable();
+	}
+
+	@After
+	public void disable()
+	{
+		FieldCompaction.disable();
+	}
+
+	static private List<String> randomStrings(int count)
+	{
+		Random random = new Random(count);
+		List<String> ret = new ArrayList<>();
+
+		for ( int i = 0; i < count; i++ ) ret.add(Integer.toString(random.nextInt(), 36));
+
+		return ret;
+	}
+
+	/**
+	 * Freeze collection, checking that nothing observable changes
+	 */
+	static private <E> void freezeAndCheck(FieldCollection<E> collection, Class<?> expected_contents_class)
+	{
+		List<E> order = new ArrayList<>(collection);
+		String as_string = collection.toString();
+		int hash_code = collection.hashCode();
+		Set<E> copy = new HashSet<>(collection);
+
+		collection.freeze();
+
+		assertEquals(expected_contents_class, collection.getContents().getClass());
+
+		assertEquals(order, new ArrayList<>(collection));
+		assertEquals(as_string, collection.toString());
+		assertEquals(hash_code, collection.hashCode());
+		assertEquals(order.size(), collection.size());
+		assertTrue(collection.equals(copy) || collection instanceof List);
+
+		for ( E element : order ) assertTrue(collection.contains(element));
+
+		assertFalse(collection.contains("not in the collection"));
+		if ( collection.getContents() instanceof CompactSet ) assertFalse(collection.contains(null));
+
+		try { collection.clear(); fail(); } catch ( ImmutableException e ) { }
+
+		if ( order.isEmpty() ) return;
+
+		try { collection.add(order.get(0)); fail(); } catch ( ImmutableException e ) { }
+
+		Iterator<E> itr = collection.iterator();
+		itr.next();
+
+		try { itr.remove(); fail(); } catch ( ImmutableException e ) { }
+	}
+
+	static private <K,V> void freezeAndCheck(FieldMap<K,V> map, Class<?> expected_contents_class)
+	{
+		List<Map.Entry<K,V>> order = new ArrayList<>(map.entrySet());
+		Map<K,V> copy = new HashMap<>(map);
+		String as_string = map.toString();
+		int hash_code = map.hashCode();
+
+		map.freeze();
+
+		assertEquals(expected_contents_class, map.getContents().getClass());
+
+		assertEquals(order, new ArrayList<>(map.entrySet()));
+		assertEquals(as_string, map.toString());
+		assertEquals(hash_code, map.hashCode());
+		assertEquals(copy, map);
+		assertEquals(map, copy);
+
+		for ( Map.Entry<K,V> entry : order )
+		{
+			assertTrue(map.containsKey(entry.getKey()));
+			assertTrue(map.containsValue(entry.getValue()));
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+			assertTrue(map.keySet().contains(entry.getKey()));
+			assertTrue(map.entrySet().contains(entry));
+		}
+
+		assertNull(map.get("not in the map"));
+		assertNull(map.get(null));
+
+		try { map.clear(); fail(); } catch ( ImmutableException e ) { }
+
+		if ( order.isEmpty() ) return;
+
+		try { map.put(order.get(0).getKey(), order.get(0).getValue()); fail(); } catch ( ImmutableException e ) { }
+
+		Iterator<K> itr = map.keySet().iterator();
+		itr.next();
+
+		try { itr.remove(); fail(); } catch ( ImmutableException e ) { }
+	}
+
+	@Test
+	public void testCollections()
+	{
+		List<String> strings = randomStrings(1_000);
+
+		freezeAndCheck(new FieldHashSet<>(strings), CompactSet.class);
+		freezeAndCheck(new FieldTreeSet<>(strings), CompactSet.class);
+		freezeAndCheck(new FieldArrayList<>(strings), ArrayList.class);
+		freezeAndCheck(new FieldConcurrentHashSet<>(strings), new FieldConcurrentHashSet<String>().getContents().getClass());
+
+		freezeAndCheck(new FieldHashSet<>(), CompactSet.class);
+		freezeAndCheck(new FieldHashSet<>(strings.subList(0, 1)), CompactSet.class);
+		freezeAndCheck(new FieldTreeSet<>(strings.subList(0, 3)), CompactSet.class);
+
+		FieldLongArrayList longs = new FieldLongArrayList();
+		for ( long i = 0; i < 1_000; i++ ) longs.addLong(i * 17);
+		while ( longs.size() > 100 ) longs.remove(0);
+
+		freezeAndCheck(longs, longs.getContents().getClass());
+		assertEquals(100, longs.size());
+		assertTrue(longs.containsLong(999 * 17));
+	}
+
+	@Test
+	public void testMaps()
+	{
+		List<String> strings = randomStrings(1_000);
+
+		Map<String, Integer> values = new HashMap<>();
+		for ( int i = 0; i < strings.size(); i++ ) values.put(strings.get(i), i % 10);
+
+		freezeAndCheck(new FieldHashMap<>(values), CompactMap.class);
+		freezeAndCheck(new FieldTreeMap<>(values), CompactMap.class);
+		freezeAndCheck(new FieldHashMap<>(), CompactMap.class);
+	}
+
+	@Test
+	public void testDisabled()
+	{
+		FieldCompaction.disable();
+
+		FieldHashSet<String> set = new FieldHashSet<>(randomStrings(10));
+		set.freeze();
+
+		assertEquals(HashSet.class, set.getContents().getClass());
+	}
+}
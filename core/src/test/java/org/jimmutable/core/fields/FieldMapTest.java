@@ -286,6 +286,7 @@ public class FieldMapTest extends TestCase
 
 		testMap(FieldHashMap.class, true);
 		testMap(FieldConcurrentHashMap.class, true);
+		testMap(FieldPersistentHashMap.class, true);
 	}
 
 	public void testMap( Class c, boolean print_output )
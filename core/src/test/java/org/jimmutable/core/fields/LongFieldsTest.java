@@ -0,0 +1,333 @@
+package org.jimmutable.core.fields;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+import org.jimmutable.core.exceptions.ImmutableException;
+import org.jimmutable.core.objects.StandardImmutableObject;
+import org.jimmutable.core.objects.StandardObject;
+import org.jimmutable.core.objects.common.ObjectId;
+import org.jimmutable.core.serialization.FieldDefinition;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.TypeName;
+import org.jimmutable.core.serialization.reader.ObjectParseTree;
+import org.jimmutable.core.serialization.reader.ReadAs;
+import org.jimmutable.core.serialization.writer.ObjectWriter;
+import org.jimmutable.core.serialization.writer.WriteAs;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LongFieldsTest
+{
+	static public class IdHolder extends StandardImmutableObject<IdHolder>
+	{
+		static public final TypeName TYPE_NAME = new TypeName("jimmutable.test.long_fields.id_holder");
+
+		static public final FieldDefinition.Collection FIELD_ID_LIST = new FieldDefinition.Collection("id_list", new FieldObjectIdArrayList());
+		static public final FieldDefinition.Collection FIELD_ID_SET = new FieldDefinition.Collection("id_set", new FieldObjectIdHashSet());
+		static public final FieldDefinition.Collection FIELD_LONG_LIST = new FieldDefinition.Collection("long_list", new FieldLongArrayList());
+		static public final FieldDefinition.Collection FIELD_LONG_SET = new FieldDefinition.Collection("long_set", new FieldLongHashSet());
+
+		private FieldObjectIdArrayList id_list;
+		private FieldObjectIdHashSet id_set;
+		private FieldLongArrayList long_list;
+		private FieldLongHashSet long_set;
+
+		public IdHolder(Iterable<ObjectId> ids, long... longs)
+		{
+			id_list = new FieldObjectIdArrayList(ids);
+			id_set = new FieldObjectIdHashSet(ids);
+			long_list = new FieldLongArrayList(longs);
+			long_set = new FieldLongHashSet(longs);
+
+			complete();
+		}
+
+		public IdHolder(ObjectParseTree t)
+		{
+			id_list = t.getCollection(FIELD_ID_LIST, new FieldObjectIdArrayList(), ObjectId.CONVERTER, ObjectParseTree.OnError.SKIP);
+			id_set = t.getCollection(FIELD_ID_SET, new FieldObjectIdHashSet(), ObjectId.CONVERTER, ObjectParseTree.OnError.SKIP);
+			long_list = t.getCollection(FIELD_LONG_LIST, new FieldLongArrayList(), ReadAs.LONG, ObjectParseTree.OnError.SKIP);
+			long_set = t.getCollection(FIELD_LONG_SET, new FieldLongHashSet(), ReadAs.LONG, ObjectParseTree.OnError.SKIP);
+		}
+
+		public void write(ObjectWriter writer)
+		{
+			writer.writeCollection(FIELD_ID_LIST, id_list, WriteAs.STRING);
+			writer.writeCollection(FIELD_ID_SET, id_set, WriteAs.STRING);
+			writer.writeCollection(FIELD_LONG_LIST, long_list, WriteAs.NUMBER);
+			writer.writeCollection(FIELD_LONG_SET, long_set, WriteAs.NUMBER);
+		}
+
+		public TypeName getTypeName() { return TYPE_NAME; }
+
+		public int compareTo(IdHolder o) { return 0; }
+
+		public void normalize() { }
+
+		public void validate() { }
+
+		public void freeze()
+		{
+			id_list.freeze();
+			id_set.freeze();
+			long_list.freeze();
+			long_set.freeze();
+		}
+
+		public int hashCode() { return Objects.hash(id_list, id_set, long_list, long_set); }
+
+		public boolean equals(Object obj)
+		{
+			if ( !(obj instanceof IdHolder) ) return false;
+
+			IdHolder other = (IdHolder)obj;
+
+			return id_list.equals(other.id_list) && id_set.equals(other.id_set) && long_list.equals(other.long_list) && long_set.equals(other.long_set);
+		}
+	}
+
+	@BeforeClass
+	static public void register()
+	{
+		ObjectParseTree.registerTypeName(IdHolder.class);
+	}
+
+	@Test
+	public void testLongListMatchesArrayList()
+	{
+		Random random = new Random(7);
+
+		List<Long> expected = new ArrayList<>();
+		FieldLongArrayList list = new FieldLongArrayList();
+
+		for ( int i = 0; i < 5_000; i++ )
+		{
+			long value = random.nextInt(100) - 50;
+			int index = expected.isEmpty() ? 0 : random.nextInt(expected.size());
+
+			switch ( random.nextInt(5) )
+			{
+			case 0: expected.add(value); list.add(value); break;
+			case 1: expected.add(value); list.addLong(value); break;
+			case 2: expected.add(index, value); list.add(index, value); break;
+			case 3: if ( !expected.isEmpty() ) assertEquals(expected.set(index, value), list.set(index, value)); break;
+			case 4: if ( !expected.isEmpty() ) assertEquals(expected.remove(index), list.remove(index)); break;
+			}
+		}
+
+		assertEquals(expected, list);
+		assertEquals(list, expected);
+		assertEquals(expected.hashCode(), list.hashCode());
+
+		for ( long value = -50; value < 50; value++ )
+		{
+			assertEquals(expected.indexOf(value), list.indexOf(value));
+			assertEquals(expected.lastIndexOf(value), list.lastIndexOf(value));
+			assertEquals(expected.contains(value), list.containsLong(value));
+		}
+
+		List<Long> odd = Arrays.asList(-49L, -1L, 1L, 49L);
+
+		expected.removeAll(odd);
+		list.removeAll(odd);
+		assertEquals(expected, list);
+
+		long as_array[] = list.toLongArray();
+		for ( int i = 0; i < as_array.length; i++ ) assertEquals(as_array[i], list.getLong(i));
+
+		assertFalse(list.contains("not a long"));
+
+		try
+		{
+			list.set(0, null);
+			fail();
+		}
+		catch ( NullPointerException e )
+		{
+		}
+	}
+
+	@Test
+	public void testLongSetMatchesHashSet()
+	{
+		Random random = new Random(11);
+
+		Set<Long> expected = new HashSet<>();
+		FieldLongHashSet set = new FieldLongHashSet();
+
+		for ( int i = 0; i < 50_000; i++ )
+		{
+			// A small range (including 0 and negatives) so that adds and removes collide often
+			long value = random.nextInt(2_000) - 1_000;
+
+			if ( random.nextInt(3) == 0 )
+				assertEquals(expected.remove(value), set.removeLong(value));
+			else
+				assertEquals(expected.add(value), set.add(value));
+		}
+
+		assertEquals(expected.size(), set.size());
+		assertEquals(expected, set);
+		assertEquals(set, expected);
+		assertEquals(expected.hashCode(), set.hashCode());
+
+		for ( long value = -1_001; value <= 1_001; value++ )
+		{
+			assertEquals(expected.contains(value), set.containsLong(value));
+		}
+
+		// Remove every other element through the iterator
+		boolean remove = true;
+
+		for ( Iterator<Long> itr = set.iterator(); itr.hasNext(); )
+		{
+			Long value = itr.next();
+
+			if ( remove )
+			{
+				itr.remove();
+				expected.remove(value);
+			}
+
+			remove = !remove;
+		}
+
+		assertEquals(expected, set);
+		assertEquals(expected.size(), set.toLongArray().length);
+	}
+
+	@Test
+	public void testModifyWhileIterating()
+	{
+		FieldLongHashSet set = new FieldLongHashSet();
+		for ( long i = 0; i < 100; i++ ) set.addLong(i);
+
+		// Removing other than through the iterator, as with HashSet
+		try
+		{
+			for ( Long value : set )
+			{
+				if ( value % 2 == 0 ) set.remove(value);
+			}
+
+			fail();
+		}
+		catch ( ConcurrentModificationException e )
+		{
+			// expected
+		}
+
+		try
+		{
+			for ( Long value : set )
+			{
+				if ( value == 51 ) set.addLong(1_000);
+			}
+
+			fail();
+		}
+		catch ( ConcurrentModificationException e )
+		{
+			// expected
+		}
+
+		// Through the iterator is fine, every element is still visited once
+		Set<Long> original = new HashSet<>(set);
+		Set<Long> expected = new HashSet<>(set);
+		Set<Long> seen = new HashSet<>();
+
+		for ( Iterator<Long> itr = set.iterator(); itr.hasNext(); )
+		{
+			Long value = itr.next();
+			assertTrue(seen.add(value));
+
+			if ( value % 3 == 0 )
+			{
+				itr.remove();
+				expected.remove(value);
+			}
+		}
+
+		assertEquals(original, seen);
+		assertEquals(expected, set);
+	}
+
+	@Test
+	public void testObjectIds()
+	{
+		List<ObjectId> ids = new ArrayList<>();
+
+		ids.add(new ObjectId(0));
+		for ( int i = 0; i < 1_000; i++ ) ids.add(ObjectId.createRandomId());
+		ids.add(ids.get(5)); // a duplicate
+
+		FieldObjectIdArrayList list = new FieldObjectIdArrayList(ids);
+		FieldObjectIdHashSet set = new FieldObjectIdHashSet(ids);
+
+		assertEquals(ids, list);
+		assertEquals(new HashSet<>(ids), set);
+		assertEquals(ids.size() - 1, set.size());
+
+		for ( ObjectId id : ids )
+		{
+			assertTrue(set.contains(id));
+			assertTrue(set.containsLong(id.getSimpleLongValue()));
+		}
+
+		assertFalse(set.contains(new ObjectId(12345)));
+		assertEquals(ids.get(17).getSimpleLongValue(), list.getLong(17));
+	}
+
+	@Test
+	public void testFreeze()
+	{
+		FieldLongArrayList list = new FieldLongArrayList(1, 2, 3);
+		FieldLongHashSet set = new FieldLongHashSet(1, 2, 3);
+
+		list.freeze();
+		set.freeze();
+
+		try { list.addLong(4); fail(); } catch ( ImmutableException e ) { }
+		try { list.set(0, 4L); fail(); } catch ( ImmutableException e ) { }
+		try { set.addLong(4); fail(); } catch ( ImmutableException e ) { }
+		try { set.removeLong(1); fail(); } catch ( ImmutableException e ) { }
+		try { set.iterator().remove(); fail(); } catch ( ImmutableException e ) { }
+
+		assertArrayEquals(new long[] { 1, 2, 3 }, list.toLongArray());
+		assertEquals(3, set.size());
+	}
+
+	@Test
+	public void testSerialization()
+	{
+		List<ObjectId> ids = new ArrayList<>();
+		for ( int i = 0; i < 100; i++ ) ids.add(ObjectId.createRandomId());
+
+		IdHolder holder = new IdHolder(ids, 5, -3, 0, Long.MAX_VALUE, Long.MIN_VALUE);
+
+		for ( Format format : new Format[] { Format.JSON, Format.XML } )
+		{
+			String serialized = holder.serialize(format);
+			IdHolder read = (IdHolder)StandardObject.deserialize(serialized);
+
+			assertEquals(holder, read);
+			assertEquals(ids, read.id_list);
+		}
+
+		assertEquals(holder, holder.deepClone());
+	}
+}
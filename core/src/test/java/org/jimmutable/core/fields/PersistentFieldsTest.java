@@ -0,0 +1,256 @@
+package org.jimmutable.core.fields;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.jimmutable.core.exceptions.ImmutableException;
+import org.jimmutable.core.serialization.FieldName;
+import org.jimmutable.core.serialization.reader.ObjectParseTree;
+import org.jimmutable.core.serialization.reader.ObjectParseTree.OnError;
+import org.jimmutable.core.serialization.reader.ReadAs;
+import org.junit.Test;
+
+public class PersistentFieldsTest
+{
+	/**
+	 * A key with a hash code that collides with many other keys
+	 */
+	static private final class CollidingKey
+	{
+		private final int id;
+
+		CollidingKey(int id) { this.id = id; }
+
+		public int hashCode() { return id % 7; }
+
+		public boolean equals(Object o) { return o instanceof CollidingKey && ((CollidingKey)o).id == id; }
+	}
+
+	@Test
+	public void testListMatchesArrayList()
+	{
+		Random random = new Random(42);
+
+		List<Integer> expected = new ArrayList<>();
+		FieldPersistentList<Integer> list = new FieldPersistentList<>();
+
+		// Big enough for a three level trie
+		for ( int i = 0; i < 40_000; i++ )
+		{
+			expected.add(i);
+			list.add(i);
+		}
+
+		assertEquals(expected, list);
+
+		for ( int i = 0; i < 2_000; i++ )
+		{
+			int index = random.nextInt(expected.size());
+
+			switch ( random.nextInt(4) )
+			{
+			case 0: expected.set(index, -i); list.set(index, -i); break;
+			case 1: expected.remove(expected.size() - 1); list.remove(list.size() - 1); break;
+			case 2: expected.add(i); list.add(i); break;
+			case 3: if ( i % 50 == 0 ) { expected.remove(index); list.remove(index); } break;
+			}
+		}
+
+		assertEquals(expected, list);
+		assertEquals(expected.hashCode(), list.hashCode());
+
+		while ( !expected.isEmpty() )
+		{
+			assertEquals(expected.remove(expected.size() - 1), list.remove(list.size() - 1));
+		}
+
+		assertTrue(list.isEmpty());
+	}
+
+	@Test
+	public void testListCopiesAreIndependent()
+	{
+		FieldPersistentList<String> original = new FieldPersistentList<>();
+		for ( int i = 0; i < 1_000; i++ ) original.add("item " + i);
+		original.freeze();
+
+		FieldPersistentList<String> copy = new FieldPersistentList<>(original);
+		assertEquals(original, copy);
+		assertFalse(copy.isFrozen());
+
+		copy.add("one more");
+		copy.set(0, "changed");
+		copy.remove(500);
+
+		assertEquals(1_000, original.size());
+		assertEquals("item 0", original.get(0));
+		assertEquals("item 500", original.get(500));
+
+		assertEquals(1_000, copy.size());
+		assertEquals("changed", copy.get(0));
+		assertEquals("one more", copy.get(999));
+
+		FieldPersistentList<String> other_copy = new FieldPersistentList<>();
+		other_copy.addAll(original);
+		other_copy.add("another");
+
+		assertEquals(1_000, original.size());
+		assertEquals(1_001, other_copy.size());
+	}
+
+	@Test
+	public void testReadBackSharesStructure()
+	{
+		FieldName field_name = new FieldName("contents");
+
+		FieldPersistentList<String> list = new FieldPersistentList<>();
+		for ( int i = 0; i < 1_000; i++ ) list.add("item " + i);
+		list.freeze();
+
+		FieldPersistentHashMap<String, String> map = new FieldPersistentHashMap<>();
+		for ( int i = 0; i < 1_000; i++ ) map.put("key " + i, "value " + i);
+		map.freeze();
+
+		// As JimmutableBuilder leaves the fields it does not change
+		ObjectParseTree list_tree = new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT);
+		ObjectParseTree list_node = new ObjectParseTree(field_name);
+		list_node.setObject(list);
+		list_tree.add(list_node);
+
+		ObjectParseTree map_tree = new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT);
+		ObjectParseTree map_node = new ObjectParseTree(field_name);
+		map_node.setObject(map);
+		map_tree.add(map_node);
+
+		FieldPersistentList<String> list_copy = list_tree.getCollection(field_name, new FieldPersistentList<>(), ReadAs.OBJECT, OnError.SKIP);
+		assertTrue(list_copy.sharesContentsWith(list));
+		assertEquals(list, list_copy);
+
+		FieldPersistentHashMap<String, String> map_copy = map_tree.getMap(field_name, new FieldPersistentHashMap<>(), ReadAs.OBJECT, ReadAs.OBJECT, OnError.SKIP);
+		assertTrue(map_copy.sharesContentsWith(map));
+		assertEquals(map, map_copy);
+
+		// Read as anything else, the elements are converted one at a time
+		FieldPersistentList<String> strings = list_tree.getCollection(field_name, new FieldPersistentList<>(), ReadAs.STRING, OnError.SKIP);
+		assertFalse(strings.sharesContentsWith(list));
+		assertEquals(list, strings);
+	}
+
+	@Test
+	public void testMapMatchesHashMap()
+	{
+		Random random = new Random(42);
+
+		Map<Integer, Integer> expected = new HashMap<>();
+		FieldPersistentHashMap<Integer, Integer> map = new FieldPersistentHashMap<>();
+
+		for ( int i = 0; i < 50_000; i++ )
+		{
+			int key = random.nextInt(20_000) - 10_000;
+
+			if ( random.nextInt(3) == 0 )
+			{
+				assertEquals(expected.remove(key), map.remove(key));
+			}
+			else
+			{
+				assertEquals(expected.put(key, i), map.put(key, i));
+			}
+		}
+
+		assertEquals(expected, map);
+		assertEquals(map, expected);
+		assertEquals(expected.hashCode(), map.hashCode());
+
+		for ( Integer key : new ArrayList<>(expected.keySet()) )
+		{
+			assertEquals(expected.get(key), map.get(key));
+			map.remove(key);
+		}
+
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testMapCollisions()
+	{
+		FieldPersistentHashMap<CollidingKey, Integer> map = new FieldPersistentHashMap<>();
+
+		for ( int i = 0; i < 100; i++ ) map.put(new CollidingKey(i), i);
+
+		assertEquals(100, map.size());
+		for ( int i = 0; i < 100; i++ ) assertEquals(Integer.valueOf(i), map.get(new CollidingKey(i)));
+
+		for ( int i = 0; i < 100; i += 2 ) map.remove(new CollidingKey(i));
+
+		assertEquals(50, map.size());
+		assertNull(map.get(new CollidingKey(0)));
+		assertEquals(Integer.valueOf(1), map.get(new CollidingKey(1)));
+
+		int count = 0;
+		for ( Map.Entry<CollidingKey, Integer> entry : map.entrySet() )
+		{
+			assertEquals(entry.getKey().id, (int)entry.getValue());
+			count++;
+		}
+
+		assertEquals(50, count);
+	}
+
+	@Test
+	public void testMapCopiesAreIndependent()
+	{
+		FieldPersistentHashMap<String, Integer> original = new FieldPersistentHashMap<>();
+		for ( int i = 0; i < 1_000; i++ ) original.put("key " + i, i);
+		original.freeze();
+
+		FieldPersistentHashMap<String, Integer> copy = new FieldPersistentHashMap<>(original);
+		assertEquals(original, copy);
+
+		copy.put("key 0", -1);
+		copy.put("new key", 42);
+		copy.remove("key 1");
+
+		assertEquals(1_000, original.size());
+		assertEquals(Integer.valueOf(0), original.get("key 0"));
+		assertEquals(Integer.valueOf(1), original.get("key 1"));
+		assertNull(original.get("new key"));
+
+		assertEquals(1_000, copy.size());
+		assertEquals(Integer.valueOf(-1), copy.get("key 0"));
+
+		// Removing while iterating walks the contents as they were
+		Iterator<Map.Entry<String, Integer>> itr = copy.entrySet().iterator();
+		int seen = 0;
+
+		while ( itr.hasNext() )
+		{
+			itr.next();
+			itr.remove();
+			seen++;
+		}
+
+		assertEquals(1_000, seen);
+		assertTrue(copy.isEmpty());
+		assertEquals(1_000, original.size());
+
+		try
+		{
+			original.put("key 0", 0);
+			fail();
+		}
+		catch ( ImmutableException e )
+		{
+		}
+	}
+}
@@ -1,9 +1,11 @@
 package org.jimmutable.core.objects;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 import org.jimmutable.core.examples.book.BindingType;
 import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.examples.book.BookDeckList;
 import org.jimmutable.core.examples.product_data.BrandCode;
 import org.jimmutable.core.exceptions.SerializeException;
 import org.jimmutable.core.fields.FieldArrayList;
@@ -272,6 +274,58 @@ public class BuilderTest extends TestCase
 		assertEquals(second.my_string, "foo");
 	}
 
+	public void testModifySharesUnchangedFields()
+	{
+		Book book = new Book("The Hobbit", 310, "0-395-07122-4", BindingType.HARD_COVER, Arrays.asList("J.R.R. Tolkien"));
+		Book other_book = new Book("The Silmarillion", 365, "0-395-25730-1", BindingType.HARD_COVER, Arrays.asList("J.R.R. Tolkien"));
+
+		JimmutableBuilder builder = new JimmutableBuilder(TestObject.TYPE_NAME);
+		builder.set(TestObject.FIELD_MY_BOOK, book);
+		builder.add(TestObject.FIELD_MY_LIST_OF_STRINGS, "foo");
+		builder.add(TestObject.FIELD_MY_LIST_OF_STRINGS, "bar");
+		builder.addMapEntry(TestObject.FIELD_MY_INT_BOOK_MAP, 1, other_book);
+
+		TestObject first = (TestObject) builder.create();
+
+		// Sub-objects are shared, not copied
+		assertSame(book, first.my_book);
+		assertSame(other_book, first.my_int_book_map.get(1));
+
+		builder = new JimmutableBuilder(first);
+		builder.set(TestObject.FIELD_MY_INT, 42);
+		builder.add(TestObject.FIELD_MY_LIST_OF_STRINGS, "baz");
+
+		TestObject second = (TestObject) builder.create();
+
+		assertEquals(42, second.my_int);
+		assertSame(book, second.my_book);
+		assertSame(other_book, second.my_int_book_map.get(1));
+		assertEquals(Arrays.asList("foo", "bar", "baz"), second.my_list_of_strings);
+
+		// The source is untouched
+		assertEquals(0, first.my_int);
+		assertEquals(Arrays.asList("foo", "bar"), first.my_list_of_strings);
+	}
+
+	public void testModifyDeck()
+	{
+		Book hobbit = new Book("The Hobbit", 310, "0-395-07122-4", BindingType.HARD_COVER, Arrays.asList("J.R.R. Tolkien"));
+		Book silmarillion = new Book("The Silmarillion", 365, "0-395-25730-1", BindingType.HARD_COVER, Arrays.asList("J.R.R. Tolkien"));
+
+		BookDeckList deck = new BookDeckList(Arrays.asList(hobbit));
+
+		JimmutableBuilder builder = new JimmutableBuilder(deck);
+		builder.add(BookDeckList.FIELD_CONTENTS, silmarillion);
+
+		BookDeckList bigger_deck = builder.create();
+
+		assertEquals(2, bigger_deck.getSimpleContents().size());
+		assertSame(hobbit, bigger_deck.getSimpleContents().get(0));
+		assertSame(silmarillion, bigger_deck.getSimpleContents().get(1));
+
+		assertEquals(deck, new JimmutableBuilder(deck).create());
+	}
+
 	public void testString()
 	{
 		testOneString("foo");
@@ -0,0 +1,60 @@
+package org.jimmutable.core.objects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jimmutable.core.examples.book.BindingType;
+import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.examples.book.BookDeckList;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.utils.MicroBenchmark;
+
+/**
+ * Measures the cost of a small edit made with JimmutableBuilder: changing one
+ * field of a book, and adding one book to a (large) deck.
+ *
+ * Run via main(), not part of the unit test suite
+ *
+ * @author jim.kane
+ *
+ */
+public class JimmutableBuilderBenchmark
+{
+	static private final int BOOKS_PER_DECK = 1_000;
+	static private final int EDITS_PER_ROUND = 100;
+
+	static public void main(String args[])
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+
+		List<Book> books = new ArrayList<>();
+
+		for ( int i = 0; i < BOOKS_PER_DECK; i++ )
+		{
+			books.add(new Book("Book " + i, 100 + i, null, BindingType.TRADE_PAPER_BACK, Arrays.asList("Author " + i)));
+		}
+
+		BookDeckList deck = new BookDeckList(books);
+		Book extra = new Book("One More Book", 42, null, BindingType.HARD_COVER, Arrays.asList("Someone"));
+		Book book = books.get(0);
+
+		MicroBenchmark.run("set one field of a book", EDITS_PER_ROUND * 10, () -> () -> {
+			for ( int i = 0; i < EDITS_PER_ROUND * 10; i++ )
+			{
+				JimmutableBuilder builder = new JimmutableBuilder(book);
+				builder.set(Book.FIELD_PAGE_COUNT, 99);
+				builder.create();
+			}
+		});
+
+		MicroBenchmark.run("add one book to a deck of " + BOOKS_PER_DECK, EDITS_PER_ROUND, () -> () -> {
+			for ( int i = 0; i < EDITS_PER_ROUND; i++ )
+			{
+				JimmutableBuilder builder = new JimmutableBuilder(deck);
+				builder.add(BookDeckList.FIELD_CONTENTS, extra);
+				builder.create();
+			}
+		});
+	}
+}
@@ -0,0 +1,166 @@
+package org.jimmutable.core.objects;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jimmutable.core.examples.book.BindingType;
+import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.serialization.writer.ObjectWriter;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SerializedFormCacheTest
+{
+	@BeforeClass
+	static public void register()
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+	}
+
+	@After
+	public void disable()
+	{
+		SerializedFormCache.disable();
+	}
+
+	static private Book createBook(int page_count)
+	{
+		return new Book("The Hobbit", page_count, "0-395-07122-4", BindingType.HARD_COVER, Arrays.asList("J.R.R. Tolkien"));
+	}
+
+	@Test
+	public void testDisabledByDefault()
+	{
+		Book book = createBook(310);
+
+		assertFalse(SerializedFormCache.isEnabled());
+		assertFalse(SerializedFormCache.isCacheable(book, Format.JSON));
+
+		book.serializeToBytes(Format.JSON);
+		assertNull(SerializedFormCache.get(book, Format.JSON));
+	}
+
+	@Test
+	public void testCachedFormsMatch()
+	{
+		Book book = createBook(310);
+
+		for ( Format format : new Format[] { Format.JSON, Format.JSON_PRETTY_PRINT, Format.XML, Format.XML_PRETTY_PRINT, Format.SMILE } )
+		{
+			byte expected[] = book.serializeToBytes(format);
+
+			SerializedFormCache.enable(1024 * 1024);
+
+			assertArrayEquals(expected, book.serializeToBytes(format));
+			assertNotNull(SerializedFormCache.get(book, format));
+			assertArrayEquals(expected, book.serializeToBytes(format));
+
+			// A copy is handed out, the cached array is never exposed
+			assertNotSame(SerializedFormCache.get(book, format), book.serializeToBytes(format));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ObjectWriter.serialize(format, book, out);
+			assertArrayEquals(expected, out.toByteArray());
+
+			if ( !format.isBinary() )
+				assertEquals(new String(expected, StandardCharsets.UTF_8), book.serialize(format));
+
+			SerializedFormCache.disable();
+			assertNull(SerializedFormCache.get(book, format));
+		}
+	}
+
+	@Test
+	public void testHitsAndMisses()
+	{
+		SerializedFormCache.enable(1024 * 1024);
+
+		Book book = createBook(310);
+
+		long hits = SerializedFormCache.getSimpleHitCount();
+		long misses = SerializedFormCache.getSimpleMissCount();
+
+		book.serialize(Format.JSON);
+		book.serialize(Format.JSON);
+		book.serialize(Format.JSON);
+
+		assertEquals(misses + 1, SerializedFormCache.getSimpleMissCount());
+		assertEquals(hits + 2, SerializedFormCache.getSimpleHitCount());
+
+		byte bytes[] = SerializedFormCache.get(book, Format.JSON);
+		assertSame(bytes, SerializedFormCache.get(book, Format.JSON));
+	}
+
+	@Test
+	public void testBudget()
+	{
+		int size = createBook(1).serializeToBytes(Format.JSON).length;
+
+		// Room for (about) ten books
+		SerializedFormCache.enable(size * 10 + size / 2);
+
+		List<Book> books = new ArrayList<>();
+
+		for ( int i = 1; i <= 100; i++ )
+		{
+			Book book = createBook(100 + i);
+			book.serializeToBytes(Format.JSON);
+			books.add(book);
+
+			assertTrue(SerializedFormCache.getSimpleCurrentBytes() <= SerializedFormCache.getSimpleMaxBytes());
+		}
+
+		int cached = 0;
+		for ( Book book : books )
+		{
+			if ( SerializedFormCache.get(book, Format.JSON) != null ) cached++;
+		}
+
+		assertTrue(cached > 0 && cached <= 10);
+
+		// The most recently written book is still cached, the first long gone
+		assertNotNull(SerializedFormCache.get(books.get(books.size() - 1), Format.JSON));
+		assertNull(SerializedFormCache.get(books.get(0), Format.JSON));
+
+		// Shrinking the budget evicts
+		SerializedFormCache.enable(size);
+		assertTrue(SerializedFormCache.getSimpleCurrentBytes() <= size);
+
+		SerializedFormCache.disable();
+		assertEquals(0, SerializedFormCache.getSimpleCurrentBytes());
+	}
+
+	@Test
+	public void testSecondChance()
+	{
+		int size = createBook(1).serializeToBytes(Format.JSON).length;
+
+		SerializedFormCache.enable(size * 3 + size / 2);
+
+		Book popular = createBook(1);
+		popular.serializeToBytes(Format.JSON);
+
+		for ( int i = 2; i < 50; i++ )
+		{
+			createBook(i).serializeToBytes(Format.JSON);
+
+			// Used between every write, so the clock always gives it another pass
+			assertNotNull(SerializedFormCache.get(popular, Format.JSON));
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package org.jimmutable.core.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+
+import org.jimmutable.core.examples.book.BindingType;
+import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.examples.book.BookDeckSet;
+import org.jimmutable.core.exceptions.ImmutableException;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class StandardImmutableObjectTest
+{
+	@BeforeClass
+	static public void register()
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+	}
+
+	@Test(expected = ImmutableException.class)
+	public void testCompleteOnce()
+	{
+		Book book = new Book("The Hobbit", 310, null, BindingType.HARD_COVER, "J.R.R. Tolkien");
+
+		assertTrue(book.isComplete());
+		book.complete();
+	}
+
+	@Test
+	public void testCachedHashCode()
+	{
+		Book hobbit = new Book("The Hobbit", 310, null, BindingType.HARD_COVER, "J.R.R. Tolkien");
+		Book silmarillion = new Book("The Silmarillion", 365, null, BindingType.HARD_COVER, "J.R.R. Tolkien");
+
+		int expected = Objects.hash(hobbit.getSimpleTitle(), hobbit.getSimplePageCount(), hobbit.getOptionalISBN(null), hobbit.getSimpleBinding());
+
+		assertEquals(expected, hobbit.hashCode());
+		assertEquals(expected, hobbit.hashCode());
+		assertEquals(hobbit.hashCode(), hobbit.deepClone().hashCode());
+
+		BookDeckSet deck = new BookDeckSet(Arrays.asList(hobbit, silmarillion));
+
+		assertEquals(new HashSet<>(Arrays.asList(hobbit, silmarillion)).hashCode(), deck.hashCode());
+		assertEquals(deck.hashCode(), deck.hashCode());
+		assertEquals(deck, new BookDeckSet(Arrays.asList(silmarillion, hobbit)));
+		assertEquals(deck.hashCode(), new BookDeckSet(Arrays.asList(silmarillion, hobbit)).hashCode());
+	}
+}
@@ -1,8 +1,14 @@
 package org.jimmutable.core.serialization;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Objects;
 
 import org.jimmutable.core.serialization.reader.ObjectParseTree;
+import org.jimmutable.core.serialization.reader.Parser;
+import org.jimmutable.core.serialization.writer.LowLevelWriter;
 import org.jimmutable.core.serialization.writer.ObjectWriter;
 import org.jimmutable.core.serialization.writer.StandardWritable;
 import org.jimmutable.core.utils.TestingUtils;
@@ -120,6 +126,52 @@ public class ObjectFieldReadWriteTest extends TestCase
     	
     	testObject(Format.XML,obj,print_diagnostics_in_format);
     	testObject(Format.JSON,obj,print_diagnostics_in_format);
+    	
+    	for ( Format format : new Format[] { Format.XML_PRETTY_PRINT, Format.JSON_PRETTY_PRINT, Format.XML, Format.JSON, Format.SMILE } )
+    	{
+    		testBytes(format,obj);
+    	}
+    }
+    
+    public void testLowLevelWriterClose()
+    {
+    	CloseTrackingOutputStream out = new CloseTrackingOutputStream();
+    	
+    	LowLevelWriter writer = new LowLevelWriter(Format.JSON, out);
+    	writer.writeString("hello");
+    	writer.close();
+    	
+    	assertTrue(out.closed);
+    	assertEquals("\"hello\"", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    	
+    	// ObjectWriter.serialize leaves the stream open
+    	out = new CloseTrackingOutputStream();
+    	ObjectWriter.serialize(Format.JSON, "hello", out);
+    	
+    	assertFalse(out.closed);
+    }
+    
+    static private class CloseTrackingOutputStream extends ByteArrayOutputStream
+    {
+    	private boolean closed = false;
+    	
+    	public void close() { closed = true; }
+    }
+    
+    private void testBytes(Format format, Object obj)
+    {
+    	byte serialized_data[] = ObjectWriter.serializeToBytes(format, obj);
+    	assertTrue(serialized_data != null);
+    	
+    	if ( !format.isBinary() )
+    	{
+    		assertTrue(Arrays.equals(ObjectWriter.serialize(format, obj).getBytes(StandardCharsets.UTF_8), serialized_data));
+    	}
+    	
+    	assertEquals(obj,ObjectParseTree.deserialize(serialized_data));
+    	assertEquals(obj,ObjectParseTree.deserialize(new ByteArrayInputStream(serialized_data)));
+    	assertEquals(obj,Parser.parse(serialized_data).asObject(null));
+    	assertEquals(obj,Parser.parse(new ByteArrayInputStream(serialized_data)).asObject(null));
     }
     
     private void testObject(Format format, Object obj, Format print_diagnostics_in_format)
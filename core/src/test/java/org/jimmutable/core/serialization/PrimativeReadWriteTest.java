@@ -117,10 +117,17 @@ public class PrimativeReadWriteTest extends TestCase
     	testObject(Format.XML_PRETTY_PRINT,obj);
     	testObject(Format.JSON,obj);
     	testObject(Format.JSON_PRETTY_PRINT,obj);;
+    	testObject(Format.SMILE,obj);
     }
     
     private void testObject(Format format, Object obj)
     {
+    	if ( format.isBinary() )
+    	{
+    		assertEquals(obj,ObjectParseTree.deserialize(ObjectWriter.serializeToBytes(format, obj)));
+    		return;
+    	}
+    	
     	String serialized_data = ObjectWriter.serialize(format, obj);
     	assertTrue(serialized_data != null);
     	
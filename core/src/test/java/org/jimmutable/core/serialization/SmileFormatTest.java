@@ -0,0 +1,93 @@
+package org.jimmutable.core.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.jimmutable.core.examples.book.BindingType;
+import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.examples.product_data.ItemAttribute;
+import org.jimmutable.core.examples.product_data.ItemKey;
+import org.jimmutable.core.examples.product_data.ItemSpecifications;
+import org.jimmutable.core.exceptions.SerializeException;
+import org.jimmutable.core.objects.JimmutableBuilder;
+import org.jimmutable.core.objects.StandardObject;
+import org.jimmutable.core.serialization.reader.Parser;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SmileFormatTest
+{
+	@BeforeClass
+	static public void register()
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+	}
+
+	static private ItemSpecifications createSpecs(int attribute_count)
+	{
+		JimmutableBuilder builder = new JimmutableBuilder(ItemSpecifications.TYPE_NAME);
+
+		builder.set(ItemSpecifications.FIELD_ITEM_KEY, new ItemKey("BRAND", "PN1234"));
+
+		for ( int i = 0; i < attribute_count; i++ )
+		{
+			builder.addMapEntry(ItemSpecifications.FIELD_ATTRIBUTES, new ItemAttribute("ATTRIBUTE_" + i), "value " + i);
+		}
+
+		return (ItemSpecifications)builder.create();
+	}
+
+	@Test
+	public void testRoundTrip()
+	{
+		Book book = new Book("The Hobbit", 310, null, BindingType.HARD_COVER, Arrays.asList("J.R.R. Tolkien", "Christopher Tolkien"));
+		ItemSpecifications specs = createSpecs(20);
+
+		for ( StandardObject obj : new StandardObject[] { book, specs } )
+		{
+			byte smile[] = obj.serializeToBytes(Format.SMILE);
+
+			assertTrue(Parser.isSmile(smile));
+			assertEquals(obj, StandardObject.deserialize(smile));
+			assertEquals(obj, Parser.parse(smile).asObject(null));
+		}
+	}
+
+	@Test
+	public void testAutoDetect()
+	{
+		Book book = new Book("The Hobbit", 310, "0-395-07122-4", BindingType.HARD_COVER, "J.R.R. Tolkien");
+
+		for ( Format format : new Format[] { Format.JSON, Format.JSON_PRETTY_PRINT, Format.XML, Format.XML_PRETTY_PRINT, Format.SMILE } )
+		{
+			byte data[] = book.serializeToBytes(format);
+
+			assertEquals(format == Format.SMILE, Parser.isSmile(data));
+			assertEquals(book, StandardObject.deserialize(data));
+		}
+
+		assertFalse(Parser.isSmile(new byte[0]));
+		assertEquals(book.serialize(Format.JSON), new String(book.serializeToBytes(Format.JSON), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testSmaller()
+	{
+		ItemSpecifications specs = createSpecs(200);
+
+		int json_size = specs.serializeToBytes(Format.JSON).length;
+		int smile_size = specs.serializeToBytes(Format.SMILE).length;
+
+		assertTrue(String.format("json %d bytes, smile %d bytes", json_size, smile_size), smile_size * 2 < json_size);
+	}
+
+	@Test(expected = SerializeException.class)
+	public void testNoStringForm()
+	{
+		createSpecs(1).serialize(Format.SMILE);
+	}
+}
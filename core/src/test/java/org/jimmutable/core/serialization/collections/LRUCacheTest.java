@@ -1,5 +1,11 @@
 package org.jimmutable.core.serialization.collections;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jimmutable.core.threading.CacheStats;
 import org.jimmutable.core.threading.LRUCache;
 
 import junit.framework.Test;
@@ -44,16 +50,122 @@ public class LRUCacheTest extends TestCase
     	
     	cache.put(4, "qux");
     	
-    	assertTrue(cache.containsKey(2));
-    	assertTrue(cache.containsKey(3));
-    	assertTrue(cache.containsKey(4));
+    	assertTrue(cache.containsKey(4)); // the newest item always gets in...
+    	assertEquals(3, countKeys(cache)); // ...at the expense of one of the others
     	
     	cache.get(2,null); // access 2 with an eye to preserve it from the next addition...
+    	cache.get(2,null);
     	
     	cache.put(5, "quux");
     	
     	assertTrue(cache.containsKey(2));
-    	assertTrue(cache.containsKey(4));
     	assertTrue(cache.containsKey(5));
+    	assertEquals(3, countKeys(cache));
+    	
+    	cache.put(5, null); // same as a remove
+    	assertFalse(cache.containsKey(5));
+    	
+    	cache.clear();
+    	assertEquals(0, countKeys(cache));
+    	assertEquals("default", cache.get(2, "default"));
+    }
+    
+    public void testScanResistance()
+    {
+    	LRUCache<String,String> cache = new LRUCache(100);
+    	
+    	// A working set of popular keys...
+    	for ( int round = 0; round < 5; round++ )
+    	{
+    		for ( int i = 0; i < 50; i++ )
+    		{
+    			cache.put("hot" + i, "value");
+    			cache.get("hot" + i, null);
+    		}
+    	}
+    	
+    	// ...survives a scan of many keys, each used once (which would flush an LRU cache)
+    	for ( int i = 0; i < 10_000; i++ )
+    		cache.put("scan" + i, "value");
+    	
+    	int hot_keys_left = 0;
+    	for ( int i = 0; i < 50; i++ )
+    		if ( cache.containsKey("hot" + i) ) hot_keys_left++;
+    	
+    	assertTrue(hot_keys_left >= 45);
+    	assertTrue(countKeys(cache) <= 100);
+    }
+    
+    public void testStats()
+    {
+    	LRUCache<Integer,String> cache = new LRUCache(10);
+    	
+    	for ( int i = 0; i < 20; i++ )
+    		cache.put(i, "value");
+    	
+    	cache.get(19, null);
+    	cache.get(-1, null);
+    	cache.get(null, null);
+    	
+    	CacheStats stats = cache.getSimpleStats();
+    	
+    	assertEquals(1, stats.getSimpleHitCount());
+    	assertEquals(2, stats.getSimpleMissCount());
+    	assertEquals(10, stats.getSimpleEvictionCount());
+    	assertEquals(1.0 / 3, stats.getSimpleHitRate(), 0.0001);
+    }
+    
+    public void testConcurrentAccess() throws Exception
+    {
+    	LRUCache<Integer,Integer> cache = new LRUCache(500);
+    	AtomicInteger wrong_values = new AtomicInteger();
+    	
+    	List<Thread> threads = new ArrayList<>();
+    	
+    	for ( int t = 0; t < 8; t++ )
+    	{
+    		int seed = t;
+    		
+    		threads.add(new Thread(() ->
+    		{
+    			Random random = new Random(seed);
+    			
+    			for ( int i = 0; i < 50_000; i++ )
+    			{
+    				int key = random.nextInt(2_000);
+    				
+    				if ( random.nextInt(4) == 0 ) cache.put(key, key * 2);
+    				else if ( random.nextInt(100) == 0 ) cache.remove(key);
+    				else
+    				{
+    					Integer value = cache.get(key, null);
+    					if ( value != null && value != key * 2 ) wrong_values.incrementAndGet();
+    				}
+    			}
+    		}));
+    	}
+    	
+    	for ( Thread thread : threads ) thread.start();
+    	for ( Thread thread : threads ) thread.join();
+    	
+    	assertEquals(0, wrong_values.get());
+    	assertTrue(countKeys(cache) <= 500);
+    	
+    	// Still consistent, every key can be removed and re-added
+    	List<Integer> keys = new ArrayList<>();
+    	cache.copyKeysIntoCollection(keys);
+    	for ( Integer key : keys ) cache.remove(key);
+    	
+    	assertEquals(0, countKeys(cache));
+    	
+    	for ( int i = 0; i < 1_000; i++ ) cache.put(i, i * 2);
+    	assertEquals(500, countKeys(cache));
+    }
+    
+    static private int countKeys(LRUCache<?,?> cache)
+    {
+    	List keys = new ArrayList();
+    	cache.copyKeysIntoCollection(keys);
+    	return keys.size();
     }
 }
@@ -0,0 +1,106 @@
+package org.jimmutable.core.serialization.reader;
+
+import java.util.LinkedList;
+
+import org.jimmutable.core.serialization.FieldName;
+import org.jimmutable.core.utils.MicroBenchmark;
+
+/**
+ * Measures the cost of getting every field of 10, 50 and 200 field objects out
+ * of an ObjectParseTree (the access pattern of StandardObject constructors,
+ * which mostly use the getXXX (find) methods).
+ *
+ * The "linked list scan" rows emulate the pre-index implementation (a linear
+ * find over a LinkedList) for comparison.
+ *
+ * Run via main(), not part of the unit test suite
+ *
+ * @author jim.kane
+ *
+ */
+public class ObjectParseTreeBenchmark
+{
+	static private final int TREES_PER_ROUND = 1_000;
+
+	static public void main(String args[])
+	{
+		for ( int field_count : new int[] { 10, 50, 200 } )
+		{
+			FieldName names[] = createFieldNames(field_count);
+
+			MicroBenchmark.run(String.format("ObjectParseTree get %d fields", field_count), TREES_PER_ROUND, () -> {
+				ObjectParseTree trees[] = new ObjectParseTree[TREES_PER_ROUND];
+				for ( int i = 0; i < trees.length; i++ ) trees[i] = createTree(names);
+
+				return () -> {
+					for ( ObjectParseTree t : trees )
+					{
+						for ( FieldName name : names ) t.getString(name, null);
+					}
+				};
+			});
+
+			MicroBenchmark.run(String.format("linked list scan get %d fields", field_count), TREES_PER_ROUND, () -> {
+				LinkedList<ObjectParseTree> lists[] = new LinkedList[TREES_PER_ROUND];
+				for ( int i = 0; i < lists.length; i++ ) lists[i] = createList(names);
+
+				return () -> {
+					for ( LinkedList<ObjectParseTree> list : lists )
+					{
+						for ( FieldName name : names ) linearFind(list, name);
+					}
+				};
+			});
+		}
+	}
+
+	static private FieldName[] createFieldNames(int field_count)
+	{
+		FieldName ret[] = new FieldName[field_count];
+
+		for ( int i = 0; i < field_count; i++ )
+		{
+			ret[i] = new FieldName("field_" + i);
+		}
+
+		return ret;
+	}
+
+	static private ObjectParseTree createTree(FieldName names[])
+	{
+		ObjectParseTree ret = new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT);
+
+		for ( FieldName name : names )
+		{
+			ObjectParseTree child = new ObjectParseTree(name);
+			child.setValue("value");
+			ret.add(child);
+		}
+
+		return ret;
+	}
+
+	static private LinkedList<ObjectParseTree> createList(FieldName names[])
+	{
+		LinkedList<ObjectParseTree> ret = new LinkedList<>();
+
+		for ( FieldName name : names )
+		{
+			ObjectParseTree child = new ObjectParseTree(name);
+			child.setValue("value");
+			ret.add(child);
+		}
+
+		return ret;
+	}
+
+	static private ObjectParseTree linearFind(LinkedList<ObjectParseTree> list, FieldName field_name)
+	{
+		for ( ObjectParseTree child : list )
+		{
+			if ( child.getSimpleFieldName().equals(field_name) ) return child;
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,264 @@
+package org.jimmutable.core.serialization.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.jimmutable.core.examples.book.BindingType;
+import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.exceptions.SerializeException;
+import org.jimmutable.core.fields.FieldArrayList;
+import org.jimmutable.core.fields.FieldHashMap;
+import org.jimmutable.core.objects.common.Kind;
+import org.jimmutable.core.serialization.FieldName;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.serialization.TypeName;
+import org.jimmutable.core.serialization.reader.ObjectParseTree.OnError;
+import org.jimmutable.core.serialization.writer.ObjectWriter;
+import org.jimmutable.core.serialization.writer.StandardWritable;
+import org.jimmutable.core.serialization.writer.WriteAs;
+import org.junit.Test;
+
+public class ObjectParseTreeTest
+{
+	/**
+	 * A registered type that can not be read (it has no (ObjectParseTree) constructor)
+	 */
+	static public class NoReadConstructor
+	{
+		static public final TypeName TYPE_NAME = new TypeName("jimmutable.test.NoReadConstructor");
+	}
+
+	/**
+	 * Writes frozen (shareable) collections and maps, see
+	 * ObjectWriter.serializeToParseTree
+	 */
+	static private class FrozenFields implements StandardWritable
+	{
+		static private final FieldName FIELD_KINDS = new FieldName("kinds");
+		static private final FieldName FIELD_BOOKS = new FieldName("books");
+		static private final FieldName FIELD_KIND_MAP = new FieldName("kind_map");
+
+		private FieldArrayList<Kind> kinds = new FieldArrayList<>();
+		private FieldArrayList<Book> books = new FieldArrayList<>();
+		private FieldHashMap<Kind, Book> kind_map = new FieldHashMap<>();
+
+		public TypeName getTypeName() { return NoReadConstructor.TYPE_NAME; }
+
+		public void write(ObjectWriter writer)
+		{
+			writer.writeCollection(FIELD_KINDS, kinds, WriteAs.STRING);
+			writer.writeCollection(FIELD_BOOKS, books, WriteAs.OBJECT);
+			writer.writeMap(FIELD_KIND_MAP, kind_map, WriteAs.STRING, WriteAs.OBJECT);
+		}
+	}
+
+	@Test
+	public void testSharedCollections()
+	{
+		Book book = new Book("The Hobbit", 310, "0-395-07122-4", BindingType.HARD_COVER, Arrays.asList("J.R.R. Tolkien"));
+
+		FrozenFields fields = new FrozenFields();
+		fields.kinds.add(new Kind("alpha"));
+		fields.kinds.add(new Kind("beta"));
+		fields.books.add(book);
+		fields.kind_map.put(new Kind("gamma"), book);
+		fields.kinds.freeze();
+		fields.books.freeze();
+		fields.kind_map.freeze();
+
+		ObjectParseTree tree = ObjectWriter.serializeToParseTree(fields);
+
+		// Written as strings, so read as strings (not Kinds)
+		assertEquals(Arrays.asList("alpha", "beta"), tree.getCollection(FrozenFields.FIELD_KINDS, new ArrayList<>(), ReadAs.STRING, OnError.SKIP));
+		assertEquals(Arrays.asList(new Kind("alpha"), new Kind("beta")), tree.getCollection(FrozenFields.FIELD_KINDS, new ArrayList<>(), Kind.CONVERTER, OnError.SKIP));
+
+		// Shared as is
+		List<Object> books = tree.getCollection(FrozenFields.FIELD_BOOKS, new ArrayList<>(), ReadAs.OBJECT, OnError.SKIP);
+		assertEquals(1, books.size());
+		assertSame(book, books.get(0));
+
+		// A shared collection read as something other than objects is converted,
+		// and nulls are handled as on_error says
+		ObjectParseTree root = new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT);
+		ObjectParseTree shared = new ObjectParseTree(FrozenFields.FIELD_KINDS);
+		shared.setObject(Arrays.asList(1, null, 3));
+		root.add(shared);
+
+		assertEquals(Arrays.asList(1, 3), root.getCollection(FrozenFields.FIELD_KINDS, new ArrayList<>(), ReadAs.OBJECT, OnError.SKIP));
+		assertEquals(Arrays.asList("1", "3"), root.getCollection(FrozenFields.FIELD_KINDS, new ArrayList<>(), ReadAs.STRING, OnError.SKIP));
+		assertEquals(Arrays.asList(1L, 3L), root.getCollection(FrozenFields.FIELD_KINDS, new ArrayList<>(), ReadAs.LONG, OnError.SKIP));
+
+		try
+		{
+			root.getCollection(FrozenFields.FIELD_KINDS, new ArrayList<>(), ReadAs.OBJECT, OnError.THROW_EXCEPTION);
+			fail();
+		}
+		catch ( SerializeException e )
+		{
+			// expected
+		}
+
+		Map<Object, Object> kind_map = tree.getMap(FrozenFields.FIELD_KIND_MAP, new HashMap<>(), ReadAs.STRING, ReadAs.OBJECT, OnError.SKIP);
+		assertEquals(Collections.singletonMap("gamma", book), kind_map);
+	}
+
+	static private ObjectParseTree createTree(int field_count)
+	{
+		ObjectParseTree ret = new ObjectParseTree(FieldName.FIELD_DOCUMENT_ROOT);
+
+		for ( int i = 0; i < field_count; i++ )
+		{
+			ObjectParseTree child = new ObjectParseTree(new FieldName("field_" + i));
+			child.setValue("value_" + i);
+			ret.add(child);
+		}
+
+		return ret;
+	}
+
+	static private List<String> childNames(ObjectParseTree tree)
+	{
+		List<String> ret = new ArrayList<>();
+
+		for ( ObjectParseTree child : tree )
+		{
+			ret.add(child.getSimpleFieldName().getSimpleName());
+		}
+
+		return ret;
+	}
+
+	@Test
+	public void testReadRemovesChild()
+	{
+		for ( int field_count : new int[] { 3, 50 } )
+		{
+			ObjectParseTree t = createTree(field_count);
+
+			for ( int i = field_count - 1; i >= 0; i-- )
+			{
+				FieldName name = new FieldName("field_" + i);
+
+				assertEquals("value_" + i, t.getString(name, null));
+				assertEquals("value_" + i, t.readString(name, null));
+				assertNull(t.readString(name, null));
+				assertNull(t.findChild(name, null));
+			}
+
+			assertFalse(t.hasChildren());
+		}
+	}
+
+	@Test
+	public void testIterationOrder()
+	{
+		ObjectParseTree t = createTree(20);
+
+		t.readChild(new FieldName("field_3"), null);
+		t.remove(new FieldName("field_17"));
+
+		List<String> names = childNames(t);
+
+		assertEquals(18, names.size());
+		assertEquals("field_0", names.get(0));
+		assertEquals("field_4", names.get(3));
+		assertEquals("field_19", names.get(17));
+		assertFalse(names.contains("field_3"));
+		assertFalse(names.contains("field_17"));
+	}
+
+	@Test
+	public void testDuplicateFieldNames()
+	{
+		ObjectParseTree t = createTree(12);
+		FieldName element = new FieldName("element");
+
+		for ( int i = 0; i < 5; i++ )
+		{
+			ObjectParseTree child = new ObjectParseTree(element);
+			child.setValue("e" + i);
+			t.add(child);
+		}
+
+		assertEquals("e0", t.getString(element, null));
+		assertEquals("e0", t.readString(element, null));
+		assertEquals("e1", t.readString(element, null));
+
+		t.removeAll(element);
+		assertNull(t.findChild(element, null));
+
+		ObjectParseTree replacement = new ObjectParseTree(element);
+		replacement.setValue("replaced");
+		t.setOrAdd(replacement);
+
+		assertEquals("replaced", t.readString(element, null));
+		assertNull(t.readString(element, null));
+	}
+
+	@Test
+	public void testRemoveLastAndIteratorRemove()
+	{
+		ObjectParseTree t = createTree(10);
+
+		t.findChild(new FieldName("field_0"), null); // force the index to be built
+		t.removeLast();
+
+		assertNull(t.findChild(new FieldName("field_9"), null));
+
+		Iterator<ObjectParseTree> itr = t.iterator();
+
+		while ( itr.hasNext() )
+		{
+			if ( itr.next().getSimpleFieldName().getSimpleName().equals("field_5") ) itr.remove();
+		}
+
+		assertNull(t.findChild(new FieldName("field_5"), null));
+		assertEquals(8, childNames(t).size());
+
+		// Grow well past the original capacity after removals
+		for ( int i = 100; i < 200; i++ )
+		{
+			ObjectParseTree child = new ObjectParseTree(new FieldName("field_" + i));
+			child.setValue("value_" + i);
+			t.add(child);
+
+			t.readChild(new FieldName("field_" + (i - 50)), null);
+		}
+
+		assertEquals("value_199", t.getString(new FieldName("field_199"), null));
+		assertEquals("value_0", t.getString(new FieldName("field_0"), null));
+		assertTrue(t.hasChildren());
+	}
+
+	@Test
+	public void testRegisteredConstructor()
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+
+		Book book = new Book("The Hobbit", 310, null, BindingType.HARD_COVER, "J.R.R. Tolkien");
+
+		assertEquals(book, ObjectParseTree.deserialize(book.serialize(Format.JSON)));
+		assertEquals(book, ObjectParseTree.deserialize(book.serialize(Format.XML)));
+	}
+
+	@Test(expected = SerializeException.class)
+	public void testMissingConstructor()
+	{
+		ObjectParseTree.registerTypeName(NoReadConstructor.class);
+
+		ObjectParseTree.deserialize("{ \"type_hint\" : \"jimmutable.test.NoReadConstructor\", \"foo\" : 1 }");
+	}
+}
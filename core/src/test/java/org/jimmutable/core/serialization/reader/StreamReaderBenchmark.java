@@ -0,0 +1,66 @@
+package org.jimmutable.core.serialization.reader;
+
+import java.util.Arrays;
+
+import org.jimmutable.core.examples.book.BindingType;
+import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.examples.product_data.ItemAttribute;
+import org.jimmutable.core.examples.product_data.ItemKey;
+import org.jimmutable.core.examples.product_data.ItemSpecifications;
+import org.jimmutable.core.objects.JimmutableBuilder;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.utils.MicroBenchmark;
+
+/**
+ * Compares reading JSON documents via ObjectParseTree (Parser.parse, then
+ * asObject) with reading them via StreamReader, for a Book and for
+ * ItemSpecifications with 5, 50 and 500 attributes.
+ *
+ * Run via main(), not part of the unit test suite
+ *
+ * @author jim.kane
+ *
+ */
+public class StreamReaderBenchmark
+{
+	static private final int DOCUMENTS_PER_ROUND = 1_000;
+
+	static public void main(String args[])
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+
+		Book book = new Book("The Hobbit", 310, "0-395-07122-4", BindingType.HARD_COVER, Arrays.asList("J.R.R. Tolkien", "Christopher Tolkien"));
+		compare("Book", book.serialize(Format.JSON));
+
+		for ( int attribute_count : new int[] { 5, 50, 500 } )
+		{
+			compare(String.format("ItemSpecifications (%d attributes)", attribute_count), createSpecs(attribute_count).serialize(Format.JSON));
+		}
+	}
+
+	static private void compare(String label, String json)
+	{
+		MicroBenchmark.run(label + " via ObjectParseTree", DOCUMENTS_PER_ROUND, () -> () -> {
+			for ( int i = 0; i < DOCUMENTS_PER_ROUND; i++ ) Parser.parse(json).asObject(null);
+		});
+
+		MicroBenchmark.run(label + " via StreamReader", DOCUMENTS_PER_ROUND, () -> () -> {
+			for ( int i = 0; i < DOCUMENTS_PER_ROUND; i++ ) StreamReader.deserialize(json);
+		});
+	}
+
+	static private ItemSpecifications createSpecs(int attribute_count)
+	{
+		JimmutableBuilder builder = new JimmutableBuilder(ItemSpecifications.TYPE_NAME);
+
+		builder.set(ItemSpecifications.FIELD_ITEM_KEY, new ItemKey("BRAND", "PN1234"));
+
+		for ( int i = 0; i < attribute_count; i++ )
+		{
+			builder.addMapEntry(ItemSpecifications.FIELD_ATTRIBUTES, new ItemAttribute("ATTRIBUTE_" + i), "value of attribute " + i);
+		}
+
+		return (ItemSpecifications)builder.create();
+	}
+}
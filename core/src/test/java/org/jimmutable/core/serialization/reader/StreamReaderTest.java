@@ -0,0 +1,163 @@
+package org.jimmutable.core.serialization.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.jimmutable.core.examples.book.BindingType;
+import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.examples.product_data.ItemAttribute;
+import org.jimmutable.core.examples.product_data.ItemKey;
+import org.jimmutable.core.examples.product_data.ItemSpecifications;
+import org.jimmutable.core.exceptions.SerializeException;
+import org.jimmutable.core.objects.JimmutableBuilder;
+import org.jimmutable.core.objects.StandardObject;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.serialization.writer.ObjectWriter;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class StreamReaderTest
+{
+	@BeforeClass
+	static public void register()
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+	}
+
+	static private Object readViaTree(String document)
+	{
+		return Parser.parse(document).asObject(null);
+	}
+
+	static private ItemSpecifications createSpecs()
+	{
+		JimmutableBuilder builder = new JimmutableBuilder(ItemSpecifications.TYPE_NAME);
+
+		builder.set(ItemSpecifications.FIELD_ITEM_KEY, new ItemKey("foo", "bar"));
+		builder.addMapEntry(ItemSpecifications.FIELD_ATTRIBUTES, new ItemAttribute("DOC_SRC_URL0"), "http://toolbox.legacyclassic.com/customer_images/assemblypdf/490-8900_Assembly.pdf");
+		builder.addMapEntry(ItemSpecifications.FIELD_ATTRIBUTES, new ItemAttribute("DOC_SRC_FILE0"), "FRBJHKQALSYB.PDF");
+		builder.addMapEntry(ItemSpecifications.FIELD_ATTRIBUTES, new ItemAttribute("COLOR"), "Red \"Fire Engine\" é");
+
+		return (ItemSpecifications)builder.create();
+	}
+
+	@Test
+	public void testSameAsTree()
+	{
+		assertTrue(ObjectParseTree.getStreamingConstructor(Book.TYPE_NAME) != null);
+		assertTrue(ObjectParseTree.getStreamingConstructor(ItemSpecifications.TYPE_NAME) != null);
+
+		Book books[] = {
+			new Book("The Hobbit", 310, "0-395-07122-4", BindingType.HARD_COVER, Arrays.asList("J.R.R. Tolkien", "Christopher Tolkien")),
+			new Book("No ISBN", 0, null, BindingType.TRADE_PAPER_BACK, Arrays.asList()),
+		};
+
+		for ( Book book : books )
+		{
+			String json = book.serialize(Format.JSON);
+
+			assertEquals(book, StreamReader.deserialize(json));
+			assertEquals(readViaTree(json), StreamReader.deserialize(json));
+			assertEquals(book, StreamReader.deserialize(book.serialize(Format.JSON_PRETTY_PRINT)));
+		}
+
+		ItemSpecifications specs = createSpecs();
+		String json = specs.serialize(Format.JSON);
+
+		ItemSpecifications streamed = (ItemSpecifications)StreamReader.deserialize(json);
+
+		assertEquals(specs, streamed);
+		assertEquals(readViaTree(json), streamed);
+		assertTrue(streamed.isComplete());
+		assertTrue(streamed.getSimpleItemKey().isComplete());
+		assertTrue(streamed.getSimpleAttributes().isFrozen());
+	}
+
+	@Test
+	public void testTokenBuffer()
+	{
+		ItemSpecifications specs = createSpecs();
+
+		assertEquals(specs, specs.deepClone());
+		assertEquals(specs, StreamReader.deserialize(ObjectWriter.serializeToTokenBuffer(specs)));
+	}
+
+	@Test
+	public void testFieldOrderAndUnknownFields()
+	{
+		String json = "{ \"type_hint\" : \"jimmutable.examples.Book\", \"publisher\" : { \"name\" : \"Allen & Unwin\", \"cities\" : [ \"London\" ] }, \"authors\" : \"J.R.R. Tolkien\", \"binding\" : \"hard-cover\", \"page_count\" : \"310\", \"title\" : \"the hobbit\", \"extra\" : [ 1, 2, 3 ] }";
+
+		Book book = (Book)StreamReader.deserialize(json);
+
+		assertEquals("THE HOBBIT", book.getSimpleTitle());
+		assertEquals(310, book.getSimplePageCount());
+		assertEquals(BindingType.HARD_COVER, book.getSimpleBinding());
+		assertEquals(Arrays.asList("J.R.R. Tolkien"), book.getSimpleAuthors());
+		assertEquals(readViaTree(json), book);
+	}
+
+	@Test
+	public void testDuplicateFields()
+	{
+		// As via the tree: the first value of a repeated field is kept, while
+		// the values of a repeated collection field are all read
+		String json = "{ \"type_hint\" : \"jimmutable.examples.Book\", \"title\" : \"first\", \"page_count\" : 10, \"binding\" : \"hard-cover\", \"authors\" : [ \"a\" ], \"title\" : \"second\", \"page_count\" : 20, \"authors\" : [ \"b\" ] }";
+
+		Book book = (Book)StreamReader.deserialize(json);
+
+		assertEquals("FIRST", book.getSimpleTitle());
+		assertEquals(10, book.getSimplePageCount());
+		assertEquals(Arrays.asList("a", "b"), book.getSimpleAuthors());
+		assertEquals(readViaTree(json), book);
+
+		// Repeats in a nested object are independent of those in the object holding it
+		json = "{ \"type_hint\" : \"jimmutable.examples.ItemSpecifications\", \"item_key\" : { \"type_hint\" : \"jimmutable.examples.ItemKey\", \"brand\" : \"foo\", \"pn\" : \"bar\", \"brand\" : \"baz\" }, \"attributes\" : [ { \"type_hint\" : \"MapEntry\", \"key\" : \"COLOR\", \"value\" : \"Red\" } ], \"item_key\" : { \"type_hint\" : \"jimmutable.examples.ItemKey\", \"brand\" : \"other\", \"pn\" : \"other\" } }";
+
+		ItemSpecifications specs = (ItemSpecifications)StreamReader.deserialize(json);
+
+		assertEquals(new ItemKey("foo", "bar"), specs.getSimpleItemKey());
+		assertEquals(readViaTree(json), specs);
+	}
+
+	@Test
+	public void testCompletePrimitives()
+	{
+		// Primitive values may be written as complete objects (this is what XML
+		// and mixed collections do), those are read via the tree
+		String json = "{ \"type_hint\" : \"jimmutable.examples.Book\", \"title\" : { \"type_hint\" : \"string\", \"primitive_value_base_64\" : \"VGhlIEhvYmJpdA==\" }, \"page_count\" : { \"type_hint\" : \"int\", \"primitive_value\" : 310 }, \"binding\" : \"hard-cover\", \"authors\" : [ \"a\", null, { \"type_hint\" : \"string\", \"primitive_value\" : \"b\" } ] }";
+
+		Book book = (Book)StreamReader.deserialize(json);
+
+		assertEquals("THE HOBBIT", book.getSimpleTitle());
+		assertEquals(310, book.getSimplePageCount());
+		assertEquals(Arrays.asList("a", "b"), book.getSimpleAuthors());
+		assertEquals(readViaTree(json), book);
+	}
+
+	@Test
+	public void testTreeFallback()
+	{
+		// A type without a (StreamReader) constructor, and a document whose type hint is not first
+		String json = "{ \"title\" : \"the hobbit\", \"type_hint\" : \"jimmutable.examples.Book\", \"page_count\" : 310, \"binding\" : \"hard-cover\" }";
+		assertEquals(readViaTree(json), StreamReader.deserialize(json));
+
+		assertEquals("hello", StreamReader.deserialize("{ \"type_hint\" : \"string\", \"primitive_value\" : \"hello\" }"));
+
+		assertEquals(createSpecs(), StandardObject.deserialize(createSpecs().serialize(Format.XML)));
+	}
+
+	@Test(expected = SerializeException.class)
+	public void testInvalidObject()
+	{
+		StreamReader.deserialize("{ \"type_hint\" : \"jimmutable.examples.Book\", \"title\" : \"the hobbit\", \"page_count\" : -5, \"binding\" : \"hard-cover\" }");
+	}
+
+	@Test(expected = SerializeException.class)
+	public void testTruncatedDocument()
+	{
+		StreamReader.deserialize("{ \"type_hint\" : \"jimmutable.examples.Book\", \"title\" : \"the hobbit\", ");
+	}
+}
@@ -0,0 +1,46 @@
+package org.jimmutable.core.serialization.writer;
+
+import java.util.Arrays;
+
+import org.jimmutable.core.examples.book.BindingType;
+import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.utils.MicroBenchmark;
+
+/**
+ * Measures the time and allocation of serializing a small object (a Book) in
+ * each format, both to a String and to bytes. For small objects the cost of
+ * creating the LowLevelWriter (factories, generator buffers) is a large part
+ * of the total.
+ *
+ * Run via main(), not part of the unit test suite
+ *
+ * @author jim.kane
+ *
+ */
+public class LowLevelWriterBenchmark
+{
+	static private final int DOCUMENTS_PER_ROUND = 1_000;
+
+	static public void main(String args[])
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+
+		Book book = new Book("The Hobbit", 310, "0-395-07122-4", BindingType.HARD_COVER, Arrays.asList("J.R.R. Tolkien", "Christopher Tolkien"));
+
+		for ( Format format : new Format[] { Format.JSON, Format.JSON_PRETTY_PRINT, Format.XML } )
+		{
+			MicroBenchmark.run("Book serialize " + format, DOCUMENTS_PER_ROUND, () -> () -> {
+				for ( int i = 0; i < DOCUMENTS_PER_ROUND; i++ ) ObjectWriter.serialize(format, book);
+			});
+		}
+
+		for ( Format format : new Format[] { Format.JSON, Format.SMILE } )
+		{
+			MicroBenchmark.run("Book serializeToBytes " + format, DOCUMENTS_PER_ROUND, () -> () -> {
+				for ( int i = 0; i < DOCUMENTS_PER_ROUND; i++ ) ObjectWriter.serializeToBytes(format, book);
+			});
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package org.jimmutable.core.small_document;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.jimmutable.core.objects.common.USDMonetaryAmount;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.threading.OperationRunnable;
+import org.jimmutable.core.threading.OperationRunnable.Result;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SmallDocumentArchiveTest
+{
+	static private final int SIZE = 1_000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+	}
+
+	static private String createDocumentN(int n)
+	{
+		StringBuilder ret = new StringBuilder();
+		for ( int i = 0; i < n % 50; i++ ) ret.append("café-").append(n);
+
+		return ret.toString();
+	}
+
+	static private String groupOf(int n)
+	{
+		return n % 10 == 0 ? null : "group-" + (n % 3);
+	}
+
+	private File createArchive() throws Exception
+	{
+		File ret = folder.newFile();
+
+		SmallDocumentArchiveWriter out = new SmallDocumentArchiveWriter(new FileOutputStream(ret));
+		for ( int i = 0; i < SIZE; i++ ) out.writeDocument(groupOf(i), createDocumentN(i));
+		out.close();
+
+		return ret;
+	}
+
+	@Test
+	public void testRandomAccess() throws Exception
+	{
+		File file = createArchive();
+
+		// A small segment size, so that documents are found in many (overlapping) segments
+		for ( int segment_size : new int[] { 1 << 30, 4096 } )
+		{
+			try ( SmallDocumentArchive archive = new SmallDocumentArchive(file, segment_size) )
+			{
+				assertEquals(SIZE, archive.getSimpleDocumentCount());
+				assertEquals(Arrays.asList("group-1", "group-2", "group-0"), archive.getSimpleGroupNames());
+
+				for ( int k = SIZE - 1; k >= 0; k -= 7 )
+				{
+					assertEquals(createDocumentN(k), archive.getSimpleDocument(k));
+					assertEquals(groupOf(k), archive.getOptionalGroup(k, null));
+
+					ByteBuffer buffer = archive.getSimpleDocumentBuffer(k);
+					assertTrue(buffer.isReadOnly());
+					assertEquals(createDocumentN(k).getBytes(StandardCharsets.UTF_8).length, buffer.remaining());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testReadableAsSmallDocumentFile() throws Exception
+	{
+		SmallDocumentReader r = new SmallDocumentReader(new FileInputStream(createArchive()));
+
+		for ( int i = 0; i < SIZE; i++ )
+		{
+			assertEquals(SmallDocumentSource.State.DOCUMENT_AVAILABLE, r.readNextDocument());
+			assertEquals(createDocumentN(i), r.getCurrentDocument(null));
+		}
+
+		assertEquals(SmallDocumentSource.State.NO_MORE_DOCUMENTS, r.readNextDocument());
+	}
+
+	@Test
+	public void testGroups() throws Exception
+	{
+		try ( SmallDocumentArchive archive = new SmallDocumentArchive(createArchive()) )
+		{
+			int documents[] = archive.getSimpleDocumentsInGroup("group-2");
+
+			int expected[] = new int[SIZE];
+			int count = 0;
+			for ( int i = 0; i < SIZE; i++ ) if ( "group-2".equals(groupOf(i)) ) expected[count++] = i;
+
+			assertArrayEquals(Arrays.copyOf(expected, count), documents);
+			assertEquals(0, archive.getSimpleDocumentsInGroup("no-such-group").length);
+		}
+	}
+
+	@Test
+	public void testParallelScan() throws Exception
+	{
+		try ( SmallDocumentArchive archive = new SmallDocumentArchive(createArchive()) )
+		{
+			AtomicIntegerArray seen = new AtomicIntegerArray(SIZE);
+
+			assertEquals(Result.SUCCESS, OperationRunnable.execute(archive.createScan(4, (k, document) ->
+			{
+				assertEquals(createDocumentN(k), StandardCharsets.UTF_8.decode(document).toString());
+				seen.incrementAndGet(k);
+			}), null));
+
+			for ( int k = 0; k < SIZE; k++ ) assertEquals(1, seen.get(k));
+
+			AtomicIntegerArray seen_in_group = new AtomicIntegerArray(SIZE);
+
+			assertEquals(Result.SUCCESS, OperationRunnable.execute(archive.createScan("group-0", 3, (k, document) -> seen_in_group.incrementAndGet(k)), null));
+
+			for ( int k = 0; k < SIZE; k++ ) assertEquals("group-0".equals(groupOf(k)) ? 1 : 0, seen_in_group.get(k));
+
+			assertEquals(Result.SUCCESS, OperationRunnable.execute(archive.createScan("no-such-group", 3, (k, document) -> fail()), null));
+		}
+	}
+
+	@Test
+	public void testObjects() throws Exception
+	{
+		File file = folder.newFile();
+
+		SmallDocumentArchiveWriter out = new SmallDocumentArchiveWriter(new FileOutputStream(file));
+		for ( int i = 0; i < 10; i++ ) out.writeObject(new USDMonetaryAmount(i));
+		out.close();
+
+		try ( SmallDocumentArchive archive = new SmallDocumentArchive(file) )
+		{
+			assertEquals(Arrays.asList(USDMonetaryAmount.TYPE_NAME.getSimpleName()), archive.getSimpleGroupNames());
+			assertEquals(new USDMonetaryAmount(7), archive.getSimpleObject(7));
+		}
+	}
+
+	@Test
+	public void testNotAnArchive() throws Exception
+	{
+		File file = folder.newFile();
+
+		try ( FileOutputStream out = new FileOutputStream(file) )
+		{
+			out.write("<?a?>A<?a?><?a?>--end-of-file--<?a?>".getBytes(StandardCharsets.UTF_8));
+		}
+
+		try
+		{
+			new SmallDocumentArchive(file).close();
+			fail();
+		}
+		catch ( IOException e )
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package org.jimmutable.core.small_document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+import org.jimmutable.core.objects.common.USDMonetaryAmount;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.threading.OperationRunnable;
+import org.jimmutable.core.threading.OperationRunnable.Result;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SmallDocumentBlockTest
+{
+	static private final int SIZE = 2_000;
+	static private final int BLOCK_SIZE = 16*1024;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+	}
+
+	static private String createDocumentN(int n)
+	{
+		return new USDMonetaryAmount(n).serialize(Format.JSON) + " café ".repeat(n % 20);
+	}
+
+	static private byte[] createBlockCompressed(int size) throws Exception
+	{
+		ByteArrayOutputStream ret = new ByteArrayOutputStream();
+
+		SmallDocumentWriter out = SmallDocumentWriter.createBlockCompressed(ret, BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+		for ( int i = 0; i < size; i++ ) out.writeDocument(createDocumentN(i));
+		out.close();
+
+		return ret.toByteArray();
+	}
+
+	static private byte[] createPlain(int size) throws Exception
+	{
+		ByteArrayOutputStream ret = new ByteArrayOutputStream();
+
+		SmallDocumentWriter out = new SmallDocumentWriter(new OutputStreamWriter(ret, StandardCharsets.UTF_8));
+		for ( int i = 0; i < size; i++ ) out.writeDocument(createDocumentN(i));
+		out.close();
+
+		return ret.toByteArray();
+	}
+
+	static private void assertReadsAll(SmallDocumentSource r, int from, int size)
+	{
+		for ( int i = from; i < size; i++ )
+		{
+			assertEquals(SmallDocumentSource.State.DOCUMENT_AVAILABLE, r.readNextDocument());
+			assertEquals(createDocumentN(i), r.getCurrentDocument(null));
+		}
+
+		assertEquals(SmallDocumentSource.State.NO_MORE_DOCUMENTS, r.readNextDocument());
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception
+	{
+		byte compressed[] = createBlockCompressed(SIZE);
+
+		assertTrue(compressed.length * 3 < createPlain(SIZE).length);
+
+		for ( int threads : new int[] { 1, 4 } )
+			assertReadsAll(new SmallDocumentBlockReader(new ByteArrayInputStream(compressed), threads), 0, SIZE);
+	}
+
+	@Test
+	public void testOpenDetectsFormat() throws Exception
+	{
+		SmallDocumentSource compressed = SmallDocumentSource.open(new ByteArrayInputStream(createBlockCompressed(SIZE)));
+		assertTrue(compressed instanceof SmallDocumentBlockReader);
+		assertReadsAll(compressed, 0, SIZE);
+
+		SmallDocumentSource plain = SmallDocumentSource.open(new ByteArrayInputStream(createPlain(SIZE)));
+		assertTrue(plain instanceof SmallDocumentReader);
+		assertReadsAll(plain, 0, SIZE);
+	}
+
+	@Test
+	public void testBlockIndex() throws Exception
+	{
+		File file = folder.newFile();
+
+		try ( FileOutputStream out = new FileOutputStream(file) )
+		{
+			out.write(createBlockCompressed(SIZE));
+		}
+
+		SmallDocumentBlockReader.BlockIndex index = SmallDocumentBlockReader.readBlockIndex(file);
+
+		assertTrue(index.getSimpleBlockCount() > 10);
+		assertEquals(8, index.getSimpleBlockOffset(0));
+		assertEquals(0, index.getSimpleFirstDocument(0));
+
+		// Start reading part way through the file
+		int block = index.getSimpleBlockCount() / 2;
+
+		assertReadsAll(new SmallDocumentBlockReader(file, index.getSimpleBlockOffset(block), 2), (int)index.getSimpleFirstDocument(block), SIZE);
+		assertReadsAll(new SmallDocumentBlockReader(file, 0, 2), 0, SIZE);
+	}
+
+	@Test
+	public void testSplitAcrossReaders() throws Exception
+	{
+		File file = folder.newFile();
+
+		try ( FileOutputStream out = new FileOutputStream(file) )
+		{
+			out.write(createBlockCompressed(SIZE));
+		}
+
+		SmallDocumentBlockReader.BlockIndex index = SmallDocumentBlockReader.readBlockIndex(file);
+
+		// Three runs of blocks, the last one runs to the end of the file
+		int block_count = index.getSimpleBlockCount();
+		int starts[] = { 0, block_count / 3, block_count * 2 / 3, block_count };
+
+		for ( int i = 0; i < 3; i++ )
+		{
+			int from = (int)index.getSimpleFirstDocument(starts[i]);
+			int to = starts[i + 1] == block_count ? SIZE : (int)index.getSimpleFirstDocument(starts[i + 1]);
+
+			SmallDocumentBlockReader r = new SmallDocumentBlockReader(file, index.getSimpleBlockOffset(starts[i]), starts[i + 1] - starts[i], 2);
+
+			assertReadsAll(r, from, to);
+			r.close(); // again, harmless
+		}
+
+		// A run past the last block just ends at the EOF document
+		assertReadsAll(new SmallDocumentBlockReader(file, index.getSimpleBlockOffset(block_count - 1), 100, 2), (int)index.getSimpleFirstDocument(block_count - 1), SIZE);
+	}
+
+	@Test
+	public void testTruncated() throws Exception
+	{
+		byte compressed[] = createBlockCompressed(SIZE);
+
+		SmallDocumentBlockReader r = new SmallDocumentBlockReader(new ByteArrayInputStream(Arrays.copyOf(compressed, compressed.length / 2)), 2);
+
+		// Every document in the blocks before the truncation is read, then an error
+		int count = 0;
+		while ( r.readNextDocument() == SmallDocumentSource.State.DOCUMENT_AVAILABLE ) assertEquals(createDocumentN(count++), r.getCurrentDocument(null));
+
+		assertEquals(SmallDocumentSource.State.ERROR_ENCOUNTERED, r.getSimpleState());
+		assertTrue(count > SIZE / 4);
+	}
+
+	@Test
+	public void testBulkLoad() throws Exception
+	{
+		AtomicLong total = new AtomicLong();
+
+		SmallDocumentBulkLoader loader = new SmallDocumentBulkLoader(new ByteArrayInputStream(createBlockCompressed(SIZE)), object -> total.addAndGet(((USDMonetaryAmount)object).getSimpleAmountInCents()));
+
+		assertEquals(Result.SUCCESS, OperationRunnable.execute(loader, null));
+		assertEquals(SIZE, loader.getSimpleDeliveredCount());
+		assertEquals((long)SIZE * (SIZE - 1) / 2, total.get());
+	}
+}
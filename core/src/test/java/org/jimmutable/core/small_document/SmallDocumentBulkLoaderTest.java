@@ -0,0 +1,167 @@
+package org.jimmutable.core.small_document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jimmutable.core.objects.StandardObject;
+import org.jimmutable.core.objects.common.USDMonetaryAmount;
+import org.jimmutable.core.serialization.Format;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.threading.OperationRunnable;
+import org.jimmutable.core.threading.OperationRunnable.Result;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SmallDocumentBulkLoaderTest
+{
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+	}
+
+	static private String createFile(int size, boolean close) throws Exception
+	{
+		StringWriter ret = new StringWriter();
+		SmallDocumentWriter out = new SmallDocumentWriter(ret);
+
+		for ( int i = 0; i < size; i++ )
+		{
+			if ( i == 7 ) out.writeDocument("this is not an object");
+			out.writeDocument(new USDMonetaryAmount(i).serialize(Format.JSON));
+		}
+
+		if ( close ) out.close();
+		else out.flush();
+
+		return ret.toString();
+	}
+
+	static private class RecordingListener implements SmallDocumentBulkLoader.Listener
+	{
+		private List<Long> amounts = new ArrayList<>();
+		private int batch_count = 0;
+		private int largest_batch = 0;
+
+		public void onObjectLoaded(StandardObject object)
+		{
+			amounts.add(((USDMonetaryAmount)object).getSimpleAmountInCents());
+		}
+
+		public void onObjectsLoaded(List<StandardObject> objects)
+		{
+			batch_count++;
+			largest_batch = Math.max(largest_batch, objects.size());
+
+			SmallDocumentBulkLoader.Listener.super.onObjectsLoaded(objects);
+		}
+	}
+
+	@Test
+	public void testOrderedBatches() throws Exception
+	{
+		int size = 5_000;
+
+		RecordingListener listener = new RecordingListener();
+		SmallDocumentBulkLoader loader = new SmallDocumentBulkLoader(new SmallDocumentReader(new StringReader(createFile(size, true))), listener, 4, 64, true, 10);
+
+		assertEquals(Result.SUCCESS, OperationRunnable.execute(loader, null));
+
+		assertEquals(size, listener.amounts.size());
+		for ( int i = 0; i < size; i++ )
+			assertEquals(i, (long)listener.amounts.get(i));
+
+		assertTrue(listener.largest_batch <= 10);
+		assertTrue(listener.batch_count >= size / 10);
+
+		assertEquals(size + 1, loader.getSimpleReadCount());
+		assertEquals(size, loader.getSimpleParsedCount());
+		assertEquals(1, loader.getSimpleParseErrorCount());
+		assertEquals(size, loader.getSimpleDeliveredCount());
+		assertEquals(0, loader.getSimpleInFlightCount());
+	}
+
+	@Test
+	public void testUnordered() throws Exception
+	{
+		int size = 5_000;
+
+		RecordingListener listener = new RecordingListener();
+		SmallDocumentBulkLoader loader = new SmallDocumentBulkLoader(new StringReader(createFile(size, true)), listener);
+
+		assertEquals(Result.SUCCESS, OperationRunnable.execute(loader, null));
+
+		Collections.sort(listener.amounts);
+
+		assertEquals(size, listener.amounts.size());
+		for ( int i = 0; i < size; i++ )
+			assertEquals(i, (long)listener.amounts.get(i));
+	}
+
+	@Test
+	public void testBoundedInFlight() throws Exception
+	{
+		int max_in_flight = 16;
+		long max_seen[] = new long[1];
+		SmallDocumentBulkLoader loader[] = new SmallDocumentBulkLoader[1];
+
+		// A slow listener, the reader must wait for it rather than run ahead
+		SmallDocumentBulkLoader.Listener listener = object ->
+		{
+			max_seen[0] = Math.max(max_seen[0], loader[0].getSimpleInFlightCount());
+			Thread.yield();
+		};
+
+		loader[0] = new SmallDocumentBulkLoader(new SmallDocumentReader(new StringReader(createFile(2_000, true))), listener, 2, max_in_flight, false, 1);
+
+		assertEquals(Result.SUCCESS, OperationRunnable.execute(loader[0], null));
+		assertEquals(2_000, loader[0].getSimpleDeliveredCount());
+		assertTrue(max_seen[0] <= max_in_flight);
+	}
+
+	@Test
+	public void testBoundedInFlightBatched() throws Exception
+	{
+		int max_in_flight = 16;
+		boolean bounded[] = { true };
+		SmallDocumentBulkLoader loader[] = new SmallDocumentBulkLoader[1];
+
+		// The documents of a batch stay in flight until the listener returns
+		SmallDocumentBulkLoader.Listener listener = new SmallDocumentBulkLoader.Listener()
+		{
+			public void onObjectLoaded(StandardObject object) {}
+
+			public void onObjectsLoaded(List<StandardObject> objects)
+			{
+				long read_not_delivered = loader[0].getSimpleReadCount() - loader[0].getSimpleDeliveredCount() - loader[0].getSimpleParseErrorCount();
+
+				bounded[0] &= objects.size() <= 8;
+				bounded[0] &= loader[0].getSimpleInFlightCount() >= objects.size();
+				bounded[0] &= read_not_delivered <= max_in_flight;
+				Thread.yield();
+			}
+		};
+
+		loader[0] = new SmallDocumentBulkLoader(new SmallDocumentReader(new StringReader(createFile(2_000, true))), listener, 2, max_in_flight, true, 8);
+
+		assertEquals(Result.SUCCESS, OperationRunnable.execute(loader[0], null));
+		assertEquals(2_000, loader[0].getSimpleDeliveredCount());
+		assertEquals(0, loader[0].getSimpleInFlightCount());
+		assertTrue(bounded[0]);
+	}
+
+	@Test
+	public void testTruncatedFile() throws Exception
+	{
+		RecordingListener listener = new RecordingListener();
+		SmallDocumentBulkLoader loader = new SmallDocumentBulkLoader(new SmallDocumentReader(new StringReader(createFile(100, false))), listener, 2, 8, true, 1);
+
+		assertEquals(Result.ERROR, OperationRunnable.execute(loader, null));
+	}
+}
@@ -0,0 +1,70 @@
+package org.jimmutable.core.small_document;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Measures SmallDocumentReader throughput over an in memory, UTF-8 encoded
+ * file of 1 KB documents, reading through a Reader (the char window) and
+ * directly from the InputStream (the byte window).
+ *
+ * Run via main(), not part of the unit test suite
+ *
+ * @author jim.kane
+ *
+ */
+public class SmallDocumentReaderBenchmark
+{
+	static private final int DOCUMENT_COUNT = 100_000;
+	static private final int ROUNDS = 5;
+
+	static private byte[] createFile() throws Exception
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		SmallDocumentWriter out = new SmallDocumentWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+
+		StringBuilder document = new StringBuilder();
+
+		for ( int i = 0; i < DOCUMENT_COUNT; i++ )
+		{
+			document.setLength(0);
+			while ( document.length() < 1024 ) document.append("<field>").append(i).append("</field>");
+
+			out.writeDocument(document.toString());
+		}
+
+		out.close();
+
+		return bytes.toByteArray();
+	}
+
+	static private void run(String label, byte[] file, Function<byte[], SmallDocumentSource> open)
+	{
+		for ( int round = 0; round < ROUNDS; round++ )
+		{
+			long start = System.nanoTime();
+
+			SmallDocumentSource r = open.apply(file);
+
+			int count = 0;
+			while ( r.readNextDocument() == SmallDocumentSource.State.DOCUMENT_AVAILABLE ) count++;
+
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			if ( round == ROUNDS - 1 )
+				System.out.println(String.format("%-30s %,d documents, %8.1f MB/s", label, count, file.length / seconds / 1024 / 1024));
+		}
+	}
+
+	static public void main(String args[]) throws Exception
+	{
+		byte[] file = createFile();
+
+		run("Reader", file, bytes -> new SmallDocumentReader(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)));
+		run("InputStream (UTF-8 bytes)", file, bytes -> new SmallDocumentReader(new ByteArrayInputStream(bytes)));
+	}
+}
@@ -1,7 +1,10 @@
 package org.jimmutable.core.small_document;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.io.StringWriter;
 
 import org.jimmutable.core.small_document.SmallDocumentReader;
@@ -86,6 +89,128 @@ public class SmallDocumentTest  extends TestCase
     	assertEquals(r.readNextDocument(), SmallDocumentSource.State.ERROR_ENCOUNTERED);
     }
     
+    public void testReadingFromUTF8Stream()
+    {
+    	int size = 100;
+    	
+    	String documents = createNDocumentsUsingWriter(size);
+    	
+    	SmallDocumentReader r = new SmallDocumentReader(new ByteArrayInputStream(documents.getBytes(StandardCharsets.UTF_8)));
+    	
+    	for ( int i = 0; i < size; i++ )
+    	{
+    		assertEquals(r.readNextDocument(), SmallDocumentSource.State.DOCUMENT_AVAILABLE);
+    		assertEquals(r.getCurrentDocument(null),createDocumentN(i));
+    	}
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.NO_MORE_DOCUMENTS);
+    }
+    
+    public void testMultiByteCharacters()
+    {
+    	String documents = "<?a?>caf\u00e9 \u65e5\u672c<?a?>\n<?b?>\ud83d\ude00<?b?>\n<?a?>--end-of-file--<?a?>";
+    	
+    	SmallDocumentReader r = new SmallDocumentReader(new ByteArrayInputStream(documents.getBytes(StandardCharsets.UTF_8)));
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.DOCUMENT_AVAILABLE);
+    	assertEquals(r.getCurrentDocument(null),"caf\u00e9 \u65e5\u672c");
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.DOCUMENT_AVAILABLE);
+    	assertEquals(r.getCurrentDocument(null),"\ud83d\ude00");
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.NO_MORE_DOCUMENTS);
+    }
+    
+    /**
+     * Delivering one character per read splits every delimiter across reads
+     */
+    public void testOneCharacterReads()
+    {
+    	int size = 10;
+    	
+    	String documents = " <?>A<?> <?a?><?a?>" + createNDocumentsUsingWriter(size);
+    	
+    	SmallDocumentReader r = new SmallDocumentReader(new OneCharacterReader(documents));
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.DOCUMENT_AVAILABLE);
+    	assertEquals(r.getCurrentDocument(null),"A");
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.DOCUMENT_AVAILABLE);
+    	assertEquals(r.getCurrentDocument(null),"");
+    	
+    	for ( int i = 0; i < size; i++ )
+    	{
+    		assertEquals(r.readNextDocument(), SmallDocumentSource.State.DOCUMENT_AVAILABLE);
+    		assertEquals(r.getCurrentDocument(null),createDocumentN(i));
+    	}
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.NO_MORE_DOCUMENTS);
+    }
+    
+    /**
+     * Documents much bigger than the reader's initial window
+     */
+    public void testLargeDocuments()
+    {
+    	StringBuilder big = new StringBuilder();
+    	while ( big.length() < 1024*1024 ) big.append("0123456789abcdef");
+    	
+    	String documents = "<?a?>" + big + "<?a?>\n<?b?>small<?b?>\n<?c?>" + big + big + "<?c?><?a?>--end-of-file--<?a?>";
+    	
+    	SmallDocumentReader r = new SmallDocumentReader(new StringReader(documents));
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.DOCUMENT_AVAILABLE);
+    	assertEquals(r.getCurrentDocument(null),big.toString());
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.DOCUMENT_AVAILABLE);
+    	assertEquals(r.getCurrentDocument(null),"small");
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.DOCUMENT_AVAILABLE);
+    	assertEquals(r.getCurrentDocument(null),big.toString() + big);
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.NO_MORE_DOCUMENTS);
+    }
+    
+    public void testTruncatedRead()
+    {
+    	String documents = createNDocumentsUsingWriter(3);
+    	
+    	SmallDocumentReader r = new SmallDocumentReader(new StringReader(documents.substring(0, documents.length() - 10)));
+    	
+    	for ( int i = 0; i < 3; i++ )
+    		assertEquals(r.readNextDocument(), SmallDocumentSource.State.DOCUMENT_AVAILABLE);
+    	
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.ERROR_ENCOUNTERED);
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.ERROR_ENCOUNTERED);
+    }
+    
+    public void testOverlongDelimiter()
+    {
+    	SmallDocumentReader r = new SmallDocumentReader(new StringReader("<?0123456789012345678901234567890123456789?>A<?0123456789012345678901234567890123456789?>"));
+    	assertEquals(r.readNextDocument(), SmallDocumentSource.State.ERROR_ENCOUNTERED);
+    }
+    
+    static private class OneCharacterReader extends Reader
+    {
+    	private String src;
+    	private int position = 0;
+    	
+    	public OneCharacterReader(String src)
+    	{
+    		this.src = src;
+    	}
+    	
+    	public int read(char[] cbuf, int off, int len)
+    	{
+    		if ( position >= src.length() ) return -1;
+    		
+    		cbuf[off] = src.charAt(position++);
+    		return 1;
+    	}
+    	
+    	public void close() {}
+    }
+    
     private String createNDocumentsUsingWriter(int size)
     {
     	try
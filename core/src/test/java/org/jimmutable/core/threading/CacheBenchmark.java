@@ -0,0 +1,97 @@
+package org.jimmutable.core.threading;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compares LRUCache (ConcurrentCache) to the synchronized LinkedHashMap it
+ * used to be, with 32 request threads looking up a skewed (zipf like) key
+ * distribution and putting on a miss. Reports throughput and hit rate.
+ *
+ * Run via main(), not part of the unit test suite
+ *
+ * @author jim.kane
+ *
+ */
+public class CacheBenchmark
+{
+	static private final int THREADS = 32;
+	static private final int OPS_PER_THREAD = 500_000;
+	static private final int CACHE_SIZE = 10_000;
+	static private final int KEY_SPACE = 200_000;
+
+	static private int[] createKeys(long seed)
+	{
+		Random random = new Random(seed);
+		int[] ret = new int[OPS_PER_THREAD];
+
+		// Roughly zipf: the cube of a uniform variate favors small keys
+		for ( int i = 0; i < ret.length; i++ )
+		{
+			double u = random.nextDouble();
+			ret[i] = (int)(u * u * u * KEY_SPACE);
+		}
+
+		return ret;
+	}
+
+	static private void run(String label, Function<Integer, Integer> get, BiConsumer<Integer, Integer> put) throws Exception
+	{
+		AtomicLong hits = new AtomicLong();
+		List<Thread> threads = new ArrayList<>();
+
+		for ( int t = 0; t < THREADS; t++ )
+		{
+			int[] keys = createKeys(t);
+
+			threads.add(new Thread(() ->
+			{
+				long thread_hits = 0;
+
+				for ( int key : keys )
+				{
+					if ( get.apply(key) != null ) thread_hits++;
+					else put.accept(key, key);
+				}
+
+				hits.addAndGet(thread_hits);
+			}));
+		}
+
+		long start = System.nanoTime();
+
+		for ( Thread thread : threads ) thread.start();
+		for ( Thread thread : threads ) thread.join();
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long ops = (long)THREADS * OPS_PER_THREAD;
+
+		System.out.println(String.format("%-40s %12.0f ops/s, hit rate %.1f%%", label, ops / seconds, hits.get() * 100.0 / ops));
+	}
+
+	static public void main(String args[]) throws Exception
+	{
+		for ( int round = 0; round < 3; round++ )
+		{
+			Map<Integer, Integer> synchronized_lru = Collections.synchronizedMap(new LinkedHashMap<Integer, Integer>(16, 0.75f, true)
+			{
+				protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest)
+				{
+					return size() > CACHE_SIZE;
+				}
+			});
+
+			run("synchronized LinkedHashMap (old)", synchronized_lru::get, synchronized_lru::put);
+
+			LRUCache<Integer, Integer> cache = new LRUCache<>(CACHE_SIZE);
+			run("LRUCache (W-TinyLFU)", key -> cache.get(key, null), cache::put);
+		}
+	}
+}
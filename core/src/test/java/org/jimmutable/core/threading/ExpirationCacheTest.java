@@ -37,4 +37,70 @@ public class ExpirationCacheTest extends TestCase
 		cache.remove("Statler");
 		assertFalse(cache.has("Statler"));
 	}
+
+	@Test
+	public void testPerEntryTimeToLive() throws InterruptedException
+	{
+		cache = new ExpirationCache<>(10_000, 10);
+		cache.put("Statler", "Waldorf", 50);
+		cache.put("Kermit", "Piggy");
+		Thread.sleep(100);
+		assertFalse(cache.has("Statler"));
+		assertTrue(cache.has("Kermit"));
+
+		// A put refreshes (or overrides) the time to live
+		cache.put("Kermit", "Piggy", 50);
+		cache.put("Kermit", "Piggy");
+		Thread.sleep(100);
+		assertTrue(cache.has("Kermit"));
+	}
+
+	@Test
+	public void testExpiredEntriesAreReclaimed() throws InterruptedException
+	{
+		cache = new ExpirationCache<>(50, 100_000);
+		for ( int i = 0; i < 1_000; i++ )
+			cache.put("key" + i, "value");
+
+		assertEquals(1_000, cache.size());
+
+		Thread.sleep(150);
+		cache.cleanUp();
+
+		// Reclaimed without anyone looking them up
+		assertEquals(0, cache.size());
+		assertEquals(1_000, cache.getSimpleStats().getSimpleEvictionCount());
+	}
+
+	@Test
+	public void testExpiredEntriesDoNotCrowdOutLiveOnes() throws InterruptedException
+	{
+		cache = new ExpirationCache<>(50, 100);
+		for ( int i = 0; i < 100; i++ )
+			cache.put("old" + i, "value");
+
+		Thread.sleep(150);
+
+		for ( int i = 0; i < 100; i++ )
+			cache.put("new" + i, "value");
+
+		for ( int i = 0; i < 100; i++ )
+			assertTrue(cache.has("new" + i));
+	}
+
+	@Test
+	public void testWeightBound()
+	{
+		cache = new ExpirationCache<>(10_000, 100L, ( key, value ) -> value.length());
+		for ( int i = 0; i < 50; i++ )
+			cache.put("key" + i, "0123456789");
+
+		assertTrue(cache.size() <= 10);
+		assertTrue(cache.has("key49"));
+
+		// Heavier than the whole cache, so not kept
+		cache.put("huge", new String(new char[101]));
+		assertFalse(cache.has("huge"));
+		assertTrue(cache.has("key49"));
+	}
 }
@@ -0,0 +1,205 @@
+package org.jimmutable.core.threading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import javax.management.MBeanServer;
+
+import org.jimmutable.core.threading.OperationRunnable.Result;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OperationMetricsTest
+{
+	static private class TimedOperation extends OperationRunnable
+	{
+		private long millis;
+		private Result result;
+
+		TimedOperation(long millis, Result result)
+		{
+			this.millis = millis;
+			this.result = result;
+		}
+
+		protected Result performOperation() throws Exception
+		{
+			Thread.sleep(millis);
+			if ( result == null ) throw new Exception("Intentional failure");
+			return result;
+		}
+	}
+
+	static private class BlockedOperation extends OperationRunnable
+	{
+		private CountDownLatch started = new CountDownLatch(1);
+		private CountDownLatch release = new CountDownLatch(1);
+
+		protected Result performOperation() throws Exception
+		{
+			started.countDown();
+			release.await();
+			return Result.SUCCESS;
+		}
+	}
+
+	static private class ExportedOperation extends OperationRunnable
+	{
+		protected Result performOperation() throws Exception
+		{
+			return Result.SUCCESS;
+		}
+	}
+
+	/**
+	 * The statistics are global, so every test starts from zero
+	 */
+	@Before
+	public void setUp()
+	{
+		OperationMetrics.reset();
+	}
+
+	@Test
+	public void testCountsAndPercentiles()
+	{
+		List<OperationRunnable> operations = new ArrayList<>();
+
+		for ( int i = 0; i < 18; i++ ) operations.add(new TimedOperation(1, Result.SUCCESS));
+		operations.add(new TimedOperation(100, Result.SUCCESS));
+		operations.add(new TimedOperation(1, null)); // throws, so an ERROR
+
+		assertEquals(Result.ERROR, OperationRunnable.execute(new OperationPool(operations, 1), null));
+
+		OperationStats stats = OperationMetrics.getOptionalStats(TimedOperation.class, null);
+
+		assertEquals(19, stats.getSimpleSuccessCount());
+		assertEquals(1, stats.getSimpleErrorCount());
+		assertEquals(20, stats.getSimpleFinishedCount());
+		assertEquals(0, stats.getSimpleInFlightCount());
+
+		assertTrue(stats.getSimpleRunTimePercentileMillis(50) < 50);
+		assertTrue(stats.getSimpleRunTimePercentileMillis(100) >= 100 * 0.875);
+		assertEquals(stats.getSimpleMaxRunTimeMillis(), stats.getSimpleRunTimePercentileMillis(100), 0.001);
+
+		// The pool itself is an operation too
+		assertEquals(1, OperationMetrics.getOptionalStats(OperationPool.class, null).getSimpleErrorCount());
+	}
+
+	@Test
+	public void testInFlight() throws Exception
+	{
+		BlockedOperation operation = new BlockedOperation();
+
+		Thread thread = new Thread(operation);
+		thread.start();
+		operation.started.await();
+
+		assertEquals(1, OperationMetrics.getOptionalStats(BlockedOperation.class, null).getSimpleInFlightCount());
+
+		operation.release.countDown();
+		thread.join();
+
+		assertEquals(0, OperationMetrics.getOptionalStats(BlockedOperation.class, null).getSimpleInFlightCount());
+	}
+
+	@Test
+	public void testExporters() throws Exception
+	{
+		JSONOperationMetricsExporter json = new JSONOperationMetricsExporter();
+		OperationMetrics.addExporter(json);
+		OperationMetrics.addExporter(new JMXOperationMetricsExporter());
+
+		try
+		{
+			OperationRunnable.execute(new ExportedOperation(), null);
+			OperationRunnable.execute(new ExportedOperation(), null);
+
+			String snapshot = json.createSnapshot();
+			assertTrue(snapshot, snapshot.contains("{\"class\":\"" + ExportedOperation.class.getName() + "\",\"in_flight\":0,\"success\":2,\"error\":0"));
+
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertEquals(2L, server.getAttribute(JMXOperationMetricsExporter.createObjectName(ExportedOperation.class.getName()), "SuccessCount"));
+		}
+		finally
+		{
+			OperationMetrics.removeExporter(json);
+		}
+	}
+
+	@Test
+	public void testReset() throws Exception
+	{
+		JSONOperationMetricsExporter json = new JSONOperationMetricsExporter();
+		OperationMetrics.addExporter(json);
+
+		try
+		{
+			OperationRunnable.execute(new ExportedOperation(), null);
+			OperationRunnable.execute(new ExportedOperation(), null);
+			assertEquals(2, OperationMetrics.getOptionalStats(ExportedOperation.class, null).getSimpleSuccessCount());
+
+			OperationMetrics.reset();
+			assertNull(OperationMetrics.getOptionalStats(ExportedOperation.class, null));
+			assertTrue(OperationMetrics.getSimpleAllStats().isEmpty());
+
+			OperationRunnable.execute(new ExportedOperation(), null);
+			assertEquals(1, OperationMetrics.getOptionalStats(ExportedOperation.class, null).getSimpleSuccessCount());
+
+			String snapshot = json.createSnapshot();
+			assertTrue(snapshot, snapshot.contains("{\"class\":\"" + ExportedOperation.class.getName() + "\",\"in_flight\":0,\"success\":1,"));
+		}
+		finally
+		{
+			OperationMetrics.removeExporter(json);
+		}
+	}
+
+	@Test
+	public void testDisabled()
+	{
+		OperationMetrics.disable();
+
+		try
+		{
+			OperationRunnable.execute(new OperationRunnable()
+			{
+				protected Result performOperation() throws Exception
+				{
+					return Result.SUCCESS;
+				}
+			}, null);
+
+			assertNull(OperationMetrics.getOptionalStats(new OperationRunnable()
+			{
+				protected Result performOperation() throws Exception
+				{
+					return Result.SUCCESS;
+				}
+			}.getClass(), null));
+		}
+		finally
+		{
+			OperationMetrics.enable();
+		}
+	}
+
+	@Test
+	public void testHistogramAccuracy()
+	{
+		for ( long value : new long[] { 0, 1, 7, 8, 15, 16, 100, 1_000, 123_456, 10_000_000_000L } )
+		{
+			int bucket = LatencyHistogram.bucketOf(value);
+
+			assertTrue(LatencyHistogram.lowestValueOf(bucket) <= value);
+			assertTrue(LatencyHistogram.lowestValueOf(bucket + 1) > value);
+			assertTrue(LatencyHistogram.lowestValueOf(bucket + 1) - LatencyHistogram.lowestValueOf(bucket) <= Math.max(1, value / 8));
+		}
+	}
+}
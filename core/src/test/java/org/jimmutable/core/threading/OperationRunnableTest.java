@@ -2,6 +2,8 @@ package org.jimmutable.core.threading;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jimmutable.core.threading.OperationPool;
 import org.jimmutable.core.threading.OperationRunnable;
@@ -90,4 +92,136 @@ public class OperationRunnableTest extends TestCase
     	
     	assertEquals(Result.STOPPED, result);
     }
-}
\ No newline at end of file
+    
+    public void testPoolFinishesWithoutPolling()
+    {
+    	Collection<OperationRunnable> seed = new ArrayList();
+    	
+    	for ( int i = 0; i < 8; i++ )
+    		seed.add(new SampleOperation(10,true));
+    	
+    	long start = System.currentTimeMillis();
+    	
+    	assertEquals(Result.SUCCESS, OperationRunnable.execute(new OperationPool(seed, 4), null));
+    	
+    	// Used to be at least 500ms (the polling interval)
+    	assertTrue(System.currentTimeMillis() - start < 400);
+    }
+    
+    /**
+     * An operation that submits count child operations to a pool
+     */
+    static private class FanOutOperation extends OperationRunnable
+    {
+    	private OperationPool pool;
+    	private int count;
+    	private AtomicInteger children_run;
+    	private AtomicInteger run_in_submitting_thread;
+    	
+    	public FanOutOperation(int count, AtomicInteger children_run, AtomicInteger run_in_submitting_thread)
+    	{
+    		this.count = count;
+    		this.children_run = children_run;
+    		this.run_in_submitting_thread = run_in_submitting_thread;
+    	}
+    	
+    	protected Result performOperation() throws Exception
+    	{
+    		Thread submitting_thread = Thread.currentThread();
+    		
+    		for ( int i = 0; i < count; i++ )
+    		{
+    			pool.submitOperation(new OperationRunnable()
+    			{
+    				protected Result performOperation() throws Exception
+    				{
+    					if ( Thread.currentThread() == submitting_thread ) run_in_submitting_thread.incrementAndGet();
+    					
+    					Thread.sleep(1);
+    					children_run.incrementAndGet();
+    					return Result.SUCCESS;
+    				}
+    			});
+    		}
+    		
+    		return Result.SUCCESS;
+    	}
+    }
+    
+    public void testPoolRunsSubmittedOperations()
+    {
+    	AtomicInteger children_run = new AtomicInteger();
+    	FanOutOperation seed = new FanOutOperation(200, children_run, new AtomicInteger());
+    	
+    	OperationPool pool = new OperationPool(seed, 4);
+    	seed.pool = pool;
+    	
+    	assertEquals(Result.SUCCESS, OperationRunnable.execute(pool, null));
+    	assertEquals(200, children_run.get());
+    	assertEquals(201, pool.getSimpleSubmittedTaskCount());
+    	assertEquals(0, pool.getSimpleUnfinishedTaskCount());
+    }
+    
+    public void testBoundedQueueAppliesBackpressure()
+    {
+    	AtomicInteger children_run = new AtomicInteger();
+    	AtomicInteger run_in_submitting_thread = new AtomicInteger();
+    	FanOutOperation seed = new FanOutOperation(200, children_run, run_in_submitting_thread);
+    	
+    	OperationPool pool = new OperationPool(seed, 2, 4);
+    	seed.pool = pool;
+    	
+    	assertEquals(Result.SUCCESS, OperationRunnable.execute(pool, null));
+    	assertEquals(200, children_run.get());
+    	
+    	// The queue filled up, so the seed had to run some of its children itself
+    	assertTrue(run_in_submitting_thread.get() > 0);
+    }
+    
+    public void testAwaitQuiescenceAndStop() throws Exception
+    {
+    	SampleOperation long_operation = new SampleOperation(2_000,true);
+    	OperationPool pool = new OperationPool(long_operation, 1);
+    	
+    	Thread runner = new Thread(pool);
+    	runner.start();
+    	
+    	assertFalse(pool.awaitQuiescence(50, TimeUnit.MILLISECONDS));
+    	
+    	long start = System.currentTimeMillis();
+    	
+    	pool.stop();
+    	runner.join(10_000);
+    	
+    	// The pool returns as soon as it is stopped, without waiting for its (sleeping) operation
+    	assertEquals(Result.STOPPED, pool.getOptionalResult(null));
+    	assertTrue(System.currentTimeMillis() - start < 1_000);
+    	
+    	assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+    }
+    
+    public void testThreadingMode()
+    {
+    	assertEquals(ThreadingMode.VIRTUAL, ThreadingMode.fromString(" Virtual ", ThreadingMode.PLATFORM));
+    	assertEquals(ThreadingMode.PLATFORM, ThreadingMode.fromString("platform", null));
+    	assertEquals(ThreadingMode.PLATFORM, ThreadingMode.fromString("carrier pigeon", ThreadingMode.PLATFORM));
+    	assertEquals(ThreadingMode.PLATFORM, ThreadingMode.fromString(null, ThreadingMode.PLATFORM));
+    	
+    	// Runs on virtual threads where supported, platform threads otherwise
+    	AtomicInteger children_run = new AtomicInteger();
+    	FanOutOperation seed = new FanOutOperation(500, children_run, new AtomicInteger());
+    	
+    	Collection<OperationRunnable> seeds = new ArrayList<>();
+    	seeds.add(seed);
+    	
+    	OperationPool pool = new OperationPool(seeds, 256, -1, ThreadingMode.VIRTUAL);
+    	seed.pool = pool;
+    	
+    	assertEquals(Result.SUCCESS, OperationRunnable.execute(pool, null));
+    	assertEquals(500, children_run.get());
+    	
+    	Thread thread = ThreadingMode.VIRTUAL.createThreadFactory(true).newThread(() -> {});
+    	assertTrue(thread.isDaemon());
+    	assertEquals(ThreadingMode.isVirtualThreadSupported(), thread.getClass() != Thread.class);
+    }
+}
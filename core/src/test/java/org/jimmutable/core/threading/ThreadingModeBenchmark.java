@@ -0,0 +1,80 @@
+package org.jimmutable.core.threading;
+
+import java.util.Collections;
+
+import org.jimmutable.core.utils.MicroBenchmark;
+
+/**
+ * Measures the throughput of an OperationPool running I/O bound operations
+ * (simulated by a short sleep, standing in for an S3 or Redis call) at 16, 256
+ * and 4096 concurrent operations, on platform threads and on virtual threads.
+ *
+ * Virtual threads need Java 21+, on older JVMs the VIRTUAL rows fall back to
+ * platform threads (and say so).
+ *
+ * Run via main(), not part of the unit test suite
+ *
+ * @author jim.kane
+ *
+ */
+public class ThreadingModeBenchmark
+{
+	static private final long CALL_MILLIS = 5;
+	static private final int CALLS_PER_THREAD = 10;
+
+	static private class BlockingCall extends OperationRunnable
+	{
+		protected Result performOperation() throws Exception
+		{
+			Thread.sleep(CALL_MILLIS);
+			return Result.SUCCESS;
+		}
+	}
+
+	static private class SubmitCalls extends OperationRunnable
+	{
+		private OperationPool pool;
+		private int count;
+
+		SubmitCalls(int count)
+		{
+			this.count = count;
+		}
+
+		protected Result performOperation() throws Exception
+		{
+			for ( int i = 0; i < count; i++ ) pool.submitOperation(new BlockingCall());
+			return Result.SUCCESS;
+		}
+	}
+
+	static private OperationPool createPool(ThreadingMode mode, int concurrency)
+	{
+		SubmitCalls seed = new SubmitCalls(concurrency * CALLS_PER_THREAD);
+
+		OperationPool pool = new OperationPool(Collections.singletonList(seed), concurrency, -1, mode);
+		seed.pool = pool;
+
+		return pool;
+	}
+
+	static public void main(String args[])
+	{
+		System.out.println(String.format("Java %s, virtual threads %s", System.getProperty("java.version"), ThreadingMode.isVirtualThreadSupported() ? "supported" : "NOT supported (VIRTUAL falls back to PLATFORM)"));
+
+		for ( int concurrency : new int[] { 16, 256, 4096 } )
+		{
+			for ( ThreadingMode mode : ThreadingMode.values() )
+			{
+				int calls = concurrency * CALLS_PER_THREAD;
+
+				MicroBenchmark.Result result = MicroBenchmark.run(mode + " x " + concurrency, 2, 5, calls, () -> {
+					OperationPool pool = createPool(mode, concurrency);
+					return () -> OperationRunnable.execute(pool, null);
+				});
+
+				System.out.println(String.format("%-14s %6d concurrent: %10.0f calls/s (ideal %d)", mode, concurrency, 1e9 / result.getSimpleNanosPerOp(), concurrency * 1000 / CALL_MILLIS));
+			}
+		}
+	}
+}
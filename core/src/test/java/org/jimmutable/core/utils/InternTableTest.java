@@ -0,0 +1,90 @@
+package org.jimmutable.core.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jimmutable.core.examples.book.Book;
+import org.jimmutable.core.exceptions.ValidationException;
+import org.jimmutable.core.objects.common.Kind;
+import org.jimmutable.core.serialization.FieldName;
+import org.jimmutable.core.serialization.JimmutableTypeNameRegister;
+import org.jimmutable.core.serialization.TypeName;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class InternTableTest
+{
+	@BeforeClass
+	static public void register()
+	{
+		JimmutableTypeNameRegister.registerAllTypes();
+	}
+
+	@Test
+	public void testIntern()
+	{
+		AtomicInteger created = new AtomicInteger();
+		InternTable<FieldName> table = new InternTable<>(10, name -> { created.incrementAndGet(); return new FieldName(name); });
+
+		FieldName foo = table.intern("foo");
+
+		assertSame(foo, table.intern("foo"));
+		assertSame(foo, table.intern(new String("foo")));
+		assertEquals(1, created.get());
+		assertEquals(1, table.size());
+	}
+
+	@Test
+	public void testBound()
+	{
+		InternTable<FieldName> table = new InternTable<>(2, FieldName::new);
+
+		table.intern("a");
+		table.intern("b");
+
+		// Full: new names are still made, just not remembered
+		FieldName c = table.intern("c");
+		assertEquals("c", c.getSimpleName());
+		assertNotSame(c, table.intern("c"));
+		assertEquals(2, table.size());
+
+		// ... unless they are registered
+		FieldName d = table.register("d");
+		assertSame(d, table.intern("d"));
+		assertSame(d, table.register("d"));
+		assertEquals(3, table.size());
+	}
+
+	@Test
+	public void testInvalid()
+	{
+		InternTable<FieldName> table = new InternTable<>(10, FieldName::new);
+
+		try
+		{
+			table.intern("Not A Field Name");
+			fail();
+		}
+		catch ( ValidationException e )
+		{
+		}
+
+		assertEquals(0, table.size());
+	}
+
+	@Test
+	public void testCanonicalInstances()
+	{
+		assertSame(Book.FIELD_TITLE.getSimpleFieldName(), FieldName.intern("title"));
+		assertSame(FieldName.FIELD_NAME_TYPE_HINT, FieldName.intern("type_hint"));
+
+		assertSame(Book.TYPE_NAME, TypeName.intern("jimmutable.examples.Book"));
+		assertSame(TypeName.TYPE_NAME_STRING, TypeName.intern("string"));
+
+		assertSame(Kind.intern("book"), Kind.CONVERTER.fromString("book", null));
+	}
+}
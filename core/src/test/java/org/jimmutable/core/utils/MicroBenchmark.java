@@ -0,0 +1,134 @@
+package org.jimmutable.core.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * A (very) small harness for the main() driven benchmarks that live next to
+ * the unit tests.
+ *
+ * Each round is set up (untimed) by calling the supplier, then the Runnable it
+ * returns is timed. Warm up rounds are run first so that the JIT has a chance
+ * to do its thing. Results are reported per operation, both in time and (when
+ * the VM supports it) bytes allocated by the current thread.
+ *
+ * This is not JMH, and numbers should be read as relative (before/after,
+ * option A vs. option B) rather than absolute.
+ *
+ * @author jim.kane
+ *
+ */
+public class MicroBenchmark
+{
+	static private final int DEFAULT_WARMUP_ROUNDS = 20;
+	static private final int DEFAULT_MEASURED_ROUNDS = 50;
+
+	/**
+	 * The result of running a benchmark
+	 */
+	static public class Result
+	{
+		private String label;
+		private double nanos_per_op;
+		private double bytes_per_op; // -1 if not available
+
+		private Result(String label, double nanos_per_op, double bytes_per_op)
+		{
+			this.label = label;
+			this.nanos_per_op = nanos_per_op;
+			this.bytes_per_op = bytes_per_op;
+		}
+
+		public String getSimpleLabel() { return label; }
+		public double getSimpleNanosPerOp() { return nanos_per_op; }
+		public double getSimpleBytesPerOp() { return bytes_per_op; }
+
+		public String toString()
+		{
+			if ( bytes_per_op < 0 ) return String.format("%-50s %12.1f ns/op", label, nanos_per_op);
+			return String.format("%-50s %12.1f ns/op %12.1f bytes/op", label, nanos_per_op, bytes_per_op);
+		}
+	}
+
+	/**
+	 * Run a benchmark with the default number of warm up and measured rounds,
+	 * and print the result to System.out
+	 *
+	 * @param label
+	 *            The label to report the results under
+	 * @param ops_per_round
+	 *            The number of operations performed by each round
+	 * @param setup
+	 *            Called (untimed) before each round, returns the (timed) round
+	 * @return The result
+	 */
+	static public Result run(String label, int ops_per_round, Supplier<Runnable> setup)
+	{
+		Result ret = run(label, DEFAULT_WARMUP_ROUNDS, DEFAULT_MEASURED_ROUNDS, ops_per_round, setup);
+		System.out.println(ret);
+		return ret;
+	}
+
+	/**
+	 * Run a benchmark
+	 *
+	 * @param label
+	 *            The label to report the results under
+	 * @param warmup_rounds
+	 *            The number of (discarded) warm up rounds
+	 * @param measured_rounds
+	 *            The number of measured rounds
+	 * @param ops_per_round
+	 *            The number of operations performed by each round
+	 * @param setup
+	 *            Called (untimed) before each round, returns the (timed) round
+	 * @return The result
+	 */
+	static public Result run(String label, int warmup_rounds, int measured_rounds, int ops_per_round, Supplier<Runnable> setup)
+	{
+		Validator.notNull(label, setup);
+		Validator.min(ops_per_round, 1);
+
+		for ( int i = 0; i < warmup_rounds; i++ )
+		{
+			setup.get().run();
+		}
+
+		long total_nanos = 0;
+		long total_bytes = 0;
+		boolean bytes_available = true;
+
+		for ( int i = 0; i < measured_rounds; i++ )
+		{
+			Runnable round = setup.get();
+
+			long bytes_before = allocatedBytes();
+			long start = System.nanoTime();
+
+			round.run();
+
+			total_nanos += System.nanoTime() - start;
+			long bytes_after = allocatedBytes();
+
+			if ( bytes_before < 0 || bytes_after < 0 ) bytes_available = false;
+			total_bytes += bytes_after - bytes_before;
+		}
+
+		double ops = (double)ops_per_round * measured_rounds;
+
+		return new Result(label, total_nanos / ops, bytes_available ? total_bytes / ops : -1);
+	}
+
+	static private long allocatedBytes()
+	{
+		try
+		{
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+			return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		catch(Throwable t)
+		{
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package org.jimmutable.core.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jimmutable.core.utils.ThreadPoolSinkExecutor.BackpressurePolicy;
+import org.junit.Test;
+
+public class RateLimitingEmitterTest
+{
+	static private class CountingSink implements Sink<Integer>
+	{
+		private AtomicInteger count = new AtomicInteger();
+
+		public void onEmit(Integer value)
+		{
+			count.incrementAndGet();
+		}
+	}
+
+	/**
+	 * A source that is dry until it is turned on
+	 */
+	static private class SwitchedSource implements Source<Integer>
+	{
+		private AtomicBoolean on = new AtomicBoolean();
+		private int count = 0;
+
+		public Integer getNext(Integer default_value)
+		{
+			if ( !on.get() ) return default_value;
+			return ++count;
+		}
+	}
+
+	static private void waitFor(CountingSink sink, int count) throws InterruptedException
+	{
+		long give_up = System.currentTimeMillis() + 5_000;
+		while ( sink.count.get() < count && System.currentTimeMillis() < give_up ) Thread.sleep(5);
+	}
+
+	@Test
+	public void testRate() throws Exception
+	{
+		CountingSink sink = new CountingSink();
+		RateLimitingEmitter<Integer> emitter = RateLimitingEmitter.startEmitter(new Source.CountSource(), sink, 2_000);
+
+		Thread.sleep(500);
+		emitter.kill();
+
+		long emitted = emitter.getSimpleEmittedCount();
+
+		// ~1,000 (generously, this may be a busy single core machine)
+		assertTrue("emitted " + emitted, emitted >= 600 && emitted <= 1_200);
+		assertEquals(0, emitter.getSimpleDroppedCount());
+	}
+
+	@Test
+	public void testBurst() throws Exception
+	{
+		SwitchedSource source = new SwitchedSource();
+		CountingSink sink = new CountingSink();
+
+		RateLimitingEmitter<Integer> emitter = RateLimitingEmitter.startEmitter(source, sink, 100, 50, 4, 1_000, BackpressurePolicy.BLOCK);
+
+		Thread.sleep(1_000); // a dry source, tokens build up (to at most 50)
+		source.on.set(true);
+
+		waitFor(sink, 50);
+		Thread.sleep(100);
+		emitter.kill();
+
+		// The burst of 50 at once, and then ~100/sec
+		int emitted = sink.count.get();
+		assertTrue("emitted " + emitted, emitted >= 50 && emitted <= 75);
+	}
+
+	@Test
+	public void testDropPolicy() throws Exception
+	{
+		CountDownLatch release = new CountDownLatch(1);
+		ThreadPoolSinkExecutor<Integer> executor = new ThreadPoolSinkExecutor<>(value -> awaitQuietly(release), 1, 1, BackpressurePolicy.DROP);
+
+		for ( int i = 0; i < 10; i++ ) executor.onEmit(i);
+
+		// One running, one queued, the rest dropped
+		assertEquals(8, executor.getSimpleDroppedCount());
+		assertEquals(1, executor.getSimpleQueueDepth());
+		assertTrue(executor.getSimpleActiveThreadCount() <= 1);
+
+		release.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	public void testCallerRunsPolicy() throws Exception
+	{
+		CountDownLatch release = new CountDownLatch(1);
+		Thread caller = Thread.currentThread();
+		AtomicInteger run_by_caller = new AtomicInteger();
+
+		ThreadPoolSinkExecutor<Integer> executor = new ThreadPoolSinkExecutor<>(value ->
+		{
+			if ( Thread.currentThread() == caller ) run_by_caller.incrementAndGet();
+			else awaitQuietly(release);
+		}, 1, 1, BackpressurePolicy.CALLER_RUNS);
+
+		for ( int i = 0; i < 5; i++ ) executor.onEmit(i);
+
+		assertEquals(3, run_by_caller.get());
+		assertEquals(0, executor.getSimpleDroppedCount());
+
+		release.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	public void testBlockPolicy() throws Exception
+	{
+		CountingSink counting_sink = new CountingSink();
+
+		ThreadPoolSinkExecutor<Integer> executor = new ThreadPoolSinkExecutor<>(value ->
+		{
+			sleepQuietly(2);
+			counting_sink.onEmit(value);
+		}, 2, 2, BackpressurePolicy.BLOCK);
+
+		for ( int i = 0; i < 50; i++ ) executor.onEmit(i);
+
+		waitFor(counting_sink, 50);
+
+		assertEquals(50, counting_sink.count.get());
+		assertEquals(0, executor.getSimpleDroppedCount());
+
+		executor.shutdown();
+	}
+
+	static private void awaitQuietly(CountDownLatch latch)
+	{
+		try { latch.await(10, TimeUnit.SECONDS); } catch ( InterruptedException e ) { }
+	}
+
+	static private void sleepQuietly(long millis)
+	{
+		try { Thread.sleep(millis); } catch ( InterruptedException e ) { }
+	}
+}